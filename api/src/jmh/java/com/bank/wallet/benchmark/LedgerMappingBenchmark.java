@@ -0,0 +1,90 @@
+package com.bank.wallet.benchmark;
+
+import com.bank.wallet.dto.wallet.LedgerEntryDto;
+import com.bank.wallet.entity.LedgerEntry;
+import com.bank.wallet.entity.enums.PostingType;
+import com.bank.wallet.mapper.WalletMapper;
+import com.bank.wallet.validator.LedgerValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ledger page mapping (500 entries, the max page size), ledger validation and the money rounding used by the mappers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LedgerMappingBenchmark {
+
+	private static final int PAGE_SIZE = 500;
+
+	private WalletMapper walletMapper;
+	private LedgerValidator ledgerValidator;
+	private List<LedgerEntry> entries;
+	private BigDecimal balance;
+
+	@Setup
+	public void setUp() {
+		walletMapper = new WalletMapper();
+		ledgerValidator = new LedgerValidator();
+		var random = ThreadLocalRandom.current();
+		var walletId = UUID.randomUUID();
+		var now = OffsetDateTime.now();
+		entries = new ArrayList<>(PAGE_SIZE);
+		var running = BigDecimal.ZERO;
+		for (var i = 0; i < PAGE_SIZE; i++) {
+			var deposit = random.nextBoolean();
+			var amount = BigDecimal.valueOf(random.nextLong(1, 1_000_000), 4);
+			var signed = deposit ? amount : amount.negate();
+			running = running.add(signed);
+			entries.add(LedgerEntry.builder()
+				.ledgerId(UUID.randomUUID())
+				.txId(UUID.randomUUID())
+				.walletId(walletId)
+				.amount(signed)
+				.postingType(deposit ? PostingType.DEPOSIT : PostingType.WITHDRAW)
+				.currentBalance(running)
+				.createdAt(now.minusSeconds(i))
+				.build());
+		}
+		balance = new BigDecimal("1042.1250");
+	}
+
+	@Benchmark
+	public List<LedgerEntryDto> mapLedgerEntries() {
+		return walletMapper.mapLedgerEntries(entries);
+	}
+
+	@Benchmark
+	public void validateLedgerEntry(Blackhole blackhole) {
+		var entry = entries.getFirst();
+		ledgerValidator.validate(entry);
+		blackhole.consume(entry);
+	}
+
+	@Benchmark
+	public BigDecimal setScale() {
+		return balance.setScale(2, RoundingMode.HALF_UP);
+	}
+}
@@ -0,0 +1,90 @@
+package com.bank.wallet.benchmark;
+
+import com.bank.wallet.dto.transfer.TransferRequestDto;
+import com.bank.wallet.dto.wallet.TransactionRequestDto;
+import com.bank.wallet.util.ContextUtils;
+import com.bank.wallet.util.RequestHasher;
+import com.bank.wallet.util.SerializationUtils;
+import com.google.common.hash.Hashing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Idempotency request hash, paid on every POST: re-serializing the parsed DTO (previous hex string and current
+ * fallback) against canonicalizing and hashing the body bytes as received, which is what {@code RequestHashingFilter}
+ * does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestHashBenchmark {
+
+	private SerializationUtils serializationUtils;
+	private ContextUtils contextUtils;
+	private TransactionRequestDto transactionRequest;
+	private TransferRequestDto transferRequest;
+	private String walletPath;
+	private String transferPath;
+	private byte[] transferBody;
+	private byte[] prettyTransferBody;
+
+	@Setup
+	public void setUp() {
+		serializationUtils = new SerializationUtils(Jackson2ObjectMapperBuilder.json().build());
+		contextUtils = new ContextUtils(serializationUtils);
+		transactionRequest = TransactionRequestDto.builder().amount(new BigDecimal("125.50")).build();
+		transferRequest = TransferRequestDto.builder()
+			.fromWalletId(UUID.randomUUID())
+			.toWalletId(UUID.randomUUID())
+			.amount(new BigDecimal("125.50"))
+			.build();
+		walletPath = "/wallet-api/api/v1/wallets/" + UUID.randomUUID() + "/deposit";
+		transferPath = "/wallet-api/api/v1/transfers";
+		var json = "{\"fromWalletId\":\"" + transferRequest.getFromWalletId() + "\",\"toWalletId\":\"" + transferRequest.getToWalletId() + "\",\"amount\":125.50}";
+		transferBody = json.getBytes(StandardCharsets.UTF_8);
+		prettyTransferBody = json.replace("{", "{\n  ").replace(",", ",\n  ").replace(":", ": ").replace("}", "\n}").getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public String transferHashHex() {
+		var input = "POST" + transferPath + serializationUtils.toJson(transferRequest);
+		return Hashing.sha256().hashString(input, StandardCharsets.UTF_8).toString();
+	}
+
+	@Benchmark
+	public byte[] depositHash() {
+		return contextUtils.generateRequestHash("POST", walletPath, transactionRequest);
+	}
+
+	@Benchmark
+	public byte[] transferHash() {
+		return contextUtils.generateRequestHash("POST", transferPath, transferRequest);
+	}
+
+	@Benchmark
+	public byte[] transferRawBodyHash() {
+		return RequestHasher.hash("POST", transferPath, transferBody);
+	}
+
+	@Benchmark
+	public byte[] transferPrettyRawBodyHash() {
+		return RequestHasher.hash("POST", transferPath, prettyTransferBody);
+	}
+}
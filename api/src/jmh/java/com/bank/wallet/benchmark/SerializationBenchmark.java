@@ -0,0 +1,68 @@
+package com.bank.wallet.benchmark;
+
+import com.bank.wallet.dto.transfer.TransferResponseDto;
+import com.bank.wallet.dto.wallet.TransactionResponseDto;
+import com.bank.wallet.mapper.TransactionMapper;
+import com.bank.wallet.mapper.TransferMapper;
+import com.bank.wallet.util.SerializationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response bodies serialized once per request and stored on the idempotency key. {@code *String} is the previous
+ * path (String, then re-encoded to UTF-8 on the way out); {@code *Bytes} is the stored form. Run with
+ * {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	private SerializationUtils serializationUtils;
+	private TransactionResponseDto transactionResponse;
+	private TransferResponseDto transferResponse;
+
+	@Setup
+	public void setUp() {
+		serializationUtils = new SerializationUtils(Jackson2ObjectMapperBuilder.json().build());
+		transactionResponse = new TransactionMapper().toResponseDto(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("1042.1250"));
+		transferResponse = new TransferMapper().toResponse(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("125.5000"));
+	}
+
+	@Benchmark
+	public byte[] transactionResponseString() {
+		return serializationUtils.toJson(transactionResponse).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public byte[] transactionResponseBytes() {
+		return serializationUtils.toJsonBytes(transactionResponse);
+	}
+
+	@Benchmark
+	public byte[] transferResponseString() {
+		return serializationUtils.toJson(transferResponse).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public byte[] transferResponseBytes() {
+		return serializationUtils.toJsonBytes(transferResponse);
+	}
+}
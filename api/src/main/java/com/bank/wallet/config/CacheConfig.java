@@ -1,9 +1,75 @@
 package com.bank.wallet.config;
 
+import com.bank.wallet.entity.IdempotencyKey;
+import com.bank.wallet.service.ImmutableResultCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @EnableCaching
 public class CacheConfig {
+
+	public static final String IDEMPOTENCY_REPLAYS = "idempotency-replays";
+	public static final String WALLET_SNAPSHOTS = "wallet-snapshots";
+	public static final String IMMUTABLE_RESULTS = "immutable-results";
+
+	// fixed cost of the key, entity and map entry on top of the body characters
+	private static final int REPLAY_ENTRY_OVERHEAD_BYTES = 256;
+
+	/**
+	 * Registers the bounded replay cache. Caches registered here are bound to Micrometer at startup,
+	 * so hits, misses and evictions show up under {@code cache.*} with {@code cache=idempotency-replays}.
+	 */
+	@Bean
+	public CacheManagerCustomizer<CaffeineCacheManager> replayCacheCustomizer(WalletProperties walletProperties) {
+		var properties = walletProperties.getIdempotency().getReplayCache();
+		// a replay must not outlive the key it answers for
+		var ttl = Duration.ofSeconds(properties.getTtlSeconds()).compareTo(Duration.ofDays(walletProperties.getIdempotency().getRetentionDays())) < 0
+			? Duration.ofSeconds(properties.getTtlSeconds())
+			: Duration.ofDays(walletProperties.getIdempotency().getRetentionDays());
+		return cacheManager -> cacheManager.registerCustomCache(IDEMPOTENCY_REPLAYS, Caffeine.newBuilder()
+			.maximumWeight(properties.getMaximumWeightBytes())
+			.<Object, Object>weigher((key, value) -> weigh((IdempotencyKey) value))
+			.expireAfterWrite(ttl)
+			.recordStats()
+			.build());
+	}
+
+	/**
+	 * Registers the wallet snapshot cache. Entries are kept fresh by change notifications; the expiry only
+	 * bounds how long a snapshot can outlive a missed one.
+	 */
+	@Bean
+	public CacheManagerCustomizer<CaffeineCacheManager> walletCacheCustomizer(WalletProperties walletProperties) {
+		var properties = walletProperties.getWalletCache();
+		return cacheManager -> cacheManager.registerCustomCache(WALLET_SNAPSHOTS, Caffeine.newBuilder()
+			.maximumSize(properties.getMaximumSize())
+			.expireAfterWrite(Duration.ofMillis(properties.getMaxStalenessMillis()))
+			.recordStats()
+			.build());
+	}
+
+	/**
+	 * Registers the cache for results that can no longer change. Entries never go stale, so only their size
+	 * bounds them.
+	 */
+	@Bean
+	public CacheManagerCustomizer<CaffeineCacheManager> immutableResultCacheCustomizer(WalletProperties walletProperties) {
+		return cacheManager -> cacheManager.registerCustomCache(IMMUTABLE_RESULTS, Caffeine.newBuilder()
+			.maximumWeight(walletProperties.getImmutableCache().getMaximumWeightBytes())
+			.<Object, Object>weigher((key, value) -> REPLAY_ENTRY_OVERHEAD_BYTES + ((ImmutableResultCache.Result) value).body().length)
+			.recordStats()
+			.build());
+	}
+
+	private static int weigh(IdempotencyKey key) {
+		var body = key.getResponseBody();
+		return REPLAY_ENTRY_OVERHEAD_BYTES + (body == null ? 0 : body.length);
+	}
 }
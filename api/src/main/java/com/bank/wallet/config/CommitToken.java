@@ -0,0 +1,17 @@
+package com.bank.wallet.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a write endpoint whose effects are read back through replica-routed endpoints, so its successful responses
+ * carry a commit token (see {@link CommitTokenAdvice}).
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CommitToken {
+}
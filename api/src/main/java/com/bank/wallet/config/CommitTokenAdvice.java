@@ -0,0 +1,60 @@
+package com.bank.wallet.config;
+
+import com.bank.wallet.util.ReadRouting;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.sql.DataSource;
+
+/**
+ * Stamps successful writes on {@link CommitToken} endpoints with the primary's current WAL position. Clients that send
+ * it back as {@value ReadRouting#COMMIT_TOKEN_HEADER} are only served by replicas that have replayed at least that far.
+ * Other responses, including errors and 202 Accepted (the transfer is applied later), cost no extra query.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(prefix = "wallet.replica", name = "enabled", havingValue = "true")
+@Slf4j
+public class CommitTokenAdvice implements ResponseBodyAdvice<Object> {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public CommitTokenAdvice(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return returnType.hasMethodAnnotation(CommitToken.class);
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+	                              Class<? extends HttpMessageConverter<?>> selectedConverterType,
+	                              ServerHttpRequest request, ServerHttpResponse response) {
+		if (!isCommitted(response)) return body;
+		try {
+			// the write has committed by now, so the current position is at or past its commit record
+			response.getHeaders().set(ReadRouting.COMMIT_TOKEN_HEADER, jdbcTemplate.queryForObject("SELECT pg_current_wal_lsn()::text", String.class));
+		} catch (RuntimeException e) {
+			// without a token the client's next read simply isn't pinned; never fail a committed write over it
+			log.warn("Could not read commit token: reason={}", e.getMessage());
+		}
+		return body;
+	}
+
+	private static boolean isCommitted(ServerHttpResponse response) {
+		if (!(response instanceof ServletServerHttpResponse servletResponse)) return false;
+		var status = servletResponse.getServletResponse().getStatus();
+		return status / 100 == 2 && status != HttpStatus.ACCEPTED.value();
+	}
+}
@@ -0,0 +1,63 @@
+package com.bank.wallet.config;
+
+import com.bank.wallet.util.ReadRouting;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.LinkedHashMap;
+
+/**
+ * Replaces the auto-configured pool with a routing DataSource when read replicas are configured.
+ * The primary pool keeps the {@code spring.datasource.hikari} settings; each replica gets its own read-only pool.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "wallet.replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+	@Bean(defaultCandidate = false)
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+		return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean
+	@Primary
+	public ReplicaRoutingDataSource dataSource(
+		@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+		DataSourceProperties dataSourceProperties,
+		WalletProperties walletProperties,
+		ReadRouting readRouting,
+		MeterRegistry meterRegistry
+	) {
+		var properties = walletProperties.getReplica();
+		if (properties.getUrls().isEmpty()) throw new IllegalStateException("wallet.replica.urls must not be empty when replicas are enabled");
+
+		var replicas = new LinkedHashMap<String, HikariDataSource>();
+		for (var i = 0; i < properties.getUrls().size(); i++) {
+			var replica = new HikariDataSource();
+			replica.setPoolName("replica-" + i);
+			replica.setJdbcUrl(properties.getUrls().get(i));
+			replica.setUsername(properties.getUsername() != null ? properties.getUsername() : dataSourceProperties.determineUsername());
+			replica.setPassword(properties.getPassword() != null ? properties.getPassword() : dataSourceProperties.determinePassword());
+			replica.setMaximumPoolSize(properties.getMaximumPoolSize());
+			replica.setReadOnly(true);
+			replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+			replicas.put(replica.getPoolName(), replica);
+		}
+		return new ReplicaRoutingDataSource(readRouting, primaryDataSource, replicas);
+	}
+
+	@Bean
+	public ReplicaLagMonitor replicaLagMonitor(ReplicaRoutingDataSource dataSource, ReadRouting readRouting,
+	                                           WalletProperties walletProperties, MeterRegistry meterRegistry) {
+		return new ReplicaLagMonitor(dataSource.getReplicas(), readRouting, walletProperties, meterRegistry);
+	}
+}
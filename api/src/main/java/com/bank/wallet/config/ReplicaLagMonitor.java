@@ -0,0 +1,79 @@
+package com.bank.wallet.config;
+
+import com.bank.wallet.util.ReadRouting;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Polls every replica for its replay lag and position and publishes them to {@link ReadRouting}.
+ * A replica that can't be reached, or isn't in recovery, stops receiving reads until the next successful check.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+	static final String LAG_METRIC = "wallet.replica.lag";
+
+	// an idle primary produces no WAL, so a fully replayed replica reports no lag instead of the age of the last commit,
+	// but only while its walreceiver is streaming and has heard from the primary recently: a disconnected or hung receiver
+	// also stops advancing the receive LSN. Without a receiver the lag is unknown (NULL); a silent one reports its silence.
+	private static final String STATUS_SQL = """
+		SELECT CASE WHEN r.status IS DISTINCT FROM 'streaming' THEN NULL
+		            WHEN r.last_msg_receipt_time < now() - ? * interval '1 millisecond'
+		              THEN (EXTRACT(EPOCH FROM now() - r.last_msg_receipt_time) * 1000)::bigint
+		            WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+		            ELSE COALESCE((EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000)::bigint, 0) END AS lag_millis,
+		       pg_last_wal_replay_lsn()::text AS replay_lsn
+		FROM (SELECT 1) AS s LEFT JOIN pg_stat_wal_receiver AS r ON true
+		""";
+
+	private final Map<String, JdbcTemplate> replicas;
+	private final ReadRouting readRouting;
+	private final WalletProperties.Replica properties;
+	private final Map<String, Long> lastLagMillis = new ConcurrentHashMap<>();
+
+	public ReplicaLagMonitor(Map<String, ? extends DataSource> replicas, ReadRouting readRouting,
+	                         WalletProperties walletProperties, MeterRegistry meterRegistry) {
+		this.replicas = replicas.entrySet().stream()
+			.collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> new JdbcTemplate(e.getValue())));
+		this.readRouting = readRouting;
+		this.properties = walletProperties.getReplica();
+		this.replicas.keySet().forEach(name -> Gauge.builder(LAG_METRIC, lastLagMillis, m -> m.getOrDefault(name, -1L))
+			.tag("replica", name)
+			.baseUnit("milliseconds")
+			.register(meterRegistry));
+		checkAll();
+	}
+
+	@Scheduled(fixedDelayString = "${wallet.replica.lag-check-interval-millis:1000}")
+	public void checkAll() {
+		replicas.forEach(this::check);
+	}
+
+	private void check(String name, JdbcTemplate jdbcTemplate) {
+		try {
+			var status = jdbcTemplate.queryForObject(STATUS_SQL, (rs, rowNum) -> {
+				var replayLsn = rs.getString("replay_lsn");
+				if (replayLsn == null) return new ReadRouting.ReplicaStatus(false, Long.MAX_VALUE, 0L);
+				var lagMillis = rs.getLong("lag_millis");
+				return new ReadRouting.ReplicaStatus(true, rs.wasNull() ? Long.MAX_VALUE : lagMillis, ReadRouting.parseLsn(replayLsn));
+			}, properties.getReceiverTimeoutMillis());
+			if (!status.healthy()) log.warn("Replica is not in recovery, skipping it: replica={}", name);
+			else if (status.lagMillis() == Long.MAX_VALUE) log.warn("Replica is not streaming from the primary, skipping it: replica={}", name);
+			else if (status.lagMillis() > properties.getMaxLagMillis()) log.warn("Replica lagging: replica={}, lagMillis={}", name, status.lagMillis());
+			lastLagMillis.put(name, status.lagMillis());
+			readRouting.updateStatus(name, status);
+		} catch (RuntimeException e) {
+			log.warn("Replica check failed: replica={}, reason={}", name, e.getMessage());
+			lastLagMillis.remove(name);
+			readRouting.updateStatus(name, new ReadRouting.ReplicaStatus(false, Long.MAX_VALUE, 0L));
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.bank.wallet.config;
+
+import com.bank.wallet.util.ReadRouting;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out replica connections for reads wrapped in {@link ReadRouting#onReplica} and primary connections for everything else.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+	private final ReadRouting readRouting;
+	private final HikariDataSource primary;
+	private final Map<String, HikariDataSource> replicas;
+
+	public ReplicaRoutingDataSource(ReadRouting readRouting, HikariDataSource primary, Map<String, HikariDataSource> replicas) {
+		this.readRouting = readRouting;
+		this.primary = primary;
+		this.replicas = replicas;
+		setDefaultTargetDataSource(primary);
+		setTargetDataSources(new HashMap<>(replicas));
+		// an unknown key is a bug, not a reason to silently read from the primary
+		setLenientFallback(false);
+	}
+
+	public Map<String, ? extends DataSource> getReplicas() {
+		return replicas;
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return readRouting.currentTarget();
+	}
+
+	@Override
+	public void close() {
+		replicas.values().forEach(HikariDataSource::close);
+		primary.close();
+	}
+}
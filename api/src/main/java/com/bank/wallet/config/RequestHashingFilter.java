@@ -0,0 +1,27 @@
+package com.bank.wallet.config;
+
+import com.bank.wallet.util.HashingRequestWrapper;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+@Component
+public class RequestHashingFilter implements Filter {
+
+	/* Hashes idempotent request bodies as they are read instead of re-serializing the parsed DTO */
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+		if (request instanceof HttpServletRequest httpRequest && "POST".equals(httpRequest.getMethod())) {
+			chain.doFilter(new HashingRequestWrapper(httpRequest), response);
+			return;
+		}
+		chain.doFilter(request, response);
+	}
+}
@@ -0,0 +1,30 @@
+package com.bank.wallet.config;
+
+import com.bank.wallet.entity.IdempotencyKey;
+import com.bank.wallet.entity.LedgerEntry;
+import com.bank.wallet.entity.Wallet;
+import com.bank.wallet.repository.EntityRowMappers;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jdbc.repository.QueryMappingConfiguration;
+import org.springframework.data.jdbc.repository.config.DefaultQueryMappingConfiguration;
+
+/**
+ * Maps rows of {@code @Query} methods with {@link EntityRowMappers} instead of Spring Data JDBC's reflective entity
+ * materialization. Switch off with wallet.data-access.row-mappers=false to compare both; derived CrudRepository
+ * methods such as findById are not affected either way, and neither are the idempotency claims, which name
+ * {@link EntityRowMappers#IDEMPOTENCY_CLAIM} themselves.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "wallet.data-access", name = "row-mappers", havingValue = "true", matchIfMissing = true)
+public class RowMapperConfig {
+
+	@Bean
+	public QueryMappingConfiguration rowMappers() {
+		return new DefaultQueryMappingConfiguration()
+			.registerRowMapper(Wallet.class, EntityRowMappers.WALLET)
+			.registerRowMapper(LedgerEntry.class, EntityRowMappers.LEDGER_ENTRY)
+			.registerRowMapper(IdempotencyKey.class, EntityRowMappers.IDEMPOTENCY_KEY);
+	}
+}
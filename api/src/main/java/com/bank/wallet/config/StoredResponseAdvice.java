@@ -0,0 +1,41 @@
+package com.bank.wallet.config;
+
+import com.bank.wallet.util.GzipUtils;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Stored response bodies may be gzipped (wallet.idempotency.response-compression-min-bytes) and are sent with
+ * Content-Encoding: gzip. Clients that don't accept gzip get them inflated here, on the request thread, which
+ * also covers responses built on coalescer workers where the request isn't visible.
+ */
+@ControllerAdvice
+public class StoredResponseAdvice implements ResponseBodyAdvice<Object> {
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return ByteArrayHttpMessageConverter.class.isAssignableFrom(converterType);
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+	                              Class<? extends HttpMessageConverter<?>> selectedConverterType,
+	                              ServerHttpRequest request, ServerHttpResponse response) {
+		if (!(body instanceof byte[] bytes) || !GzipUtils.isGzipped(bytes)) return body;
+		if (!"gzip".equals(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)) || acceptsGzip(request)) return body;
+		response.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+		return GzipUtils.gunzip(bytes);
+	}
+
+	private static boolean acceptsGzip(ServerHttpRequest request) {
+		return request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING).stream()
+			.anyMatch(value -> value.toLowerCase().contains("gzip"));
+	}
+}
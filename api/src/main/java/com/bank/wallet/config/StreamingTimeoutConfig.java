@@ -0,0 +1,50 @@
+package com.bank.wallet.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.lang.NonNull;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Ledger exports stream until their last page is written, so handlers returning a {@link StreamingResponseBody}
+ * get wallet.ledger.export-timeout-millis instead of the async request timeout every other request keeps.
+ */
+@Configuration
+public class StreamingTimeoutConfig {
+	@Bean
+	public WebMvcConfigurer streamingTimeoutConfigurer(WalletProperties walletProperties) {
+		var timeoutMillis = walletProperties.getLedger().getExportTimeoutMillis();
+		return new WebMvcConfigurer() {
+			@Override
+			public void configureAsyncSupport(@NonNull AsyncSupportConfigurer configurer) {
+				configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+					@Override
+					public <T> void beforeConcurrentHandling(@NonNull NativeWebRequest request, @NonNull Callable<T> task) {
+						// called before the request goes async, while its timeout can still change
+						if (request instanceof AsyncWebRequest asyncRequest && isStreaming(request)) asyncRequest.setTimeout(timeoutMillis);
+					}
+				});
+			}
+		};
+	}
+
+	static boolean isStreaming(NativeWebRequest request) {
+		if (!(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof HandlerMethod handler)) {
+			return false;
+		}
+		var returnType = ResolvableType.forMethodParameter(handler.getReturnType());
+		return StreamingResponseBody.class.isAssignableFrom(returnType.toClass())
+			|| StreamingResponseBody.class.isAssignableFrom(returnType.getGeneric(0).toClass());
+	}
+}
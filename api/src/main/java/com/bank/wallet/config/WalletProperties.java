@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 @Component
 @ConfigurationProperties(prefix = "wallet")
@@ -11,6 +14,17 @@ public class WalletProperties {
 
     private App app = new App();
     private Idempotency idempotency = new Idempotency();
+    private Coalescer coalescer = new Coalescer();
+    private Transfer transfer = new Transfer();
+    private Ledger ledger = new Ledger();
+    private Replica replica = new Replica();
+    private WalletCache walletCache = new WalletCache();
+    private WalletFilter walletFilter = new WalletFilter();
+    private ImmutableCache immutableCache = new ImmutableCache();
+    private Admission admission = new Admission();
+    private Outbox outbox = new Outbox();
+    private BalanceStream balanceStream = new BalanceStream();
+    private DataAccess dataAccess = new DataAccess();
 
     @Data
     public static class App {
@@ -46,5 +60,185 @@ public class WalletProperties {
     @Data
     public static class Idempotency {
         private int staleThresholdSeconds = 5;
+        // whole daily partitions older than this are dropped
+        private int retentionDays = 7;
+        private int partitionsAheadDays = 3;
+        private String partitionMaintenanceCron = "0 5 * * * *";
+        // stored response bodies at least this large are gzipped; 0 stores them as plain JSON
+        private int responseCompressionMinBytes = 0;
+        // claim, money movement and completion commit together; duplicates wait on the first request instead of seeing in_progress
+        private boolean singleCommit = false;
+        // how long a single-commit duplicate waits for the first request before answering IDEMPOTENCY_IN_PROGRESS
+        private int singleCommitLockTimeoutMillis = 2000;
+        private ReplayCache replayCache = new ReplayCache();
+    }
+
+    @Data
+    public static class ReplayCache {
+        private boolean enabled = true;
+        // approximate bytes of cached response bodies kept per node
+        private long maximumWeightBytes = 64L * 1024 * 1024;
+        private long ttlSeconds = 86400;
+    }
+
+    @Data
+    public static class Coalescer {
+        private boolean enabled = false;
+        // how long the first posting of a batch waits for others to join
+        private long windowMillis = 2;
+        private int maxBatch = 64;
+        private int workers = 4;
+        // timeout-millis plus flush-timeout-seconds must stay below idempotency.stale-threshold-seconds, checked at startup:
+        // a queued posting is dropped once the caller stopped waiting, and a batch transaction is rolled back past its flush timeout
+        private long timeoutMillis = 2000;
+        private int flushTimeoutSeconds = 2;
+    }
+
+    @Data
+    public static class Ledger {
+        // monthly partitions are created this far ahead; they are never dropped
+        private int partitionsAheadMonths = 3;
+        private String partitionMaintenanceCron = "0 10 3 * * *";
+        // rows read per keyset page by the export; a connection is held only while a page is read
+        private int exportPageSize = 1000;
+        // an export streams until its last page is written; other requests keep the default async timeout
+        private long exportTimeoutMillis = 1_800_000;
+    }
+
+    @Data
+    public static class Replica {
+        private boolean enabled = false;
+        private List<String> urls = new ArrayList<>();
+        // fall back to spring.datasource credentials when unset
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+        // replicas further behind than this are skipped and reads go to the primary
+        private long maxLagMillis = 1000;
+        private long lagCheckIntervalMillis = 1000;
+        // a caught-up replica whose walreceiver has not heard from the primary for this long counts as lagging; an idle
+        // primary only answers the receiver's ping every wal_receiver_timeout / 2 (30s by default), so keep it above that
+        private long receiverTimeoutMillis = 45_000;
+    }
+
+    @Data
+    public static class WalletCache {
+        // off by default: while on, every balance UPDATE commits through a NOTIFY (see 014)
+        private boolean enabled = false;
+        private long maximumSize = 100_000;
+        // upper bound on how long a snapshot is served if a change notification is missed
+        private long maxStalenessMillis = 5000;
+        private long listenerReconnectMillis = 1000;
+    }
+
+    @Data
+    public static class WalletFilter {
+        private boolean enabled = true;
+        private double falsePositiveProbability = 0.01;
+        // sized for the estimated wallet count times headroom, and never below minimum-capacity
+        private long minimumCapacity = 1_000_000;
+        private double headroom = 2.0;
+        private int scanPageSize = 10_000;
+        // rebuilt larger once it holds more wallets than it was sized for
+        private long resizeCheckMillis = 60_000;
+        // check every miss against the database, for a wallet created on another node whose notification hasn't arrived
+        // yet; off, misses only query the database while the listener is reconnecting
+        private boolean confirmMisses = false;
+    }
+
+    @Data
+    public static class ImmutableCache {
+        // caches balance history and closed ledger ranges once they are older than the settled horizon
+        private boolean enabled = true;
+        private long maximumWeightBytes = 64L * 1024 * 1024;
+        // postings are stamped with the time their request was first seen, so this must exceed the longest
+        // request plus clock skew between nodes plus replica lag
+        private long settledHorizonMillis = 60_000;
+    }
+
+    @Data
+    public static class Admission {
+        private boolean enabled = true;
+        // concurrent requests allowed to do database work; 0 uses spring.datasource.hikari.maximum-pool-size less
+        // reserved-connections, the transfer queue workers and the outbox relay, when those are enabled
+        private int permits = 0;
+        // connections left for work that takes no permit: scheduled maintenance, filter scans, reads and export pages
+        private int reservedConnections = 2;
+        // kept below the Hikari connection-timeout so overload surfaces as 503, not as a pool timeout
+        private long acquireTimeoutMillis = 5000;
+    }
+
+    @Data
+    public static class DataAccess {
+        // map @Query results with the hand-written EntityRowMappers instead of reflective entity mapping
+        private boolean rowMappers = true;
+    }
+
+    @Data
+    public static class BalanceStream {
+        // server-sent balance events fed by the ledger_postings notifications
+        private boolean enabled = false;
+        // per node; subscribers beyond this are answered 503
+        private int maxSubscribers = 50_000;
+        // a subscriber this far behind is disconnected and reconnects with a fresh snapshot
+        private int maxPendingEvents = 64;
+        private long heartbeatMillis = 15_000;
+        private long timeoutMillis = 1_800_000;
+    }
+
+    @Data
+    public static class Outbox {
+        // copy every ledger posting into ledger_outbox and relay it to the configured sinks
+        private boolean enabled = false;
+        private int batchSize = 500;
+        // idle relay polls the outbox this often, and waits this long after a failed batch
+        private long pollIntervalMillis = 200;
+        private Webhook webhook = new Webhook();
+        private File file = new File();
+    }
+
+    @Data
+    public static class Webhook {
+        // batches are POSTed here as NDJSON when set
+        private String url;
+        private long timeoutMillis = 5000;
+    }
+
+    @Data
+    public static class File {
+        // batches are appended here as NDJSON when set
+        private String path;
+    }
+
+    @Data
+    public static class Transfer {
+        private TransferEngine engine = TransferEngine.STANDARD;
+        // most transfers accepted by one batch request; every item is kept in memory and locked for the whole transaction
+        private int batchMaxSize = 1000;
+        // most payouts in one disbursement; each costs a few bind parameters and Postgres allows 65535 per statement
+        private int disbursementMaxSize = 5000;
+        private Async async = new Async();
+    }
+
+    @Data
+    public static class Async {
+        // honours Prefer: respond-async on POST /transfers; otherwise transfers always run synchronously
+        private boolean enabled = false;
+        // each worker holds a pool connection while it drains a batch
+        private int workers = 2;
+        private int batchSize = 100;
+        // idle workers poll the queue this often
+        private long pollIntervalMillis = 100;
+        // failed batches a transfer may be part of before it is dead-lettered and its key completed as failed
+        private int maxAttempts = 5;
+        // wait before the first retry of a failed transfer, doubled for every further attempt
+        private long retryBackoffMillis = 1000;
+    }
+
+    public enum TransferEngine {
+        // one statement per wallet update, ledger row, transfer row and idempotency completion
+        STANDARD,
+        // the whole transfer in one call to the execute_transfer database function
+        SINGLE_STATEMENT
     }
 }
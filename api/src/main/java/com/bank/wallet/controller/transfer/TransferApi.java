@@ -1,5 +1,10 @@
 package com.bank.wallet.controller.transfer;
 
+import com.bank.wallet.dto.transfer.DisbursementRequestDto;
+import com.bank.wallet.dto.transfer.DisbursementResponseDto;
+import com.bank.wallet.dto.transfer.TransferAcceptedResponseDto;
+import com.bank.wallet.dto.transfer.TransferBatchRequestDto;
+import com.bank.wallet.dto.transfer.TransferBatchResponseDto;
 import com.bank.wallet.dto.transfer.TransferRequestDto;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -17,9 +22,12 @@ import java.util.UUID;
 @Tag(name = "Transfers", description = "Wallet to wallet transfer operations")
 public interface TransferApi {
 
-	@Operation(summary = "Create transfer", description = "Atomically moves funds between two wallets")
+	@Operation(summary = "Create transfer", description = "Atomically moves funds between two wallets. "
+		+ "With Prefer: respond-async and wallet.transfer.async.enabled the transfer is queued and answered with 202 and a status URL.")
 	@ApiResponses({
 		@ApiResponse(responseCode = "200", description = "Transfer completed"),
+		@ApiResponse(responseCode = "202", description = "Transfer queued, poll statusUrl for the outcome",
+			content = @Content(schema = @Schema(implementation = TransferAcceptedResponseDto.class))),
 		@ApiResponse(responseCode = "400", description = "Invalid request",
 			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
 		@ApiResponse(responseCode = "404", description = "Wallet not found",
@@ -31,8 +39,67 @@ public interface TransferApi {
 		@ApiResponse(responseCode = "500", description = "Internal error",
 			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
 	})
-	ResponseEntity<String> createTransfer(
+	ResponseEntity<byte[]> createTransfer(
 		@Valid TransferRequestDto request,
+		@Parameter(required = true) UUID idempotencyKey,
+		@Parameter(description = "respond-async queues the transfer") String prefer
+	);
+
+	@Operation(summary = "Get transfer request status",
+		description = "Outcome of a transfer by its Idempotency-Key: 202 while it is queued or running, "
+			+ "then the response the transfer completed with, exactly as a retry would replay it")
+	@ApiResponses({
+		@ApiResponse(responseCode = "200", description = "Transfer completed"),
+		@ApiResponse(responseCode = "202", description = "Transfer still queued or in progress",
+			content = @Content(schema = @Schema(implementation = TransferAcceptedResponseDto.class))),
+		@ApiResponse(responseCode = "404", description = "No transfer request with this key, or the transfer failed because a wallet was not found",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+		@ApiResponse(responseCode = "409", description = "Transfer failed for insufficient funds",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+	})
+	ResponseEntity<byte[]> getTransferRequestStatus(UUID idempotencyKey);
+
+	@Operation(summary = "Create transfer batch",
+		description = "Executes up to wallet.transfer.batch-max-size transfers in one transaction under one Idempotency-Key. "
+			+ "Items are applied in request order. ALL_OR_NOTHING rejects the whole batch with 409 if any item fails; "
+			+ "BEST_EFFORT commits the items that succeed. The response lists the result of every item.")
+	@ApiResponses({
+		@ApiResponse(responseCode = "200", description = "Batch processed, see per-item results",
+			content = @Content(schema = @Schema(implementation = TransferBatchResponseDto.class))),
+		@ApiResponse(responseCode = "400", description = "Invalid request",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+		@ApiResponse(responseCode = "409", description = "ALL_OR_NOTHING batch rejected (per-item results in the body), or idempotency conflict",
+			content = @Content(schema = @Schema(implementation = TransferBatchResponseDto.class))),
+		@ApiResponse(responseCode = "422", description = "Batch exceeds the maximum size",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+		@ApiResponse(responseCode = "500", description = "Internal error",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+	})
+	ResponseEntity<byte[]> createTransferBatch(
+		@Valid TransferBatchRequestDto request,
+		@Parameter(required = true) UUID idempotencyKey
+	);
+
+	@Operation(summary = "Create disbursement",
+		description = "Pays up to wallet.transfer.disbursement-max-size distinct wallets from one source wallet in one transaction. "
+			+ "The source is debited once for the total and every destination is credited, all under the disbursement id; "
+			+ "each payout is also recorded as a child transfer. Nothing is written if any wallet is missing or the source cannot cover the total.")
+	@ApiResponses({
+		@ApiResponse(responseCode = "200", description = "Disbursement completed",
+			content = @Content(schema = @Schema(implementation = DisbursementResponseDto.class))),
+		@ApiResponse(responseCode = "400", description = "Invalid request",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+		@ApiResponse(responseCode = "404", description = "Wallet not found",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+		@ApiResponse(responseCode = "409", description = "Conflict (idempotency or insufficient funds)",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+		@ApiResponse(responseCode = "422", description = "Too many payouts, duplicate destination or payout to the source wallet",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+		@ApiResponse(responseCode = "500", description = "Internal error",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+	})
+	ResponseEntity<byte[]> createDisbursement(
+		@Valid DisbursementRequestDto request,
 		@Parameter(required = true) UUID idempotencyKey
 	);
 }
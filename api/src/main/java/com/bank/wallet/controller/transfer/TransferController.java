@@ -1,5 +1,8 @@
 package com.bank.wallet.controller.transfer;
 
+import com.bank.wallet.config.CommitToken;
+import com.bank.wallet.dto.transfer.DisbursementRequestDto;
+import com.bank.wallet.dto.transfer.TransferBatchRequestDto;
 import com.bank.wallet.dto.transfer.TransferRequestDto;
 import com.bank.wallet.service.TransferService;
 import jakarta.validation.Valid;
@@ -7,6 +10,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
@@ -21,14 +26,45 @@ import java.util.UUID;
 @Slf4j
 public class TransferController implements TransferApi {
 
+	private static final String RESPOND_ASYNC = "respond-async";
+
 	private final TransferService transferService;
 
 	@Override
 	@PostMapping
-	public ResponseEntity<String> createTransfer(
+	@CommitToken
+	public ResponseEntity<byte[]> createTransfer(
 		@Valid @RequestBody TransferRequestDto request,
-		@RequestHeader("Idempotency-Key") UUID idempotencyKey
+		@RequestHeader("Idempotency-Key") UUID idempotencyKey,
+		@RequestHeader(value = "Prefer", required = false) String prefer
 	) {
+		if (prefer != null && prefer.contains(RESPOND_ASYNC)) return transferService.createAsync(request, idempotencyKey);
 		return transferService.create(request, idempotencyKey);
 	}
+
+	@Override
+	@GetMapping("/requests/{idempotencyKey}")
+	public ResponseEntity<byte[]> getTransferRequestStatus(@PathVariable UUID idempotencyKey) {
+		return transferService.getRequestStatus(idempotencyKey);
+	}
+
+	@Override
+	@PostMapping("/batch")
+	@CommitToken
+	public ResponseEntity<byte[]> createTransferBatch(
+		@Valid @RequestBody TransferBatchRequestDto request,
+		@RequestHeader("Idempotency-Key") UUID idempotencyKey
+	) {
+		return transferService.createBatch(request, idempotencyKey);
+	}
+
+	@Override
+	@PostMapping("/disbursements")
+	@CommitToken
+	public ResponseEntity<byte[]> createDisbursement(
+		@Valid @RequestBody DisbursementRequestDto request,
+		@RequestHeader("Idempotency-Key") UUID idempotencyKey
+	) {
+		return transferService.createDisbursement(request, idempotencyKey);
+	}
 }
@@ -4,6 +4,7 @@ import com.bank.wallet.dto.wallet.BalanceHistoryResponseDto;
 import com.bank.wallet.dto.wallet.LedgerPageResponseDto;
 import com.bank.wallet.dto.wallet.TransactionRequestDto;
 import com.bank.wallet.dto.wallet.WalletResponseDto;
+import com.bank.wallet.dto.wallet.WalletShardingRequestDto;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -15,13 +16,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
@@ -55,6 +60,39 @@ public interface WalletApi {
 	@GetMapping("/{walletId}")
 	WalletResponseDto getWallet(@PathVariable UUID walletId);
 
+	@Operation(
+		summary = "Subscribe to wallet balance changes",
+		description = "Server-sent events: a 'wallet' event with the current wallet first, then a 'posting' event with the "
+			+ "posting and the resulting balance for every committed ledger posting. The server may close the stream at any "
+			+ "time; reconnect to get a fresh snapshot. Postings can repeat what the snapshot already shows."
+	)
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "200", description = "Stream opened"),
+		@ApiResponse(responseCode = "404", description = "Wallet not found",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+		@ApiResponse(responseCode = "503", description = "Balance stream disabled, reconnecting or at its subscriber limit",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+	})
+	@GetMapping(value = "/{walletId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	SseEmitter streamBalance(@PathVariable UUID walletId);
+
+	@Operation(
+		summary = "Configure wallet balance sharding",
+		description = "Splits the wallet balance across the given number of shards so concurrent postings stop contending on a single row. Use 0 to disable sharding."
+	)
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "200", description = "Sharding updated"),
+		@ApiResponse(responseCode = "400", description = "Invalid shard count",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+		@ApiResponse(responseCode = "404", description = "Wallet not found",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+	})
+	@PutMapping("/{walletId}/sharding")
+	WalletResponseDto updateSharding(
+		@PathVariable UUID walletId,
+		@Valid @RequestBody WalletShardingRequestDto request
+	);
+
 	@Operation(
 		summary = "Deposit funds to wallet",
 		description = "Adds funds to the specified wallet. Requires Idempotency-Key header for safe retries."
@@ -71,7 +109,7 @@ public interface WalletApi {
 			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
 	})
 	@PostMapping("/{walletId}/deposit")
-	ResponseEntity<String> deposit(
+	ResponseEntity<byte[]> deposit(
 		@PathVariable UUID walletId,
 		@Valid @RequestBody TransactionRequestDto request,
 		@Parameter(description = "Idempotency key for safe retries", required = true)
@@ -94,7 +132,7 @@ public interface WalletApi {
 			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
 	})
 	@PostMapping("/{walletId}/withdraw")
-	ResponseEntity<String> withdraw(
+	ResponseEntity<byte[]> withdraw(
 		@PathVariable UUID walletId,
 		@Valid @RequestBody TransactionRequestDto request,
 		@Parameter(description = "Idempotency key for safe retries", required = true)
@@ -103,17 +141,20 @@ public interface WalletApi {
 
 	@Operation(
 		summary = "Get historical balance",
-		description = "Retrieves the wallet balance as of the provided timestamp (inclusive)."
+		description = "Retrieves the wallet balance as of the provided timestamp (inclusive). Once at is older than the "
+			+ "settled horizon the answer can no longer change and is sent with a strong ETag and Cache-Control: immutable."
 	)
 	@ApiResponses(value = {
-		@ApiResponse(responseCode = "200", description = "Historical balance computed"),
+		@ApiResponse(responseCode = "200", description = "Historical balance computed",
+			content = @Content(schema = @Schema(implementation = BalanceHistoryResponseDto.class))),
+		@ApiResponse(responseCode = "304", description = "Not modified (If-None-Match matched an immutable result)"),
 		@ApiResponse(responseCode = "400", description = "Invalid timestamp format",
 			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
 		@ApiResponse(responseCode = "404", description = "Wallet not found",
 			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
 	})
 	@GetMapping("/{walletId}/balance/history")
-	BalanceHistoryResponseDto getHistoricalBalance(
+	ResponseEntity<byte[]> getHistoricalBalance(
 		@PathVariable UUID walletId,
 		@Parameter(description = "Timestamp in ISO-8601 format, e.g. 2025-01-01T00:00:00Z", required = true)
 		@RequestParam("at") OffsetDateTime at
@@ -121,15 +162,20 @@ public interface WalletApi {
 
 	@Operation(
 		summary = "List wallet ledger entries",
-		description = "Returns a paginated list of ledger entries for a wallet, ordered by created_at desc."
+		description = "Returns a paginated list of ledger entries for a wallet, ordered by created_at desc. "
+			+ "Pass the returned nextCursor as cursor to seek to the next page at constant cost (page is then ignored); "
+			+ "set includeTotal=false to skip counting the whole range. Pages whose to is older than the settled horizon "
+			+ "can no longer change and are sent with a strong ETag and Cache-Control: immutable."
 	)
 	@ApiResponses(value = {
-		@ApiResponse(responseCode = "200", description = "Ledger page returned"),
+		@ApiResponse(responseCode = "200", description = "Ledger page returned",
+			content = @Content(schema = @Schema(implementation = LedgerPageResponseDto.class))),
+		@ApiResponse(responseCode = "304", description = "Not modified (If-None-Match matched an immutable result)"),
 		@ApiResponse(responseCode = "404", description = "Wallet not found",
 			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
 	})
 	@GetMapping("/{walletId}/ledger")
-	LedgerPageResponseDto listLedger(
+	ResponseEntity<byte[]> listLedger(
 		@PathVariable UUID walletId,
 		@RequestParam(name = "page", defaultValue = "0")
 		@Min(value = 0, message = "page must be >= 0") int page,
@@ -137,8 +183,28 @@ public interface WalletApi {
 		@Min(value = 1, message = "size must be >= 1")
 		@Max(value = 500, message = "size must be <= 500") int size,
 		@RequestParam(name = "from") OffsetDateTime from,
-		@RequestParam(name = "to") OffsetDateTime to
+		@RequestParam(name = "to") OffsetDateTime to,
+		@RequestParam(name = "cursor", required = false) String cursor,
+		@RequestParam(name = "includeTotal", defaultValue = "true") boolean includeTotal
 	);
-}
-
 
+	@Operation(
+		summary = "Export wallet ledger",
+		description = "Streams all ledger entries of a wallet, optionally bounded by from/to, ordered by created_at asc. "
+			+ "format is ndjson (one JSON object per line) or csv; send Accept-Encoding: gzip to compress on the wire."
+	)
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "200", description = "Ledger stream started"),
+		@ApiResponse(responseCode = "400", description = "Invalid format or range",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+		@ApiResponse(responseCode = "404", description = "Wallet not found",
+			content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+	})
+	@GetMapping(value = "/{walletId}/ledger/export", produces = {"application/x-ndjson", "text/csv", "application/json"})
+	ResponseEntity<StreamingResponseBody> exportLedger(
+		@PathVariable UUID walletId,
+		@RequestParam(name = "format", defaultValue = "ndjson") String format,
+		@RequestParam(name = "from", required = false) OffsetDateTime from,
+		@RequestParam(name = "to", required = false) OffsetDateTime to
+	);
+}
@@ -1,10 +1,13 @@
 package com.bank.wallet.controller.wallet;
 
-import com.bank.wallet.dto.wallet.BalanceHistoryResponseDto;
-import com.bank.wallet.dto.wallet.LedgerPageResponseDto;
+import com.bank.wallet.config.CommitToken;
 import com.bank.wallet.dto.wallet.TransactionRequestDto;
 import com.bank.wallet.dto.wallet.WalletResponseDto;
+import com.bank.wallet.dto.wallet.WalletShardingRequestDto;
 import com.bank.wallet.mapper.WalletMapper;
+import com.bank.wallet.service.BalanceStreamService;
+import com.bank.wallet.service.ImmutableResultCache;
+import com.bank.wallet.service.LedgerExportService;
 import com.bank.wallet.service.TransactionService;
 import com.bank.wallet.service.WalletService;
 import jakarta.validation.Valid;
@@ -19,12 +22,15 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
@@ -39,10 +45,14 @@ public class WalletController implements WalletApi {
 	private final WalletService walletService;
 	private final TransactionService transactionService;
 	private final WalletMapper walletMapper;
+	private final LedgerExportService ledgerExportService;
+	private final BalanceStreamService balanceStreamService;
+	private final ImmutableResultCache immutableResultCache;
 
 	@Override
 	@PostMapping
 	@ResponseStatus(HttpStatus.CREATED)
+	@CommitToken
 	public WalletResponseDto createWallet() {
 		return walletService.createWallet();
 	}
@@ -53,9 +63,26 @@ public class WalletController implements WalletApi {
 		return walletService.getWallet(walletId);
 	}
 
+	@Override
+	@GetMapping(value = "/{walletId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamBalance(@PathVariable UUID walletId) {
+		return balanceStreamService.subscribe(walletId);
+	}
+
+	@Override
+	@PutMapping("/{walletId}/sharding")
+	@CommitToken
+	public WalletResponseDto updateSharding(
+		@PathVariable UUID walletId,
+		@Valid @RequestBody WalletShardingRequestDto request
+	) {
+		return walletService.reshard(walletId, request.getShardCount());
+	}
+
 	@Override
 	@PostMapping("/{walletId}/deposit")
-	public ResponseEntity<String> deposit(
+	@CommitToken
+	public ResponseEntity<byte[]> deposit(
 		@PathVariable UUID walletId,
 		@Valid @RequestBody TransactionRequestDto request,
 		@RequestHeader("Idempotency-Key") UUID idempotencyKey
@@ -65,7 +92,8 @@ public class WalletController implements WalletApi {
 
 	@Override
 	@PostMapping("/{walletId}/withdraw")
-	public ResponseEntity<String> withdraw(
+	@CommitToken
+	public ResponseEntity<byte[]> withdraw(
 		@PathVariable UUID walletId,
 		@Valid @RequestBody TransactionRequestDto request,
 		@RequestHeader("Idempotency-Key") UUID idempotencyKey
@@ -75,13 +103,14 @@ public class WalletController implements WalletApi {
 
 	@Override
 	@GetMapping("/{walletId}/balance/history")
-	public BalanceHistoryResponseDto getHistoricalBalance(@PathVariable UUID walletId, @RequestParam("at") OffsetDateTime at) {
-		return walletService.getBalanceAsOf(walletId, at);
+	public ResponseEntity<byte[]> getHistoricalBalance(@PathVariable UUID walletId, @RequestParam("at") OffsetDateTime at) {
+		return immutableResultCache.respond(new ImmutableResultCache.BalanceKey(walletId, at), at,
+			() -> walletService.getBalanceAsOf(walletId, at));
 	}
 
 	@Override
 	@GetMapping("/{walletId}/ledger")
-	public LedgerPageResponseDto listLedger(
+	public ResponseEntity<byte[]> listLedger(
 		@PathVariable UUID walletId,
 		@RequestParam(name = "page", defaultValue = "0")
 		@Min(value = 0, message = "page must be >= 0") int page,
@@ -89,8 +118,22 @@ public class WalletController implements WalletApi {
 		@Min(value = 1, message = "size must be >= 1")
 		@Max(value = 500, message = "size must be <= 500") int size,
 		@RequestParam(name = "from") OffsetDateTime from,
-		@RequestParam(name = "to") OffsetDateTime to
+		@RequestParam(name = "to") OffsetDateTime to,
+		@RequestParam(name = "cursor", required = false) String cursor,
+		@RequestParam(name = "includeTotal", defaultValue = "true") boolean includeTotal
+	) {
+		return immutableResultCache.respond(new ImmutableResultCache.LedgerPageKey(walletId, page, size, from, to, cursor, includeTotal), to,
+			() -> walletService.listLedger(walletId, page, size, from, to, cursor, includeTotal));
+	}
+
+	@Override
+	@GetMapping(value = "/{walletId}/ledger/export", produces = {"application/x-ndjson", "text/csv", "application/json"})
+	public ResponseEntity<StreamingResponseBody> exportLedger(
+		@PathVariable UUID walletId,
+		@RequestParam(name = "format", defaultValue = "ndjson") String format,
+		@RequestParam(name = "from", required = false) OffsetDateTime from,
+		@RequestParam(name = "to", required = false) OffsetDateTime to
 	) {
-		return walletService.listLedger(walletId, page, size, from, to);
+		return ledgerExportService.export(walletId, format, from, to);
 	}
 }
@@ -0,0 +1,25 @@
+package com.bank.wallet.dto.transfer;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DisbursementRequestDto implements Serializable {
+	@NotNull
+	private UUID fromWalletId;
+	// at most wallet.transfer.disbursement-max-size payouts, each to a different wallet
+	@NotEmpty(message = "At least one payout is required")
+	private List<@NotNull @Valid DisbursementPayoutDto> payouts;
+}
@@ -0,0 +1,24 @@
+package com.bank.wallet.dto.transfer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DisbursementResponseDto implements Serializable {
+	// also the tx id of the debit and of every credit in the ledger
+	private UUID disbursementId;
+	private UUID fromWalletId;
+	private BigDecimal totalAmount;
+	// one child transfer per payout, in request order
+	private List<TransferResponseDto> payouts;
+}
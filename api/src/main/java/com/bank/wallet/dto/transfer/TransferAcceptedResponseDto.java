@@ -0,0 +1,27 @@
+package com.bank.wallet.dto.transfer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferAcceptedResponseDto implements Serializable {
+	private UUID transactionId;
+	private Status status;
+	// GET it until it answers with the final transfer response or error
+	private String statusUrl;
+
+	public enum Status {
+		// queued for a transfer worker
+		ACCEPTED,
+		// claimed but not yet queued or executed
+		IN_PROGRESS
+	}
+}
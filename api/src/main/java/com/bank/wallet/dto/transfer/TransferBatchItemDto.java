@@ -0,0 +1,35 @@
+package com.bank.wallet.dto.transfer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferBatchItemDto implements Serializable {
+	// position of the transfer in the request
+	private int index;
+	private Status status;
+	// null unless the transfer was committed
+	private UUID transactionId;
+	private UUID fromWalletId;
+	private UUID toWalletId;
+	private BigDecimal amount;
+	// error code and message of a failed item, same codes as the single transfer endpoint
+	private String code;
+	private String message;
+
+	public enum Status {
+		COMPLETED,
+		FAILED,
+		// valid, but not applied because another item failed an all-or-nothing batch
+		NOT_EXECUTED
+	}
+}
@@ -0,0 +1,8 @@
+package com.bank.wallet.dto.transfer;
+
+public enum TransferBatchMode {
+	// any failed item rejects the whole batch; nothing is written
+	ALL_OR_NOTHING,
+	// failed items are reported and skipped, the rest is committed
+	BEST_EFFORT
+}
@@ -0,0 +1,24 @@
+package com.bank.wallet.dto.transfer;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferBatchRequestDto implements Serializable {
+	@NotNull(message = "Mode is required")
+	private TransferBatchMode mode;
+	// at most wallet.transfer.batch-max-size items
+	@NotEmpty(message = "At least one transfer is required")
+	private List<@NotNull @Valid TransferRequestDto> transfers;
+}
@@ -0,0 +1,23 @@
+package com.bank.wallet.dto.transfer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferBatchResponseDto implements Serializable {
+	private UUID batchId;
+	private TransferBatchMode mode;
+	private int completed;
+	private int failed;
+	// one entry per requested transfer, in request order
+	private List<TransferBatchItemDto> results;
+}
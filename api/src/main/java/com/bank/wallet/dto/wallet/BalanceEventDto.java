@@ -0,0 +1,26 @@
+package com.bank.wallet.dto.wallet;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A committed posting pushed to balance subscribers, with the wallet balance right after it
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceEventDto {
+	private UUID walletId;
+	private UUID txId;
+	private String postingType;
+	private BigDecimal amount;
+	private BigDecimal currentBalance;
+	private OffsetDateTime createdAt;
+}
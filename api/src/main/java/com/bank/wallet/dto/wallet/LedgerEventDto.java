@@ -0,0 +1,28 @@
+package com.bank.wallet.dto.wallet;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * One relayed ledger posting. eventId grows with commit order per wallet; consumers use it to drop redeliveries.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerEventDto {
+	private Long eventId;
+	private UUID ledgerId;
+	private UUID txId;
+	private UUID walletId;
+	private BigDecimal amount;
+	private String postingType;
+	private BigDecimal currentBalance;
+	private OffsetDateTime createdAt;
+}
@@ -0,0 +1,22 @@
+package com.bank.wallet.dto.wallet;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+@Getter
+@RequiredArgsConstructor
+public enum LedgerExportFormat {
+	NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+	CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+	private final MediaType mediaType;
+	private final String extension;
+
+	public static LedgerExportFormat from(String value) {
+		for (var format : values()) {
+			if (format.name().equalsIgnoreCase(value)) return format;
+		}
+		throw new IllegalArgumentException("format must be one of: ndjson, csv");
+	}
+}
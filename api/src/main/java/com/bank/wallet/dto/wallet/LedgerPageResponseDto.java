@@ -14,7 +14,10 @@ import java.util.List;
 public class LedgerPageResponseDto {
 	private int page;
 	private int size;
-	private long total;
+	// null when the caller passed includeTotal=false
+	private Long total;
+	// pass back as cursor to read the next page; null on the last page
+	private String nextCursor;
 	private List<LedgerEntryDto> entries;
 }
 
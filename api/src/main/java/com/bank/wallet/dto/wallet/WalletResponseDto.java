@@ -16,6 +16,7 @@ import java.util.UUID;
 public class WalletResponseDto {
 	private UUID walletId;
 	private BigDecimal currentBalance;
+	private int shardCount;
 	private OffsetDateTime createdAt;
 	private OffsetDateTime updatedAt;
 }
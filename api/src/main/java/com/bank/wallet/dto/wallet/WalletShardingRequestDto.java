@@ -0,0 +1,23 @@
+package com.bank.wallet.dto.wallet;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalletShardingRequestDto implements Serializable {
+
+	@NotNull(message = "Shard count is required")
+	@Min(value = 0, message = "Shard count must be >= 0")
+	@Max(value = 64, message = "Shard count must be <= 64")
+	private Integer shardCount;
+}
@@ -0,0 +1,42 @@
+package com.bank.wallet.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Parent of the transfers paid out by one disbursement; its id is also the tx id of all their ledger postings
+ */
+@Table(name = "disbursements")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Disbursement {
+
+	@Id
+	@Column("disbursement_id")
+	private UUID disbursementId;
+
+	@Column("from_wallet_id")
+	private UUID fromWalletId;
+
+	@Column("total_amount")
+	private BigDecimal totalAmount;
+
+	@Column("payout_count")
+	private int payoutCount;
+
+	@CreatedDate
+	@Column("created_at")
+	private OffsetDateTime createdAt;
+}
@@ -1,5 +1,6 @@
 package com.bank.wallet.entity;
 
+import com.bank.wallet.entity.enums.ClaimOutcome;
 import com.bank.wallet.entity.enums.IdempotencyStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -8,6 +9,8 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.ReadOnlyProperty;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -31,8 +34,9 @@ public class IdempotencyKey {
 	@Column("path")
 	private String path;
 
+	// 32-byte SHA-256, see RequestHasher
 	@Column("request_hash")
-	private String requestHash;
+	private byte[] requestHash;
 
 	@Column("status")
 	private IdempotencyStatus status;
@@ -40,8 +44,9 @@ public class IdempotencyKey {
 	@Column("response_status")
 	private Integer responseStatus;
 
+	// UTF-8 JSON exactly as written to the client, gzipped when large (see GzipUtils)
 	@Column("response_body")
-	private String responseBody;
+	private byte[] responseBody;
 
 	@CreatedDate
 	@Column("first_seen_at")
@@ -54,4 +59,17 @@ public class IdempotencyKey {
 	@Column("ref_id")
 	private java.util.UUID refId;
 
+	/**
+	 * Set only on rows returned by {@code claim}; not a table column.
+	 */
+	@ReadOnlyProperty
+	@Column("claim_outcome")
+	private ClaimOutcome claimOutcome;
+
+	/**
+	 * True when the claim was made inside the request's own transaction, so it is rolled back with it.
+	 */
+	@Transient
+	private boolean claimedInTransaction;
+
 }
@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -44,4 +45,11 @@ public class LedgerEntry {
 	@Column("current_balance")
 	private BigDecimal currentBalance;
 
+	/**
+	 * Insertion order, breaking ties between entries with the same created_at; assigned by the database
+	 */
+	@ReadOnlyProperty
+	@Column("posting_seq")
+	private Long postingSeq;
+
 }
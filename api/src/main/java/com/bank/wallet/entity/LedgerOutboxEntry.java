@@ -0,0 +1,49 @@
+package com.bank.wallet.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Copy of a committed ledger posting waiting to be relayed; outbox_id is the event id and the relay order
+ */
+@Table(name = "ledger_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerOutboxEntry {
+
+	@Id
+	@Column("outbox_id")
+	private Long outboxId;
+
+	@Column("ledger_id")
+	private UUID ledgerId;
+
+	@Column("tx_id")
+	private UUID txId;
+
+	@Column("wallet_id")
+	private UUID walletId;
+
+	@Column("amount")
+	private BigDecimal amount;
+
+	@Column("posting_type")
+	private String postingType;
+
+	@Column("current_balance")
+	private BigDecimal currentBalance;
+
+	@Column("created_at")
+	private OffsetDateTime createdAt;
+}
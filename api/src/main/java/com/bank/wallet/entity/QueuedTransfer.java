@@ -0,0 +1,64 @@
+package com.bank.wallet.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Transfer accepted with 202 and waiting for a queue worker; the idempotency key columns identify the row to complete
+ */
+@Table(name = "transfer_queue")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QueuedTransfer {
+
+	@Id
+	@Column("queue_id")
+	private Long queueId;
+
+	@Column("idempotency_key")
+	private UUID idempotencyKey;
+
+	@Column("first_seen_at")
+	private OffsetDateTime firstSeenAt;
+
+	@Column("request_hash")
+	private byte[] requestHash;
+
+	@Column("transfer_id")
+	private UUID transferId;
+
+	@Column("from_wallet_id")
+	private UUID fromWalletId;
+
+	@Column("to_wallet_id")
+	private UUID toWalletId;
+
+	@Column("amount")
+	private BigDecimal amount;
+
+	@Column("enqueued_at")
+	private OffsetDateTime enqueuedAt;
+
+	// failed batches this transfer was part of
+	@Column("attempts")
+	private int attempts;
+
+	// when a transfer that failed may be claimed again; backs off exponentially with attempts
+	@Column("next_attempt_at")
+	private OffsetDateTime nextAttemptAt;
+
+	// set once attempts reach the limit; dead-lettered transfers are never claimed again
+	@Column("dead_lettered_at")
+	private OffsetDateTime deadLetteredAt;
+}
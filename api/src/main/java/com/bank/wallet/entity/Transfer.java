@@ -33,6 +33,10 @@ public class Transfer {
     @Column("amount")
     private BigDecimal amount;
 
+    // set on the payouts of a disbursement
+    @Column("disbursement_id")
+    private UUID disbursementId;
+
     @CreatedDate
     @Column("created_at")
     private OffsetDateTime createdAt;
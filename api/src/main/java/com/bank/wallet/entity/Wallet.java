@@ -29,6 +29,10 @@ public class Wallet {
 	@Builder.Default
 	private BigDecimal currentBalance = BigDecimal.ZERO;
 
+	@Column("shard_count")
+	@Builder.Default
+	private int shardCount = 0;
+
 	@CreatedDate
 	@Column("created_at")
 	private OffsetDateTime createdAt;
@@ -0,0 +1,9 @@
+package com.bank.wallet.entity.enums;
+
+public enum ClaimOutcome {
+	NEW,
+	REPLAY,
+	IN_PROGRESS,
+	STALE_TAKEOVER,
+	HASH_MISMATCH
+}
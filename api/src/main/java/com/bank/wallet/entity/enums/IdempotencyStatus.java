@@ -2,6 +2,8 @@ package com.bank.wallet.entity.enums;
 
 public enum IdempotencyStatus {
 	IN_PROGRESS,
+	// queued for an async transfer worker; the stored 202 response is replayed until the worker completes the key
+	ACCEPTED,
 	SUCCEEDED,
 	FAILED;
 }
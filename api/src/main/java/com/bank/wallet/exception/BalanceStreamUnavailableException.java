@@ -0,0 +1,7 @@
+package com.bank.wallet.exception;
+
+public class BalanceStreamUnavailableException extends RuntimeException {
+    public BalanceStreamUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -1,11 +1,11 @@
 package com.bank.wallet.exception;
 
 import com.bank.wallet.dto.error.ErrorResponseDto;
-import com.bank.wallet.entity.enums.IdempotencyStatus;
 import com.bank.wallet.service.IdempotencyService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -26,13 +26,13 @@ public class GlobalExceptionHandler {
 
 	/* cached idempotent exceptions */
 	@ExceptionHandler(WalletNotFoundException.class)
-	public ResponseEntity<ErrorResponseDto> handleWalletNotFound(WalletNotFoundException ex, HttpServletRequest request) {
+	public ResponseEntity<?> handleWalletNotFound(WalletNotFoundException ex, HttpServletRequest request) {
 		log.warn("Wallet not found: {}", ex.getMessage());
 		return handleIdempotencyCachedError(ex, HttpStatus.NOT_FOUND, "WALLET_NOT_FOUND", null);
 	}
 
 	@ExceptionHandler(InsufficientFundsException.class)
-	public ResponseEntity<ErrorResponseDto> handleInsufficientFunds(InsufficientFundsException ex, HttpServletRequest request) {
+	public ResponseEntity<?> handleInsufficientFunds(InsufficientFundsException ex, HttpServletRequest request) {
 		log.warn("Insufficient funds: {}", ex.getMessage());
 		var details = Map.<String, Object>of(
 			"walletId", ex.getWalletId().toString(),
@@ -42,7 +42,7 @@ public class GlobalExceptionHandler {
 	}
 
 	@ExceptionHandler(SemanticValidationException.class)
-	public ResponseEntity<ErrorResponseDto> handleSemantic(SemanticValidationException ex, HttpServletRequest request) {
+	public ResponseEntity<?> handleSemantic(SemanticValidationException ex, HttpServletRequest request) {
 		log.warn("Semantic validation error: {}", ex.getMessage());
 		return handleIdempotencyCachedError(ex, HttpStatus.UNPROCESSABLE_ENTITY, "SEMANTIC_ERROR", null);
 	}
@@ -70,6 +70,40 @@ public class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
 	}
 
+	@ExceptionHandler(TransferRequestNotFoundException.class)
+	public ResponseEntity<ErrorResponseDto> handleTransferRequestNotFound(TransferRequestNotFoundException ex, HttpServletRequest request) {
+		log.warn("Transfer request not found: {}", ex.getMessage());
+		var body = ErrorResponseDto.builder()
+			.code("REQUEST_NOT_FOUND")
+			.message(ex.getMessage())
+			.timestamp(OffsetDateTime.now())
+			.build();
+		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
+	}
+
+	@ExceptionHandler(ServiceOverloadedException.class)
+	public ResponseEntity<ErrorResponseDto> handleOverloaded(ServiceOverloadedException ex, HttpServletRequest request) {
+		log.warn("Request rejected by admission control: {}", ex.getMessage());
+		var body = ErrorResponseDto.builder()
+			.code("SERVICE_OVERLOADED")
+			.message(ex.getMessage())
+			.timestamp(OffsetDateTime.now())
+			.build();
+		// nothing was claimed, so the retry can reuse the same Idempotency-Key
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(body);
+	}
+
+	@ExceptionHandler(BalanceStreamUnavailableException.class)
+	public ResponseEntity<ErrorResponseDto> handleBalanceStreamUnavailable(BalanceStreamUnavailableException ex, HttpServletRequest request) {
+		log.warn("Balance subscription rejected: {}", ex.getMessage());
+		var body = ErrorResponseDto.builder()
+			.code("STREAM_UNAVAILABLE")
+			.message(ex.getMessage())
+			.timestamp(OffsetDateTime.now())
+			.build();
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(body);
+	}
+
 	/* business exceptions */
 	@ExceptionHandler(IllegalArgumentException.class)
 	public ResponseEntity<ErrorResponseDto> handleIllegalArgument(IllegalArgumentException ex, HttpServletRequest request) {
@@ -141,7 +175,7 @@ public class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(body);
 	}
 
-	private ResponseEntity<ErrorResponseDto> handleIdempotencyCachedError(TransactionRuntimeException ex, HttpStatus status, String code, Map<String, Object> details) {
+	private ResponseEntity<?> handleIdempotencyCachedError(TransactionRuntimeException ex, HttpStatus status, String code, Map<String, Object> details) {
 		var refId = ex.getIdempotencyKey() != null ? ex.getIdempotencyKey().getRefId() : null;
 		var body = ErrorResponseDto.builder()
 			.code(code)
@@ -151,8 +185,11 @@ public class GlobalExceptionHandler {
 			.details(details)
 			.build();
 
-		if (ex.getIdempotencyKey() != null)
-			idempotencyService.markCompleted(ex.getIdempotencyKey(), status.value(), body, IdempotencyStatus.FAILED);
+		if (ex.getIdempotencyKey() != null) {
+			// answer with the stored bytes so retries replay exactly this response
+			var stored = idempotencyService.markFailed(ex.getIdempotencyKey(), status.value(), body);
+			return idempotencyService.buildResponse(status.value(), stored);
+		}
 
 		return ResponseEntity.status(status).body(body);
 	}
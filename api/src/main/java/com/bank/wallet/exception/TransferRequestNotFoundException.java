@@ -0,0 +1,7 @@
+package com.bank.wallet.exception;
+
+public class TransferRequestNotFoundException extends RuntimeException {
+    public TransferRequestNotFoundException(String message) {
+        super(message);
+    }
+}
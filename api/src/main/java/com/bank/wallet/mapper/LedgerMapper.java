@@ -1,21 +1,39 @@
 package com.bank.wallet.mapper;
 
+import com.bank.wallet.dto.wallet.LedgerEventDto;
 import com.bank.wallet.entity.LedgerEntry;
+import com.bank.wallet.entity.LedgerOutboxEntry;
 import com.bank.wallet.entity.enums.PostingType;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Component
 public class LedgerMapper {
-	public LedgerEntry create(UUID txId, UUID walletId, BigDecimal amount, PostingType type, BigDecimal currentBalance) {
+	public LedgerEntry create(UUID txId, UUID walletId, BigDecimal amount, PostingType type, BigDecimal currentBalance,
+	                          OffsetDateTime createdAt) {
 		return LedgerEntry.builder()
 			.txId(txId)
 			.walletId(walletId)
 			.amount(amount)
 			.postingType(type)
 			.currentBalance(currentBalance)
+			.createdAt(createdAt)
+			.build();
+	}
+
+	public LedgerEventDto toEvent(LedgerOutboxEntry entry) {
+		return LedgerEventDto.builder()
+			.eventId(entry.getOutboxId())
+			.ledgerId(entry.getLedgerId())
+			.txId(entry.getTxId())
+			.walletId(entry.getWalletId())
+			.amount(entry.getAmount())
+			.postingType(entry.getPostingType())
+			.currentBalance(entry.getCurrentBalance())
+			.createdAt(entry.getCreatedAt())
 			.build();
 	}
 }
@@ -1,10 +1,14 @@
 package com.bank.wallet.mapper;
 
+import com.bank.wallet.dto.transfer.DisbursementResponseDto;
+import com.bank.wallet.dto.transfer.TransferBatchItemDto;
+import com.bank.wallet.dto.transfer.TransferRequestDto;
 import com.bank.wallet.dto.transfer.TransferResponseDto;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.List;
 import java.util.UUID;
 
 @Component
@@ -17,4 +21,28 @@ public class TransferMapper {
 			.amount(amount.setScale(2, RoundingMode.HALF_UP))
 			.build();
 	}
+
+	public TransferBatchItemDto toBatchItem(int index, TransferBatchItemDto.Status status, UUID transferId, TransferRequestDto request,
+	                                        String code, String message) {
+		return TransferBatchItemDto.builder()
+			.index(index)
+			.status(status)
+			.transactionId(transferId)
+			.fromWalletId(request.getFromWalletId())
+			.toWalletId(request.getToWalletId())
+			.amount(request.getAmount() == null ? null : request.getAmount().setScale(2, RoundingMode.HALF_UP))
+			.code(code)
+			.message(message)
+			.build();
+	}
+
+	public DisbursementResponseDto toDisbursementResponse(UUID disbursementId, UUID fromWalletId, BigDecimal totalAmount,
+	                                                      List<TransferResponseDto> payouts) {
+		return DisbursementResponseDto.builder()
+			.disbursementId(disbursementId)
+			.fromWalletId(fromWalletId)
+			.totalAmount(totalAmount.setScale(2, RoundingMode.HALF_UP))
+			.payouts(payouts)
+			.build();
+	}
 }
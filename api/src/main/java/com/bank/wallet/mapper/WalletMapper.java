@@ -22,6 +22,7 @@ public class WalletMapper {
 		return WalletResponseDto.builder()
 			.walletId(wallet.getWalletId())
 			.currentBalance(wallet.getCurrentBalance().setScale(2, RoundingMode.HALF_UP))
+			.shardCount(wallet.getShardCount())
 			.createdAt(wallet.getCreatedAt())
 			.updatedAt(wallet.getUpdatedAt())
 			.build();
@@ -45,11 +46,12 @@ public class WalletMapper {
 			.build()).collect(Collectors.toList());
 	}
 
-	public LedgerPageResponseDto mapLedgerPage(int page, int size, long total, List<LedgerEntryDto> entries) {
+	public LedgerPageResponseDto mapLedgerPage(int page, int size, Long total, String nextCursor, List<LedgerEntryDto> entries) {
 		return LedgerPageResponseDto.builder()
 			.page(page)
 			.size(size)
 			.total(total)
+			.nextCursor(nextCursor)
 			.entries(entries)
 			.build();
 	}
@@ -0,0 +1,26 @@
+package com.bank.wallet.repository;
+
+import com.bank.wallet.entity.Disbursement;
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Repository
+public interface DisbursementRepository extends CrudRepository<Disbursement, UUID> {
+
+	@Modifying
+	@Query("""
+		INSERT INTO disbursements (disbursement_id, from_wallet_id, total_amount, payout_count, created_at)
+		VALUES (:disbursementId, :fromWallet, :totalAmount, :payoutCount, now())
+		ON CONFLICT (disbursement_id) DO NOTHING
+		""")
+	int insertIfAbsent(@Param("disbursementId") UUID disbursementId,
+	                   @Param("fromWallet") UUID fromWallet,
+	                   @Param("totalAmount") BigDecimal totalAmount,
+	                   @Param("payoutCount") int payoutCount);
+}
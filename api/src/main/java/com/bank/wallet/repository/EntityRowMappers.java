@@ -0,0 +1,109 @@
+package com.bank.wallet.repository;
+
+import com.bank.wallet.entity.IdempotencyKey;
+import com.bank.wallet.entity.LedgerEntry;
+import com.bank.wallet.entity.Wallet;
+import com.bank.wallet.entity.enums.ClaimOutcome;
+import com.bank.wallet.entity.enums.IdempotencyStatus;
+import com.bank.wallet.entity.enums.PostingType;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.lang.NonNull;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hand-written mappers for the entities read on the request path, used for every {@code @Query} method returning
+ * them when wallet.data-access.row-mappers is on. They read columns by label straight into the builders, with no
+ * per-row reflection or conversion service, and resolve enums from the database label in either case through a
+ * static lookup, so queries don't need the {@code UPPER(...::text)} they carry for Spring Data's own mapping.
+ */
+public final class EntityRowMappers {
+
+	private static final Map<String, PostingType> POSTING_TYPES = lookup(PostingType.values());
+	private static final Map<String, IdempotencyStatus> IDEMPOTENCY_STATUSES = lookup(IdempotencyStatus.values());
+	private static final Map<String, ClaimOutcome> CLAIM_OUTCOMES = lookup(ClaimOutcome.values());
+
+	public static final RowMapper<Wallet> WALLET = (rs, rowNum) -> Wallet.builder()
+		.walletId(rs.getObject("wallet_id", UUID.class))
+		.currentBalance(rs.getBigDecimal("current_balance"))
+		.shardCount(rs.getInt("shard_count"))
+		.createdAt(rs.getObject("created_at", OffsetDateTime.class))
+		.updatedAt(rs.getObject("updated_at", OffsetDateTime.class))
+		.build();
+
+	public static final RowMapper<LedgerEntry> LEDGER_ENTRY = (rs, rowNum) -> LedgerEntry.builder()
+		.ledgerId(rs.getObject("ledger_id", UUID.class))
+		.txId(rs.getObject("tx_id", UUID.class))
+		.walletId(rs.getObject("wallet_id", UUID.class))
+		.amount(rs.getBigDecimal("amount"))
+		.postingType(resolve(POSTING_TYPES, rs.getString("posting_type")))
+		.createdAt(rs.getObject("created_at", OffsetDateTime.class))
+		.currentBalance(rs.getBigDecimal("current_balance"))
+		.postingSeq(rs.getLong("posting_seq"))
+		.build();
+
+	public static final RowMapper<IdempotencyKey> IDEMPOTENCY_KEY = (rs, rowNum) -> idempotencyKey(rs).build();
+
+	/**
+	 * Rows of claim_idempotency_key() and claim_idempotency_key_in_transaction(), which add claim_outcome to the key's
+	 * columns. Named by the claim queries themselves, since they return the same entity as every other key query.
+	 */
+	public static final RowMapper<IdempotencyKey> IDEMPOTENCY_CLAIM = (rs, rowNum) -> idempotencyKey(rs)
+		.claimOutcome(resolve(CLAIM_OUTCOMES, rs.getString("claim_outcome")))
+		.build();
+
+	private EntityRowMappers() {
+	}
+
+	/**
+	 * Resolves a posting_type label read outside the entity mappers (notification payloads)
+	 */
+	public static PostingType postingType(String label) {
+		return resolve(POSTING_TYPES, label);
+	}
+
+	static <E extends Enum<E>> E resolve(Map<String, E> lookup, String label) {
+		if (label == null) return null;
+		var value = lookup.get(label);
+		if (value == null) throw new IllegalArgumentException("Unknown enum label: " + label);
+		return value;
+	}
+
+	private static IdempotencyKey.IdempotencyKeyBuilder idempotencyKey(ResultSet rs) throws SQLException {
+		return IdempotencyKey.builder()
+			.idempotencyKey(rs.getObject("idempotency_key", UUID.class))
+			.method(rs.getString("method"))
+			.path(rs.getString("path"))
+			.requestHash(rs.getBytes("request_hash"))
+			.status(resolve(IDEMPOTENCY_STATUSES, rs.getString("status")))
+			.responseStatus(rs.getObject("response_status", Integer.class))
+			.responseBody(rs.getBytes("response_body"))
+			.firstSeenAt(rs.getObject("first_seen_at", OffsetDateTime.class))
+			.lastSeenAt(rs.getObject("last_seen_at", OffsetDateTime.class))
+			.refId(rs.getObject("ref_id", UUID.class));
+	}
+
+	/**
+	 * {@link #IDEMPOTENCY_CLAIM} in the form {@code @Query(rowMapperClass = ...)} takes
+	 */
+	public static final class IdempotencyClaimRowMapper implements RowMapper<IdempotencyKey> {
+		@Override
+		public IdempotencyKey mapRow(@NonNull ResultSet rs, int rowNum) throws SQLException {
+			return IDEMPOTENCY_CLAIM.mapRow(rs, rowNum);
+		}
+	}
+
+	private static <E extends Enum<E>> Map<String, E> lookup(E[] values) {
+		var lookup = new HashMap<String, E>(values.length * 4);
+		for (var value : values) {
+			lookup.put(value.name(), value);
+			lookup.put(value.name().toLowerCase(), value);
+		}
+		return Map.copyOf(lookup);
+	}
+}
@@ -0,0 +1,21 @@
+package com.bank.wallet.repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface IdempotencyKeyJdbcRepository {
+
+	/**
+	 * Completes several in_progress keys in one JDBC batch and returns the affected row count per key
+	 */
+	int[] markCompletedBatch(List<Completion> completions);
+
+	/**
+	 * Same as {@link #markCompletedBatch} for keys a transfer queue worker completes, which are accepted instead of in_progress
+	 */
+	int[] markAcceptedCompletedBatch(List<Completion> completions);
+
+	record Completion(UUID key, OffsetDateTime firstSeenAt, byte[] requestHash, int responseStatus, byte[] responseBody, String status) {
+	}
+}
@@ -0,0 +1,46 @@
+package com.bank.wallet.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class IdempotencyKeyJdbcRepositoryImpl implements IdempotencyKeyJdbcRepository {
+
+	private static final String MARK_COMPLETED = """
+		UPDATE idempotency_keys
+		SET status = CAST(? AS idempotency_status), response_status = ?, response_body = ?, last_seen_at = now()
+		WHERE idempotency_key = ? AND first_seen_at = ? AND status = 'in_progress' AND request_hash = ?
+		""";
+
+	private static final String MARK_ACCEPTED_COMPLETED = """
+		UPDATE idempotency_keys
+		SET status = CAST(? AS idempotency_status), response_status = ?, response_body = ?, last_seen_at = now()
+		WHERE idempotency_key = ? AND first_seen_at = ? AND status = 'accepted' AND request_hash = ?
+		""";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	@Override
+	public int[] markCompletedBatch(List<Completion> completions) {
+		return update(MARK_COMPLETED, completions);
+	}
+
+	@Override
+	public int[] markAcceptedCompletedBatch(List<Completion> completions) {
+		return update(MARK_ACCEPTED_COMPLETED, completions);
+	}
+
+	private int[] update(String sql, List<Completion> completions) {
+		if (completions.isEmpty()) return new int[0];
+		return jdbcTemplate.batchUpdate(sql, completions, completions.size(), (ps, completion) -> {
+			ps.setString(1, completion.status());
+			ps.setInt(2, completion.responseStatus());
+			ps.setBytes(3, completion.responseBody());
+			ps.setObject(4, completion.key());
+			ps.setObject(5, completion.firstSeenAt());
+			ps.setBytes(6, completion.requestHash());
+		})[0];
+	}
+}
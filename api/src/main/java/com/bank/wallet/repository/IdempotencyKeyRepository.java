@@ -6,57 +6,84 @@ import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface IdempotencyKeyRepository extends CrudRepository<IdempotencyKey, String> {
+public interface IdempotencyKeyRepository extends CrudRepository<IdempotencyKey, String>, IdempotencyKeyJdbcRepository {
 
-	@Query("SELECT idempotency_key, method, path, request_hash, UPPER(status::text) as status, response_status, response_body, first_seen_at, last_seen_at, ref_id FROM idempotency_keys WHERE idempotency_key = :key AND request_hash = :requestHash")
-	Optional<IdempotencyKey> findByIdempotencyKeyAndRequestHash(
+	/**
+	 * Claims the key through {@code claim_idempotency_key}: inserts it when first seen, takes over a stale in-progress
+	 * row with the same request hash, and otherwise returns the stored row. {@code claim_outcome} tells the caller
+	 * which branch ran. Runs in its own transaction so the claim is visible to other nodes before any money moves.
+	 */
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	@Query(value = """
+		SELECT idempotency_key, method, path, request_hash, UPPER(status::text) as status, response_status, response_body, first_seen_at, last_seen_at, ref_id, claim_outcome
+		FROM claim_idempotency_key(:key, :method, :path, :requestHash, :refId, :staleSeconds)
+		""", rowMapperClass = EntityRowMappers.IdempotencyClaimRowMapper.class)
+	Optional<IdempotencyKey> claim(
 		@Param("key") UUID key,
-		@Param("requestHash") String requestHash
+		@Param("method") String method,
+		@Param("path") String path,
+		@Param("requestHash") byte[] requestHash,
+		@Param("refId") UUID refId,
+		@Param("staleSeconds") int staleSeconds
 	);
 
-	@Query("""
-		INSERT INTO idempotency_keys (idempotency_key, method, path, request_hash, status, response_status, response_body, first_seen_at, last_seen_at, ref_id)
-		VALUES (:key, :method, :path, :requestHash, 'in_progress', NULL, NULL, now(), now(), :refId)
-		ON CONFLICT (idempotency_key) DO NOTHING
-		RETURNING idempotency_key, method, path, request_hash, UPPER(status::text) as status, response_status, response_body, first_seen_at, last_seen_at, ref_id
-		""")
-	Optional<IdempotencyKey> tryInsertWithRef(
+	/**
+	 * Same claim, but inside the caller's transaction: the key's advisory lock is held until that transaction ends,
+	 * and a concurrent duplicate waits for it at most {@code lockTimeoutMillis}.
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	@Query(value = """
+		SELECT idempotency_key, method, path, request_hash, UPPER(status::text) as status, response_status, response_body, first_seen_at, last_seen_at, ref_id, claim_outcome
+		FROM claim_idempotency_key_in_transaction(:key, :method, :path, :requestHash, :refId, :staleSeconds, :lockTimeoutMillis)
+		""", rowMapperClass = EntityRowMappers.IdempotencyClaimRowMapper.class)
+	Optional<IdempotencyKey> claimInTransaction(
 		@Param("key") UUID key,
 		@Param("method") String method,
 		@Param("path") String path,
-		@Param("requestHash") String requestHash,
-		@Param("refId") UUID refId
+		@Param("requestHash") byte[] requestHash,
+		@Param("refId") UUID refId,
+		@Param("staleSeconds") int staleSeconds,
+		@Param("lockTimeoutMillis") int lockTimeoutMillis
 	);
 
-	@Query("""
-		WITH upd AS (
-			UPDATE idempotency_keys
-			SET last_seen_at = now()
-			WHERE idempotency_key = :key
-			  AND status = 'in_progress'
-			  AND last_seen_at < now() - (:staleSeconds || ' seconds')::interval
-			RETURNING idempotency_key, method, path, request_hash, UPPER(status::text) as status, response_status, response_body, first_seen_at, last_seen_at, ref_id
-		)
-		SELECT * FROM upd
-		""")
-	Optional<IdempotencyKey> tryTakeOverReturning(@Param("key") UUID key, @Param("staleSeconds") int staleSeconds);
-
 	@Modifying
 	@Query("""
 		UPDATE idempotency_keys
 		SET status = :status::idempotency_status, response_status = :responseStatus, response_body = :responseBody, last_seen_at = now()
-		WHERE idempotency_key = :key AND status = 'in_progress' AND request_hash = :requestHash
+		WHERE idempotency_key = :key AND first_seen_at = :firstSeenAt AND status = 'in_progress' AND request_hash = :requestHash
 		""")
 	int markCompleted(
 		@Param("key") UUID key,
+		@Param("firstSeenAt") OffsetDateTime firstSeenAt,
 		@Param("responseStatus") int responseStatus,
-		@Param("responseBody") String responseBody,
+		@Param("responseBody") byte[] responseBody,
 		@Param("status") String status,
-		@Param("requestHash") String requestHash
+		@Param("requestHash") byte[] requestHash
 	);
+
+	/**
+	 * Latest row of the key across all daily partitions, for status polling
+	 */
+	@Query("""
+		SELECT idempotency_key, method, path, request_hash, UPPER(status::text) as status, response_status, response_body, first_seen_at, last_seen_at, ref_id
+		FROM idempotency_keys
+		WHERE idempotency_key = :key
+		ORDER BY first_seen_at DESC
+		LIMIT 1
+		""")
+	Optional<IdempotencyKey> findLatest(@Param("key") UUID key);
+
+	@Query("SELECT create_idempotency_key_partitions(:daysAhead)")
+	int createPartitions(@Param("daysAhead") int daysAhead);
+
+	@Query("SELECT drop_idempotency_key_partitions(:retentionDays)")
+	int dropExpiredPartitions(@Param("retentionDays") int retentionDays);
 }
@@ -0,0 +1,14 @@
+package com.bank.wallet.repository;
+
+import com.bank.wallet.entity.LedgerEntry;
+
+import java.util.List;
+
+public interface LedgerEntryJdbcRepository {
+
+	/**
+	 * Inserts all entries with a single multi-row INSERT and returns the number of rows written. With outbox set,
+	 * the same statement copies them into ledger_outbox.
+	 */
+	int insertBatch(List<LedgerEntry> entries, boolean outbox);
+}
@@ -0,0 +1,49 @@
+package com.bank.wallet.repository;
+
+import com.bank.wallet.entity.LedgerEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class LedgerEntryJdbcRepositoryImpl implements LedgerEntryJdbcRepository {
+
+	private static final String INSERT_PREFIX = "INSERT INTO ledger_entries (tx_id, wallet_id, amount, posting_type, current_balance, created_at) VALUES ";
+	private static final String INSERT_ROW = "(?, ?, ?, CAST(? AS posting_type), ?, COALESCE(CAST(? AS timestamptz), clock_timestamp()))";
+	private static final String INSERT_SUFFIX = " ON CONFLICT (tx_id, wallet_id, created_at) DO NOTHING";
+	private static final String OUTBOX_PREFIX = "WITH posted AS (";
+	private static final String OUTBOX_SUFFIX = """
+		 RETURNING ledger_id, tx_id, wallet_id, amount, posting_type, current_balance, created_at)
+		INSERT INTO ledger_outbox (ledger_id, tx_id, wallet_id, amount, posting_type, current_balance, created_at)
+		SELECT ledger_id, tx_id, wallet_id, amount, posting_type, current_balance, created_at FROM posted
+		""";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	@Override
+	public int insertBatch(List<LedgerEntry> entries, boolean outbox) {
+		if (entries.isEmpty()) return 0;
+
+		var sql = new StringBuilder(OUTBOX_PREFIX.length() + INSERT_PREFIX.length() + entries.size() * (INSERT_ROW.length() + 2)
+			+ INSERT_SUFFIX.length() + OUTBOX_SUFFIX.length());
+		if (outbox) sql.append(OUTBOX_PREFIX);
+		sql.append(INSERT_PREFIX);
+		var args = new ArrayList<>(entries.size() * 6);
+		for (var i = 0; i < entries.size(); i++) {
+			var entry = entries.get(i);
+			if (i > 0) sql.append(", ");
+			sql.append(INSERT_ROW);
+			args.add(entry.getTxId());
+			args.add(entry.getWalletId());
+			args.add(entry.getAmount());
+			args.add(entry.getPostingType().name().toLowerCase());
+			args.add(entry.getCurrentBalance());
+			args.add(entry.getCreatedAt());
+		}
+		sql.append(INSERT_SUFFIX);
+		if (outbox) sql.append(OUTBOX_SUFFIX);
+		return jdbcTemplate.update(sql.toString(), args.toArray());
+	}
+}
@@ -13,27 +13,64 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * ledger_entries is range-partitioned by month on created_at. Time filters are written as plain range predicates
+ * on created_at (open ends become -infinity/infinity) so the planner can prune partitions.
+ * Each partition keeps (tx_id, wallet_id, created_at) unique. Callers stamp created_at with a time every attempt of
+ * a transaction agrees on (its idempotency key's first_seen_at), so a retried posting lands in the same partition,
+ * hits that key and is skipped by ON CONFLICT: inserts report fewer rows instead of failing.
+ */
 @Repository
-public interface LedgerEntryRepository extends CrudRepository<LedgerEntry, UUID> {
+public interface LedgerEntryRepository extends CrudRepository<LedgerEntry, UUID>, LedgerEntryJdbcRepository {
 
 	@Modifying
 	@Query("""
-		INSERT INTO ledger_entries (tx_id, wallet_id, amount, posting_type, current_balance)
-		VALUES (:txId, :walletId, :amount, CAST(:postingType AS posting_type), :currentBalance)
-		ON CONFLICT (tx_id, wallet_id) DO NOTHING
+		INSERT INTO ledger_entries (tx_id, wallet_id, amount, posting_type, current_balance, created_at)
+		VALUES (:txId, :walletId, :amount, CAST(:postingType AS posting_type), :currentBalance,
+		        COALESCE(CAST(:createdAt AS timestamptz), clock_timestamp()))
+		ON CONFLICT (tx_id, wallet_id, created_at) DO NOTHING
 		""")
 	int insertGeneric(
 		@Param("txId") UUID txId,
 		@Param("walletId") UUID walletId,
 		@Param("amount") BigDecimal amount,
 		@Param("postingType") String postingType,
-		@Param("currentBalance") BigDecimal currentBalance
+		@Param("currentBalance") BigDecimal currentBalance,
+		@Param("createdAt") OffsetDateTime createdAt
 	);
 
+	/**
+	 * {@link #insertGeneric} that also copies the posting into ledger_outbox in the same statement
+	 */
+	@Modifying
+	@Query("""
+		WITH posted AS (
+		  INSERT INTO ledger_entries (tx_id, wallet_id, amount, posting_type, current_balance, created_at)
+		  VALUES (:txId, :walletId, :amount, CAST(:postingType AS posting_type), :currentBalance,
+		          COALESCE(CAST(:createdAt AS timestamptz), clock_timestamp()))
+		  ON CONFLICT (tx_id, wallet_id, created_at) DO NOTHING
+		  RETURNING ledger_id, tx_id, wallet_id, amount, posting_type, current_balance, created_at
+		)
+		INSERT INTO ledger_outbox (ledger_id, tx_id, wallet_id, amount, posting_type, current_balance, created_at)
+		SELECT ledger_id, tx_id, wallet_id, amount, posting_type, current_balance, created_at FROM posted
+		""")
+	int insertGenericWithOutbox(
+		@Param("txId") UUID txId,
+		@Param("walletId") UUID walletId,
+		@Param("amount") BigDecimal amount,
+		@Param("postingType") String postingType,
+		@Param("currentBalance") BigDecimal currentBalance,
+		@Param("createdAt") OffsetDateTime createdAt
+	);
+
+	/**
+	 * Index-only on idx_ledger_wallet_created_at, which includes current_balance. posting_seq picks the last of
+	 * several entries stamped with the same instant.
+	 */
 	@Query("""
 		SELECT current_balance FROM ledger_entries
 		WHERE wallet_id = :walletId AND created_at <= :at
-		ORDER BY created_at DESC
+		ORDER BY created_at DESC, posting_seq DESC
 		LIMIT 1
 		""")
 	Optional<BigDecimal> findBalanceAsOf(@Param("walletId") UUID walletId, @Param("at") OffsetDateTime at);
@@ -41,12 +78,12 @@ public interface LedgerEntryRepository extends CrudRepository<LedgerEntry, UUID>
 	@Query("""
 		SELECT ledger_id, tx_id, wallet_id, amount,
 		       UPPER(posting_type::text) AS posting_type,
-		       created_at, current_balance
+		       created_at, current_balance, posting_seq
 		FROM ledger_entries
 		WHERE wallet_id = :walletId
-		AND (:fromTs IS NULL OR created_at >= :fromTs)
-		AND (:toTs IS NULL OR created_at <= :toTs)
-		ORDER BY created_at DESC
+		AND created_at >= COALESCE(CAST(:fromTs AS timestamptz), '-infinity')
+		AND created_at <= COALESCE(CAST(:toTs AS timestamptz), 'infinity')
+		ORDER BY created_at DESC, posting_seq DESC, ledger_id DESC
 		LIMIT :limit OFFSET :offset
 		""")
 	List<LedgerEntry> findPage(
@@ -57,15 +94,92 @@ public interface LedgerEntryRepository extends CrudRepository<LedgerEntry, UUID>
 		@Param("offset") int offset
 	);
 
+	/**
+	 * Keyset page: the entries strictly after (createdAt, postingSeq, ledgerId) in
+	 * (created_at DESC, posting_seq DESC, ledger_id DESC) order.
+	 * The created_at bound seeks on idx_ledger_wallet_created_at, so the cost does not grow with depth.
+	 */
+	@Query("""
+		SELECT ledger_id, tx_id, wallet_id, amount,
+		       UPPER(posting_type::text) AS posting_type,
+		       created_at, current_balance, posting_seq
+		FROM ledger_entries
+		WHERE wallet_id = :walletId
+		AND created_at >= COALESCE(CAST(:fromTs AS timestamptz), '-infinity')
+		AND created_at <= COALESCE(CAST(:toTs AS timestamptz), 'infinity')
+		AND created_at <= :afterCreatedAt
+		AND (created_at < :afterCreatedAt OR (posting_seq, ledger_id) < (:afterPostingSeq, :afterLedgerId))
+		ORDER BY created_at DESC, posting_seq DESC, ledger_id DESC
+		LIMIT :limit
+		""")
+	List<LedgerEntry> findPageAfter(
+		@Param("walletId") UUID walletId,
+		@Param("fromTs") OffsetDateTime fromTs,
+		@Param("toTs") OffsetDateTime toTs,
+		@Param("afterCreatedAt") OffsetDateTime afterCreatedAt,
+		@Param("afterPostingSeq") long afterPostingSeq,
+		@Param("afterLedgerId") UUID afterLedgerId,
+		@Param("limit") int limit
+	);
+
+	/**
+	 * First export page: a wallet's entries in (created_at, posting_seq, ledger_id) order.
+	 */
+	@Query("""
+		SELECT ledger_id, tx_id, wallet_id, amount,
+		       UPPER(posting_type::text) AS posting_type,
+		       created_at, current_balance, posting_seq
+		FROM ledger_entries
+		WHERE wallet_id = :walletId
+		AND created_at >= COALESCE(CAST(:fromTs AS timestamptz), '-infinity')
+		AND created_at <= COALESCE(CAST(:toTs AS timestamptz), 'infinity')
+		ORDER BY created_at, posting_seq, ledger_id
+		LIMIT :limit
+		""")
+	List<LedgerEntry> findExportPage(
+		@Param("walletId") UUID walletId,
+		@Param("fromTs") OffsetDateTime fromTs,
+		@Param("toTs") OffsetDateTime toTs,
+		@Param("limit") int limit
+	);
+
+	/**
+	 * Next export page: the entries strictly after (createdAt, postingSeq, ledgerId) in
+	 * (created_at, posting_seq, ledger_id) order, seeking on idx_ledger_wallet_created_at like {@link #findPageAfter}.
+	 */
+	@Query("""
+		SELECT ledger_id, tx_id, wallet_id, amount,
+		       UPPER(posting_type::text) AS posting_type,
+		       created_at, current_balance, posting_seq
+		FROM ledger_entries
+		WHERE wallet_id = :walletId
+		AND created_at <= COALESCE(CAST(:toTs AS timestamptz), 'infinity')
+		AND created_at >= :afterCreatedAt
+		AND (created_at > :afterCreatedAt OR (posting_seq, ledger_id) > (:afterPostingSeq, :afterLedgerId))
+		ORDER BY created_at, posting_seq, ledger_id
+		LIMIT :limit
+		""")
+	List<LedgerEntry> findExportPageAfter(
+		@Param("walletId") UUID walletId,
+		@Param("toTs") OffsetDateTime toTs,
+		@Param("afterCreatedAt") OffsetDateTime afterCreatedAt,
+		@Param("afterPostingSeq") long afterPostingSeq,
+		@Param("afterLedgerId") UUID afterLedgerId,
+		@Param("limit") int limit
+	);
+
 	@Query("""
 		SELECT count(*) FROM ledger_entries
 		WHERE wallet_id = :walletId
-		AND (:fromTs IS NULL OR created_at >= :fromTs)
-		AND (:toTs IS NULL OR created_at <= :toTs)
+		AND created_at >= COALESCE(CAST(:fromTs AS timestamptz), '-infinity')
+		AND created_at <= COALESCE(CAST(:toTs AS timestamptz), 'infinity')
 		""")
 	long countAll(
 		@Param("walletId") UUID walletId,
 		@Param("fromTs") OffsetDateTime fromTs,
 		@Param("toTs") OffsetDateTime toTs
 	);
+
+	@Query("SELECT create_ledger_entry_partitions(:monthsAhead)")
+	int createPartitions(@Param("monthsAhead") int monthsAhead);
 }
@@ -0,0 +1,36 @@
+package com.bank.wallet.repository;
+
+import com.bank.wallet.entity.LedgerOutboxEntry;
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LedgerOutboxRepository extends CrudRepository<LedgerOutboxEntry, Long> {
+
+	/**
+	 * Transaction-scoped advisory lock that keeps a single relay active across nodes, so batches go out in outbox_id order
+	 */
+	@Query("SELECT pg_try_advisory_xact_lock(hashtextextended('ledger_outbox relay', 0))")
+	boolean tryLockRelay();
+
+	@Query("""
+		SELECT outbox_id, ledger_id, tx_id, wallet_id, amount, posting_type::text AS posting_type, current_balance, created_at
+		FROM ledger_outbox
+		ORDER BY outbox_id
+		LIMIT :limit
+		""")
+	List<LedgerOutboxEntry> findBatch(@Param("limit") int limit);
+
+	/**
+	 * Deletes by id rather than by range: a posting that commits late with a lower id must not be dropped unpublished
+	 */
+	@Modifying
+	@Query("DELETE FROM ledger_outbox WHERE outbox_id IN (:ids)")
+	int deleteByIds(@Param("ids") Collection<Long> ids);
+}
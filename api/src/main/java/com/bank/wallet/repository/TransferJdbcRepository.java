@@ -0,0 +1,34 @@
+package com.bank.wallet.repository;
+
+import com.bank.wallet.entity.Transfer;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public interface TransferJdbcRepository {
+
+	/**
+	 * Runs the whole transfer through the {@code execute_transfer} function in a single round trip.
+	 * The response body is stored on the idempotency key as-is, so it must be serialized up front.
+	 * With outbox set, both postings are also copied into ledger_outbox.
+	 */
+	StatementResult executeInOneStatement(UUID transferId, UUID fromWalletId, UUID toWalletId, BigDecimal amount,
+	                                      UUID idempotencyKey, byte[] requestHash, byte[] responseBody, boolean outbox);
+
+	/**
+	 * Inserts all transfers with a single multi-row INSERT and returns the number of rows written
+	 */
+	int insertBatch(List<Transfer> transfers);
+
+	record StatementResult(Outcome outcome, BigDecimal fromBalance, BigDecimal toBalance) {
+	}
+
+	enum Outcome {
+		COMPLETED,
+		FROM_WALLET_NOT_FOUND,
+		TO_WALLET_NOT_FOUND,
+		INSUFFICIENT_FUNDS,
+		SHARDED
+	}
+}
@@ -0,0 +1,57 @@
+package com.bank.wallet.repository;
+
+import com.bank.wallet.entity.Transfer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class TransferJdbcRepositoryImpl implements TransferJdbcRepository {
+
+	private static final String EXECUTE_TRANSFER = """
+		SELECT outcome, from_balance, to_balance
+		FROM execute_transfer(?, ?, ?, ?, ?, ?, ?, ?)
+		""";
+
+	private static final String INSERT_PREFIX = "INSERT INTO transfers (transfer_id, from_wallet_id, to_wallet_id, amount, disbursement_id, created_at) VALUES ";
+	private static final String INSERT_ROW = "(?, ?, ?, ?, ?, now())";
+	private static final String INSERT_SUFFIX = " ON CONFLICT (transfer_id) DO NOTHING";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	@Override
+	public StatementResult executeInOneStatement(UUID transferId, UUID fromWalletId, UUID toWalletId, BigDecimal amount,
+	                                             UUID idempotencyKey, byte[] requestHash, byte[] responseBody, boolean outbox) {
+		return jdbcTemplate.queryForObject(EXECUTE_TRANSFER,
+			(rs, rowNum) -> new StatementResult(
+				Outcome.valueOf(rs.getString("outcome").toUpperCase()),
+				rs.getBigDecimal("from_balance"),
+				rs.getBigDecimal("to_balance")),
+			transferId, fromWalletId, toWalletId, amount, idempotencyKey, requestHash, responseBody, outbox);
+	}
+
+	@Override
+	public int insertBatch(List<Transfer> transfers) {
+		if (transfers.isEmpty()) return 0;
+
+		var sql = new StringBuilder(INSERT_PREFIX.length() + transfers.size() * (INSERT_ROW.length() + 2) + INSERT_SUFFIX.length())
+			.append(INSERT_PREFIX);
+		var args = new ArrayList<>(transfers.size() * 5);
+		for (var i = 0; i < transfers.size(); i++) {
+			var transfer = transfers.get(i);
+			if (i > 0) sql.append(", ");
+			sql.append(INSERT_ROW);
+			args.add(transfer.getTransferId());
+			args.add(transfer.getFromWalletId());
+			args.add(transfer.getToWalletId());
+			args.add(transfer.getAmount());
+			args.add(transfer.getDisbursementId());
+		}
+		sql.append(INSERT_SUFFIX);
+		return jdbcTemplate.update(sql.toString(), args.toArray());
+	}
+}
@@ -0,0 +1,33 @@
+package com.bank.wallet.repository;
+
+import com.bank.wallet.entity.QueuedTransfer;
+
+import java.util.List;
+
+public interface TransferQueueJdbcRepository {
+
+	/**
+	 * Moves the in_progress idempotency key to accepted with the given 202 body and queues the transfer, in one
+	 * statement. Returns 0 when the key was not in_progress with a matching request hash, and nothing is queued.
+	 */
+	int enqueue(QueuedTransfer transfer, byte[] acceptedBody);
+
+	/**
+	 * Removes up to limit queued transfers that have never failed, skipping rows other workers hold, oldest first. The
+	 * rows come back if the surrounding transaction rolls back, so it must also apply the transfers and complete their keys.
+	 */
+	List<QueuedTransfer> claimBatch(int limit);
+
+	/**
+	 * Same as {@link #claimBatch} for the transfer that failed before, is not dead-lettered and has been due the
+	 * longest, so it is applied on its own. Empty when there is none.
+	 */
+	List<QueuedTransfer> claimRetry();
+
+	/**
+	 * Counts a failed attempt for each queued transfer, schedules its retry retryBackoffMillis after now, doubled for
+	 * every earlier attempt, and dead-letters those that reached maxAttempts. Returns the transfers dead-lettered by
+	 * this call.
+	 */
+	List<QueuedTransfer> recordFailedAttempt(List<Long> queueIds, int maxAttempts, long retryBackoffMillis);
+}
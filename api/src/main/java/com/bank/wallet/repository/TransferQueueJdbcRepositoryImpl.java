@@ -0,0 +1,102 @@
+package com.bank.wallet.repository;
+
+import com.bank.wallet.entity.QueuedTransfer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class TransferQueueJdbcRepositoryImpl implements TransferQueueJdbcRepository {
+
+	private static final String ENQUEUE = """
+		WITH accepted AS (
+		  UPDATE idempotency_keys
+		  SET status = 'accepted', response_status = 202, response_body = ?, last_seen_at = now()
+		  WHERE idempotency_key = ? AND first_seen_at = ? AND status = 'in_progress' AND request_hash = ?
+		  RETURNING idempotency_key, first_seen_at, request_hash
+		)
+		INSERT INTO transfer_queue (idempotency_key, first_seen_at, request_hash, transfer_id, from_wallet_id, to_wallet_id, amount)
+		SELECT idempotency_key, first_seen_at, request_hash, ?, ?, ?, ? FROM accepted
+		""";
+
+	private static final String CLAIM_BATCH = """
+		DELETE FROM transfer_queue
+		WHERE queue_id IN (SELECT queue_id FROM transfer_queue WHERE attempts = 0 ORDER BY queue_id LIMIT ? FOR UPDATE SKIP LOCKED)
+		RETURNING queue_id, idempotency_key, first_seen_at, request_hash, transfer_id, from_wallet_id, to_wallet_id, amount, enqueued_at, attempts, next_attempt_at, dead_lettered_at
+		""";
+
+	private static final String CLAIM_RETRY = """
+		DELETE FROM transfer_queue
+		WHERE queue_id IN (
+		  SELECT queue_id FROM transfer_queue
+		  WHERE attempts > 0 AND dead_lettered_at IS NULL AND next_attempt_at <= now()
+		  ORDER BY next_attempt_at LIMIT 1 FOR UPDATE SKIP LOCKED
+		)
+		RETURNING queue_id, idempotency_key, first_seen_at, request_hash, transfer_id, from_wallet_id, to_wallet_id, amount, enqueued_at, attempts, next_attempt_at, dead_lettered_at
+		""";
+
+	private static final String RECORD_FAILED_ATTEMPT = """
+		WITH failed AS (
+		  UPDATE transfer_queue
+		  SET attempts = attempts + 1, dead_lettered_at = CASE WHEN attempts + 1 >= ? THEN now() END,
+		      next_attempt_at = now() + ? * power(2, attempts) * interval '1 millisecond'
+		  WHERE queue_id = ANY (?) AND dead_lettered_at IS NULL
+		  RETURNING queue_id, idempotency_key, first_seen_at, request_hash, transfer_id, from_wallet_id, to_wallet_id, amount, enqueued_at, attempts, next_attempt_at, dead_lettered_at
+		)
+		SELECT * FROM failed WHERE dead_lettered_at IS NOT NULL
+		""";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	@Override
+	public int enqueue(QueuedTransfer transfer, byte[] acceptedBody) {
+		return jdbcTemplate.update(ENQUEUE,
+			acceptedBody, transfer.getIdempotencyKey(), transfer.getFirstSeenAt(), transfer.getRequestHash(),
+			transfer.getTransferId(), transfer.getFromWalletId(), transfer.getToWalletId(), transfer.getAmount());
+	}
+
+	@Override
+	public List<QueuedTransfer> claimBatch(int limit) {
+		var transfers = jdbcTemplate.query(CLAIM_BATCH, TransferQueueJdbcRepositoryImpl::mapRow, limit);
+		// RETURNING does not keep the subquery order
+		transfers.sort(Comparator.comparing(QueuedTransfer::getQueueId));
+		return transfers;
+	}
+
+	@Override
+	public List<QueuedTransfer> claimRetry() {
+		return jdbcTemplate.query(CLAIM_RETRY, TransferQueueJdbcRepositoryImpl::mapRow);
+	}
+
+	@Override
+	public List<QueuedTransfer> recordFailedAttempt(List<Long> queueIds, int maxAttempts, long retryBackoffMillis) {
+		return jdbcTemplate.query(RECORD_FAILED_ATTEMPT, ps -> {
+			ps.setInt(1, maxAttempts);
+			ps.setLong(2, retryBackoffMillis);
+			ps.setArray(3, ps.getConnection().createArrayOf("bigint", queueIds.toArray()));
+		}, TransferQueueJdbcRepositoryImpl::mapRow);
+	}
+
+	private static QueuedTransfer mapRow(ResultSet rs, int rowNum) throws SQLException {
+		return QueuedTransfer.builder()
+			.queueId(rs.getLong("queue_id"))
+			.idempotencyKey(rs.getObject("idempotency_key", UUID.class))
+			.firstSeenAt(rs.getObject("first_seen_at", OffsetDateTime.class))
+			.requestHash(rs.getBytes("request_hash"))
+			.transferId(rs.getObject("transfer_id", UUID.class))
+			.fromWalletId(rs.getObject("from_wallet_id", UUID.class))
+			.toWalletId(rs.getObject("to_wallet_id", UUID.class))
+			.amount(rs.getBigDecimal("amount"))
+			.enqueuedAt(rs.getObject("enqueued_at", OffsetDateTime.class))
+			.attempts(rs.getInt("attempts"))
+			.nextAttemptAt(rs.getObject("next_attempt_at", OffsetDateTime.class))
+			.deadLetteredAt(rs.getObject("dead_lettered_at", OffsetDateTime.class))
+			.build();
+	}
+}
@@ -0,0 +1,9 @@
+package com.bank.wallet.repository;
+
+import com.bank.wallet.entity.QueuedTransfer;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TransferQueueRepository extends CrudRepository<QueuedTransfer, Long>, TransferQueueJdbcRepository {
+}
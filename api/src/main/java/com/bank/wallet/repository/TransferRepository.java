@@ -11,7 +11,7 @@ import java.math.BigDecimal;
 import java.util.UUID;
 
 @Repository
-public interface TransferRepository extends CrudRepository<Transfer, UUID> {
+public interface TransferRepository extends CrudRepository<Transfer, UUID>, TransferJdbcRepository {
 
 	@Modifying
 	@Query("""
@@ -0,0 +1,14 @@
+package com.bank.wallet.repository;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+public interface WalletJdbcRepository {
+
+	/**
+	 * Overwrites the balances of wallets locked with {@link WalletRepository#lockAllById} in one statement
+	 * and returns the number of rows updated
+	 */
+	int updateBalances(Map<UUID, BigDecimal> balances);
+}
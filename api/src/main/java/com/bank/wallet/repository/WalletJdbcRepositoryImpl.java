@@ -0,0 +1,36 @@
+package com.bank.wallet.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class WalletJdbcRepositoryImpl implements WalletJdbcRepository {
+
+	private static final String UPDATE_PREFIX = "UPDATE wallets AS w SET current_balance = v.balance, updated_at = now() FROM (VALUES ";
+	private static final String UPDATE_ROW = "(CAST(? AS uuid), CAST(? AS numeric))";
+	private static final String UPDATE_SUFFIX = ") AS v(wallet_id, balance) WHERE w.wallet_id = v.wallet_id";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	@Override
+	public int updateBalances(Map<UUID, BigDecimal> balances) {
+		if (balances.isEmpty()) return 0;
+
+		var sql = new StringBuilder(UPDATE_PREFIX.length() + balances.size() * (UPDATE_ROW.length() + 2) + UPDATE_SUFFIX.length())
+			.append(UPDATE_PREFIX);
+		var args = new ArrayList<>(balances.size() * 2);
+		for (var balance : balances.entrySet()) {
+			if (!args.isEmpty()) sql.append(", ");
+			sql.append(UPDATE_ROW);
+			args.add(balance.getKey());
+			args.add(balance.getValue());
+		}
+		sql.append(UPDATE_SUFFIX);
+		return jdbcTemplate.update(sql.toString(), args.toArray());
+	}
+}
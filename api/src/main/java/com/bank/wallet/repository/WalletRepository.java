@@ -1,37 +1,108 @@
 package com.bank.wallet.repository;
 
 import com.bank.wallet.entity.Wallet;
+import org.springframework.data.jdbc.repository.query.Modifying;
 import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface WalletRepository extends CrudRepository<Wallet, UUID> {
+public interface WalletRepository extends CrudRepository<Wallet, UUID>, WalletJdbcRepository {
 
 	/**
-	 * Deposit funds and return new balance atomically
+	 * Lock the wallet row for the rest of the transaction. NO KEY UPDATE still lets ledger and transfer inserts
+	 * take their foreign-key share lock on it.
+	 */
+	@Query("SELECT wallet_id, current_balance, shard_count, created_at, updated_at FROM wallets WHERE wallet_id = :walletId FOR NO KEY UPDATE")
+	Optional<Wallet> lockById(@Param("walletId") UUID walletId);
+
+	/**
+	 * Lock several wallet rows in wallet_id order, so concurrent multi-wallet transactions cannot deadlock.
+	 * Missing wallets are simply absent from the result.
+	 */
+	@Query("SELECT wallet_id, current_balance, shard_count, created_at, updated_at FROM wallets WHERE wallet_id IN (:walletIds) ORDER BY wallet_id FOR NO KEY UPDATE")
+	List<Wallet> lockAllById(@Param("walletIds") Collection<UUID> walletIds);
+
+	/**
+	 * Overwrite the balance of a wallet locked with {@link #lockById}
+	 */
+	@Modifying
+	@Query("UPDATE wallets SET current_balance = :balance, updated_at = now() WHERE wallet_id = :walletId")
+	int updateBalance(@Param("walletId") UUID walletId, @Param("balance") BigDecimal balance);
+
+	/**
+	 * Deposit funds and return the new balance in one round trip. Unsharded wallets are updated in place; the
+	 * shard function only runs when that UPDATE matched nothing, and credits the shard picked by shardHint.
+	 * Empty when the wallet does not exist.
 	 */
 	@Query("""
-		UPDATE wallets
-		SET current_balance = current_balance + :amount, updated_at = now()
-		WHERE wallet_id = :walletId
-		RETURNING current_balance
+		WITH plain AS (
+			UPDATE wallets
+			SET current_balance = current_balance + :amount, updated_at = now()
+			WHERE wallet_id = :walletId AND shard_count = 0
+			RETURNING current_balance
+		)
+		SELECT current_balance FROM plain
+		UNION ALL
+		SELECT t.balance FROM wallet_shard_credit(:walletId, :amount, :shardHint) AS t(balance)
+		WHERE NOT EXISTS (SELECT 1 FROM plain) AND t.balance IS NOT NULL
 		""")
-	Optional<BigDecimal> depositAndGetNewBalance(@Param("walletId") UUID walletId, @Param("amount") BigDecimal amount);
+	Optional<BigDecimal> depositAndGetNewBalance(@Param("walletId") UUID walletId, @Param("amount") BigDecimal amount, @Param("shardHint") int shardHint);
 
 	/**
-	 * Withdraw funds with overdraft protection and return new balance atomically
+	 * Withdraw funds with overdraft protection and return the new balance in one round trip. Sharded wallets
+	 * debit the shard picked by shardHint and borrow from the others when it runs dry.
+	 * Empty when the wallet does not exist or funds are insufficient.
 	 */
 	@Query("""
-		UPDATE wallets
-		SET current_balance = current_balance - :amount, updated_at = now()
-		WHERE wallet_id = :walletId AND current_balance >= :amount
-		RETURNING current_balance
+		WITH plain AS (
+			UPDATE wallets
+			SET current_balance = current_balance - :amount, updated_at = now()
+			WHERE wallet_id = :walletId AND shard_count = 0 AND current_balance >= :amount
+			RETURNING current_balance
+		)
+		SELECT current_balance FROM plain
+		UNION ALL
+		SELECT t.balance FROM wallet_shard_debit(:walletId, :amount, :shardHint) AS t(balance)
+		WHERE NOT EXISTS (SELECT 1 FROM plain) AND t.balance IS NOT NULL
 		""")
-	Optional<BigDecimal> withdrawAndGetNewBalance(@Param("walletId") UUID walletId, @Param("amount") BigDecimal amount);
+	Optional<BigDecimal> withdrawAndGetNewBalance(@Param("walletId") UUID walletId, @Param("amount") BigDecimal amount, @Param("shardHint") int shardHint);
+
+	/**
+	 * Redistribute the wallet balance across the given number of shards (0 disables sharding) and return the total
+	 */
+	@Query("""
+		SELECT t.balance FROM wallet_reshard(:walletId, :shardCount) AS t(balance)
+		WHERE t.balance IS NOT NULL
+		""")
+	Optional<BigDecimal> reshard(@Param("walletId") UUID walletId, @Param("shardCount") int shardCount);
+
+	/**
+	 * Load a wallet with current_balance holding the exact total across balance shards
+	 */
+	@Query("""
+		SELECT wallet_id, wallet_total_balance(wallet_id) AS current_balance, shard_count, created_at, updated_at
+		FROM wallets
+		WHERE wallet_id = :walletId
+		""")
+	Optional<Wallet> findWithTotalBalance(@Param("walletId") UUID walletId);
+
+	/**
+	 * Next page of wallet ids in primary-key order, for scanning all wallets without holding a transaction open
+	 */
+	@Query("SELECT wallet_id FROM wallets WHERE wallet_id > :after ORDER BY wallet_id LIMIT :limit")
+	List<UUID> findIdsAfter(@Param("after") UUID after, @Param("limit") int limit);
+
+	/**
+	 * Planner's row estimate for wallets, without counting them
+	 */
+	@Query("SELECT GREATEST(reltuples, 0)::bigint FROM pg_class WHERE oid = 'wallets'::regclass")
+	long estimateCount();
 }
@@ -0,0 +1,253 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.dto.wallet.BalanceEventDto;
+import com.bank.wallet.exception.BalanceStreamUnavailableException;
+import com.bank.wallet.exception.WalletNotFoundException;
+import com.bank.wallet.mapper.WalletMapper;
+import com.bank.wallet.repository.WalletRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent balance events. The single {@link WalletChangeListener} connection hands every ledger_postings
+ * notification to {@link #onPosting}, which fans it out to this node's subscribers of that wallet. An idle
+ * subscriber holds only its async request; events are written on virtual threads, one drain at a time per
+ * subscriber so they arrive in commit order. A subscriber that falls behind, or that may have missed
+ * notifications while the listener reconnected, is disconnected and resubscribes with a fresh snapshot.
+ */
+@Service
+@Slf4j
+public class BalanceStreamService {
+
+	static final String SUBSCRIBERS_METRIC = "wallet.balance-stream.subscribers";
+	static final String WALLETS_METRIC = "wallet.balance-stream.wallets";
+	static final String DROPPED_METRIC = "wallet.balance-stream.dropped";
+	static final String DELAY_METRIC = "wallet.balance-stream.delay";
+	static final String SNAPSHOT_EVENT = "wallet";
+	static final String POSTING_EVENT = "posting";
+
+	private final WalletRepository walletRepository;
+	private final WalletMapper walletMapper;
+	private final ObjectMapper objectMapper;
+	private final WalletProperties.BalanceStream properties;
+	private final Map<UUID, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+	private final AtomicInteger subscriberCount = new AtomicInteger();
+	private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+	private final Counter dropped;
+	private final Timer delay;
+	private volatile boolean listening;
+
+	public BalanceStreamService(WalletRepository walletRepository, WalletMapper walletMapper, ObjectMapper objectMapper,
+	                            WalletProperties walletProperties, MeterRegistry meterRegistry) {
+		this.walletRepository = walletRepository;
+		this.walletMapper = walletMapper;
+		this.objectMapper = objectMapper;
+		this.properties = walletProperties.getBalanceStream();
+		Gauge.builder(SUBSCRIBERS_METRIC, subscriberCount, AtomicInteger::get)
+			.description("Open balance subscriptions on this node")
+			.register(meterRegistry);
+		Gauge.builder(WALLETS_METRIC, subscribers, Map::size)
+			.description("Wallets with at least one balance subscription on this node")
+			.register(meterRegistry);
+		this.dropped = Counter.builder(DROPPED_METRIC)
+			.description("Balance subscriptions disconnected for falling behind")
+			.register(meterRegistry);
+		this.delay = Timer.builder(DELAY_METRIC)
+			.description("Delay between a posting's notification and its hand-off to subscribers")
+			.register(meterRegistry);
+	}
+
+	public boolean isEnabled() {
+		return properties.isEnabled();
+	}
+
+	/**
+	 * Opens a subscription whose first event is the wallet as read from the primary. The subscriber is registered
+	 * before that read, so a posting committed meanwhile is queued behind the snapshot rather than lost; it may
+	 * repeat what the snapshot already shows.
+	 */
+	public SseEmitter subscribe(UUID walletId) {
+		if (!properties.isEnabled()) throw new BalanceStreamUnavailableException("Balance stream is disabled");
+		if (!listening) throw new BalanceStreamUnavailableException("Balance stream is reconnecting");
+		if (subscriberCount.incrementAndGet() > properties.getMaxSubscribers()) {
+			subscriberCount.decrementAndGet();
+			throw new BalanceStreamUnavailableException("Balance stream subscriber limit reached");
+		}
+
+		var subscriber = new Subscriber(walletId, new SseEmitter(properties.getTimeoutMillis()));
+		subscribers.computeIfAbsent(walletId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+		subscriber.emitter.onCompletion(() -> unregister(subscriber));
+		subscriber.emitter.onTimeout(subscriber::close);
+		subscriber.emitter.onError(e -> subscriber.close());
+
+		try {
+			var wallet = walletRepository.findWithTotalBalance(walletId)
+				.orElseThrow(() -> new WalletNotFoundException("Wallet not found: " + walletId));
+			subscriber.start(new Event(SNAPSHOT_EVENT, encode(walletMapper.mapToResponse(wallet))));
+		} catch (RuntimeException e) {
+			unregister(subscriber);
+			throw e;
+		}
+		log.debug("Balance subscription opened: wallet={}", walletId);
+		return subscriber.emitter;
+	}
+
+	/**
+	 * Called on the listener thread; serializes the posting once and only queues it, so slow clients never hold it up.
+	 */
+	public void onPosting(WalletChangeListener.LedgerPosting posting) {
+		var walletSubscribers = subscribers.get(posting.walletId());
+		if (walletSubscribers == null) return;
+		delay.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - posting.sentAtMillis())));
+		var event = new Event(POSTING_EVENT, encode(BalanceEventDto.builder()
+			.walletId(posting.walletId())
+			.txId(posting.txId())
+			.postingType(posting.postingType().name())
+			.amount(posting.amount())
+			.currentBalance(posting.currentBalance())
+			.createdAt(posting.createdAt())
+			.build()));
+		for (var subscriber : walletSubscribers) subscriber.offer(event);
+	}
+
+	/**
+	 * Called by the listener as its connection comes and goes. Subscribers open during a disconnect may have missed
+	 * postings, so they are closed and come back with a new snapshot.
+	 */
+	public void setListening(boolean listening) {
+		this.listening = listening;
+		if (!listening) subscribers.values().forEach(set -> set.forEach(Subscriber::close));
+	}
+
+	// keeps idle connections from being cut by proxies and detects clients that went away
+	@Scheduled(fixedDelayString = "${wallet.balance-stream.heartbeat-millis:15000}")
+	public void heartbeat() {
+		if (subscriberCount.get() == 0) return;
+		subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.offer(Event.HEARTBEAT)));
+	}
+
+	int subscriberCount() {
+		return subscriberCount.get();
+	}
+
+	@PreDestroy
+	void stop() {
+		senders.shutdownNow();
+		subscribers.values().forEach(set -> set.forEach(Subscriber::close));
+	}
+
+	private void unregister(Subscriber subscriber) {
+		if (!subscriber.closed.compareAndSet(false, true)) return;
+		subscriberCount.decrementAndGet();
+		subscribers.computeIfPresent(subscriber.walletId, (id, set) -> {
+			set.remove(subscriber);
+			return set.isEmpty() ? null : set;
+		});
+	}
+
+	private String encode(Object value) {
+		try {
+			return objectMapper.writeValueAsString(value);
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Pre-encoded event shared by every subscriber of a wallet; a null name is a heartbeat comment.
+	 */
+	private record Event(String name, String json) {
+		static final Event HEARTBEAT = new Event(null, null);
+
+		SseEmitter.SseEventBuilder toSse() {
+			return name == null
+				? SseEmitter.event().comment("heartbeat")
+				: SseEmitter.event().name(name).data(json, MediaType.APPLICATION_JSON);
+		}
+	}
+
+	private final class Subscriber {
+		private final UUID walletId;
+		private final SseEmitter emitter;
+		private final Queue<Event> pending = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger pendingCount = new AtomicInteger();
+		// held until the snapshot is written, so queued postings follow it
+		private final AtomicBoolean draining = new AtomicBoolean(true);
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		private Subscriber(UUID walletId, SseEmitter emitter) {
+			this.walletId = walletId;
+			this.emitter = emitter;
+		}
+
+		private void start(Event snapshot) {
+			senders.execute(() -> {
+				if (send(snapshot)) drain();
+			});
+		}
+
+		private void offer(Event event) {
+			if (closed.get()) return;
+			if (pendingCount.incrementAndGet() > properties.getMaxPendingEvents()) {
+				dropped.increment();
+				close();
+				return;
+			}
+			pending.add(event);
+			if (draining.compareAndSet(false, true)) senders.execute(this::drain);
+		}
+
+		private void drain() {
+			do {
+				Event event;
+				while ((event = pending.poll()) != null) {
+					pendingCount.decrementAndGet();
+					if (!send(event)) return;
+				}
+				draining.set(false);
+				// an offer that raced the release above finds draining false and starts its own drain
+			} while (!pending.isEmpty() && draining.compareAndSet(false, true));
+		}
+
+		private boolean send(Event event) {
+			if (closed.get()) return false;
+			try {
+				emitter.send(event.toSse());
+				return true;
+			} catch (IOException | IllegalStateException e) {
+				close();
+				return false;
+			}
+		}
+
+		private void close() {
+			unregister(this);
+			emitter.complete();
+		}
+	}
+}
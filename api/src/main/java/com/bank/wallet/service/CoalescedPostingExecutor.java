@@ -0,0 +1,107 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.entity.IdempotencyKey;
+import com.bank.wallet.entity.LedgerEntry;
+import com.bank.wallet.entity.enums.IdempotencyStatus;
+import com.bank.wallet.entity.enums.PostingType;
+import com.bank.wallet.exception.InsufficientFundsException;
+import com.bank.wallet.exception.WalletNotFoundException;
+import com.bank.wallet.mapper.LedgerMapper;
+import com.bank.wallet.mapper.TransactionMapper;
+import com.bank.wallet.repository.WalletRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Applies a batch of deposits/withdrawals to one wallet in a single transaction:
+ * one row lock, one balance UPDATE, one multi-row ledger insert and one batched idempotency completion.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CoalescedPostingExecutor {
+
+	private final WalletRepository walletRepository;
+	private final LedgerService ledgerService;
+	private final IdempotencyService idempotencyService;
+	private final LedgerMapper ledgerMapper;
+	private final TransactionMapper transactionMapper;
+	private final WalletSnapshotCache walletSnapshotCache;
+
+	/**
+	 * Returns one result per posting, in the same order, or null when the wallet is sharded and
+	 * the postings must be executed one by one. Bounded by wallet.coalescer.flush-timeout-seconds, see {@link PostingCoalescer}.
+	 */
+	@Transactional(timeoutString = "${wallet.coalescer.flush-timeout-seconds:2}")
+	public List<PostingResult> apply(UUID walletId, List<Posting> postings) {
+		var results = new PostingResult[postings.size()];
+		var wallet = walletRepository.lockById(walletId);
+		if (wallet.isEmpty()) {
+			for (var i = 0; i < postings.size(); i++) {
+				var key = postings.get(i).key();
+				results[i] = PostingResult.failure(new WalletNotFoundException("Wallet not found: " + walletId, key));
+			}
+			return Arrays.asList(results);
+		}
+		if (wallet.get().getShardCount() > 0) return null;
+
+		var balance = wallet.get().getCurrentBalance();
+		var acceptedIndexes = new ArrayList<Integer>(postings.size());
+		var entries = new ArrayList<LedgerEntry>(postings.size());
+		var keys = new ArrayList<IdempotencyKey>(postings.size());
+		var responses = new ArrayList<Object>(postings.size());
+
+		// overdraft is evaluated per posting, in arrival order
+		for (var i = 0; i < postings.size(); i++) {
+			var posting = postings.get(i);
+			var key = posting.key();
+			if (posting.type() == PostingType.WITHDRAW && balance.compareTo(posting.amount()) < 0) {
+				results[i] = PostingResult.failure(new InsufficientFundsException("Insufficient funds for withdrawal", walletId, posting.amount(), key));
+				continue;
+			}
+
+			var signedAmount = posting.type() == PostingType.WITHDRAW ? posting.amount().negate() : posting.amount();
+			balance = balance.add(signedAmount);
+			acceptedIndexes.add(i);
+			entries.add(ledgerMapper.create(key.getRefId(), walletId, signedAmount, posting.type(), balance, key.getFirstSeenAt()));
+			keys.add(key);
+			responses.add(transactionMapper.toResponseDto(key.getRefId(), walletId, balance));
+		}
+
+		if (!acceptedIndexes.isEmpty()) {
+			walletRepository.updateBalance(walletId, balance);
+			walletSnapshotCache.applyAfterCommit(walletId, wallet.get().getCurrentBalance(), balance);
+			ledgerService.createEntries(entries);
+			var bodies = idempotencyService.markCompletedBatch(keys, 200, responses, IdempotencyStatus.SUCCEEDED);
+			for (var i = 0; i < acceptedIndexes.size(); i++) {
+				results[acceptedIndexes.get(i)] = PostingResult.success(idempotencyService.buildResponse(200, bodies.get(i)));
+			}
+		}
+
+		log.info("Coalesced postings: wallet={}, batch={}, accepted={}", walletId, postings.size(), acceptedIndexes.size());
+		return Arrays.asList(results);
+	}
+
+	public record Posting(IdempotencyKey key, PostingType type, BigDecimal amount) {
+	}
+
+	public record PostingResult(ResponseEntity<byte[]> response, RuntimeException failure) {
+
+		static PostingResult success(ResponseEntity<byte[]> response) {
+			return new PostingResult(response, null);
+		}
+
+		static PostingResult failure(RuntimeException failure) {
+			return new PostingResult(null, failure);
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Appends each batch to wallet.outbox.file.path and fsyncs it before the outbox rows are deleted
+ */
+@Component
+@ConditionalOnProperty(prefix = "wallet.outbox.file", name = "path")
+public class FileLedgerEventSink implements LedgerEventSink {
+
+	private final Path path;
+
+	public FileLedgerEventSink(WalletProperties walletProperties) {
+		this.path = Path.of(walletProperties.getOutbox().getFile().getPath());
+	}
+
+	@Override
+	public String name() {
+		return "file";
+	}
+
+	@Override
+	public void publish(byte[] batch) {
+		try (var channel = FileChannel.open(path, CREATE, WRITE, APPEND)) {
+			var buffer = ByteBuffer.wrap(batch);
+			while (buffer.hasRemaining()) channel.write(buffer);
+			channel.force(false);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to append ledger events to " + path, e);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.CacheConfig;
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.entity.IdempotencyKey;
+import com.bank.wallet.entity.enums.IdempotencyStatus;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Node-local copy of completed idempotency responses, keyed by idempotency key and request hash,
+ * so retries of finished requests are answered without a database round trip.
+ * Only SUCCEEDED and FAILED keys are stored; IN_PROGRESS is always resolved by the database.
+ */
+@Component
+public class IdempotencyReplayCache {
+
+	private final Cache cache;
+	private final boolean enabled;
+
+	public IdempotencyReplayCache(CacheManager cacheManager, WalletProperties walletProperties) {
+		this.cache = cacheManager.getCache(CacheConfig.IDEMPOTENCY_REPLAYS);
+		this.enabled = walletProperties.getIdempotency().getReplayCache().isEnabled() && cache != null;
+	}
+
+	public Optional<IdempotencyKey> get(UUID idempotencyKey, byte[] requestHash) {
+		if (!enabled) return Optional.empty();
+		return Optional.ofNullable(cache.get(new ReplayKey(idempotencyKey, requestHash), IdempotencyKey.class));
+	}
+
+	/**
+	 * Stores the key right away. Only committed completions may be passed in; completions written in an open
+	 * transaction go through {@link IdempotencyService#rememberCompleted}, which defers them to after commit.
+	 */
+	public void put(IdempotencyKey key) {
+		if (!enabled || !isCompleted(key)) return;
+		cache.put(new ReplayKey(key.getIdempotencyKey(), key.getRequestHash()), key);
+	}
+
+	private static boolean isCompleted(IdempotencyKey key) {
+		return key.getStatus() == IdempotencyStatus.SUCCEEDED || key.getStatus() == IdempotencyStatus.FAILED;
+	}
+
+	// arrays compare by identity, so the hash is compared by content explicitly
+	record ReplayKey(UUID idempotencyKey, byte[] requestHash) {
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof ReplayKey other && idempotencyKey.equals(other.idempotencyKey) && Arrays.equals(requestHash, other.requestHash);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * idempotencyKey.hashCode() + Arrays.hashCode(requestHash);
+		}
+	}
+}
@@ -2,19 +2,30 @@ package com.bank.wallet.service;
 
 import com.bank.wallet.config.WalletProperties;
 import com.bank.wallet.entity.IdempotencyKey;
+import com.bank.wallet.entity.enums.ClaimOutcome;
 import com.bank.wallet.entity.enums.IdempotencyStatus;
 import com.bank.wallet.exception.IdempotencyConflictException;
 import com.bank.wallet.exception.IdempotencyInProgressException;
+import com.bank.wallet.repository.IdempotencyKeyJdbcRepository;
 import com.bank.wallet.repository.IdempotencyKeyRepository;
 import com.bank.wallet.util.ContextUtils;
+import com.bank.wallet.util.GzipUtils;
 import com.bank.wallet.util.SerializationUtils;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -22,57 +33,154 @@ import java.util.UUID;
 @Slf4j
 public class IdempotencyService {
 
+	static final String CLAIM_METRIC = "wallet.idempotency.claims";
+
 	private final IdempotencyKeyRepository idempotencyKeyRepository;
 	private final ContextUtils contextUtils;
 	private final SerializationUtils serializationUtils;
 	private final WalletProperties walletProperties;
+	private final MeterRegistry meterRegistry;
+	private final IdempotencyReplayCache replayCache;
 
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	/**
+	 * Resolves retries of completed requests from the node-local replay cache first; everything else
+	 * goes through the claim statement, which runs in its own transaction.
+	 */
 	public IdempotencyKey claim(UUID idempotencyKey, Object requestDto) {
 		var method = contextUtils.getCurrentRequestMethod();
 		var path = contextUtils.getCurrentRequestPath();
-		var requestHash = contextUtils.generateRequestHash(method, path, requestDto);
+		var requestHash = contextUtils.getCurrentRequestHash(requestDto);
+		var cached = replayCache.get(idempotencyKey, requestHash);
+		if (cached.isPresent()) return cached.get();
+
 		var refId = UUID.randomUUID();
 		var staleSeconds = walletProperties.getIdempotency().getStaleThresholdSeconds();
 
-		var inserted = idempotencyKeyRepository.tryInsertWithRef(idempotencyKey, contextUtils.getCurrentRequestMethod(), contextUtils.getCurrentRequestPath(), requestHash, refId);
-		if (inserted.isPresent()) {
-			return inserted.get();
+		var claimed = idempotencyKeyRepository.claim(idempotencyKey, method, path, requestHash, refId, staleSeconds)
+			.orElseThrow(() -> new IllegalStateException("Idempotency claim returned no row"));
+		if (isLegacyHash(claimed, method, path, requestDto)) {
+			claimed = idempotencyKeyRepository.claim(idempotencyKey, method, path, claimed.getRequestHash(), refId, staleSeconds)
+				.orElseThrow(() -> new IllegalStateException("Idempotency claim returned no row"));
 		}
+		return resolve(idempotencyKey, claimed);
+	}
 
-		var existing = idempotencyKeyRepository.findByIdempotencyKeyAndRequestHash(idempotencyKey, requestHash)
-			.orElseThrow(() -> new IdempotencyConflictException("IDEMPOTENCY_KEY_REUSE", "Idempotency key reused for different request"));
+	public boolean isSingleCommit() {
+		return walletProperties.getIdempotency().isSingleCommit();
+	}
 
-		if (existing.getStatus() == IdempotencyStatus.IN_PROGRESS) {
-			var taken = idempotencyKeyRepository.tryTakeOverReturning(idempotencyKey, staleSeconds);
-			if (taken.isPresent()) {
-				log.info("Took over stale idempotency key: {}", idempotencyKey);
-				return taken.get();
+	/**
+	 * Completed request answered from the node-local replay cache, without a connection.
+	 */
+	public Optional<IdempotencyKey> findCachedReplay(UUID idempotencyKey, Object requestDto) {
+		return replayCache.get(idempotencyKey, contextUtils.getCurrentRequestHash(requestDto));
+	}
+
+	/**
+	 * Single-commit claim: joins the caller's transaction, so a first-seen key only becomes visible when the whole
+	 * request commits. A concurrent duplicate blocks on the key until then and replays the outcome; one that waits
+	 * longer than {@code single-commit-lock-timeout-millis} is answered as in progress.
+	 */
+	public IdempotencyKey claimInTransaction(UUID idempotencyKey, Object requestDto) {
+		var method = contextUtils.getCurrentRequestMethod();
+		var path = contextUtils.getCurrentRequestPath();
+		var requestHash = contextUtils.getCurrentRequestHash(requestDto);
+		var properties = walletProperties.getIdempotency();
+
+		IdempotencyKey claimed;
+		try {
+			claimed = idempotencyKeyRepository.claimInTransaction(idempotencyKey, method, path, requestHash, UUID.randomUUID(),
+					properties.getStaleThresholdSeconds(), properties.getSingleCommitLockTimeoutMillis())
+				.orElseThrow(() -> new IllegalStateException("Idempotency claim returned no row"));
+			if (isLegacyHash(claimed, method, path, requestDto)) {
+				claimed = idempotencyKeyRepository.claimInTransaction(idempotencyKey, method, path, claimed.getRequestHash(), UUID.randomUUID(),
+						properties.getStaleThresholdSeconds(), properties.getSingleCommitLockTimeoutMillis())
+					.orElseThrow(() -> new IllegalStateException("Idempotency claim returned no row"));
 			}
+		} catch (CannotAcquireLockException e) {
+			meterRegistry.counter(CLAIM_METRIC, "outcome", ClaimOutcome.IN_PROGRESS.name().toLowerCase()).increment();
 			throw new IdempotencyInProgressException("Request is being processed by another instance");
 		}
+		claimed.setClaimedInTransaction(true);
+		return resolve(idempotencyKey, claimed);
+	}
 
-		log.info("Replaying idempotency key: {}", idempotencyKey);
-		return existing;
+	/**
+	 * A mismatch against a key claimed before request bodies were canonicalized is claimed again with the hash that
+	 * release stored, if it matches the re-serialized DTO the way that release computed it.
+	 */
+	private boolean isLegacyHash(IdempotencyKey claimed, String method, String path, Object requestDto) {
+		return claimed.getClaimOutcome() == ClaimOutcome.HASH_MISMATCH
+			&& Arrays.equals(claimed.getRequestHash(), contextUtils.generateLegacyRequestHash(method, path, requestDto));
 	}
 
+	private IdempotencyKey resolve(UUID idempotencyKey, IdempotencyKey claimed) {
+		var outcome = claimed.getClaimOutcome();
+		meterRegistry.counter(CLAIM_METRIC, "outcome", outcome.name().toLowerCase()).increment();
+		return switch (outcome) {
+			case NEW -> claimed;
+			case STALE_TAKEOVER -> {
+				log.info("Took over stale idempotency key: {}", idempotencyKey);
+				yield claimed;
+			}
+			case REPLAY -> {
+				log.info("Replaying idempotency key: {}", idempotencyKey);
+				replayCache.put(claimed);
+				yield claimed;
+			}
+			case IN_PROGRESS -> throw new IdempotencyInProgressException("Request is being processed by another instance");
+			case HASH_MISMATCH -> throw new IdempotencyConflictException("IDEMPOTENCY_KEY_REUSE", "Idempotency key reused for different request");
+		};
+	}
+
+	/**
+	 * Accepted keys replay their stored 202 until the transfer queue worker completes them
+	 */
 	public boolean isReplay(IdempotencyKey key) {
-		return key.getStatus() == IdempotencyStatus.SUCCEEDED || key.getStatus() == IdempotencyStatus.FAILED;
+		return key.getStatus() == IdempotencyStatus.SUCCEEDED || key.getStatus() == IdempotencyStatus.FAILED
+			|| key.getStatus() == IdempotencyStatus.ACCEPTED;
+	}
+
+	public Optional<IdempotencyKey> findLatest(UUID idempotencyKey) {
+		return idempotencyKeyRepository.findLatest(idempotencyKey);
+	}
+
+	public ResponseEntity<byte[]> buildReplayResponse(IdempotencyKey key) {
+		return buildResponse(key.getResponseStatus(), key.getResponseBody());
+	}
+
+	/**
+	 * Sends a stored body as is, so first responses and replays write the same bytes. Gzipped bodies are
+	 * labelled with Content-Encoding; StoredResponseAdvice inflates them for clients that don't accept gzip.
+	 */
+	public ResponseEntity<byte[]> buildResponse(int httpStatus, byte[] body) {
+		var response = ResponseEntity.status(httpStatus).contentType(MediaType.APPLICATION_JSON);
+		if (GzipUtils.isGzipped(body)) {
+			response.header(HttpHeaders.CONTENT_ENCODING, "gzip").header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		}
+		return response.body(body);
 	}
 
-	public ResponseEntity<String> buildReplayResponse(IdempotencyKey key) {
-		return ResponseEntity.status(key.getResponseStatus()).body(key.getResponseBody());
+	/**
+	 * Serializes a response straight to UTF-8 bytes, the form it is stored and sent in.
+	 */
+	public byte[] encodeResponse(Object responseDto) {
+		var json = serializationUtils.toJsonBytes(responseDto);
+		var compressionMinBytes = walletProperties.getIdempotency().getResponseCompressionMinBytes();
+		if (compressionMinBytes > 0 && json.length >= compressionMinBytes) return GzipUtils.gzip(json);
+		return json;
 	}
 
-	public String markCompleted(IdempotencyKey key, int httpStatus, Object responseDto, IdempotencyStatus status) {
+	public byte[] markCompleted(IdempotencyKey key, int httpStatus, Object responseDto, IdempotencyStatus status) {
 		try {
-			var json = serializationUtils.toJson(responseDto);
-			var rows = idempotencyKeyRepository.markCompleted(key.getIdempotencyKey(), httpStatus, json, status.name().toLowerCase(), key.getRequestHash());
+			var body = encodeResponse(responseDto);
+			var rows = idempotencyKeyRepository.markCompleted(key.getIdempotencyKey(), key.getFirstSeenAt(), httpStatus, body, status.name().toLowerCase(), key.getRequestHash());
 			if (rows != 1) {
 				log.error("Failed idempotency state transition for key: {}", key.getIdempotencyKey());
 				throw new IllegalStateException("Idempotency key not in in_progress state or hash mismatch");
 			}
-			return json;
+			rememberCompleted(key, httpStatus, body, status);
+			return body;
 		} catch (IllegalStateException e) {
 			throw e;
 		} catch (Exception e) {
@@ -81,4 +189,102 @@ public class IdempotencyService {
 		}
 	}
 
+	/**
+	 * Stores a failed outcome. A claim made in the request's transaction was rolled back with it, so the key is claimed
+	 * again first; if another request got to it meanwhile, the failure is answered without being stored.
+	 */
+	public byte[] markFailed(IdempotencyKey key, int httpStatus, Object responseDto) {
+		if (!key.isClaimedInTransaction()) return markCompleted(key, httpStatus, responseDto, IdempotencyStatus.FAILED);
+
+		var staleSeconds = walletProperties.getIdempotency().getStaleThresholdSeconds();
+		var reclaimed = idempotencyKeyRepository.claim(key.getIdempotencyKey(), key.getMethod(), key.getPath(), key.getRequestHash(), key.getRefId(), staleSeconds)
+			.orElseThrow(() -> new IllegalStateException("Idempotency claim returned no row"));
+		var outcome = reclaimed.getClaimOutcome();
+		if (outcome != ClaimOutcome.NEW && outcome != ClaimOutcome.STALE_TAKEOVER) return encodeResponse(responseDto);
+		return markCompleted(reclaimed, httpStatus, responseDto, IdempotencyStatus.FAILED);
+	}
+
+	/**
+	 * Completes several keys with one batched statement. Returns the stored bodies in the order of the keys.
+	 */
+	public List<byte[]> markCompletedBatch(List<IdempotencyKey> keys, int httpStatus, List<?> responseDtos, IdempotencyStatus status) {
+		var bodies = responseDtos.stream().map(this::encodeResponse).toList();
+		var completions = new ArrayList<IdempotencyKeyJdbcRepository.Completion>(keys.size());
+		for (var i = 0; i < keys.size(); i++) {
+			var key = keys.get(i);
+			completions.add(new IdempotencyKeyJdbcRepository.Completion(key.getIdempotencyKey(), key.getFirstSeenAt(), key.getRequestHash(), httpStatus, bodies.get(i), status.name().toLowerCase()));
+		}
+
+		var rows = idempotencyKeyRepository.markCompletedBatch(completions);
+		for (var i = 0; i < rows.length; i++) {
+			if (rows[i] != 1) {
+				log.error("Failed idempotency state transition for key: {}", keys.get(i).getIdempotencyKey());
+				throw new IllegalStateException("Idempotency key not in in_progress state or hash mismatch");
+			}
+		}
+		for (var i = 0; i < keys.size(); i++) {
+			rememberCompleted(keys.get(i), httpStatus, bodies.get(i), status);
+		}
+		return bodies;
+	}
+
+	/**
+	 * Completes accepted keys with their final outcomes, each with its own status, in one batched statement
+	 */
+	public void markAcceptedCompleted(List<Outcome> outcomes) {
+		var completions = new ArrayList<IdempotencyKeyJdbcRepository.Completion>(outcomes.size());
+		var bodies = new ArrayList<byte[]>(outcomes.size());
+		for (var outcome : outcomes) {
+			var key = outcome.key();
+			var body = encodeResponse(outcome.response());
+			bodies.add(body);
+			completions.add(new IdempotencyKeyJdbcRepository.Completion(key.getIdempotencyKey(), key.getFirstSeenAt(), key.getRequestHash(),
+				outcome.httpStatus(), body, outcome.status().name().toLowerCase()));
+		}
+
+		var rows = idempotencyKeyRepository.markAcceptedCompletedBatch(completions);
+		for (var i = 0; i < rows.length; i++) {
+			if (rows[i] != 1) {
+				log.error("Failed idempotency state transition for key: {}", outcomes.get(i).key().getIdempotencyKey());
+				throw new IllegalStateException("Idempotency key not in accepted state or hash mismatch");
+			}
+		}
+		for (var i = 0; i < outcomes.size(); i++) {
+			var outcome = outcomes.get(i);
+			rememberCompleted(outcome.key(), outcome.httpStatus(), bodies.get(i), outcome.status());
+		}
+	}
+
+	/**
+	 * Makes a completion available to the replay cache once the surrounding transaction commits, or right away when
+	 * there is none, so a completion that is rolled back with the postings is never replayed. Also used for
+	 * completions written elsewhere (e.g. by a database function).
+	 */
+	public void rememberCompleted(IdempotencyKey key, int httpStatus, byte[] responseBody, IdempotencyStatus status) {
+		var completed = IdempotencyKey.builder()
+			.idempotencyKey(key.getIdempotencyKey())
+			.method(key.getMethod())
+			.path(key.getPath())
+			.requestHash(key.getRequestHash())
+			.refId(key.getRefId())
+			.firstSeenAt(key.getFirstSeenAt())
+			.status(status)
+			.responseStatus(httpStatus)
+			.responseBody(responseBody)
+			.build();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					replayCache.put(completed);
+				}
+			});
+		} else {
+			replayCache.put(completed);
+		}
+	}
+
+	public record Outcome(IdempotencyKey key, int httpStatus, Object response, IdempotencyStatus status) {
+	}
+
 }
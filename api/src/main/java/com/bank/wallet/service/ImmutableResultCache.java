@@ -0,0 +1,89 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.CacheConfig;
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.util.SerializationUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Read results that can no longer change. ledger_entries is append-only and postings are stamped with the time their
+ * request was first seen, so anything bounded by an instant older than the settled horizon is final: such results are cached as
+ * encoded bytes and sent with a strong ETag and {@code Cache-Control: immutable}, so clients and the CDN can skip
+ * the request. Everything else is computed and sent as before, without those headers.
+ */
+@Component
+public class ImmutableResultCache {
+
+	static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+	private final Cache<Object, Object> cache;
+	private final boolean enabled;
+	private final Duration settledHorizon;
+	private final SerializationUtils serializationUtils;
+
+	@SuppressWarnings("unchecked")
+	public ImmutableResultCache(CacheManager cacheManager, WalletProperties walletProperties, SerializationUtils serializationUtils) {
+		var springCache = cacheManager.getCache(CacheConfig.IMMUTABLE_RESULTS);
+		this.cache = springCache == null ? null : (Cache<Object, Object>) springCache.getNativeCache();
+		this.enabled = walletProperties.getImmutableCache().isEnabled() && cache != null;
+		this.settledHorizon = Duration.ofMillis(walletProperties.getImmutableCache().getSettledHorizonMillis());
+		this.serializationUtils = serializationUtils;
+	}
+
+	/**
+	 * Whether no posting can still commit at or before the given instant
+	 */
+	public boolean isSettled(OffsetDateTime upperBound) {
+		return upperBound != null && !upperBound.isAfter(OffsetDateTime.now().minus(settledHorizon));
+	}
+
+	/**
+	 * Answers with the cached result for key when upperBound is settled, loading and caching it on a miss.
+	 * Requests carrying the ETag in If-None-Match get 304 from Spring's conditional request handling.
+	 */
+	public ResponseEntity<byte[]> respond(Object key, OffsetDateTime upperBound, Supplier<?> loader) {
+		if (!enabled || !isSettled(upperBound)) {
+			return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(serializationUtils.toJsonBytes(loader.get()));
+		}
+		var result = (Result) cache.get(key, k -> Result.of(serializationUtils.toJsonBytes(loader.get())));
+		return ResponseEntity.ok()
+			.contentType(MediaType.APPLICATION_JSON)
+			.eTag(result.etag())
+			.cacheControl(IMMUTABLE)
+			.body(result.body());
+	}
+
+	public record BalanceKey(UUID walletId, OffsetDateTime at) {
+	}
+
+	public record LedgerPageKey(UUID walletId, int page, int size, OffsetDateTime from, OffsetDateTime to, String cursor,
+	                            boolean includeTotal) {
+	}
+
+	public record Result(byte[] body, String etag) {
+
+		static Result of(byte[] body) {
+			try {
+				// the body is final, so its digest is a strong validator
+				var digest = MessageDigest.getInstance("SHA-256").digest(body);
+				return new Result(body, "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException("SHA-256 not available", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,12 @@
+package com.bank.wallet.service;
+
+/**
+ * Destination for relayed ledger events. A batch arrives as NDJSON, one {@link com.bank.wallet.dto.wallet.LedgerEventDto}
+ * per line in outbox order; publish must return only once the batch is durably accepted and throw otherwise.
+ */
+public interface LedgerEventSink {
+
+	String name();
+
+	void publish(byte[] batch);
+}
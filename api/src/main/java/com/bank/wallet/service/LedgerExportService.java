@@ -0,0 +1,117 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.dto.wallet.LedgerExportFormat;
+import com.bank.wallet.entity.LedgerEntry;
+import com.bank.wallet.exception.WalletNotFoundException;
+import com.bank.wallet.repository.WalletRepository;
+import com.bank.wallet.util.ReadRouting;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Streams a wallet's ledger to the response as NDJSON or CSV, one keyset page at a time. Each page is read, its
+ * connection returned to the pool, and only then written, so memory stays flat and a slow client holds no connection.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerExportService {
+
+	private static final String CSV_HEADER = "txId,amount,postingType,currentBalance,createdAt\n";
+
+	private final LedgerService ledgerService;
+	private final WalletRepository walletRepository;
+	private final ObjectMapper objectMapper;
+	private final ReadRouting readRouting;
+
+	public ResponseEntity<StreamingResponseBody> export(UUID walletId, String format, OffsetDateTime from, OffsetDateTime to) {
+		var exportFormat = LedgerExportFormat.from(format);
+		if (from != null && to != null && from.isAfter(to)) throw new IllegalArgumentException("from must be before or equal to to");
+		// the body is written on another thread, where the request headers are no longer reachable
+		var commitToken = readRouting.currentCommitToken();
+		if (!readRouting.onReplica(commitToken, () -> walletRepository.existsById(walletId))) throw new WalletNotFoundException("Wallet not found: " + walletId);
+
+		StreamingResponseBody body = out -> write(walletId, from, to, exportFormat, commitToken, out);
+		return ResponseEntity.ok()
+			.contentType(exportFormat.getMediaType())
+			.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+				.filename("ledger-" + walletId + "." + exportFormat.getExtension())
+				.build()
+				.toString())
+			.body(body);
+	}
+
+	void write(UUID walletId, OffsetDateTime from, OffsetDateTime to, LedgerExportFormat format, String commitToken, OutputStream out) {
+		var writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		try {
+			if (format == LedgerExportFormat.CSV) writer.write(CSV_HEADER);
+			LedgerEntry last = null;
+			while (true) {
+				var after = last;
+				var page = readRouting.onReplica(commitToken, () -> ledgerService.findExportPage(walletId, from, to, after));
+				if (page.isEmpty()) break;
+				for (var entry : page) {
+					if (format == LedgerExportFormat.CSV) writeCsvRow(entry, writer);
+					else writeJsonRow(entry, writer);
+				}
+				writer.flush();
+				last = page.getLast();
+			}
+		} catch (IOException e) {
+			// client went away mid-export; no connection is held between pages
+			log.warn("Ledger export aborted: wallet={}, reason={}", walletId, e.getMessage());
+		}
+	}
+
+	private void writeJsonRow(LedgerEntry entry, Writer writer) throws IOException {
+		var row = objectMapper.createObjectNode()
+			.put("txId", entry.getTxId().toString())
+			.put("amount", money(entry.getAmount()))
+			.put("postingType", entry.getPostingType().name())
+			.put("currentBalance", money(entry.getCurrentBalance()))
+			.put("createdAt", timestamp(entry));
+		writer.write(objectMapper.writeValueAsString(row));
+		writer.write('\n');
+	}
+
+	private void writeCsvRow(LedgerEntry entry, Writer writer) throws IOException {
+		writer.write(entry.getTxId().toString());
+		writer.write(',');
+		writer.write(money(entry.getAmount()).toPlainString());
+		writer.write(',');
+		writer.write(entry.getPostingType().name());
+		writer.write(',');
+		writer.write(money(entry.getCurrentBalance()).toPlainString());
+		writer.write(',');
+		writer.write(timestamp(entry));
+		writer.write('\n');
+	}
+
+	// same rounding as the paged ledger endpoint
+	private static BigDecimal money(BigDecimal value) {
+		return value.setScale(2, RoundingMode.HALF_UP);
+	}
+
+	private static String timestamp(LedgerEntry entry) {
+		return DateTimeFormatter.ISO_OFFSET_DATE_TIME.withLocale(Locale.ROOT).format(entry.getCreatedAt());
+	}
+}
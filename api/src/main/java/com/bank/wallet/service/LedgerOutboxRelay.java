@@ -0,0 +1,68 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs {@link LedgerOutboxService#relayBatch} on one thread while the outbox is enabled and a sink is configured.
+ * Every node runs a relay; the advisory lock lets one of them publish at a time.
+ */
+@Component
+@Slf4j
+public class LedgerOutboxRelay {
+
+	private final LedgerOutboxService ledgerOutboxService;
+	private final WalletProperties.Outbox properties;
+	private Thread thread;
+	private volatile boolean running;
+
+	public LedgerOutboxRelay(LedgerOutboxService ledgerOutboxService, WalletProperties walletProperties) {
+		this.ledgerOutboxService = ledgerOutboxService;
+		this.properties = walletProperties.getOutbox();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!properties.isEnabled()) return;
+		if (ledgerOutboxService.sinks().isEmpty()) {
+			// rows stay in ledger_outbox for consumers that read the table directly
+			log.warn("Ledger outbox enabled without a sink; relay not started");
+			return;
+		}
+		running = true;
+		thread = Thread.ofPlatform().name("ledger-outbox-relay").daemon().start(this::run);
+		log.info("Ledger outbox relay started: sinks={}", ledgerOutboxService.sinks().stream().map(LedgerEventSink::name).toList());
+	}
+
+	@PreDestroy
+	void stop() {
+		running = false;
+		if (thread != null) thread.interrupt();
+	}
+
+	private void run() {
+		while (running) {
+			try {
+				// a full batch means more may be waiting, so only an empty or partial one sleeps
+				if (ledgerOutboxService.relayBatch(properties.getBatchSize()) < properties.getBatchSize()) sleep();
+			} catch (RuntimeException e) {
+				// nothing was deleted, so the same batch is sent again after the pause
+				if (running) log.error("Ledger outbox batch failed", e);
+				sleep();
+			}
+		}
+	}
+
+	private void sleep() {
+		try {
+			Thread.sleep(properties.getPollIntervalMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			running = false;
+		}
+	}
+}
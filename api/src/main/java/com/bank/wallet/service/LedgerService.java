@@ -1,9 +1,11 @@
 package com.bank.wallet.service;
 
+import com.bank.wallet.config.WalletProperties;
 import com.bank.wallet.entity.LedgerEntry;
 import com.bank.wallet.entity.enums.PostingType;
 import com.bank.wallet.mapper.LedgerMapper;
 import com.bank.wallet.repository.LedgerEntryRepository;
+import com.bank.wallet.util.CursorUtils;
 import com.bank.wallet.validator.LedgerValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,6 +14,7 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -22,35 +25,57 @@ public class LedgerService {
 	private final LedgerEntryRepository ledgerEntryRepository;
 	private final LedgerValidator ledgerValidator;
 	private final LedgerMapper ledgerMapper;
+	private final WalletProperties walletProperties;
 
-	private void insert(UUID txId, UUID walletId, BigDecimal amount, PostingType type, BigDecimal currentBalance) {
-		var entry = ledgerMapper.create(txId, walletId, amount, type, currentBalance);
+	/**
+	 * createdAt is the partition key and part of the (tx_id, wallet_id, created_at) key a retried posting collides
+	 * on, so callers pass a timestamp every attempt of the transaction agrees on; null stamps the row when written.
+	 */
+	private void insert(UUID txId, UUID walletId, BigDecimal amount, PostingType type, BigDecimal currentBalance, OffsetDateTime createdAt) {
+		var entry = ledgerMapper.create(txId, walletId, amount, type, currentBalance, createdAt);
 		ledgerValidator.validate(entry);
-		var rows = ledgerEntryRepository.insertGeneric(txId, walletId, amount, type.name().toLowerCase(), currentBalance);
+		var rows = walletProperties.getOutbox().isEnabled()
+			? ledgerEntryRepository.insertGenericWithOutbox(txId, walletId, amount, type.name().toLowerCase(), currentBalance, createdAt)
+			: ledgerEntryRepository.insertGeneric(txId, walletId, amount, type.name().toLowerCase(), currentBalance, createdAt);
 		if (rows != 1) {
 			log.error("Ledger insert failed: txId={}, type={}", txId, type);
 			throw new IllegalStateException("Ledger insertion failed: " + type);
 		}
 	}
 
-	public void createDepositEntry(UUID txId, UUID walletId, BigDecimal amount, BigDecimal currentBalance) {
-		insert(txId, walletId, amount, PostingType.DEPOSIT, currentBalance);
+	public void createDepositEntry(UUID txId, UUID walletId, BigDecimal amount, BigDecimal currentBalance, OffsetDateTime createdAt) {
+		insert(txId, walletId, amount, PostingType.DEPOSIT, currentBalance, createdAt);
 	}
 
-	public void createWithdrawEntry(UUID txId, UUID walletId, BigDecimal amount, BigDecimal currentBalance) {
-		insert(txId, walletId, amount.negate(), PostingType.WITHDRAW, currentBalance);
+	public void createWithdrawEntry(UUID txId, UUID walletId, BigDecimal amount, BigDecimal currentBalance, OffsetDateTime createdAt) {
+		insert(txId, walletId, amount.negate(), PostingType.WITHDRAW, currentBalance, createdAt);
 	}
 
-	public void createTransferDebitEntry(UUID txId, UUID fromWalletId, BigDecimal amount, BigDecimal currentBalance) {
-		insert(txId, fromWalletId, amount.negate(), PostingType.TRANSFER_DEBIT, currentBalance);
+	public void createTransferDebitEntry(UUID txId, UUID fromWalletId, BigDecimal amount, BigDecimal currentBalance, OffsetDateTime createdAt) {
+		insert(txId, fromWalletId, amount.negate(), PostingType.TRANSFER_DEBIT, currentBalance, createdAt);
 	}
 
-	public void createTransferCreditEntry(UUID txId, UUID toWalletId, BigDecimal amount, BigDecimal currentBalance) {
-		insert(txId, toWalletId, amount, PostingType.TRANSFER_CREDIT, currentBalance);
+	public void createTransferCreditEntry(UUID txId, UUID toWalletId, BigDecimal amount, BigDecimal currentBalance, OffsetDateTime createdAt) {
+		insert(txId, toWalletId, amount, PostingType.TRANSFER_CREDIT, currentBalance, createdAt);
 	}
 
-	public BigDecimal getBalanceAsOf(UUID walletId, OffsetDateTime at) {
-		return ledgerEntryRepository.findBalanceAsOf(walletId, at).orElse(BigDecimal.ZERO);
+	/**
+	 * Validates and writes pre-built entries with one multi-row insert
+	 */
+	public void createEntries(List<LedgerEntry> entries) {
+		entries.forEach(ledgerValidator::validate);
+		var rows = ledgerEntryRepository.insertBatch(entries, walletProperties.getOutbox().isEnabled());
+		if (rows != entries.size()) {
+			log.error("Ledger batch insert failed: expected={}, inserted={}", entries.size(), rows);
+			throw new IllegalStateException("Ledger batch insertion failed");
+		}
+	}
+
+	/**
+	 * Balance after the latest posting at or before at; empty when the wallet had no postings by then
+	 */
+	public Optional<BigDecimal> getBalanceAsOf(UUID walletId, OffsetDateTime at) {
+		return ledgerEntryRepository.findBalanceAsOf(walletId, at);
 	}
 
 	public List<LedgerEntry> findPage(UUID walletId, int page, int size, OffsetDateTime from, OffsetDateTime to) {
@@ -58,6 +83,20 @@ public class LedgerService {
 		return ledgerEntryRepository.findPage(walletId, from, to, size, offset);
 	}
 
+	public List<LedgerEntry> findPageAfter(UUID walletId, CursorUtils.LedgerCursor cursor, int size, OffsetDateTime from, OffsetDateTime to) {
+		return ledgerEntryRepository.findPageAfter(walletId, from, to, cursor.createdAt(), cursor.postingSeq(), cursor.ledgerId(), size);
+	}
+
+	/**
+	 * Next page of a ledger export, the first one when after is null. Each page is its own short query, so an export
+	 * only holds a connection while a page is read, never while it is written to the client.
+	 */
+	public List<LedgerEntry> findExportPage(UUID walletId, OffsetDateTime from, OffsetDateTime to, LedgerEntry after) {
+		var size = walletProperties.getLedger().getExportPageSize();
+		if (after == null) return ledgerEntryRepository.findExportPage(walletId, from, to, size);
+		return ledgerEntryRepository.findExportPageAfter(walletId, to, after.getCreatedAt(), after.getPostingSeq(), after.getLedgerId(), size);
+	}
+
 	public long count(UUID walletId, OffsetDateTime from, OffsetDateTime to) {
 		return ledgerEntryRepository.countAll(walletId, from, to);
 	}
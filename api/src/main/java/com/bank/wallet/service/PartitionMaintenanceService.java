@@ -0,0 +1,57 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.repository.IdempotencyKeyRepository;
+import com.bank.wallet.repository.LedgerEntryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the daily idempotency_keys and monthly ledger_entries partitions ahead of the clock.
+ * Expired idempotency partitions are dropped whole, never deleted row by row; ledger partitions are kept forever.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionMaintenanceService {
+
+	private final IdempotencyKeyRepository idempotencyKeyRepository;
+	private final LedgerEntryRepository ledgerEntryRepository;
+	private final WalletProperties walletProperties;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onStartup() {
+		maintainIdempotencyKeys();
+		maintainLedgerEntries();
+	}
+
+	@Scheduled(cron = "${wallet.idempotency.partition-maintenance-cron:0 5 * * * *}")
+	public void maintainIdempotencyKeys() {
+		var properties = walletProperties.getIdempotency();
+		try {
+			var created = idempotencyKeyRepository.createPartitions(properties.getPartitionsAheadDays());
+			var dropped = idempotencyKeyRepository.dropExpiredPartitions(properties.getRetentionDays());
+			if (created > 0 || dropped > 0) {
+				log.info("Idempotency key partitions maintained: created={}, dropped={}", created, dropped);
+			}
+		} catch (RuntimeException e) {
+			// the next run retries; partitions are created days ahead so one miss is harmless
+			log.error("Idempotency key partition maintenance failed", e);
+		}
+	}
+
+	@Scheduled(cron = "${wallet.ledger.partition-maintenance-cron:0 10 3 * * *}")
+	public void maintainLedgerEntries() {
+		try {
+			var created = ledgerEntryRepository.createPartitions(walletProperties.getLedger().getPartitionsAheadMonths());
+			if (created > 0) log.info("Ledger entry partitions created: {}", created);
+		} catch (RuntimeException e) {
+			// partitions exist months ahead, so a failed run only needs to succeed once before the window closes
+			log.error("Ledger entry partition maintenance failed", e);
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.dto.wallet.TransactionRequestDto;
+import com.bank.wallet.entity.IdempotencyKey;
+import com.bank.wallet.entity.enums.PostingType;
+import com.bank.wallet.exception.IdempotencyInProgressException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Group-commit stage for deposits and withdrawals. Concurrent postings to the same wallet that arrive within
+ * the configured window are queued and applied by {@link CoalescedPostingExecutor} in one transaction,
+ * so the wallet row lock is taken once per batch instead of once per request.
+ */
+@Service
+@Slf4j
+public class PostingCoalescer {
+
+	private final CoalescedPostingExecutor coalescedPostingExecutor;
+	private final TransactionExecutorService transactionExecutorService;
+	private final WalletProperties.Coalescer properties;
+	private final ScheduledExecutorService scheduler;
+	private final ConcurrentHashMap<UUID, WalletQueue> queues = new ConcurrentHashMap<>();
+
+	public PostingCoalescer(
+		CoalescedPostingExecutor coalescedPostingExecutor,
+		TransactionExecutorService transactionExecutorService,
+		WalletProperties walletProperties
+	) {
+		this.coalescedPostingExecutor = coalescedPostingExecutor;
+		this.transactionExecutorService = transactionExecutorService;
+		this.properties = walletProperties.getCoalescer();
+		// a posting applied after its key went stale could run a second time for a retry that took the key over
+		var staleMillis = walletProperties.getIdempotency().getStaleThresholdSeconds() * 1000L;
+		if (properties.isEnabled() && properties.getTimeoutMillis() + properties.getFlushTimeoutSeconds() * 1000L >= staleMillis) {
+			throw new IllegalStateException("wallet.coalescer.timeout-millis plus flush-timeout-seconds must stay below wallet.idempotency.stale-threshold-seconds");
+		}
+		this.scheduler = Executors.newScheduledThreadPool(properties.getWorkers(), Thread.ofPlatform().name("posting-coalescer-", 0).daemon().factory());
+	}
+
+	public boolean isEnabled() {
+		return properties.isEnabled();
+	}
+
+	public ResponseEntity<byte[]> deposit(IdempotencyKey key, UUID walletId, TransactionRequestDto request) {
+		return submit(new PendingPosting(key, walletId, PostingType.DEPOSIT, request));
+	}
+
+	public ResponseEntity<byte[]> withdraw(IdempotencyKey key, UUID walletId, TransactionRequestDto request) {
+		return submit(new PendingPosting(key, walletId, PostingType.WITHDRAW, request));
+	}
+
+	@PreDestroy
+	void shutdown() {
+		scheduler.shutdown();
+	}
+
+	private ResponseEntity<byte[]> submit(PendingPosting posting) {
+		var queue = queues.computeIfAbsent(posting.walletId(), id -> new WalletQueue());
+		queue.postings.add(posting);
+		if (queue.scheduled.compareAndSet(false, true)) {
+			scheduler.schedule(() -> drain(posting.walletId(), queue), properties.getWindowMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		try {
+			return posting.result().get(properties.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			// the posting may still be applied; the idempotency record tells the retry what happened
+			throw new IdempotencyInProgressException("Request is still queued for processing");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for posting", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+			throw new IllegalStateException("Posting failed", e.getCause());
+		}
+	}
+
+	private void drain(UUID walletId, WalletQueue queue) {
+		while (true) {
+			var batch = new ArrayList<PendingPosting>(properties.getMaxBatch());
+			PendingPosting next;
+			while (batch.size() < properties.getMaxBatch() && (next = queue.postings.poll()) != null) {
+				batch.add(next);
+			}
+
+			// whoever queued these has already answered in progress; the key is left for a retry to take over
+			batch.removeIf(this::expire);
+			if (batch.isEmpty()) {
+				queue.scheduled.set(false);
+				// a posting may have been queued after the last poll but before the flag was cleared
+				if (queue.postings.isEmpty() || !queue.scheduled.compareAndSet(false, true)) {
+					queues.remove(walletId, queue);
+					return;
+				}
+				continue;
+			}
+
+			applyBatch(walletId, batch);
+		}
+	}
+
+	private void applyBatch(UUID walletId, List<PendingPosting> batch) {
+		try {
+			var postings = batch.stream()
+				.map(p -> new CoalescedPostingExecutor.Posting(p.key(), p.type(), p.request().getAmount()))
+				.toList();
+			var results = coalescedPostingExecutor.apply(walletId, postings);
+			if (results == null) {
+				batch.forEach(this::applySingle);
+				return;
+			}
+			for (var i = 0; i < batch.size(); i++) {
+				var result = results.get(i);
+				if (result.failure() != null) batch.get(i).result().completeExceptionally(result.failure());
+				else batch.get(i).result().complete(result.response());
+			}
+		} catch (RuntimeException e) {
+			log.error("Coalesced batch failed: wallet={}, batch={}", walletId, batch.size(), e);
+			batch.forEach(p -> p.result().completeExceptionally(e));
+		}
+	}
+
+	private void applySingle(PendingPosting posting) {
+		if (expire(posting)) return;
+		try {
+			var response = posting.type() == PostingType.DEPOSIT
+				? transactionExecutorService.deposit(posting.key(), posting.walletId(), posting.request())
+				: transactionExecutorService.withdraw(posting.key(), posting.walletId(), posting.request());
+			posting.result().complete(response);
+		} catch (RuntimeException e) {
+			posting.result().completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Fails a posting that waited longer than timeout-millis, so it is never applied once its key may have gone stale.
+	 */
+	private boolean expire(PendingPosting posting) {
+		if (System.nanoTime() - posting.queuedAtNanos() < TimeUnit.MILLISECONDS.toNanos(properties.getTimeoutMillis())) return false;
+		posting.result().completeExceptionally(new IdempotencyInProgressException("Request is still queued for processing"));
+		return true;
+	}
+
+	private static final class WalletQueue {
+		private final ConcurrentLinkedQueue<PendingPosting> postings = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+	}
+
+	private record PendingPosting(IdempotencyKey key, UUID walletId, PostingType type, TransactionRequestDto request,
+	                              long queuedAtNanos, CompletableFuture<ResponseEntity<byte[]>> result) {
+
+		PendingPosting(IdempotencyKey key, UUID walletId, PostingType type, TransactionRequestDto request) {
+			this(key, walletId, type, request, System.nanoTime(), new CompletableFuture<>());
+		}
+	}
+}
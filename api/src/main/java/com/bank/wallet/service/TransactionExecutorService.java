@@ -22,15 +22,35 @@ public class TransactionExecutorService {
 	private final IdempotencyService idempotencyService;
 	private final TransactionMapper transactionMapper;
 
+	/**
+	 * Single-commit deposit: the claim joins this transaction, so claim, posting and completion commit together
+	 */
 	@Transactional
-	public ResponseEntity<String> deposit(IdempotencyKey key, UUID walletId, TransactionRequestDto request) {
+	public ResponseEntity<byte[]> claimAndDeposit(UUID idempotencyKey, UUID walletId, TransactionRequestDto request) {
+		var key = idempotencyService.claimInTransaction(idempotencyKey, request);
+		if (idempotencyService.isReplay(key)) return idempotencyService.buildReplayResponse(key);
+		return deposit(key, walletId, request);
+	}
+
+	/**
+	 * Single-commit withdrawal, see {@link #claimAndDeposit}
+	 */
+	@Transactional
+	public ResponseEntity<byte[]> claimAndWithdraw(UUID idempotencyKey, UUID walletId, TransactionRequestDto request) {
+		var key = idempotencyService.claimInTransaction(idempotencyKey, request);
+		if (idempotencyService.isReplay(key)) return idempotencyService.buildReplayResponse(key);
+		return withdraw(key, walletId, request);
+	}
+
+	@Transactional
+	public ResponseEntity<byte[]> deposit(IdempotencyKey key, UUID walletId, TransactionRequestDto request) {
 		log.info("Deposit: wallet={}, amount={}", walletId, request.getAmount());
 		try {
 			var newBalance = walletService.depositAndGetNewBalance(key, walletId, request.getAmount());
-			ledgerService.createDepositEntry(key.getRefId(), walletId, request.getAmount(), newBalance);
+			ledgerService.createDepositEntry(key.getRefId(), walletId, request.getAmount(), newBalance, key.getFirstSeenAt());
 			var responseDto = transactionMapper.toResponseDto(key.getRefId(), walletId, newBalance);
 			var body = idempotencyService.markCompleted(key, 200, responseDto, IdempotencyStatus.SUCCEEDED);
-			return ResponseEntity.ok(body);
+			return idempotencyService.buildResponse(200, body);
 		} catch (Exception e) {
 			log.error("Deposit failed: wallet={}", walletId, e);
 			throw e;
@@ -38,14 +58,14 @@ public class TransactionExecutorService {
 	}
 
 	@Transactional
-	public ResponseEntity<String> withdraw(IdempotencyKey key, UUID walletId, TransactionRequestDto request) {
+	public ResponseEntity<byte[]> withdraw(IdempotencyKey key, UUID walletId, TransactionRequestDto request) {
 		log.info("Withdraw: wallet={}, amount={}", walletId, request.getAmount());
 		try {
 			var newBalance = walletService.withdrawAndGetNewBalance(key, walletId, request.getAmount());
-			ledgerService.createWithdrawEntry(key.getRefId(), walletId, request.getAmount(), newBalance);
+			ledgerService.createWithdrawEntry(key.getRefId(), walletId, request.getAmount(), newBalance, key.getFirstSeenAt());
 			var responseDto = transactionMapper.toResponseDto(key.getRefId(), walletId, newBalance);
 			var body = idempotencyService.markCompleted(key, 200, responseDto, IdempotencyStatus.SUCCEEDED);
-			return ResponseEntity.ok(body);
+			return idempotencyService.buildResponse(200, body);
 		} catch (Exception e) {
 			log.error("Withdraw failed: wallet={}", walletId, e);
 			throw e;
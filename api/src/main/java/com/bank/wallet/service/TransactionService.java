@@ -1,6 +1,8 @@
 package com.bank.wallet.service;
 
 import com.bank.wallet.dto.wallet.TransactionRequestDto;
+import com.bank.wallet.exception.WalletNotFoundException;
+import com.bank.wallet.util.AdmissionControl;
 import com.bank.wallet.validator.TransactionValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,18 +19,49 @@ public class TransactionService {
 	private final IdempotencyService idempotencyService;
 	private final TransactionValidator validator;
 	private final TransactionExecutorService transactionExecutorService;
+	private final PostingCoalescer postingCoalescer;
+	private final AdmissionControl admissionControl;
+	private final WalletExistenceFilter walletExistenceFilter;
 
-	public ResponseEntity<String> deposit(UUID walletId, TransactionRequestDto request, UUID idempotencyKey) {
+	public ResponseEntity<byte[]> deposit(UUID walletId, TransactionRequestDto request, UUID idempotencyKey) {
 		validator.validateIdempotencyKey(idempotencyKey);
-		var keyEntity = idempotencyService.claim(idempotencyKey, request);
-		if (idempotencyService.isReplay(keyEntity)) return idempotencyService.buildReplayResponse(keyEntity);
-		return transactionExecutorService.deposit(keyEntity, walletId, request);
+		if (walletExistenceFilter.isMissing(walletId)) throw new WalletNotFoundException("Wallet not found: " + walletId);
+		if (postingCoalescer.isEnabled()) {
+			// batches run on the coalescer's own connections, so only the claim needs admission
+			var keyEntity = admissionControl.call(() -> idempotencyService.claim(idempotencyKey, request));
+			if (idempotencyService.isReplay(keyEntity)) return idempotencyService.buildReplayResponse(keyEntity);
+			return postingCoalescer.deposit(keyEntity, walletId, request);
+		}
+		if (idempotencyService.isSingleCommit()) {
+			var cached = idempotencyService.findCachedReplay(idempotencyKey, request);
+			if (cached.isPresent()) return idempotencyService.buildReplayResponse(cached.get());
+			return admissionControl.call(() -> transactionExecutorService.claimAndDeposit(idempotencyKey, walletId, request));
+		}
+		return admissionControl.call(() -> {
+			var keyEntity = idempotencyService.claim(idempotencyKey, request);
+			if (idempotencyService.isReplay(keyEntity)) return idempotencyService.buildReplayResponse(keyEntity);
+			return transactionExecutorService.deposit(keyEntity, walletId, request);
+		});
 	}
 
-	public ResponseEntity<String> withdraw(UUID walletId, TransactionRequestDto request, UUID idempotencyKey) {
+	public ResponseEntity<byte[]> withdraw(UUID walletId, TransactionRequestDto request, UUID idempotencyKey) {
 		validator.validateIdempotencyKey(idempotencyKey);
-		var keyEntity = idempotencyService.claim(idempotencyKey, request);
-		if (idempotencyService.isReplay(keyEntity)) return idempotencyService.buildReplayResponse(keyEntity);
-		return transactionExecutorService.withdraw(keyEntity, walletId, request);
+		if (walletExistenceFilter.isMissing(walletId)) throw new WalletNotFoundException("Wallet not found: " + walletId);
+		if (postingCoalescer.isEnabled()) {
+			// batches run on the coalescer's own connections, so only the claim needs admission
+			var keyEntity = admissionControl.call(() -> idempotencyService.claim(idempotencyKey, request));
+			if (idempotencyService.isReplay(keyEntity)) return idempotencyService.buildReplayResponse(keyEntity);
+			return postingCoalescer.withdraw(keyEntity, walletId, request);
+		}
+		if (idempotencyService.isSingleCommit()) {
+			var cached = idempotencyService.findCachedReplay(idempotencyKey, request);
+			if (cached.isPresent()) return idempotencyService.buildReplayResponse(cached.get());
+			return admissionControl.call(() -> transactionExecutorService.claimAndWithdraw(idempotencyKey, walletId, request));
+		}
+		return admissionControl.call(() -> {
+			var keyEntity = idempotencyService.claim(idempotencyKey, request);
+			if (idempotencyService.isReplay(keyEntity)) return idempotencyService.buildReplayResponse(keyEntity);
+			return transactionExecutorService.withdraw(keyEntity, walletId, request);
+		});
 	}
 }
@@ -1,10 +1,29 @@
 package com.bank.wallet.service;
 
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.dto.error.ErrorResponseDto;
+import com.bank.wallet.dto.transfer.DisbursementRequestDto;
+import com.bank.wallet.dto.transfer.TransferBatchItemDto;
+import com.bank.wallet.dto.transfer.TransferBatchMode;
+import com.bank.wallet.dto.transfer.TransferBatchRequestDto;
+import com.bank.wallet.dto.transfer.TransferBatchResponseDto;
 import com.bank.wallet.dto.transfer.TransferRequestDto;
+import com.bank.wallet.dto.transfer.TransferResponseDto;
 import com.bank.wallet.entity.IdempotencyKey;
+import com.bank.wallet.entity.LedgerEntry;
+import com.bank.wallet.entity.QueuedTransfer;
+import com.bank.wallet.entity.Transfer;
+import com.bank.wallet.entity.Wallet;
 import com.bank.wallet.entity.enums.IdempotencyStatus;
+import com.bank.wallet.entity.enums.PostingType;
+import com.bank.wallet.exception.InsufficientFundsException;
+import com.bank.wallet.exception.WalletNotFoundException;
+import com.bank.wallet.mapper.LedgerMapper;
 import com.bank.wallet.mapper.TransferMapper;
+import com.bank.wallet.repository.DisbursementRepository;
 import com.bank.wallet.repository.TransferRepository;
+import com.bank.wallet.repository.WalletRepository;
+import com.bank.wallet.validator.TransferValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -12,8 +31,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -23,14 +47,75 @@ import java.util.stream.Stream;
 @Slf4j
 public class TransferExecutorService {
 
+	/**
+	 * Order in which wallets are locked by every multi-wallet path. Matches Postgres uuid ordering (unsigned bytes),
+	 * so Java-side sorting agrees with ORDER BY wallet_id in SQL and in execute_transfer.
+	 */
+	static final Comparator<UUID> WALLET_LOCK_ORDER = Comparator
+		.comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+		.thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
 	private final WalletService walletService;
 	private final LedgerService ledgerService;
 	private final IdempotencyService idempotencyService;
 	private final TransferMapper transferMapper;
 	private final TransferRepository transferRepository;
+	private final WalletProperties walletProperties;
+	private final WalletSnapshotCache walletSnapshotCache;
+	private final WalletRepository walletRepository;
+	private final LedgerMapper ledgerMapper;
+	private final TransferValidator transferValidator;
+	private final DisbursementRepository disbursementRepository;
 
+	/**
+	 * Single-commit transfer: the claim joins this transaction, so claim, transfer and completion commit together
+	 */
 	@Transactional
-	public ResponseEntity<String> execute(IdempotencyKey idempotencyKey, TransferRequestDto request) {
+	public ResponseEntity<byte[]> claimAndExecute(UUID idempotencyKey, TransferRequestDto request) {
+		var key = idempotencyService.claimInTransaction(idempotencyKey, request);
+		transferValidator.validate(request, key);
+		if (idempotencyService.isReplay(key)) return idempotencyService.buildReplayResponse(key);
+		return execute(key, request);
+	}
+
+	@Transactional
+	public ResponseEntity<byte[]> execute(IdempotencyKey idempotencyKey, TransferRequestDto request) {
+		if (walletProperties.getTransfer().getEngine() == WalletProperties.TransferEngine.SINGLE_STATEMENT) {
+			var response = executeInOneStatement(idempotencyKey, request);
+			if (response != null) return response;
+		}
+		return executeStandard(idempotencyKey, request);
+	}
+
+	/**
+	 * Returns null when one of the wallets is sharded; the standard path handles those.
+	 */
+	private ResponseEntity<byte[]> executeInOneStatement(IdempotencyKey idempotencyKey, TransferRequestDto request) {
+		var transferId = idempotencyKey.getRefId();
+		var amount = request.getAmount();
+		var from = request.getFromWalletId();
+		var to = request.getToWalletId();
+		log.info("Transfer (single statement): from={}, to={}, amount={}", from, to, amount);
+
+		var body = idempotencyService.encodeResponse(transferMapper.toResponse(transferId, from, to, amount));
+		var result = transferRepository.executeInOneStatement(transferId, from, to, amount,
+			idempotencyKey.getIdempotencyKey(), idempotencyKey.getRequestHash(), body, walletProperties.getOutbox().isEnabled());
+
+		return switch (result.outcome()) {
+			case COMPLETED -> {
+				walletSnapshotCache.applyAfterCommit(from, result.fromBalance().add(amount), result.fromBalance());
+				walletSnapshotCache.applyAfterCommit(to, result.toBalance().subtract(amount), result.toBalance());
+				idempotencyService.rememberCompleted(idempotencyKey, 200, body, IdempotencyStatus.SUCCEEDED);
+				yield idempotencyService.buildResponse(200, body);
+			}
+			case FROM_WALLET_NOT_FOUND -> throw new WalletNotFoundException("Wallet not found: " + from, idempotencyKey);
+			case TO_WALLET_NOT_FOUND -> throw new WalletNotFoundException("Wallet not found: " + to, idempotencyKey);
+			case INSUFFICIENT_FUNDS -> throw new InsufficientFundsException("Insufficient funds for withdrawal", from, amount, idempotencyKey);
+			case SHARDED -> null;
+		};
+	}
+
+	private ResponseEntity<byte[]> executeStandard(IdempotencyKey idempotencyKey, TransferRequestDto request) {
 		var transferId = idempotencyKey.getRefId();
 		var amount = request.getAmount();
 		var from = request.getFromWalletId();
@@ -45,11 +130,11 @@ public class TransferExecutorService {
 		);
 
 		// run withdraw or deposit first based on walletId to prevent deadlocks
-		operations.sorted(Comparator.comparing(WalletOperation::walletId))
+		operations.sorted(Comparator.comparing(WalletOperation::walletId, WALLET_LOCK_ORDER))
 			.forEach(op -> balanceByWallet.put(op.walletId(), op.action().apply(op.walletId())));
 
-		ledgerService.createTransferDebitEntry(transferId, from, amount, balanceByWallet.get(from));
-		ledgerService.createTransferCreditEntry(transferId, to, amount, balanceByWallet.get(to));
+		ledgerService.createTransferDebitEntry(transferId, from, amount, balanceByWallet.get(from), idempotencyKey.getFirstSeenAt());
+		ledgerService.createTransferCreditEntry(transferId, to, amount, balanceByWallet.get(to), idempotencyKey.getFirstSeenAt());
 
 		var rows = transferRepository.insertIfAbsent(transferId, from, to, amount);
 		if (rows != 1) {
@@ -59,10 +144,276 @@ public class TransferExecutorService {
 
 		var responseDto = transferMapper.toResponse(transferId, from, to, amount);
 		var body = idempotencyService.markCompleted(idempotencyKey, 200, responseDto, IdempotencyStatus.SUCCEEDED);
-		return ResponseEntity.ok(body);
+		return idempotencyService.buildResponse(200, body);
+	}
+
+	/**
+	 * Runs a whole batch in one transaction: every involved wallet is locked up front with one statement in
+	 * wallet_id order, items are evaluated in request order against in-memory balances, and the outcome is
+	 * written with one balance update, one ledger insert and one transfer insert. In ALL_OR_NOTHING mode a
+	 * single failed item leaves everything untouched and the batch is answered with 409.
+	 */
+	@Transactional
+	public ResponseEntity<byte[]> executeBatch(IdempotencyKey idempotencyKey, TransferBatchRequestDto request) {
+		var items = request.getTransfers();
+		log.info("Transfer batch: batchId={}, mode={}, size={}", idempotencyKey.getRefId(), request.getMode(), items.size());
+
+		var walletIds = new TreeSet<>(WALLET_LOCK_ORDER);
+		for (var item : items) {
+			if (item.getFromWalletId() != null) walletIds.add(item.getFromWalletId());
+			if (item.getToWalletId() != null) walletIds.add(item.getToWalletId());
+		}
+		var wallets = new HashMap<UUID, Wallet>(walletIds.size() * 2);
+		var balances = lockBalances(walletIds, wallets);
+		var openingBalances = new HashMap<>(balances);
+
+		var results = new ArrayList<TransferBatchItemDto>(items.size());
+		var entries = new ArrayList<LedgerEntry>(items.size() * 2);
+		var transfers = new ArrayList<Transfer>(items.size());
+		var failed = 0;
+		for (var i = 0; i < items.size(); i++) {
+			var item = items.get(i);
+			var failure = findFailure(item, balances);
+			if (failure != null) {
+				results.add(transferMapper.toBatchItem(i, TransferBatchItemDto.Status.FAILED, null, item, failure.code(), failure.message()));
+				failed++;
+				continue;
+			}
+
+			var transferId = UUID.randomUUID();
+			var amount = item.getAmount();
+			var fromBalance = balances.merge(item.getFromWalletId(), amount.negate(), BigDecimal::add);
+			var toBalance = balances.merge(item.getToWalletId(), amount, BigDecimal::add);
+			entries.add(ledgerMapper.create(transferId, item.getFromWalletId(), amount.negate(), PostingType.TRANSFER_DEBIT, fromBalance, idempotencyKey.getFirstSeenAt()));
+			entries.add(ledgerMapper.create(transferId, item.getToWalletId(), amount, PostingType.TRANSFER_CREDIT, toBalance, idempotencyKey.getFirstSeenAt()));
+			transfers.add(Transfer.builder().transferId(transferId).fromWalletId(item.getFromWalletId()).toWalletId(item.getToWalletId()).amount(amount).build());
+			results.add(transferMapper.toBatchItem(i, TransferBatchItemDto.Status.COMPLETED, transferId, item, null, null));
+		}
+
+		if (failed > 0 && request.getMode() == TransferBatchMode.ALL_OR_NOTHING) {
+			for (var i = 0; i < results.size(); i++) {
+				if (results.get(i).getStatus() == TransferBatchItemDto.Status.COMPLETED)
+					results.set(i, transferMapper.toBatchItem(i, TransferBatchItemDto.Status.NOT_EXECUTED, null, items.get(i), null, null));
+			}
+			var response = batchResponse(idempotencyKey, request.getMode(), 0, failed, results);
+			var body = idempotencyService.markCompleted(idempotencyKey, 409, response, IdempotencyStatus.FAILED);
+			return idempotencyService.buildResponse(409, body);
+		}
+
+		if (!transfers.isEmpty()) applyBatch(idempotencyKey, wallets, openingBalances, balances, entries, transfers);
+
+		var response = batchResponse(idempotencyKey, request.getMode(), transfers.size(), failed, results);
+		var body = idempotencyService.markCompleted(idempotencyKey, 200, response, IdempotencyStatus.SUCCEEDED);
+		return idempotencyService.buildResponse(200, body);
+	}
+
+	/**
+	 * Pays every destination from one source in one transaction. The source row is locked and debited once for
+	 * the total, all wallets are locked with one statement in wallet_id order, and the disbursement id is the
+	 * tx id of the single debit and of every credit. Each payout is also stored as a child transfer. Any missing
+	 * wallet or a source short of the total fails the whole disbursement.
+	 */
+	@Transactional
+	public ResponseEntity<byte[]> executeDisbursement(IdempotencyKey idempotencyKey, DisbursementRequestDto request) {
+		var disbursementId = idempotencyKey.getRefId();
+		var from = request.getFromWalletId();
+		var payouts = request.getPayouts();
+		var total = BigDecimal.ZERO;
+		for (var payout : payouts) total = total.add(payout.getAmount());
+		log.info("Disbursement: disbursementId={}, from={}, payouts={}, total={}", disbursementId, from, payouts.size(), total);
+
+		var walletIds = new TreeSet<>(WALLET_LOCK_ORDER);
+		walletIds.add(from);
+		for (var payout : payouts) walletIds.add(payout.getToWalletId());
+		var wallets = new HashMap<UUID, Wallet>(walletIds.size() * 2);
+		var openingBalances = lockBalances(walletIds, wallets);
+		for (var walletId : walletIds) {
+			if (!wallets.containsKey(walletId)) throw new WalletNotFoundException("Wallet not found: " + walletId, idempotencyKey);
+		}
+		if (openingBalances.get(from).compareTo(total) < 0)
+			throw new InsufficientFundsException("Insufficient funds for withdrawal", from, total, idempotencyKey);
+
+		var balances = new HashMap<>(openingBalances);
+		var entries = new ArrayList<LedgerEntry>(payouts.size() + 1);
+		var transfers = new ArrayList<Transfer>(payouts.size());
+		var results = new ArrayList<TransferResponseDto>(payouts.size());
+		var createdAt = idempotencyKey.getFirstSeenAt();
+		entries.add(ledgerMapper.create(disbursementId, from, total.negate(), PostingType.TRANSFER_DEBIT, balances.merge(from, total.negate(), BigDecimal::add), createdAt));
+		for (var payout : payouts) {
+			var transferId = UUID.randomUUID();
+			var to = payout.getToWalletId();
+			var amount = payout.getAmount();
+			entries.add(ledgerMapper.create(disbursementId, to, amount, PostingType.TRANSFER_CREDIT, balances.merge(to, amount, BigDecimal::add), createdAt));
+			transfers.add(Transfer.builder().transferId(transferId).fromWalletId(from).toWalletId(to).amount(amount).disbursementId(disbursementId).build());
+			results.add(transferMapper.toResponse(transferId, from, to, amount));
+		}
+
+		// the parent row goes first, the child transfers reference it
+		if (disbursementRepository.insertIfAbsent(disbursementId, from, total, payouts.size()) != 1) {
+			log.error("Disbursement insert failed: disbursementId={}, from={}", disbursementId, from);
+			throw new IllegalStateException("Disbursement insertion failed");
+		}
+		applyBatch(idempotencyKey, wallets, openingBalances, balances, entries, transfers);
+
+		var response = transferMapper.toDisbursementResponse(disbursementId, from, total, results);
+		var body = idempotencyService.markCompleted(idempotencyKey, 200, response, IdempotencyStatus.SUCCEEDED);
+		return idempotencyService.buildResponse(200, body);
+	}
+
+	/**
+	 * Applies transfers taken off the queue by {@link TransferQueueService}, oldest first, the same way a BEST_EFFORT
+	 * batch does, and completes every accepted idempotency key with its own outcome: the transfer response, or the
+	 * error the synchronous endpoint would have answered with. Joins the transaction that removed them from the queue.
+	 */
+	@Transactional
+	public void executeQueued(List<QueuedTransfer> queued) {
+		log.info("Transfer queue batch: size={}", queued.size());
+
+		var walletIds = new TreeSet<>(WALLET_LOCK_ORDER);
+		for (var transfer : queued) {
+			walletIds.add(transfer.getFromWalletId());
+			walletIds.add(transfer.getToWalletId());
+		}
+		var wallets = new HashMap<UUID, Wallet>(walletIds.size() * 2);
+		var balances = lockBalances(walletIds, wallets);
+		var openingBalances = new HashMap<>(balances);
+
+		var entries = new ArrayList<LedgerEntry>(queued.size() * 2);
+		var transfers = new ArrayList<Transfer>(queued.size());
+		var outcomes = new ArrayList<IdempotencyService.Outcome>(queued.size());
+		for (var queuedTransfer : queued) {
+			var key = IdempotencyKey.builder()
+				.idempotencyKey(queuedTransfer.getIdempotencyKey())
+				.firstSeenAt(queuedTransfer.getFirstSeenAt())
+				.requestHash(queuedTransfer.getRequestHash())
+				.refId(queuedTransfer.getTransferId())
+				.status(IdempotencyStatus.ACCEPTED)
+				.build();
+			var transferId = queuedTransfer.getTransferId();
+			var from = queuedTransfer.getFromWalletId();
+			var to = queuedTransfer.getToWalletId();
+			var amount = queuedTransfer.getAmount();
+			var failure = findFailure(TransferRequestDto.builder().fromWalletId(from).toWalletId(to).amount(amount).build(), balances);
+			if (failure != null) {
+				outcomes.add(new IdempotencyService.Outcome(key, failure.httpStatus(), queuedFailureResponse(queuedTransfer, failure), IdempotencyStatus.FAILED));
+				continue;
+			}
+
+			var fromBalance = balances.merge(from, amount.negate(), BigDecimal::add);
+			var toBalance = balances.merge(to, amount, BigDecimal::add);
+			// the claim deleted the queue row in this transaction, so the postings cannot be retried; they are stamped
+			// when written rather than with the key's first_seen_at, which may lie further back than the settled horizon
+			entries.add(ledgerMapper.create(transferId, from, amount.negate(), PostingType.TRANSFER_DEBIT, fromBalance, null));
+			entries.add(ledgerMapper.create(transferId, to, amount, PostingType.TRANSFER_CREDIT, toBalance, null));
+			transfers.add(Transfer.builder().transferId(transferId).fromWalletId(from).toWalletId(to).amount(amount).build());
+			outcomes.add(new IdempotencyService.Outcome(key, 200, transferMapper.toResponse(transferId, from, to, amount), IdempotencyStatus.SUCCEEDED));
+		}
+
+		// the first key only labels the batch in logs; the shard functions cannot miss wallets locked above
+		if (!transfers.isEmpty()) applyBatch(outcomes.getFirst().key(), wallets, openingBalances, balances, entries, transfers);
+		idempotencyService.markAcceptedCompleted(outcomes);
+	}
+
+	/**
+	 * Locks the wallets with one statement in wallet_id order, fills wallets with the ones that exist and returns
+	 * their balances. Sharded wallets report their total.
+	 */
+	private Map<UUID, BigDecimal> lockBalances(TreeSet<UUID> walletIds, Map<UUID, Wallet> wallets) {
+		for (var wallet : walletRepository.lockAllById(walletIds)) {
+			wallets.put(wallet.getWalletId(), wallet);
+		}
+		var balances = new HashMap<UUID, BigDecimal>(wallets.size() * 2);
+		for (var wallet : wallets.values()) {
+			// shard postings do not take the wallet row, so this total can still move; a net debit the shards
+			// can no longer cover throws in applyBatch and rolls the whole batch back
+			var balance = wallet.getShardCount() > 0
+				? walletRepository.findWithTotalBalance(wallet.getWalletId()).orElseThrow().getCurrentBalance()
+				: wallet.getCurrentBalance();
+			balances.put(wallet.getWalletId(), balance);
+		}
+		return balances;
+	}
+
+	// same body GlobalExceptionHandler stores for the synchronous endpoint
+	private static ErrorResponseDto queuedFailureResponse(QueuedTransfer transfer, ItemFailure failure) {
+		var details = "INSUFFICIENT_FUNDS".equals(failure.code())
+			? Map.<String, Object>of("walletId", transfer.getFromWalletId().toString(), "attemptedAmount", transfer.getAmount().toString())
+			: null;
+		return ErrorResponseDto.builder()
+			.code(failure.code())
+			.message(failure.message())
+			.timestamp(OffsetDateTime.now())
+			.transactionIdentifier(transfer.getTransferId())
+			.details(details)
+			.build();
+	}
+
+	/**
+	 * Why an item cannot be applied against the current in-memory balances, or null
+	 */
+	private ItemFailure findFailure(TransferRequestDto item, Map<UUID, BigDecimal> balances) {
+		var violation = transferValidator.findViolation(item);
+		if (violation != null) return new ItemFailure("SEMANTIC_ERROR", violation);
+		if (!balances.containsKey(item.getFromWalletId())) return new ItemFailure("WALLET_NOT_FOUND", "Wallet not found: " + item.getFromWalletId());
+		if (!balances.containsKey(item.getToWalletId())) return new ItemFailure("WALLET_NOT_FOUND", "Wallet not found: " + item.getToWalletId());
+		if (balances.get(item.getFromWalletId()).compareTo(item.getAmount()) < 0) return new ItemFailure("INSUFFICIENT_FUNDS", "Insufficient funds for withdrawal");
+		return null;
+	}
+
+	private void applyBatch(IdempotencyKey idempotencyKey, Map<UUID, Wallet> wallets, Map<UUID, BigDecimal> openingBalances,
+	                        Map<UUID, BigDecimal> balances, List<LedgerEntry> entries, List<Transfer> transfers) {
+		var plainBalances = new HashMap<UUID, BigDecimal>();
+		for (var balance : balances.entrySet()) {
+			var walletId = balance.getKey();
+			var delta = balance.getValue().subtract(openingBalances.get(walletId));
+			if (delta.signum() == 0) continue;
+			if (wallets.get(walletId).getShardCount() == 0) {
+				plainBalances.put(walletId, balance.getValue());
+				walletSnapshotCache.applyAfterCommit(walletId, openingBalances.get(walletId), balance.getValue());
+			} else if (delta.signum() > 0) {
+				// sharded wallets take the net change through the shard functions
+				walletService.depositAndGetNewBalance(idempotencyKey, walletId, delta);
+			} else {
+				walletService.withdrawAndGetNewBalance(idempotencyKey, walletId, delta.negate());
+			}
+		}
+
+		if (walletRepository.updateBalances(plainBalances) != plainBalances.size()) {
+			log.error("Transfer batch balance update failed: batchId={}, wallets={}", idempotencyKey.getRefId(), plainBalances.size());
+			throw new IllegalStateException("Transfer batch balance update failed");
+		}
+		ledgerService.createEntries(entries);
+		var rows = transferRepository.insertBatch(transfers);
+		if (rows != transfers.size()) {
+			log.error("Transfer batch insert failed: batchId={}, expected={}, inserted={}", idempotencyKey.getRefId(), transfers.size(), rows);
+			throw new IllegalStateException("Transfer batch insertion failed");
+		}
+	}
+
+	private static TransferBatchResponseDto batchResponse(IdempotencyKey idempotencyKey, TransferBatchMode mode, int completed, int failed,
+	                                                      List<TransferBatchItemDto> results) {
+		return TransferBatchResponseDto.builder()
+			.batchId(idempotencyKey.getRefId())
+			.mode(mode)
+			.completed(completed)
+			.failed(failed)
+			.results(results)
+			.build();
 	}
 
 	record WalletOperation(UUID walletId, Function<UUID, BigDecimal> action) {
 	}
 
+	// codes match the ones GlobalExceptionHandler uses for the single transfer endpoint
+	record ItemFailure(String code, String message) {
+
+		int httpStatus() {
+			return switch (code) {
+				case "WALLET_NOT_FOUND" -> 404;
+				case "INSUFFICIENT_FUNDS" -> 409;
+				default -> 422;
+			};
+		}
+	}
+
 }
@@ -0,0 +1,149 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.dto.error.ErrorResponseDto;
+import com.bank.wallet.dto.transfer.TransferAcceptedResponseDto;
+import com.bank.wallet.dto.transfer.TransferRequestDto;
+import com.bank.wallet.entity.IdempotencyKey;
+import com.bank.wallet.entity.QueuedTransfer;
+import com.bank.wallet.entity.enums.IdempotencyStatus;
+import com.bank.wallet.repository.TransferQueueRepository;
+import com.bank.wallet.util.ContextUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Accepted-mode transfers: the request thread only moves the idempotency key to accepted and queues the transfer,
+ * {@link TransferQueueWorker} applies queued transfers in batches and completes their keys with the final outcome.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransferQueueService {
+
+	static final String STATUS_PATH = "/api/v1/transfers/requests/";
+	static final String QUEUE_WAIT_METRIC = "wallet.transfer.queue.wait";
+	static final String DEAD_LETTERED_METRIC = "wallet.transfer.queue.dead-lettered";
+
+	private final TransferQueueRepository transferQueueRepository;
+	private final TransferExecutorService transferExecutorService;
+	private final IdempotencyService idempotencyService;
+	private final ContextUtils contextUtils;
+	private final MeterRegistry meterRegistry;
+
+	/**
+	 * Answers 202 with the status URL. The same body is stored on the key, so retries replay it until the transfer is applied.
+	 */
+	public ResponseEntity<byte[]> enqueue(IdempotencyKey idempotencyKey, TransferRequestDto request) {
+		log.info("Transfer accepted: from={}, to={}, amount={}", request.getFromWalletId(), request.getToWalletId(), request.getAmount());
+		var body = idempotencyService.encodeResponse(acceptedResponse(idempotencyKey.getIdempotencyKey(), idempotencyKey.getRefId(),
+			TransferAcceptedResponseDto.Status.ACCEPTED));
+		var transfer = QueuedTransfer.builder()
+			.idempotencyKey(idempotencyKey.getIdempotencyKey())
+			.firstSeenAt(idempotencyKey.getFirstSeenAt())
+			.requestHash(idempotencyKey.getRequestHash())
+			.transferId(idempotencyKey.getRefId())
+			.fromWalletId(request.getFromWalletId())
+			.toWalletId(request.getToWalletId())
+			.amount(request.getAmount())
+			.build();
+		if (transferQueueRepository.enqueue(transfer, body) != 1) {
+			log.error("Failed idempotency state transition for key: {}", idempotencyKey.getIdempotencyKey());
+			throw new IllegalStateException("Idempotency key not in in_progress state or hash mismatch");
+		}
+		return idempotencyService.buildResponse(202, body);
+	}
+
+	public TransferAcceptedResponseDto acceptedResponse(UUID idempotencyKey, UUID transferId, TransferAcceptedResponseDto.Status status) {
+		return TransferAcceptedResponseDto.builder()
+			.transactionId(transferId)
+			.status(status)
+			.statusUrl(contextUtils.getCurrentContextPath() + STATUS_PATH + idempotencyKey)
+			.build();
+	}
+
+	/**
+	 * Takes transfers off the queue and applies them in this transaction; if it rolls back they are queued again.
+	 * A transfer that failed before is taken alone, ahead of the next batch of up to limit transfers that never
+	 * failed. Returns how many were taken. A failure is rethrown as {@link QueuedTransfersFailedException} naming
+	 * the transfers, so the worker can count the attempt once the rollback is done.
+	 */
+	@Transactional
+	public int drain(int limit) {
+		var batch = transferQueueRepository.claimRetry();
+		if (batch.isEmpty()) batch = transferQueueRepository.claimBatch(limit);
+		if (batch.isEmpty()) return 0;
+
+		try {
+			transferExecutorService.executeQueued(batch);
+		} catch (RuntimeException e) {
+			throw new QueuedTransfersFailedException(batch.stream().map(QueuedTransfer::getQueueId).toList(), e);
+		}
+		var now = OffsetDateTime.now();
+		var wait = meterRegistry.timer(QUEUE_WAIT_METRIC);
+		for (var transfer : batch) wait.record(Duration.between(transfer.getEnqueuedAt(), now));
+		return batch.size();
+	}
+
+	/**
+	 * Counts a failed attempt for transfers whose batch rolled back, so each is retried alone after a backoff, and
+	 * dead-letters those that failed maxAttempts times. A dead-lettered transfer's key is completed as failed in the
+	 * same transaction, so status polls and retries get a final answer instead of 202.
+	 */
+	@Transactional
+	public void recordFailedAttempt(List<Long> queueIds, int maxAttempts, long retryBackoffMillis) {
+		var deadLettered = transferQueueRepository.recordFailedAttempt(queueIds, maxAttempts, retryBackoffMillis);
+		if (deadLettered.isEmpty()) return;
+
+		var outcomes = new ArrayList<IdempotencyService.Outcome>(deadLettered.size());
+		for (var transfer : deadLettered) {
+			log.error("Queued transfer dead-lettered: queueId={}, transferId={}, idempotencyKey={}, attempts={}",
+				transfer.getQueueId(), transfer.getTransferId(), transfer.getIdempotencyKey(), transfer.getAttempts());
+			meterRegistry.counter(DEAD_LETTERED_METRIC).increment();
+			outcomes.add(new IdempotencyService.Outcome(acceptedKey(transfer), 500, deadLetteredResponse(transfer), IdempotencyStatus.FAILED));
+		}
+		idempotencyService.markAcceptedCompleted(outcomes);
+	}
+
+	private static IdempotencyKey acceptedKey(QueuedTransfer transfer) {
+		return IdempotencyKey.builder()
+			.idempotencyKey(transfer.getIdempotencyKey())
+			.firstSeenAt(transfer.getFirstSeenAt())
+			.requestHash(transfer.getRequestHash())
+			.refId(transfer.getTransferId())
+			.status(IdempotencyStatus.ACCEPTED)
+			.build();
+	}
+
+	private static ErrorResponseDto deadLetteredResponse(QueuedTransfer transfer) {
+		return ErrorResponseDto.builder()
+			.code("TRANSFER_FAILED")
+			.message("Transfer could not be applied after " + transfer.getAttempts() + " attempts")
+			.timestamp(OffsetDateTime.now())
+			.transactionIdentifier(transfer.getTransferId())
+			.build();
+	}
+
+	/**
+	 * Thrown by {@link #drain} once the transfers it took have been put back on the queue
+	 */
+	@Getter
+	public static class QueuedTransfersFailedException extends RuntimeException {
+		private final List<Long> queueIds;
+
+		public QueuedTransfersFailedException(List<Long> queueIds, RuntimeException cause) {
+			super("Queued transfers failed: " + queueIds.size(), cause);
+			this.queueIds = queueIds;
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drains transfer_queue with wallet.transfer.async.workers threads while async transfers are enabled. Workers on
+ * every node share the queue; SKIP LOCKED hands each of them a different batch.
+ */
+@Component
+@Slf4j
+public class TransferQueueWorker {
+
+	private final TransferQueueService transferQueueService;
+	private final WalletProperties.Async properties;
+	private final List<Thread> threads = new ArrayList<>();
+	private volatile boolean running;
+
+	public TransferQueueWorker(TransferQueueService transferQueueService, WalletProperties walletProperties) {
+		this.transferQueueService = transferQueueService;
+		this.properties = walletProperties.getTransfer().getAsync();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!properties.isEnabled()) return;
+		running = true;
+		for (var i = 0; i < properties.getWorkers(); i++) {
+			threads.add(Thread.ofPlatform().name("transfer-queue-worker-" + i).daemon().start(this::run));
+		}
+		log.info("Transfer queue workers started: workers={}", properties.getWorkers());
+	}
+
+	@PreDestroy
+	void stop() {
+		running = false;
+		threads.forEach(Thread::interrupt);
+	}
+
+	private void run() {
+		while (running) {
+			try {
+				// a full batch means more may be waiting, so only an empty or partial one sleeps
+				if (transferQueueService.drain(properties.getBatchSize()) < properties.getBatchSize()) sleep();
+			} catch (TransferQueueService.QueuedTransfersFailedException e) {
+				// the batch rolled back and stays queued; its transfers are retried one at a time once their backoff ends
+				if (running) {
+					log.error("Transfer queue batch failed", e);
+					recordFailedAttempt(e.getQueueIds());
+				}
+				sleep();
+			} catch (RuntimeException e) {
+				if (running) log.error("Transfer queue batch failed", e);
+				sleep();
+			}
+		}
+	}
+
+	private void recordFailedAttempt(List<Long> queueIds) {
+		try {
+			transferQueueService.recordFailedAttempt(queueIds, properties.getMaxAttempts(), properties.getRetryBackoffMillis());
+		} catch (RuntimeException e) {
+			// the attempt goes uncounted and the batch is simply retried
+			log.error("Recording failed transfer queue attempt failed", e);
+		}
+	}
+
+	private void sleep() {
+		try {
+			Thread.sleep(properties.getPollIntervalMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			running = false;
+		}
+	}
+}
@@ -1,10 +1,18 @@
 package com.bank.wallet.service;
 
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.dto.transfer.DisbursementRequestDto;
+import com.bank.wallet.dto.transfer.TransferAcceptedResponseDto;
+import com.bank.wallet.dto.transfer.TransferBatchRequestDto;
 import com.bank.wallet.dto.transfer.TransferRequestDto;
+import com.bank.wallet.exception.TransferRequestNotFoundException;
+import com.bank.wallet.exception.WalletNotFoundException;
+import com.bank.wallet.util.AdmissionControl;
 import com.bank.wallet.validator.TransactionValidator;
 import com.bank.wallet.validator.TransferValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
@@ -15,17 +23,88 @@ import java.util.UUID;
 @Slf4j
 public class TransferService {
 
+	private static final String TRANSFERS_PATH = "/api/v1/transfers";
+
 	private final IdempotencyService idempotencyService;
 	private final TransferExecutorService transferExecutorService;
 	private final TransactionValidator transactionValidator;
 	private final TransferValidator transferValidator;
+	private final AdmissionControl admissionControl;
+	private final WalletProperties walletProperties;
+	private final TransferQueueService transferQueueService;
+	private final WalletExistenceFilter walletExistenceFilter;
+
+	public ResponseEntity<byte[]> create(TransferRequestDto request, UUID idempotencyKey) {
+		transactionValidator.validateIdempotencyKey(idempotencyKey);
+		requireKnownWallets(request);
+		if (idempotencyService.isSingleCommit()) {
+			var cached = idempotencyService.findCachedReplay(idempotencyKey, request);
+			if (cached.isPresent()) return idempotencyService.buildReplayResponse(cached.get());
+			return admissionControl.call(() -> transferExecutorService.claimAndExecute(idempotencyKey, request));
+		}
+		return admissionControl.call(() -> {
+			var key = idempotencyService.claim(idempotencyKey, request);
+			transferValidator.validate(request, key);
+			if (idempotencyService.isReplay(key)) return idempotencyService.buildReplayResponse(key);
+			return transferExecutorService.execute(key, request);
+		});
+	}
 
-	public ResponseEntity<String> create(TransferRequestDto request, UUID idempotencyKey) {
+	/**
+	 * Queues the transfer and answers 202 when async transfers are enabled; otherwise the same as {@link #create}
+	 */
+	public ResponseEntity<byte[]> createAsync(TransferRequestDto request, UUID idempotencyKey) {
+		if (!walletProperties.getTransfer().getAsync().isEnabled()) return create(request, idempotencyKey);
 		transactionValidator.validateIdempotencyKey(idempotencyKey);
-		var key = idempotencyService.claim(idempotencyKey, request);
-		transferValidator.validate(request, key);
+		requireKnownWallets(request);
+		return admissionControl.call(() -> {
+			var key = idempotencyService.claim(idempotencyKey, request);
+			transferValidator.validate(request, key);
+			if (idempotencyService.isReplay(key)) return idempotencyService.buildReplayResponse(key);
+			return transferQueueService.enqueue(key, request);
+		});
+	}
+
+	/**
+	 * Status of a transfer by its Idempotency-Key: the stored response once there is one (202 while queued, then the
+	 * final outcome), or 202 IN_PROGRESS while the request is still being handled.
+	 */
+	public ResponseEntity<byte[]> getRequestStatus(UUID idempotencyKey) {
+		var key = idempotencyService.findLatest(idempotencyKey)
+			.filter(k -> HttpMethod.POST.matches(k.getMethod()) && k.getPath().endsWith(TRANSFERS_PATH))
+			.orElseThrow(() -> new TransferRequestNotFoundException("No transfer request for idempotency key: " + idempotencyKey));
 		if (idempotencyService.isReplay(key)) return idempotencyService.buildReplayResponse(key);
-		return transferExecutorService.execute(key, request);
+		var response = transferQueueService.acceptedResponse(idempotencyKey, key.getRefId(), TransferAcceptedResponseDto.Status.IN_PROGRESS);
+		return idempotencyService.buildResponse(202, idempotencyService.encodeResponse(response));
 	}
 
+	public ResponseEntity<byte[]> createBatch(TransferBatchRequestDto request, UUID idempotencyKey) {
+		transactionValidator.validateIdempotencyKey(idempotencyKey);
+		return admissionControl.call(() -> {
+			var key = idempotencyService.claim(idempotencyKey, request);
+			transferValidator.validateBatch(request, walletProperties.getTransfer().getBatchMaxSize(), key);
+			if (idempotencyService.isReplay(key)) return idempotencyService.buildReplayResponse(key);
+			return transferExecutorService.executeBatch(key, request);
+		});
+	}
+
+	public ResponseEntity<byte[]> createDisbursement(DisbursementRequestDto request, UUID idempotencyKey) {
+		transactionValidator.validateIdempotencyKey(idempotencyKey);
+		return admissionControl.call(() -> {
+			var key = idempotencyService.claim(idempotencyKey, request);
+			transferValidator.validateDisbursement(request, walletProperties.getTransfer().getDisbursementMaxSize(), key);
+			if (idempotencyService.isReplay(key)) return idempotencyService.buildReplayResponse(key);
+			return transferExecutorService.executeDisbursement(key, request);
+		});
+	}
+
+	/**
+	 * Turns away transfers naming a wallet that was never created before anything is claimed, so the 404 is not
+	 * stored under the key
+	 */
+	private void requireKnownWallets(TransferRequestDto request) {
+		for (var walletId : new UUID[]{request.getFromWalletId(), request.getToWalletId()}) {
+			if (walletId != null && walletExistenceFilter.isMissing(walletId)) throw new WalletNotFoundException("Wallet not found: " + walletId);
+		}
+	}
 }
@@ -0,0 +1,153 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.entity.enums.PostingType;
+import com.bank.wallet.repository.EntityRowMappers;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Listens on the {@value #CHANNEL} channel fed by the wallets triggers and forwards every change to
+ * {@link WalletSnapshotCache}, on {@value #POSTINGS_CHANNEL} for {@link BalanceStreamService} when the balance
+ * stream is enabled, and on {@value #CREATED_CHANNEL} for {@link WalletExistenceFilter}. Uses its own connection outside the pool, since LISTEN pins it for the node's lifetime.
+ */
+@Component
+@Slf4j
+public class WalletChangeListener {
+
+	static final String CHANNEL = "wallet_changes";
+	static final String POSTINGS_CHANNEL = "ledger_postings";
+	static final String CREATED_CHANNEL = "wallet_created";
+	private static final int POLL_TIMEOUT_MILLIS = 500;
+
+	private final WalletSnapshotCache walletSnapshotCache;
+	private final BalanceStreamService balanceStreamService;
+	private final WalletExistenceFilter walletExistenceFilter;
+	private final DataSourceProperties dataSourceProperties;
+	private final WalletProperties.WalletCache properties;
+	private volatile boolean running;
+	private Thread thread;
+
+	public WalletChangeListener(WalletSnapshotCache walletSnapshotCache, BalanceStreamService balanceStreamService,
+	                            WalletExistenceFilter walletExistenceFilter, DataSourceProperties dataSourceProperties,
+	                            WalletProperties walletProperties) {
+		this.walletSnapshotCache = walletSnapshotCache;
+		this.balanceStreamService = balanceStreamService;
+		this.walletExistenceFilter = walletExistenceFilter;
+		this.dataSourceProperties = dataSourceProperties;
+		this.properties = walletProperties.getWalletCache();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!walletSnapshotCache.isEnabled() && !balanceStreamService.isEnabled() && !walletExistenceFilter.isEnabled()) return;
+		running = true;
+		thread = Thread.ofPlatform().name("wallet-change-listener").daemon().start(this::run);
+	}
+
+	@PreDestroy
+	void stop() {
+		running = false;
+		if (thread != null) thread.interrupt();
+	}
+
+	private void run() {
+		while (running) {
+			try (var connection = connect()) {
+				listen(connection);
+			} catch (SQLException | RuntimeException e) {
+				if (running) log.warn("Wallet change listener disconnected, cache bypassed: reason={}", e.getMessage());
+			} finally {
+				walletSnapshotCache.setListening(false);
+				if (balanceStreamService.isEnabled()) balanceStreamService.setListening(false);
+				walletExistenceFilter.setListening(false);
+			}
+			sleepBeforeReconnect();
+		}
+	}
+
+	private void listen(Connection connection) throws SQLException {
+		try (var statement = connection.createStatement()) {
+			if (walletSnapshotCache.isEnabled()) statement.execute("LISTEN " + CHANNEL);
+			if (balanceStreamService.isEnabled()) statement.execute("LISTEN " + POSTINGS_CHANNEL);
+			if (walletExistenceFilter.isEnabled()) statement.execute("LISTEN " + CREATED_CHANNEL);
+		}
+		var pgConnection = connection.unwrap(PGConnection.class);
+		walletSnapshotCache.setListening(true);
+		if (balanceStreamService.isEnabled()) balanceStreamService.setListening(true);
+		walletExistenceFilter.setListening(true);
+		log.info("Wallet change listener connected");
+		while (running) {
+			var notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+			if (notifications == null) continue;
+			for (var notification : notifications) {
+				if (POSTINGS_CHANNEL.equals(notification.getName())) {
+					balanceStreamService.onPosting(parsePosting(notification.getParameter()));
+				} else if (CREATED_CHANNEL.equals(notification.getName())) {
+					walletExistenceFilter.add(UUID.fromString(notification.getParameter()));
+				} else {
+					walletSnapshotCache.onChange(parse(notification.getParameter()));
+				}
+			}
+		}
+	}
+
+	private Connection connect() throws SQLException {
+		return DriverManager.getConnection(dataSourceProperties.determineUrl(),
+			dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+	}
+
+	private void sleepBeforeReconnect() {
+		try {
+			Thread.sleep(properties.getListenerReconnectMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			running = false;
+		}
+	}
+
+	/**
+	 * Parses {@code wallet_id,sent_at_millis[,balance,updated_at_micros]} as written by notify_wallet_change().
+	 */
+	static WalletChange parse(String payload) {
+		var parts = payload.split(",");
+		var walletId = UUID.fromString(parts[0]);
+		var sentAtMillis = Long.parseLong(parts[1]);
+		if (parts.length < 4) return new WalletChange(walletId, sentAtMillis, null, null);
+		var updatedAt = Instant.EPOCH.plus(Long.parseLong(parts[3]), ChronoUnit.MICROS).atOffset(ZoneOffset.UTC);
+		return new WalletChange(walletId, sentAtMillis, new BigDecimal(parts[2]), updatedAt);
+	}
+
+	/**
+	 * Parses {@code wallet_id,tx_id,posting_type,amount,current_balance,created_at_micros,sent_at_millis} as written
+	 * by notify_ledger_posting().
+	 */
+	static LedgerPosting parsePosting(String payload) {
+		var parts = payload.split(",");
+		var createdAt = Instant.EPOCH.plus(Long.parseLong(parts[5]), ChronoUnit.MICROS).atOffset(ZoneOffset.UTC);
+		return new LedgerPosting(UUID.fromString(parts[0]), UUID.fromString(parts[1]), EntityRowMappers.postingType(parts[2]), new BigDecimal(parts[3]),
+			new BigDecimal(parts[4]), createdAt, Long.parseLong(parts[6]));
+	}
+
+	public record LedgerPosting(UUID walletId, UUID txId, PostingType postingType, BigDecimal amount, BigDecimal currentBalance,
+	                            OffsetDateTime createdAt, long sentAtMillis) {
+	}
+
+	public record WalletChange(UUID walletId, long sentAtMillis, BigDecimal balance, OffsetDateTime updatedAt) {
+	}
+}
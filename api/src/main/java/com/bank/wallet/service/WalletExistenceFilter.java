@@ -0,0 +1,225 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.repository.WalletRepository;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Node-local Bloom filter of wallet ids, so requests for wallets that were never created are turned away before an
+ * idempotency claim or a balance UPDATE. It is filled by a keyset scan of wallets at startup, then by local
+ * creations and by {@link WalletChangeListener} notifications of wallets created on other nodes. Misses are only
+ * confirmed with a primary-key lookup (and the wallet added) while the listener is down, or always with
+ * {@code confirm-misses}. Until the first scan finishes every wallet counts as possibly existing.
+ */
+@Component
+@Slf4j
+public class WalletExistenceFilter {
+
+	static final String SIZE_METRIC = "wallet.wallet-filter.size";
+	static final String BYTES_METRIC = "wallet.wallet-filter.bytes";
+	static final String FPP_METRIC = "wallet.wallet-filter.expected-fpp";
+	static final String CHECKS_METRIC = "wallet.wallet-filter.checks";
+	static final String REBUILD_METRIC = "wallet.wallet-filter.rebuild";
+	private static final UUID MIN_WALLET_ID = new UUID(0, 0);
+	private static final Funnel<UUID> WALLET_ID_FUNNEL = (walletId, sink) -> sink
+		.putLong(walletId.getMostSignificantBits())
+		.putLong(walletId.getLeastSignificantBits());
+
+	private final WalletRepository walletRepository;
+	private final WalletProperties.WalletFilter properties;
+	private final AtomicBoolean rebuilding = new AtomicBoolean();
+	private final Counter present;
+	private final Counter absent;
+	private final Counter recovered;
+	private final Counter falsePositives;
+	private final Timer rebuildTimer;
+	// null until the first scan completes
+	private volatile Filter current;
+	// the filter being scanned into, so wallets created meanwhile are not lost
+	private volatile Filter next;
+	private volatile boolean listening;
+
+	public WalletExistenceFilter(WalletRepository walletRepository, WalletProperties walletProperties, MeterRegistry meterRegistry) {
+		this.walletRepository = walletRepository;
+		this.properties = walletProperties.getWalletFilter();
+		Gauge.builder(SIZE_METRIC, this, f -> f.current == null ? 0 : f.current.bloom().approximateElementCount())
+			.description("Approximate number of wallet ids in the existence filter")
+			.register(meterRegistry);
+		Gauge.builder(BYTES_METRIC, this, f -> f.current == null ? 0 : f.current.bytes())
+			.description("Memory taken by the existence filter's bit array")
+			.register(meterRegistry);
+		Gauge.builder(FPP_METRIC, this, f -> f.current == null ? 0 : f.current.bloom().expectedFpp())
+			.description("Probability that the existence filter reports an unknown wallet as possibly existing")
+			.register(meterRegistry);
+		this.present = checks(meterRegistry, "present");
+		this.absent = checks(meterRegistry, "absent");
+		this.recovered = checks(meterRegistry, "recovered");
+		this.falsePositives = checks(meterRegistry, "false_positive");
+		this.rebuildTimer = Timer.builder(REBUILD_METRIC)
+			.description("Time taken to scan all wallets into a new existence filter")
+			.register(meterRegistry);
+	}
+
+	public boolean isEnabled() {
+		return properties.isEnabled();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (properties.isEnabled()) rebuildAsync();
+	}
+
+	/**
+	 * True when the wallet does not exist, decided without the database whenever the filter rules it out and the
+	 * listener is connected. Wallets the filter has seen, and any wallet before the first scan, are never missing.
+	 */
+	public boolean isMissing(UUID walletId) {
+		var filter = current;
+		if (filter == null) return false;
+		if (filter.bloom().mightContain(walletId)) {
+			present.increment();
+			return false;
+		}
+		// notifications may have been missed while the listener was away
+		if ((properties.isConfirmMisses() || !listening) && walletRepository.existsById(walletId)) {
+			recovered.increment();
+			add(walletId);
+			return false;
+		}
+		absent.increment();
+		return true;
+	}
+
+	/**
+	 * True only when the filter rules the wallet out; never touches the database
+	 */
+	public boolean isDefinitelyAbsent(UUID walletId) {
+		var filter = current;
+		return filter != null && !filter.bloom().mightContain(walletId);
+	}
+
+	/**
+	 * Called when the database found no such wallet, to count the filter's false positives
+	 */
+	public void recordNotFound(UUID walletId) {
+		var filter = current;
+		if (filter != null && filter.bloom().mightContain(walletId)) falsePositives.increment();
+	}
+
+	/**
+	 * Adds a wallet created by this node once its transaction commits
+	 */
+	public void addAfterCommit(UUID walletId) {
+		if (!properties.isEnabled()) return;
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					add(walletId);
+				}
+			});
+		} else {
+			add(walletId);
+		}
+	}
+
+	/**
+	 * Adds a committed wallet. The filter being scanned is written first, so a rebuild that swaps it in meanwhile
+	 * cannot drop the wallet.
+	 */
+	public void add(UUID walletId) {
+		var scanning = next;
+		if (scanning != null) scanning.bloom().put(walletId);
+		var filter = current;
+		if (filter != null) filter.bloom().put(walletId);
+	}
+
+	/**
+	 * Called by the listener as its connection comes and goes. Creations missed while it was away are picked up by a
+	 * rescan when misses are not confirmed against the database.
+	 */
+	public void setListening(boolean listening) {
+		if (!properties.isEnabled()) return;
+		var reconnected = listening && !this.listening && current != null;
+		this.listening = listening;
+		if (reconnected && !properties.isConfirmMisses()) rebuildAsync();
+	}
+
+	@Scheduled(fixedDelayString = "${wallet.wallet-filter.resize-check-millis:60000}")
+	public void resizeIfFull() {
+		var filter = current;
+		if (filter != null && filter.bloom().approximateElementCount() > filter.capacity()) {
+			log.info("Wallet existence filter is over capacity, rebuilding: capacity={}", filter.capacity());
+			rebuildAsync();
+		}
+	}
+
+	private void rebuildAsync() {
+		if (!rebuilding.compareAndSet(false, true)) return;
+		Thread.ofPlatform().name("wallet-filter-rebuild").daemon().start(() -> {
+			try {
+				rebuild();
+			} catch (RuntimeException e) {
+				log.error("Wallet existence filter rebuild failed", e);
+			} finally {
+				rebuilding.set(false);
+			}
+		});
+	}
+
+	void rebuild() {
+		var start = System.nanoTime();
+		var capacity = Math.max(properties.getMinimumCapacity(), (long) (walletRepository.estimateCount() * properties.getHeadroom()));
+		var filter = new Filter(BloomFilter.create(WALLET_ID_FUNNEL, capacity, properties.getFalsePositiveProbability()), capacity,
+			properties.getFalsePositiveProbability());
+		next = filter;
+		try {
+			var scanned = 0L;
+			var after = MIN_WALLET_ID;
+			List<UUID> page;
+			do {
+				page = walletRepository.findIdsAfter(after, properties.getScanPageSize());
+				page.forEach(filter.bloom()::put);
+				scanned += page.size();
+				if (!page.isEmpty()) after = page.getLast();
+			} while (page.size() == properties.getScanPageSize());
+			current = filter;
+			log.info("Wallet existence filter built: wallets={}, capacity={}, bytes={}, millis={}", scanned, capacity, filter.bytes(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		} finally {
+			next = null;
+			rebuildTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private static Counter checks(MeterRegistry meterRegistry, String result) {
+		return Counter.builder(CHECKS_METRIC)
+			.description("Existence filter lookups by result")
+			.tag("result", result)
+			.register(meterRegistry);
+	}
+
+	private record Filter(BloomFilter<UUID> bloom, long capacity, double fpp) {
+		// size of the bit array Guava allocates for this capacity and fpp
+		long bytes() {
+			return (long) (-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2))) / Byte.SIZE;
+		}
+	}
+}
@@ -9,6 +9,8 @@ import com.bank.wallet.exception.InsufficientFundsException;
 import com.bank.wallet.exception.WalletNotFoundException;
 import com.bank.wallet.mapper.WalletMapper;
 import com.bank.wallet.repository.WalletRepository;
+import com.bank.wallet.util.CursorUtils;
+import com.bank.wallet.util.ReadRouting;
 import com.bank.wallet.validator.WalletValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,6 +20,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +31,10 @@ public class WalletService {
 	private final WalletMapper walletMapper;
 	private final LedgerService ledgerService;
 	private final WalletValidator walletValidator;
+	private final CursorUtils cursorUtils;
+	private final ReadRouting readRouting;
+	private final WalletSnapshotCache walletSnapshotCache;
+	private final WalletExistenceFilter walletExistenceFilter;
 
 	@Transactional
 	public WalletResponseDto createWallet() {
@@ -39,50 +46,99 @@ public class WalletService {
 			.updatedAt(now)
 			.build();
 		var savedWallet = walletRepository.save(wallet);
+		walletExistenceFilter.addAfterCommit(savedWallet.getWalletId());
 		return walletMapper.mapToResponse(savedWallet);
 	}
 
+	/**
+	 * Served from the snapshot cache when it is connected to change notifications. Reads pinned by a commit
+	 * token skip it, since only the database can prove the token's write is visible.
+	 */
 	public WalletResponseDto getWallet(UUID walletId) {
-		var wallet = this.findById(walletId);
-		return walletMapper.mapToResponse(wallet);
+		var wallet = walletSnapshotCache.isUsable() && readRouting.currentCommitToken() == null
+			? walletSnapshotCache.get(walletId, () -> readRouting.onReplica(() -> walletRepository.findWithTotalBalance(walletId)))
+			: readRouting.onReplica(() -> walletRepository.findWithTotalBalance(walletId));
+		return walletMapper.mapToResponse(wallet.orElseThrow(() -> new WalletNotFoundException("Wallet not found: " + walletId)));
 	}
 
+	/**
+	 * Splits the wallet balance across shardCount rows so concurrent postings stop serializing on one row.
+	 * A shardCount of 0 folds the shards back into the wallet row.
+	 */
+	@Transactional
+	public WalletResponseDto reshard(UUID walletId, int shardCount) {
+		log.info("Resharding wallet: wallet={}, shards={}", walletId, shardCount);
+		walletRepository.reshard(walletId, shardCount)
+			.orElseThrow(() -> new WalletNotFoundException("Wallet not found: " + walletId));
+		walletSnapshotCache.evictAfterCommit(walletId);
+		// read inside this transaction, not from a replica that hasn't seen the new shards yet
+		return walletMapper.mapToResponse(walletRepository.findWithTotalBalance(walletId)
+			.orElseThrow(() -> new WalletNotFoundException("Wallet not found: " + walletId)));
+	}
+
+	// one statement for both modes: sharded wallets fall through to the shard function inside it
 	@Transactional
 	public BigDecimal depositAndGetNewBalance(IdempotencyKey idempotencyKey, UUID walletId, BigDecimal amount) {
-		var newBalance = walletRepository.depositAndGetNewBalance(walletId, amount);
-		if (newBalance.isEmpty()) throw new WalletNotFoundException("Wallet not found: " + walletId, idempotencyKey);
+		var newBalance = walletRepository.depositAndGetNewBalance(walletId, amount, shardHint());
+		if (newBalance.isEmpty()) throw notFound(walletId, idempotencyKey);
+		walletSnapshotCache.applyAfterCommit(walletId, newBalance.get().subtract(amount), newBalance.get());
 		return newBalance.get();
 	}
 
+	// a wallet the existence filter rules out needs no lookup to tell not-found from insufficient funds
 	@Transactional
 	public BigDecimal withdrawAndGetNewBalance(IdempotencyKey idempotencyKey, UUID walletId, BigDecimal amount) {
-		var newBalance = walletRepository.withdrawAndGetNewBalance(walletId, amount);
+		var newBalance = walletRepository.withdrawAndGetNewBalance(walletId, amount, shardHint());
 		if (newBalance.isEmpty()) {
-			if (!walletRepository.existsById(walletId))
-				throw new WalletNotFoundException("Wallet not found: " + walletId, idempotencyKey);
+			if (walletExistenceFilter.isDefinitelyAbsent(walletId) || !walletRepository.existsById(walletId))
+				throw notFound(walletId, idempotencyKey);
 			throw new InsufficientFundsException("Insufficient funds for withdrawal", walletId, amount, idempotencyKey);
 		}
+		walletSnapshotCache.applyAfterCommit(walletId, newBalance.get().add(amount), newBalance.get());
 		return newBalance.get();
 	}
 
+	/**
+	 * A posting at or before at proves the wallet exists, so the wallet row is only read when there is none,
+	 * to tell a missing wallet from one without postings yet.
+	 */
 	public BalanceHistoryResponseDto getBalanceAsOf(UUID walletId, OffsetDateTime at) {
 		walletValidator.validateAt(at);
-		var wallet = this.findById(walletId);
+		return readRouting.onReplica(() -> {
+			var balance = ledgerService.getBalanceAsOf(walletId, at).orElseGet(() -> {
+				this.findById(walletId);
+				return BigDecimal.ZERO;
+			});
+			return walletMapper.mapToBalanceHistory(walletId, balance, at);
+		});
+	}
 
-		var balance = at.isBefore(wallet.getCreatedAt())
-			? BigDecimal.ZERO
-			: ledgerService.getBalanceAsOf(walletId, at);
+	/**
+	 * Without a cursor the page is read with OFFSET (kept for compatibility); with one it is a keyset seek whose
+	 * cost does not depend on depth. The total is only counted when asked for.
+	 */
+	public LedgerPageResponseDto listLedger(UUID walletId, int page, int size, OffsetDateTime from, OffsetDateTime to,
+	                                        String cursor, boolean includeTotal) {
+		walletValidator.validateDateRange(from, to);
+		return readRouting.onReplica(() -> {
+			var wallet = this.findById(walletId);
+			var entries = cursor == null
+				? ledgerService.findPage(wallet.getWalletId(), page, size, from, to)
+				: ledgerService.findPageAfter(wallet.getWalletId(), cursorUtils.decode(cursor), size, from, to);
+			var total = includeTotal ? ledgerService.count(wallet.getWalletId(), from, to) : null;
+			var nextCursor = entries.size() < size ? null : cursorUtils.encode(entries.getLast().getCreatedAt(), entries.getLast().getPostingSeq(), entries.getLast().getLedgerId());
+			var dtoEntries = walletMapper.mapLedgerEntries(entries);
+			return walletMapper.mapLedgerPage(page, size, total, nextCursor, dtoEntries);
+		});
+	}
 
-		return walletMapper.mapToBalanceHistory(walletId, balance, at);
+	private WalletNotFoundException notFound(UUID walletId, IdempotencyKey idempotencyKey) {
+		walletExistenceFilter.recordNotFound(walletId);
+		return new WalletNotFoundException("Wallet not found: " + walletId, idempotencyKey);
 	}
 
-	public LedgerPageResponseDto listLedger(UUID walletId, int page, int size, OffsetDateTime from, OffsetDateTime to) {
-		walletValidator.validateDateRange(from, to);
-		var wallet = this.findById(walletId);
-		var entries = ledgerService.findPage(wallet.getWalletId(), page, size, from, to);
-		var total = ledgerService.count(wallet.getWalletId(), from, to);
-		var dtoEntries = walletMapper.mapLedgerEntries(entries);
-		return walletMapper.mapLedgerPage(page, size, total, dtoEntries);
+	private int shardHint() {
+		return ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
 	}
 
 	private Wallet findById(UUID walletId) {
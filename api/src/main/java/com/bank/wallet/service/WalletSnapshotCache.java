@@ -0,0 +1,135 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.CacheConfig;
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.entity.Wallet;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Node-local wallet snapshots served by {@code GET /wallets/{walletId}}. Local writes update the snapshot from the
+ * balance their UPDATE returned; writes on other nodes arrive as {@link WalletChangeListener} notifications.
+ * The cache is bypassed whenever the listener is disconnected, so a missed notification can only be served
+ * for as long as the entry was already cached, and never longer than {@code max-staleness-millis}.
+ */
+@Component
+public class WalletSnapshotCache {
+
+	static final String STALENESS_METRIC = "wallet.wallet-cache.staleness";
+
+	private final Cache<Object, Object> cache;
+	private final boolean enabled;
+	private final Timer staleness;
+	private volatile boolean listening;
+
+	@SuppressWarnings("unchecked")
+	public WalletSnapshotCache(CacheManager cacheManager, WalletProperties walletProperties, MeterRegistry meterRegistry) {
+		var springCache = cacheManager.getCache(CacheConfig.WALLET_SNAPSHOTS);
+		this.cache = springCache == null ? null : (Cache<Object, Object>) springCache.getNativeCache();
+		this.enabled = walletProperties.getWalletCache().isEnabled() && cache != null;
+		this.staleness = Timer.builder(STALENESS_METRIC)
+			.description("Delay between a balance change and its notification reaching this node")
+			.register(meterRegistry);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public boolean isUsable() {
+		return enabled && listening;
+	}
+
+	/**
+	 * Cached snapshot, or the loader's result which is cached for the next read. The load runs under the entry's
+	 * lock, so a notification for the same wallet waits for it and is applied on top of it.
+	 */
+	public Optional<Wallet> get(UUID walletId, Supplier<Optional<Wallet>> loader) {
+		return Optional.ofNullable((Wallet) cache.get(walletId, id -> loader.get().orElse(null)));
+	}
+
+	/**
+	 * Write-through from a committed balance change. The snapshot is only moved forward when it still holds the
+	 * balance this write started from; otherwise writes committed out of order and the entry is dropped.
+	 */
+	public void applyAfterCommit(UUID walletId, BigDecimal previousBalance, BigDecimal newBalance) {
+		if (!enabled) return;
+		afterCommit(() -> advance(walletId, previousBalance, newBalance));
+	}
+
+	/**
+	 * Drops the snapshot once the surrounding transaction commits, for changes that don't return a balance.
+	 */
+	public void evictAfterCommit(UUID walletId) {
+		if (!enabled) return;
+		afterCommit(() -> cache.invalidate(walletId));
+	}
+
+	/**
+	 * Applies a change notification. Notifications arrive in commit order, so a balance carried by one
+	 * always replaces the snapshot; a change without a balance evicts it.
+	 */
+	public void onChange(WalletChangeListener.WalletChange change) {
+		if (!enabled) return;
+		staleness.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - change.sentAtMillis())));
+		if (change.balance() == null) {
+			cache.invalidate(change.walletId());
+			return;
+		}
+		cache.asMap().computeIfPresent(change.walletId(), (id, cached) -> withBalance((Wallet) cached, change.balance(), 0, change.updatedAt()));
+	}
+
+	/**
+	 * Called by the listener as its connection comes and goes. Everything cached before a disconnect may have
+	 * missed notifications, so it is dropped.
+	 */
+	public void setListening(boolean listening) {
+		if (!enabled) return;
+		this.listening = listening;
+		cache.invalidateAll();
+	}
+
+	private static void afterCommit(Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		} else {
+			action.run();
+		}
+	}
+
+	private void advance(UUID walletId, BigDecimal previousBalance, BigDecimal newBalance) {
+		cache.asMap().computeIfPresent(walletId, (id, cached) -> {
+			var wallet = (Wallet) cached;
+			return wallet.getCurrentBalance().compareTo(previousBalance) == 0
+				? withBalance(wallet, newBalance, wallet.getShardCount(), OffsetDateTime.now())
+				: null;
+		});
+	}
+
+	private static Wallet withBalance(Wallet wallet, BigDecimal balance, int shardCount, OffsetDateTime updatedAt) {
+		return Wallet.builder()
+			.walletId(wallet.getWalletId())
+			.currentBalance(balance)
+			.shardCount(shardCount)
+			.createdAt(wallet.getCreatedAt())
+			.updatedAt(updatedAt)
+			.build();
+	}
+}
@@ -0,0 +1,47 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+
+/**
+ * POSTs each batch to wallet.outbox.webhook.url; any non-2xx answer fails the batch so it is sent again
+ */
+@Component
+@ConditionalOnProperty(prefix = "wallet.outbox.webhook", name = "url")
+public class WebhookLedgerEventSink implements LedgerEventSink {
+
+	static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+	private final RestClient restClient;
+
+	public WebhookLedgerEventSink(WalletProperties walletProperties) {
+		var webhook = walletProperties.getOutbox().getWebhook();
+		var requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout(Duration.ofMillis(webhook.getTimeoutMillis()));
+		requestFactory.setReadTimeout(Duration.ofMillis(webhook.getTimeoutMillis()));
+		this.restClient = RestClient.builder()
+			.baseUrl(webhook.getUrl())
+			.requestFactory(requestFactory)
+			.build();
+	}
+
+	@Override
+	public String name() {
+		return "webhook";
+	}
+
+	@Override
+	public void publish(byte[] batch) {
+		restClient.post()
+			.contentType(NDJSON)
+			.body(batch)
+			.retrieve()
+			.toBodilessEntity();
+	}
+}
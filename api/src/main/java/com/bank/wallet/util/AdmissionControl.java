@@ -0,0 +1,74 @@
+package com.bank.wallet.util;
+
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of requests doing database work at once below the connection pool size. With virtual threads
+ * there is no thread pool left to do that, and thousands of requests would otherwise queue inside Hikari and
+ * fail with connection timeouts; here they wait on a fair semaphore and are turned away with a 503 instead.
+ * Unless permits are set, the connections background work may hold are left out, so a burst of requests
+ * cannot starve the transfer queue workers or the outbox relay.
+ */
+@Component
+public class AdmissionControl {
+
+	static final String WAIT_METRIC = "wallet.admission.wait";
+
+	private final boolean enabled;
+	private final long acquireTimeoutMillis;
+	private final Semaphore permits;
+	private final Timer admitted;
+	private final Timer rejected;
+
+	public AdmissionControl(WalletProperties walletProperties, MeterRegistry meterRegistry,
+	                        @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+		var properties = walletProperties.getAdmission();
+		this.enabled = properties.isEnabled();
+		this.acquireTimeoutMillis = properties.getAcquireTimeoutMillis();
+		this.permits = new Semaphore(properties.getPermits() > 0 ? properties.getPermits() : defaultPermits(walletProperties, poolSize), true);
+		this.admitted = Timer.builder(WAIT_METRIC).tag("outcome", "admitted").register(meterRegistry);
+		this.rejected = Timer.builder(WAIT_METRIC).tag("outcome", "rejected").register(meterRegistry);
+		Gauge.builder("wallet.admission.waiting", permits, Semaphore::getQueueLength).register(meterRegistry);
+		Gauge.builder("wallet.admission.available", permits, Semaphore::availablePermits).register(meterRegistry);
+	}
+
+	static int defaultPermits(WalletProperties walletProperties, int poolSize) {
+		var async = walletProperties.getTransfer().getAsync();
+		var reserved = walletProperties.getAdmission().getReservedConnections()
+			+ (async.isEnabled() ? async.getWorkers() : 0)
+			+ (walletProperties.getOutbox().isEnabled() ? 1 : 0);
+		return Math.max(1, poolSize - reserved);
+	}
+
+	public <T> T call(Supplier<T> work) {
+		if (!enabled) return work.get();
+
+		var start = System.nanoTime();
+		try {
+			if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				rejected.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				throw new ServiceOverloadedException("Too many concurrent requests, retry later");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for admission", e);
+		}
+		admitted.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+		try {
+			return work.get();
+		} finally {
+			permits.release();
+		}
+	}
+}
@@ -10,6 +10,7 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 import jakarta.servlet.http.HttpServletRequest;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
@@ -28,20 +29,55 @@ public class ContextUtils {
         return request.getRequestURI();
     }
 
-    public String generateRequestHash(String method, String path, Object requestBody) {
+    public String getCurrentContextPath() {
+        var request = getCurrentRequest();
+        return request.getContextPath();
+    }
+
+    /**
+     * Idempotency hash of the current request, taken from the body bytes as they were read when the request went
+     * through {@link HashingRequestWrapper}; otherwise computed from the parsed body.
+     */
+    public byte[] getCurrentRequestHash(Object requestBody) {
+        var request = getCurrentRequest();
+        if (request.getAttribute(HashingRequestWrapper.ATTRIBUTE) instanceof HashingRequestWrapper wrapper) {
+            return wrapper.getRequestHash();
+        }
+        return generateRequestHash(request.getMethod(), request.getRequestURI(), requestBody);
+    }
+
+    public byte[] generateRequestHash(String method, String path, Object requestBody) {
         try {
-            var bodyJson = requestBody != null ? serializationUtils.toJson(requestBody) : "";
-            var input = method + path + bodyJson;
+            var body = requestBody != null ? serializationUtils.toJson(requestBody).getBytes(StandardCharsets.UTF_8) : new byte[0];
+            return RequestHasher.hash(method, path, body);
+        } catch (Exception e) {
+            log.error("Error generating request hash", e);
+            throw new RuntimeException("Failed to generate request hash", e);
+        }
+    }
 
-            return Hashing.sha256()
-                    .hashString(input, StandardCharsets.UTF_8)
-                    .toString();
+    /**
+     * Hash stored by releases that hashed the re-serialized DTO as hex: SHA-256 of method, path and the DTO JSON as
+     * written, without canonicalizing it. Keys claimed by those releases are still retried within the retention window.
+     */
+    public byte[] generateLegacyRequestHash(String method, String path, Object requestBody) {
+        try {
+            var bodyJson = requestBody != null ? serializationUtils.toJson(requestBody) : "";
+            return Hashing.sha256().hashString(method + path + bodyJson, StandardCharsets.UTF_8).asBytes();
         } catch (Exception e) {
             log.error("Error generating request hash", e);
             throw new RuntimeException("Failed to generate request hash", e);
         }
     }
 
+    /**
+     * Header of the request bound to the current thread; empty outside of a request (e.g. async streaming).
+     */
+    public Optional<String> getCurrentRequestHeader(String name) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) return Optional.empty();
+        return Optional.ofNullable(attributes.getRequest().getHeader(name));
+    }
+
     private HttpServletRequest getCurrentRequest() {
         var attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
         return Objects.requireNonNull(attributes.getRequest());
@@ -0,0 +1,42 @@
+package com.bank.wallet.util;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Encodes ledger keyset positions as opaque URL-safe tokens. Clients must treat the token as a black box.
+ */
+@Component
+public class CursorUtils {
+
+	private static final char SEPARATOR = '|';
+
+	public String encode(OffsetDateTime createdAt, long postingSeq, UUID ledgerId) {
+		var raw = createdAt.toString() + SEPARATOR + postingSeq + SEPARATOR + ledgerId;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public LedgerCursor decode(String cursor) {
+		try {
+			var raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			var parts = raw.split(Pattern.quote(String.valueOf(SEPARATOR)), -1);
+			if (parts.length == 2) {
+				// issued before posting_seq existed: re-reads the entries at that instant rather than risk skipping one
+				return new LedgerCursor(OffsetDateTime.parse(parts[0]), Long.MAX_VALUE, UUID.fromString(parts[1]));
+			}
+			if (parts.length != 3) throw new IllegalArgumentException("Invalid cursor");
+			return new LedgerCursor(OffsetDateTime.parse(parts[0]), Long.parseLong(parts[1]), UUID.fromString(parts[2]));
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			throw new IllegalArgumentException("Invalid cursor");
+		}
+	}
+
+	public record LedgerCursor(OffsetDateTime createdAt, long postingSeq, UUID ledgerId) {
+	}
+}
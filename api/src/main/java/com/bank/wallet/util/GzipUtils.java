@@ -0,0 +1,40 @@
+package com.bank.wallet.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip for stored response bodies. A JSON document never starts with the gzip magic bytes, so stored bodies
+ * carry their encoding without a separate column.
+ */
+public final class GzipUtils {
+
+	private GzipUtils() {
+	}
+
+	public static boolean isGzipped(byte[] bytes) {
+		return bytes != null && bytes.length >= 2 && bytes[0] == (byte) 0x1f && bytes[1] == (byte) 0x8b;
+	}
+
+	public static byte[] gzip(byte[] bytes) {
+		var out = new ByteArrayOutputStream(bytes.length / 2 + 32);
+		try (var gzip = new GZIPOutputStream(out)) {
+			gzip.write(bytes);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to compress response body", e);
+		}
+		return out.toByteArray();
+	}
+
+	public static byte[] gunzip(byte[] bytes) {
+		try (var gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+			return gzip.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to decompress response body", e);
+		}
+	}
+}
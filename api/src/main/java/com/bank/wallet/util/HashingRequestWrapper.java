@@ -0,0 +1,103 @@
+package com.bank.wallet.util;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Keeps a copy of the request body while the message converters read it, so the idempotency hash is taken from the
+ * bytes as received (see {@link RequestHasher}) instead of re-serializing the bound DTO.
+ */
+public class HashingRequestWrapper extends HttpServletRequestWrapper {
+
+	public static final String ATTRIBUTE = HashingRequestWrapper.class.getName();
+
+	private final ByteArrayOutputStream body;
+	private HashingInputStream inputStream;
+	private byte[] hash;
+
+	public HashingRequestWrapper(HttpServletRequest request) {
+		super(request);
+		this.body = new ByteArrayOutputStream(Math.max(request.getContentLength(), 256));
+		request.setAttribute(ATTRIBUTE, this);
+	}
+
+	@Override
+	public ServletInputStream getInputStream() throws IOException {
+		if (inputStream == null) inputStream = new HashingInputStream(super.getInputStream());
+		return inputStream;
+	}
+
+	@Override
+	public BufferedReader getReader() throws IOException {
+		var encoding = getCharacterEncoding();
+		var charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+		return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+	}
+
+	/**
+	 * Hash of method, path and the whole body. Whatever the parser left unread (e.g. trailing whitespace)
+	 * is consumed first so the result doesn't depend on how far it read.
+	 */
+	public byte[] getRequestHash() {
+		if (hash != null) return hash;
+		try {
+			var in = getInputStream();
+			var buffer = new byte[1024];
+			while (in.read(buffer) != -1) {
+				// drained into the copy
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read request body", e);
+		}
+		hash = RequestHasher.hash(getMethod(), getRequestURI(), body.toByteArray());
+		return hash;
+	}
+
+	private final class HashingInputStream extends ServletInputStream {
+
+		private final ServletInputStream delegate;
+
+		private HashingInputStream(ServletInputStream delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public int read() throws IOException {
+			var b = delegate.read();
+			if (b != -1) body.write(b);
+			return b;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			var count = delegate.read(bytes, offset, length);
+			if (count > 0) body.write(bytes, offset, count);
+			return count;
+		}
+
+		@Override
+		public boolean isFinished() {
+			return delegate.isFinished();
+		}
+
+		@Override
+		public boolean isReady() {
+			return delegate.isReady();
+		}
+
+		@Override
+		public void setReadListener(ReadListener readListener) {
+			delegate.setReadListener(readListener);
+		}
+	}
+}
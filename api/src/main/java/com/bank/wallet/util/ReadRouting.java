@@ -0,0 +1,113 @@
+package com.bank.wallet.util;
+
+import com.bank.wallet.config.WalletProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides whether a read may be served by a replica. Reads wrapped in {@link #onReplica} are routed to a replica
+ * that is within the configured lag and has replayed the client's commit token (read-your-writes); otherwise,
+ * and whenever replicas are disabled, they run on the primary.
+ */
+@Component
+public class ReadRouting {
+
+	public static final String COMMIT_TOKEN_HEADER = "X-Commit-Token";
+	static final String READS_METRIC = "wallet.replica.reads";
+	private static final String PRIMARY = "primary";
+
+	private static final ThreadLocal<String> TARGET = new ThreadLocal<>();
+
+	private final ContextUtils contextUtils;
+	private final MeterRegistry meterRegistry;
+	private final WalletProperties.Replica properties;
+	private final Map<String, ReplicaStatus> statuses = new ConcurrentHashMap<>();
+	private final AtomicInteger roundRobin = new AtomicInteger();
+
+	public ReadRouting(ContextUtils contextUtils, MeterRegistry meterRegistry, WalletProperties walletProperties) {
+		this.contextUtils = contextUtils;
+		this.meterRegistry = meterRegistry;
+		this.properties = walletProperties.getReplica();
+	}
+
+	public <T, E extends Exception> T onReplica(Read<T, E> read) throws E {
+		return onReplica(currentCommitToken(), read);
+	}
+
+	public <T, E extends Exception> T onReplica(String commitToken, Read<T, E> read) throws E {
+		if (!properties.isEnabled()) return read.get();
+
+		var target = chooseReplica(commitToken);
+		meterRegistry.counter(READS_METRIC, "target", target == null ? PRIMARY : target).increment();
+		if (target == null) return read.get();
+
+		var previous = TARGET.get();
+		TARGET.set(target);
+		try {
+			return read.get();
+		} finally {
+			if (previous == null) TARGET.remove();
+			else TARGET.set(previous);
+		}
+	}
+
+	public String currentCommitToken() {
+		return properties.isEnabled() ? contextUtils.getCurrentRequestHeader(COMMIT_TOKEN_HEADER).orElse(null) : null;
+	}
+
+	/**
+	 * Lookup key of the replica the current thread reads from, or null for the primary.
+	 */
+	public String currentTarget() {
+		return TARGET.get();
+	}
+
+	public void updateStatus(String replica, ReplicaStatus status) {
+		statuses.put(replica, status);
+	}
+
+	String chooseReplica(String commitToken) {
+		if (statuses.isEmpty()) return null;
+		var requiredLsn = commitToken == null ? 0L : parseLsnOrMax(commitToken);
+		var candidates = statuses.entrySet().stream()
+			.filter(e -> e.getValue().healthy()
+				&& e.getValue().lagMillis() <= properties.getMaxLagMillis()
+				&& Long.compareUnsigned(e.getValue().replayLsn(), requiredLsn) >= 0)
+			.map(Map.Entry::getKey)
+			.sorted(Comparator.naturalOrder())
+			.toList();
+		if (candidates.isEmpty()) return null;
+		return candidates.get(Math.floorMod(roundRobin.getAndIncrement(), candidates.size()));
+	}
+
+	/**
+	 * Parses a Postgres LSN ("16/B374D848") into a comparable 64-bit position.
+	 */
+	public static long parseLsn(String lsn) {
+		var slash = lsn.indexOf('/');
+		if (slash <= 0) throw new IllegalArgumentException("Invalid LSN: " + lsn);
+		return Long.parseUnsignedLong(lsn.substring(0, slash), 16) << 32 | Long.parseUnsignedLong(lsn.substring(slash + 1), 16);
+	}
+
+	// an unreadable token can't be proven to be replayed anywhere, so it pins the read to the primary
+	private static long parseLsnOrMax(String lsn) {
+		try {
+			return parseLsn(lsn.trim());
+		} catch (IllegalArgumentException e) {
+			return -1L;
+		}
+	}
+
+	public record ReplicaStatus(boolean healthy, long lagMillis, long replayLsn) {
+	}
+
+	@FunctionalInterface
+	public interface Read<T, E extends Exception> {
+		T get() throws E;
+	}
+}
@@ -0,0 +1,98 @@
+package com.bank.wallet.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.TreeMap;
+
+/**
+ * SHA-256 over {@code method + path + canonical body} used as the idempotency request hash.
+ * <p>
+ * The body is canonicalized from the parser's token stream: whitespace is dropped, object members are sorted by
+ * name, numbers are compared by value ({@code 10.5}, {@code 10.50} and {@code 1.05e1} match) and strings are
+ * re-escaped, so any encoding of the same JSON value is the same request. Array order, {@code null} members and
+ * unknown members still count. A body that is not valid JSON is hashed as sent; it fails validation anyway.
+ */
+public final class RequestHasher {
+
+	private static final JsonFactory JSON = new JsonFactory();
+
+	private RequestHasher() {
+	}
+
+	public static byte[] hash(String method, String path, byte[] body) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+		digest.update(method.getBytes(StandardCharsets.UTF_8));
+		digest.update(path.getBytes(StandardCharsets.UTF_8));
+		digest.update(canonicalize(body));
+		return digest.digest();
+	}
+
+	static byte[] canonicalize(byte[] body) {
+		if (body.length == 0) return body;
+		var out = new ByteArrayOutputStream(body.length);
+		try (var parser = JSON.createParser(body); var generator = JSON.createGenerator(out)) {
+			if (parser.nextToken() == null) return new byte[0];
+			copy(parser, generator);
+			if (parser.nextToken() != null) return body;
+		} catch (JsonProcessingException e) {
+			return body;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to canonicalize request body", e);
+		}
+		return out.toByteArray();
+	}
+
+	private static void copy(JsonParser parser, JsonGenerator generator) throws IOException {
+		switch (parser.currentToken()) {
+			case START_OBJECT -> {
+				// members are written to their own buffers, then emitted by name; a repeated name keeps its last value,
+				// as binding does
+				var members = new TreeMap<String, String>();
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					var name = parser.currentName();
+					parser.nextToken();
+					var value = new ByteArrayOutputStream();
+					try (var member = JSON.createGenerator(value)) {
+						copy(parser, member);
+					}
+					members.put(name, value.toString(StandardCharsets.UTF_8));
+				}
+				generator.writeStartObject();
+				for (var member : members.entrySet()) {
+					generator.writeFieldName(member.getKey());
+					generator.writeRawValue(member.getValue());
+				}
+				generator.writeEndObject();
+			}
+			case START_ARRAY -> {
+				generator.writeStartArray();
+				while (parser.nextToken() != JsonToken.END_ARRAY) copy(parser, generator);
+				generator.writeEndArray();
+			}
+			// toString of a stripped BigDecimal is the same for every spelling of the value and stays short for
+			// large exponents, unlike toPlainString
+			case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> generator.writeNumber(parser.getDecimalValue().stripTrailingZeros().toString());
+			case VALUE_STRING -> generator.writeString(parser.getText());
+			case VALUE_TRUE -> generator.writeBoolean(true);
+			case VALUE_FALSE -> generator.writeBoolean(false);
+			case VALUE_NULL -> generator.writeNull();
+			default -> throw new JsonParseException(parser, "Unexpected token " + parser.currentToken());
+		}
+	}
+}
@@ -22,5 +22,14 @@ public class SerializationUtils {
 		}
 	}
 
+	public byte[] toJsonBytes(Object object) {
+		try {
+			return objectMapper.writeValueAsBytes(object);
+		} catch (JsonProcessingException e) {
+			log.error("Error serializing object to JSON", e);
+			throw new RuntimeException("Failed to serialize object", e);
+		}
+	}
+
 }
 
@@ -1,22 +1,60 @@
 package com.bank.wallet.validator;
 
+import com.bank.wallet.dto.transfer.DisbursementRequestDto;
+import com.bank.wallet.dto.transfer.TransferBatchRequestDto;
 import com.bank.wallet.dto.transfer.TransferRequestDto;
 import com.bank.wallet.entity.IdempotencyKey;
 import com.bank.wallet.exception.SemanticValidationException;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.UUID;
 
 @Component
 public class TransferValidator {
 
 	public void validate(TransferRequestDto requestDto, IdempotencyKey idempotencyKey) {
+		var violation = findViolation(requestDto);
+		if (violation != null) throw new SemanticValidationException(violation, idempotencyKey);
+	}
+
+	public void validateBatch(TransferBatchRequestDto requestDto, int maxSize, IdempotencyKey idempotencyKey) {
+		if (requestDto.getTransfers().size() > maxSize)
+			throw new SemanticValidationException("A batch holds at most " + maxSize + " transfers", idempotencyKey);
+	}
+
+	/**
+	 * Destinations must be distinct: every payout gets its own ledger row under the disbursement id, one per wallet
+	 */
+	public void validateDisbursement(DisbursementRequestDto requestDto, int maxSize, IdempotencyKey idempotencyKey) {
+		var payouts = requestDto.getPayouts();
+		if (payouts.size() > maxSize)
+			throw new SemanticValidationException("A disbursement holds at most " + maxSize + " payouts", idempotencyKey);
+		var destinations = new HashSet<UUID>(payouts.size() * 2);
+		for (var payout : payouts) {
+			if (payout.getToWalletId() == null)
+				throw new SemanticValidationException("Wallet ids required", idempotencyKey);
+			if (payout.getToWalletId().equals(requestDto.getFromWalletId()))
+				throw new SemanticValidationException("from_wallet_id and to_wallet_id must differ", idempotencyKey);
+			if (!destinations.add(payout.getToWalletId()))
+				throw new SemanticValidationException("Duplicate payout to wallet " + payout.getToWalletId(), idempotencyKey);
+			if (payout.getAmount() == null || payout.getAmount().compareTo(BigDecimal.ZERO) <= 0)
+				throw new SemanticValidationException("Amount must be > 0", idempotencyKey);
+		}
+	}
+
+	/**
+	 * Returns the message of the first rule the transfer breaks, or null. Batches report it per item instead of failing.
+	 */
+	public String findViolation(TransferRequestDto requestDto) {
 		if (requestDto.getFromWalletId() == null || requestDto.getToWalletId() == null)
-			throw new SemanticValidationException("Wallet ids required", idempotencyKey);
+			return "Wallet ids required";
 		if (requestDto.getFromWalletId().equals(requestDto.getToWalletId()))
-			throw new SemanticValidationException("from_wallet_id and to_wallet_id must differ", idempotencyKey);
+			return "from_wallet_id and to_wallet_id must differ";
 		if (requestDto.getAmount() == null || requestDto.getAmount().compareTo(BigDecimal.ZERO) <= 0)
-			throw new SemanticValidationException("Amount must be > 0", idempotencyKey);
+			return "Amount must be > 0";
+		return null;
 	}
 
 }
@@ -0,0 +1,18 @@
+-- Opt-in balance sharding for hot wallets.
+-- shard_count = 0 keeps the balance in wallets.current_balance (default behaviour).
+-- shard_count = N splits the balance across N rows of wallet_balance_shards so concurrent
+-- postings lock different rows; the wallet total is current_balance + SUM(shards.balance).
+
+ALTER TABLE wallets ADD COLUMN IF NOT EXISTS shard_count int NOT NULL DEFAULT 0;
+ALTER TABLE wallets DROP CONSTRAINT IF EXISTS chk_wallet_shard_count;
+ALTER TABLE wallets ADD CONSTRAINT chk_wallet_shard_count CHECK (shard_count >= 0 AND shard_count <= 64);
+
+CREATE TABLE IF NOT EXISTS wallet_balance_shards (
+  wallet_id   uuid NOT NULL REFERENCES wallets(wallet_id) ON DELETE RESTRICT,
+  shard_no    int NOT NULL,
+  balance     numeric(19,4) NOT NULL DEFAULT 0,
+  updated_at  timestamptz NOT NULL DEFAULT now(),
+
+  CONSTRAINT pk_wallet_balance_shards PRIMARY KEY (wallet_id, shard_no),
+  CONSTRAINT chk_wallet_shard_balance_nonnegative CHECK (balance >= 0)
+);
@@ -0,0 +1,169 @@
+-- Posting functions for sharded wallets. They read shard_count without locking the wallet row and lock only the
+-- shard they post to, so postings to different shards of one wallet run and commit in parallel. A reshard
+-- (wallet_reshard) deletes and recreates the shard rows; a posting that read the old layout then finds no row to
+-- update and reads the layout again, and one that read shard_count = 0 re-checks it in its UPDATE of the wallet row.
+-- The total they return is the posted shard plus the other shards as last committed: exact for the wallet, but
+-- postings committing at the same time on other shards may not be in it, so the running balances of a sharded
+-- wallet's ledger entries are not a gapless sequence. Every lock taken on the wallet row (postings, batches,
+-- wallet_reshard) is FOR NO KEY UPDATE, which does not conflict with the FOR KEY SHARE taken by the ledger_entries
+-- foreign key, so a posting that holds a shard can always write its ledger entry.
+-- All functions fall back to the plain wallets row when the wallet is not sharded, so a wallet can be
+-- switched between modes while traffic is flowing.
+
+CREATE OR REPLACE FUNCTION wallet_total_balance(p_wallet_id uuid)
+RETURNS numeric
+LANGUAGE sql
+STABLE
+AS $$
+  SELECT w.current_balance + COALESCE((SELECT SUM(s.balance) FROM wallet_balance_shards s WHERE s.wallet_id = w.wallet_id), 0)
+  FROM wallets w
+  WHERE w.wallet_id = p_wallet_id
+$$;
+
+-- Credits one shard (picked from p_shard_hint) and returns the wallet total, or NULL if the wallet does not exist.
+CREATE OR REPLACE FUNCTION wallet_shard_credit(p_wallet_id uuid, p_amount numeric, p_shard_hint int)
+RETURNS numeric
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  v_shard_count int;
+  v_shard_no    int;
+  v_balance     numeric;
+BEGIN
+  LOOP
+    SELECT shard_count INTO v_shard_count FROM wallets WHERE wallet_id = p_wallet_id;
+    IF NOT FOUND THEN
+      RETURN NULL;
+    END IF;
+
+    IF v_shard_count = 0 THEN
+      UPDATE wallets SET current_balance = current_balance + p_amount, updated_at = now()
+      WHERE wallet_id = p_wallet_id AND shard_count = 0
+      RETURNING current_balance INTO v_balance;
+      IF FOUND THEN
+        RETURN v_balance;
+      END IF;
+    ELSE
+      v_shard_no := abs(p_shard_hint) % v_shard_count;
+      UPDATE wallet_balance_shards SET balance = balance + p_amount, updated_at = now()
+      WHERE wallet_id = p_wallet_id AND shard_no = v_shard_no
+      RETURNING balance INTO v_balance;
+      IF FOUND THEN
+        RETURN v_balance + COALESCE((SELECT SUM(balance) FROM wallet_balance_shards WHERE wallet_id = p_wallet_id AND shard_no <> v_shard_no), 0);
+      END IF;
+    END IF;
+    -- resharded since shard_count was read
+  END LOOP;
+END;
+$$;
+
+-- Debits the hinted shard; when it runs dry the debit borrows from the other shards, locking all of them in
+-- shard_no order so concurrent borrowers cannot deadlock. Returns the wallet total, or NULL when the
+-- wallet does not exist or the total is insufficient.
+CREATE OR REPLACE FUNCTION wallet_shard_debit(p_wallet_id uuid, p_amount numeric, p_shard_hint int)
+RETURNS numeric
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  v_shard_count int;
+  v_shard_no    int;
+  v_balance     numeric;
+  v_locked      int;
+  v_available   numeric;
+  v_remaining   numeric;
+  v_take        numeric;
+  v_shard       record;
+BEGIN
+  LOOP
+    SELECT shard_count INTO v_shard_count FROM wallets WHERE wallet_id = p_wallet_id;
+    IF NOT FOUND THEN
+      RETURN NULL;
+    END IF;
+
+    IF v_shard_count = 0 THEN
+      UPDATE wallets SET current_balance = current_balance - p_amount, updated_at = now()
+      WHERE wallet_id = p_wallet_id AND shard_count = 0 AND current_balance >= p_amount
+      RETURNING current_balance INTO v_balance;
+      IF FOUND THEN
+        RETURN v_balance;
+      END IF;
+      PERFORM 1 FROM wallets WHERE wallet_id = p_wallet_id AND shard_count = 0;
+      IF FOUND THEN
+        RETURN NULL;
+      END IF;
+      CONTINUE;
+    END IF;
+
+    v_shard_no := abs(p_shard_hint) % v_shard_count;
+    UPDATE wallet_balance_shards SET balance = balance - p_amount, updated_at = now()
+    WHERE wallet_id = p_wallet_id AND shard_no = v_shard_no AND balance >= p_amount
+    RETURNING balance INTO v_balance;
+    IF FOUND THEN
+      RETURN v_balance + COALESCE((SELECT SUM(balance) FROM wallet_balance_shards WHERE wallet_id = p_wallet_id AND shard_no <> v_shard_no), 0);
+    END IF;
+
+    SELECT count(*), SUM(balance) INTO v_locked, v_available FROM (
+      SELECT balance FROM wallet_balance_shards
+      WHERE wallet_id = p_wallet_id
+      ORDER BY shard_no
+      FOR UPDATE
+    ) locked;
+    -- fewer rows than shard_count means a reshard replaced them meanwhile
+    CONTINUE WHEN v_locked <> v_shard_count;
+
+    IF COALESCE(v_available, 0) < p_amount THEN
+      RETURN NULL;
+    END IF;
+
+    v_remaining := p_amount;
+    FOR v_shard IN
+      SELECT shard_no, balance FROM wallet_balance_shards
+      WHERE wallet_id = p_wallet_id AND balance > 0
+      ORDER BY balance DESC, shard_no
+    LOOP
+      v_take := LEAST(v_shard.balance, v_remaining);
+      UPDATE wallet_balance_shards SET balance = balance - v_take, updated_at = now()
+      WHERE wallet_id = p_wallet_id AND shard_no = v_shard.shard_no;
+      v_remaining := v_remaining - v_take;
+      EXIT WHEN v_remaining = 0;
+    END LOOP;
+
+    -- every shard is locked, so this total is exact
+    RETURN v_available - p_amount;
+  END LOOP;
+END;
+$$;
+
+-- Moves the whole balance into p_shard_count shards (0 folds it back into wallets.current_balance).
+-- Returns the wallet total, or NULL if the wallet does not exist.
+CREATE OR REPLACE FUNCTION wallet_reshard(p_wallet_id uuid, p_shard_count int)
+RETURNS numeric
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  v_total numeric;
+BEGIN
+  PERFORM 1 FROM wallets WHERE wallet_id = p_wallet_id FOR NO KEY UPDATE;
+  IF NOT FOUND THEN
+    RETURN NULL;
+  END IF;
+
+  PERFORM 1 FROM wallet_balance_shards WHERE wallet_id = p_wallet_id ORDER BY shard_no FOR UPDATE;
+  v_total := wallet_total_balance(p_wallet_id);
+
+  DELETE FROM wallet_balance_shards WHERE wallet_id = p_wallet_id;
+
+  IF p_shard_count = 0 THEN
+    UPDATE wallets SET current_balance = v_total, shard_count = 0, updated_at = now()
+    WHERE wallet_id = p_wallet_id;
+  ELSE
+    UPDATE wallets SET current_balance = 0, shard_count = p_shard_count, updated_at = now()
+    WHERE wallet_id = p_wallet_id;
+    INSERT INTO wallet_balance_shards (wallet_id, shard_no, balance)
+    SELECT p_wallet_id, n, CASE WHEN n = 0 THEN v_total ELSE 0 END
+    FROM generate_series(0, p_shard_count - 1) AS n;
+  END IF;
+
+  RETURN v_total;
+END;
+$$;
@@ -0,0 +1,90 @@
+-- Executes a whole transfer in one round trip: ordered row locks, debit/credit, both ledger postings,
+-- the transfer row and the idempotency completion. Business failures are reported through the
+-- outcome column without side effects so the caller can roll back and map them to its own errors.
+-- Outcomes: completed, from_wallet_not_found, to_wallet_not_found, insufficient_funds, sharded.
+-- With p_outbox set (wallet.outbox.enabled) the postings are also copied into ledger_outbox (019) by the same statement.
+
+-- This file runs again on every change, so it never drops a signature a node may still call during a rolling deploy.
+-- Overloads left behind by a signature change are dropped by a one-shot changeset once no release calls them (027).
+
+CREATE OR REPLACE FUNCTION execute_transfer(
+  p_transfer_id      uuid,
+  p_from_wallet_id   uuid,
+  p_to_wallet_id     uuid,
+  p_amount           numeric,
+  p_idempotency_key  uuid,
+  p_request_hash     bytea,
+  p_response_body    bytea,
+  p_outbox           boolean
+)
+RETURNS TABLE (outcome text, from_balance numeric, to_balance numeric)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  v_from_found   boolean;
+  v_to_found     boolean;
+  v_sharded      boolean;
+  v_from_balance numeric;
+  v_to_balance   numeric;
+  v_rows         int;
+BEGIN
+  -- same deadlock-avoidance rule as the standard engine: lock wallets in wallet_id order
+  SELECT COALESCE(bool_or(locked.wallet_id = p_from_wallet_id), false),
+         COALESCE(bool_or(locked.wallet_id = p_to_wallet_id), false),
+         COALESCE(bool_or(locked.shard_count > 0), false)
+  INTO v_from_found, v_to_found, v_sharded
+  FROM (
+    SELECT wallet_id, shard_count FROM wallets
+    WHERE wallet_id IN (p_from_wallet_id, p_to_wallet_id)
+    ORDER BY wallet_id
+    FOR NO KEY UPDATE
+  ) locked;
+
+  IF NOT v_from_found THEN
+    RETURN QUERY SELECT 'from_wallet_not_found'::text, NULL::numeric, NULL::numeric;
+    RETURN;
+  END IF;
+  IF NOT v_to_found THEN
+    RETURN QUERY SELECT 'to_wallet_not_found'::text, NULL::numeric, NULL::numeric;
+    RETURN;
+  END IF;
+  IF v_sharded THEN
+    RETURN QUERY SELECT 'sharded'::text, NULL::numeric, NULL::numeric;
+    RETURN;
+  END IF;
+
+  UPDATE wallets SET current_balance = current_balance - p_amount, updated_at = now()
+  WHERE wallet_id = p_from_wallet_id AND current_balance >= p_amount
+  RETURNING current_balance INTO v_from_balance;
+  IF NOT FOUND THEN
+    RETURN QUERY SELECT 'insufficient_funds'::text, NULL::numeric, NULL::numeric;
+    RETURN;
+  END IF;
+
+  UPDATE wallets SET current_balance = current_balance + p_amount, updated_at = now()
+  WHERE wallet_id = p_to_wallet_id
+  RETURNING current_balance INTO v_to_balance;
+
+  WITH posted AS (
+    INSERT INTO ledger_entries (tx_id, wallet_id, amount, posting_type, current_balance)
+    VALUES (p_transfer_id, p_from_wallet_id, -p_amount, 'transfer_debit', v_from_balance),
+           (p_transfer_id, p_to_wallet_id, p_amount, 'transfer_credit', v_to_balance)
+    RETURNING ledger_id, tx_id, wallet_id, amount, posting_type, current_balance, created_at
+  )
+  INSERT INTO ledger_outbox (ledger_id, tx_id, wallet_id, amount, posting_type, current_balance, created_at)
+  SELECT ledger_id, tx_id, wallet_id, amount, posting_type, current_balance, created_at FROM posted WHERE p_outbox;
+
+  INSERT INTO transfers (transfer_id, from_wallet_id, to_wallet_id, amount, created_at)
+  VALUES (p_transfer_id, p_from_wallet_id, p_to_wallet_id, p_amount, now());
+
+  UPDATE idempotency_keys
+  SET status = 'succeeded', response_status = 200, response_body = p_response_body, last_seen_at = now()
+  WHERE idempotency_key = p_idempotency_key AND status = 'in_progress' AND request_hash = p_request_hash;
+  GET DIAGNOSTICS v_rows = ROW_COUNT;
+  IF v_rows <> 1 THEN
+    RAISE EXCEPTION 'Idempotency key % not in in_progress state or hash mismatch', p_idempotency_key;
+  END IF;
+
+  RETURN QUERY SELECT 'completed'::text, v_from_balance, v_to_balance;
+END;
+$$;
@@ -0,0 +1,120 @@
+-- idempotency_keys is range-partitioned by first_seen_at (one partition per UTC day), so the primary key is
+-- (idempotency_key, first_seen_at) and no longer guarantees one row per key on its own. Claims serialize on a
+-- transaction-scoped advisory lock per key and look the key up across all partitions instead.
+
+-- This file runs again on every change, so it never drops a signature a node may still call during a rolling deploy.
+-- Overloads left behind by a signature change are dropped by a one-shot changeset once no release calls them (027).
+
+CREATE OR REPLACE FUNCTION claim_idempotency_key(
+  p_key           uuid,
+  p_method        text,
+  p_path          text,
+  p_request_hash  bytea,
+  p_ref_id        uuid,
+  p_stale_seconds int
+)
+RETURNS TABLE (
+  idempotency_key uuid, method text, path text, request_hash bytea, status idempotency_status,
+  response_status int, response_body bytea, first_seen_at timestamptz, last_seen_at timestamptz, ref_id uuid,
+  claim_outcome text
+)
+LANGUAGE plpgsql
+AS $$
+#variable_conflict use_column
+DECLARE
+  v_row     idempotency_keys%ROWTYPE;
+  v_outcome text;
+BEGIN
+  PERFORM pg_advisory_xact_lock(hashtextextended(p_key::text, 0));
+
+  SELECT * INTO v_row FROM idempotency_keys k WHERE k.idempotency_key = p_key LIMIT 1;
+
+  IF NOT FOUND THEN
+    INSERT INTO idempotency_keys AS k (idempotency_key, method, path, request_hash, status, response_status, response_body, first_seen_at, last_seen_at, ref_id)
+    VALUES (p_key, p_method, p_path, p_request_hash, 'in_progress', NULL, NULL, now(), now(), p_ref_id)
+    RETURNING k.* INTO v_row;
+    v_outcome := 'NEW';
+  ELSIF v_row.request_hash <> p_request_hash THEN
+    v_outcome := 'HASH_MISMATCH';
+  ELSIF v_row.status <> 'in_progress' THEN
+    v_outcome := 'REPLAY';
+  ELSIF v_row.last_seen_at < now() - make_interval(secs => p_stale_seconds) THEN
+    UPDATE idempotency_keys AS k SET last_seen_at = now()
+    WHERE k.idempotency_key = p_key AND k.first_seen_at = v_row.first_seen_at
+    RETURNING k.* INTO v_row;
+    v_outcome := 'STALE_TAKEOVER';
+  ELSE
+    v_outcome := 'IN_PROGRESS';
+  END IF;
+
+  RETURN QUERY SELECT v_row.idempotency_key, v_row.method, v_row.path, v_row.request_hash, v_row.status,
+                      v_row.response_status, v_row.response_body, v_row.first_seen_at, v_row.last_seen_at, v_row.ref_id,
+                      v_outcome;
+END;
+$$;
+
+-- Creates the daily partitions from today up to p_days_ahead days ahead. Returns how many were created. Days still
+-- covered by the legacy partition (see 011a) are skipped.
+-- Concurrent callers on other nodes skip instead of racing on the same CREATE TABLE.
+CREATE OR REPLACE FUNCTION create_idempotency_key_partitions(p_days_ahead int)
+RETURNS int
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  -- day arithmetic is done on UTC wall-clock timestamps so the session time zone cannot shift the bounds
+  v_today   timestamp := date_trunc('day', now() AT TIME ZONE 'UTC');
+  v_from    timestamp;
+  v_name    text;
+  v_created int := 0;
+BEGIN
+  IF NOT pg_try_advisory_xact_lock(hashtextextended('idempotency_keys partitions', 0)) THEN
+    RETURN 0;
+  END IF;
+
+  FOR i IN 0..p_days_ahead LOOP
+    v_from := v_today + make_interval(days => i);
+    v_name := 'idempotency_keys_p' || to_char(v_from, 'YYYYMMDD');
+    IF to_regclass(v_name) IS NULL THEN
+      BEGIN
+        EXECUTE format('CREATE TABLE %I PARTITION OF idempotency_keys FOR VALUES FROM (%L) TO (%L)',
+                       v_name, v_from AT TIME ZONE 'UTC', (v_from + interval '1 day') AT TIME ZONE 'UTC');
+        v_created := v_created + 1;
+      EXCEPTION WHEN invalid_object_definition THEN
+        -- would overlap idempotency_keys_legacy
+        NULL;
+      END;
+    END IF;
+  END LOOP;
+  RETURN v_created;
+END;
+$$;
+
+-- Drops every partition whose whole range is older than p_retention_days. Returns how many were dropped.
+CREATE OR REPLACE FUNCTION drop_idempotency_key_partitions(p_retention_days int)
+RETURNS int
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  v_cutoff  timestamptz := (date_trunc('day', now() AT TIME ZONE 'UTC') - make_interval(days => p_retention_days)) AT TIME ZONE 'UTC';
+  v_part    record;
+  v_dropped int := 0;
+BEGIN
+  IF NOT pg_try_advisory_xact_lock(hashtextextended('idempotency_keys partitions', 0)) THEN
+    RETURN 0;
+  END IF;
+
+  FOR v_part IN
+    SELECT c.relname,
+           substring(pg_get_expr(c.relpartbound, c.oid) FROM 'TO \(''([^'']+)''\)')::timestamptz AS upper_bound
+    FROM pg_inherits i
+    JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = 'idempotency_keys'::regclass
+  LOOP
+    IF v_part.upper_bound IS NOT NULL AND v_part.upper_bound <= v_cutoff THEN
+      EXECUTE format('DROP TABLE %I', v_part.relname);
+      v_dropped := v_dropped + 1;
+    END IF;
+  END LOOP;
+  RETURN v_dropped;
+END;
+$$;
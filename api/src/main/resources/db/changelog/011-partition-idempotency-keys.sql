@@ -0,0 +1,42 @@
+-- Moves idempotency_keys to daily range partitions on first_seen_at. Existing rows stay in place: the old table
+-- becomes the partition covering everything before the cutoff chosen by 011a and is dropped by retention like any
+-- other partition. The daily partitions start at the cutoff; create_idempotency_key_partitions skips the days before.
+-- Every statement here takes its lock without scanning rows: the range CHECK validated by 011b implies the partition
+-- bound, so ATTACH does not check the legacy rows again, and it adopts the indexes built by 011c and 005.
+DO $$
+DECLARE
+  v_cutoff timestamptz;
+BEGIN
+  IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'idempotency_keys'::regclass) THEN
+    RETURN;
+  END IF;
+
+  SELECT obj_description(oid, 'pg_constraint')::timestamptz INTO STRICT v_cutoff
+  FROM pg_constraint
+  WHERE conname = 'idempotency_keys_legacy_range' AND conrelid = 'idempotency_keys'::regclass AND convalidated;
+
+  ALTER TABLE idempotency_keys RENAME TO idempotency_keys_legacy;
+  ALTER TABLE idempotency_keys_legacy RENAME CONSTRAINT idempotency_keys_pkey TO idempotency_keys_legacy_pkey;
+  ALTER INDEX idx_idempotency_keys_ref_id RENAME TO idx_idempotency_keys_legacy_ref_id;
+
+  CREATE TABLE idempotency_keys (
+    idempotency_key  uuid NOT NULL,
+    method           text NOT NULL,
+    path             text NOT NULL,
+    request_hash     text NOT NULL,
+    status           idempotency_status NOT NULL,
+    response_status  int,
+    response_body    text,
+    ref_id           uuid,
+    first_seen_at    timestamptz NOT NULL DEFAULT now(),
+    last_seen_at     timestamptz NOT NULL DEFAULT now(),
+    PRIMARY KEY (idempotency_key, first_seen_at)
+  ) PARTITION BY RANGE (first_seen_at);
+  CREATE INDEX idx_idempotency_keys_ref_id ON idempotency_keys (ref_id);
+
+  EXECUTE format('ALTER TABLE idempotency_keys ATTACH PARTITION idempotency_keys_legacy FOR VALUES FROM (MINVALUE) TO (%L)', v_cutoff);
+  ALTER TABLE idempotency_keys_legacy DROP CONSTRAINT idempotency_keys_legacy_range;
+
+  PERFORM create_idempotency_key_partitions(3);
+END;
+$$;
@@ -0,0 +1,17 @@
+-- First of four steps that move idempotency_keys to daily partitions (011a, 011b, 011c, 011), each in its own transaction.
+-- Adds the CHECK that later lets ATTACH PARTITION skip scanning the existing rows. NOT VALID takes the table lock only
+-- for a catalog update; the rows are checked by 011b without blocking writes. The bound is two UTC days ahead, so
+-- keys claimed until the swap in 011 still satisfy it; the cutoff is kept as the constraint's comment for 011.
+DO $$
+DECLARE
+  v_cutoff timestamptz := (date_trunc('day', now() AT TIME ZONE 'UTC') + interval '2 days') AT TIME ZONE 'UTC';
+BEGIN
+  IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'idempotency_keys'::regclass)
+     OR EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'idempotency_keys_legacy_range') THEN
+    RETURN;
+  END IF;
+
+  EXECUTE format('ALTER TABLE idempotency_keys ADD CONSTRAINT idempotency_keys_legacy_range CHECK (first_seen_at < %L) NOT VALID', v_cutoff);
+  EXECUTE format('COMMENT ON CONSTRAINT idempotency_keys_legacy_range ON idempotency_keys IS %L', v_cutoff);
+END;
+$$;
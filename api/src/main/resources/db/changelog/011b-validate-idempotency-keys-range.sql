@@ -0,0 +1,9 @@
+-- Checks the existing rows against the constraint added by 011a. VALIDATE CONSTRAINT takes SHARE UPDATE EXCLUSIVE,
+-- so claims and completions keep running during the scan.
+DO $$
+BEGIN
+  IF EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'idempotency_keys_legacy_range' AND NOT convalidated) THEN
+    ALTER TABLE idempotency_keys VALIDATE CONSTRAINT idempotency_keys_legacy_range;
+  END IF;
+END;
+$$;
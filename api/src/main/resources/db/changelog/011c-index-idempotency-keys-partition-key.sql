@@ -0,0 +1,3 @@
+-- Builds the unique index the partitioned primary key (idempotency_key, first_seen_at) needs on the legacy rows, so
+-- ATTACH PARTITION in 011 adopts it instead of building it under an exclusive lock. Runs outside a transaction.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS idempotency_keys_legacy_pk_first_seen_at ON idempotency_keys (idempotency_key, first_seen_at);
@@ -0,0 +1,36 @@
+-- Creates the monthly ledger_entries partitions from the current UTC month up to p_months_ahead months ahead.
+-- Returns how many were created. Concurrent callers on other nodes skip instead of racing on the same CREATE TABLE.
+-- Ledger partitions are never dropped: the ledger is the system of record. Months still covered by the legacy
+-- partition (see 013a) are skipped.
+CREATE OR REPLACE FUNCTION create_ledger_entry_partitions(p_months_ahead int)
+RETURNS int
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  -- month arithmetic is done on UTC wall-clock timestamps so the session time zone cannot shift the bounds
+  v_month   timestamp := date_trunc('month', now() AT TIME ZONE 'UTC');
+  v_from    timestamp;
+  v_name    text;
+  v_created int := 0;
+BEGIN
+  IF NOT pg_try_advisory_xact_lock(hashtextextended('ledger_entries partitions', 0)) THEN
+    RETURN 0;
+  END IF;
+
+  FOR i IN 0..p_months_ahead LOOP
+    v_from := v_month + make_interval(months => i);
+    v_name := 'ledger_entries_p' || to_char(v_from, 'YYYYMM');
+    IF to_regclass(v_name) IS NULL THEN
+      BEGIN
+        EXECUTE format('CREATE TABLE %I PARTITION OF ledger_entries FOR VALUES FROM (%L) TO (%L)',
+                       v_name, v_from AT TIME ZONE 'UTC', (v_from + interval '1 month') AT TIME ZONE 'UTC');
+        v_created := v_created + 1;
+      EXCEPTION WHEN invalid_object_definition THEN
+        -- would overlap ledger_entries_legacy
+        NULL;
+      END;
+    END IF;
+  END LOOP;
+  RETURN v_created;
+END;
+$$;
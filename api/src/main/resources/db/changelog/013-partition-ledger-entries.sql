@@ -0,0 +1,61 @@
+-- Moves ledger_entries to monthly range partitions on created_at. Existing rows stay in place: the old table
+-- becomes the partition covering everything before the cutoff chosen by 013a, so the migration copies no data. The
+-- monthly partitions start at the cutoff; create_ledger_entry_partitions skips the months before.
+-- Every statement here takes its lock without scanning rows: the range CHECK validated by 013b implies the partition
+-- bound, so ATTACH does not check the legacy rows again, and it adopts the indexes built by 013c, 013d and 004.
+-- Unique constraints on a partitioned table must contain the partition key, so (tx_id, wallet_id) becomes
+-- (tx_id, wallet_id, created_at); writers give every attempt of a transaction the same created_at (025).
+DO $$
+DECLARE
+  v_cutoff timestamptz;
+BEGIN
+  IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'ledger_entries'::regclass) THEN
+    RETURN;
+  END IF;
+
+  SELECT obj_description(oid, 'pg_constraint')::timestamptz INTO STRICT v_cutoff
+  FROM pg_constraint
+  WHERE conname = 'ledger_entries_legacy_range' AND conrelid = 'ledger_entries'::regclass AND convalidated;
+
+  -- the parent's trigger is cloned onto every partition, including this one once attached
+  DROP TRIGGER IF EXISTS ledger_entries_append_only ON ledger_entries;
+
+  ALTER TABLE ledger_entries RENAME TO ledger_entries_legacy;
+  ALTER TABLE ledger_entries_legacy RENAME CONSTRAINT ledger_entries_pkey TO ledger_entries_legacy_pkey;
+  ALTER TABLE ledger_entries_legacy RENAME CONSTRAINT uq_ledger_tx_per_wallet TO uq_ledger_legacy_tx_per_wallet;
+  ALTER INDEX idx_ledger_wallet_created_at RENAME TO idx_ledger_legacy_wallet_created_at;
+  ALTER INDEX idx_ledger_tx_id RENAME TO idx_ledger_legacy_tx_id;
+
+  CREATE TABLE ledger_entries (
+    ledger_id        uuid NOT NULL DEFAULT gen_random_uuid(),
+    tx_id            uuid NOT NULL,
+    wallet_id        uuid NOT NULL REFERENCES wallets(wallet_id) ON DELETE RESTRICT,
+    amount           numeric(19,4) NOT NULL,
+    current_balance  numeric(19,4) NOT NULL,
+    posting_type     posting_type  NOT NULL,
+    created_at       timestamptz NOT NULL DEFAULT now(),
+
+    PRIMARY KEY (ledger_id, created_at),
+    CONSTRAINT uq_ledger_tx_per_wallet UNIQUE (tx_id, wallet_id, created_at),
+    CONSTRAINT chk_ledger_amount_nonzero CHECK (amount <> 0),
+    CONSTRAINT chk_ledger_amount_sign CHECK (
+      (posting_type IN ('deposit','transfer_credit') AND amount > 0)
+      OR
+      (posting_type IN ('withdraw','transfer_debit') AND amount < 0)
+    )
+  ) PARTITION BY RANGE (created_at);
+
+  CREATE INDEX idx_ledger_wallet_created_at ON ledger_entries (wallet_id, created_at);
+  CREATE INDEX idx_ledger_tx_id             ON ledger_entries (tx_id);
+
+  EXECUTE format('ALTER TABLE ledger_entries ATTACH PARTITION ledger_entries_legacy FOR VALUES FROM (MINVALUE) TO (%L)', v_cutoff);
+  ALTER TABLE ledger_entries_legacy DROP CONSTRAINT ledger_entries_legacy_range;
+
+  PERFORM create_ledger_entry_partitions(3);
+
+  CREATE TRIGGER ledger_entries_append_only
+  BEFORE UPDATE OR DELETE ON ledger_entries
+  FOR EACH ROW
+  EXECUTE FUNCTION ledger_entries_append_only_guard();
+END;
+$$;
@@ -0,0 +1,18 @@
+-- First of five steps that move ledger_entries to monthly partitions (013a, 013b, 013c, 013d, 013), each in its own
+-- transaction. Adds the CHECK that later lets ATTACH PARTITION skip scanning the existing rows. NOT VALID takes the
+-- table lock only for a catalog update; the rows are checked by 013b without blocking postings. The bound is the start
+-- of the first month that begins at least two days from now, so postings written until the swap in 013 still satisfy
+-- it; the cutoff is kept as the constraint's comment for 013.
+DO $$
+DECLARE
+  v_cutoff timestamptz := (date_trunc('month', (now() + interval '2 days') AT TIME ZONE 'UTC') + interval '1 month') AT TIME ZONE 'UTC';
+BEGIN
+  IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'ledger_entries'::regclass)
+     OR EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'ledger_entries_legacy_range') THEN
+    RETURN;
+  END IF;
+
+  EXECUTE format('ALTER TABLE ledger_entries ADD CONSTRAINT ledger_entries_legacy_range CHECK (created_at < %L) NOT VALID', v_cutoff);
+  EXECUTE format('COMMENT ON CONSTRAINT ledger_entries_legacy_range ON ledger_entries IS %L', v_cutoff);
+END;
+$$;
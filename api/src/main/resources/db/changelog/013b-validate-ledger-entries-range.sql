@@ -0,0 +1,9 @@
+-- Checks the existing rows against the constraint added by 013a. VALIDATE CONSTRAINT takes SHARE UPDATE EXCLUSIVE,
+-- so postings keep being written during the scan.
+DO $$
+BEGIN
+  IF EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'ledger_entries_legacy_range' AND NOT convalidated) THEN
+    ALTER TABLE ledger_entries VALIDATE CONSTRAINT ledger_entries_legacy_range;
+  END IF;
+END;
+$$;
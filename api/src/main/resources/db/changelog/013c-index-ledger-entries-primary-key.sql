@@ -0,0 +1,3 @@
+-- Builds the unique index the partitioned primary key (ledger_id, created_at) needs on the legacy rows, so ATTACH
+-- PARTITION in 013 adopts it instead of building it under an exclusive lock. Runs outside a transaction.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS ledger_entries_legacy_pk_created_at ON ledger_entries (ledger_id, created_at);
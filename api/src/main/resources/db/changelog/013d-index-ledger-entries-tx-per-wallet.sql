@@ -0,0 +1,3 @@
+-- Builds the unique index behind the partitioned uq_ledger_tx_per_wallet (tx_id, wallet_id, created_at) on the legacy
+-- rows, so ATTACH PARTITION in 013 adopts it. Runs outside a transaction.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_ledger_legacy_tx_per_wallet_created_at ON ledger_entries (tx_id, wallet_id, created_at);
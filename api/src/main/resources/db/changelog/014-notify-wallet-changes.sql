@@ -0,0 +1,40 @@
+-- Publishes every committed balance change on the wallet_changes channel so each app node can update or
+-- evict its wallet snapshot cache. NOTIFY is transactional: listeners see it only after commit, in commit order.
+-- Payload: wallet_id,sent_at_millis[,balance,updated_at_micros]; without a balance the receiver evicts.
+-- A commit that has notified takes the cluster-wide notification queue lock, so commits that notify are serialized.
+-- The triggers therefore only fire on sessions that set wallet.notify_wallet_changes = true (the app pool does when
+-- the wallet cache is enabled), like wallet.notify_postings in 020.
+CREATE OR REPLACE FUNCTION notify_wallet_change()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  v_sent_at bigint := (extract(epoch FROM clock_timestamp()) * 1000)::bigint;
+BEGIN
+  IF TG_TABLE_NAME = 'wallets' AND NEW.shard_count = 0 THEN
+    PERFORM pg_notify('wallet_changes', NEW.wallet_id::text || ',' || v_sent_at || ',' || NEW.current_balance::text
+      || ',' || (extract(epoch FROM NEW.updated_at) * 1000000)::bigint);
+  ELSIF TG_OP = 'DELETE' THEN
+    PERFORM pg_notify('wallet_changes', OLD.wallet_id::text || ',' || v_sent_at);
+  ELSE
+    -- sharded totals live in wallet_balance_shards and aren't known to a row trigger
+    PERFORM pg_notify('wallet_changes', NEW.wallet_id::text || ',' || v_sent_at);
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_wallets_notify_change ON wallets;
+CREATE TRIGGER trg_wallets_notify_change
+  AFTER UPDATE OF current_balance, shard_count ON wallets
+  FOR EACH ROW
+  WHEN ((OLD.current_balance IS DISTINCT FROM NEW.current_balance OR OLD.shard_count IS DISTINCT FROM NEW.shard_count)
+    AND current_setting('wallet.notify_wallet_changes', true) = 'true')
+  EXECUTE FUNCTION notify_wallet_change();
+
+DROP TRIGGER IF EXISTS trg_wallet_balance_shards_notify_change ON wallet_balance_shards;
+CREATE TRIGGER trg_wallet_balance_shards_notify_change
+  AFTER INSERT OR UPDATE OR DELETE ON wallet_balance_shards
+  FOR EACH ROW
+  WHEN (current_setting('wallet.notify_wallet_changes', true) = 'true')
+  EXECUTE FUNCTION notify_wallet_change();
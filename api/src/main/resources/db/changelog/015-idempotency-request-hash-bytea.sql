@@ -0,0 +1,11 @@
+-- The request hash is a raw 32-byte SHA-256 (see RequestHasher) instead of its 64-char hex text: half the
+-- width in every partition and index page, and no hex encoding on the request path.
+-- Swaps in the column filled by 015a and 015b. Every statement is a catalog update: SET NOT NULL is proven by the
+-- check validated in 015c, and dropping a column does not touch the rows. Existing hashes were converted, so retries
+-- of keys claimed before the deploy still match.
+ALTER TABLE idempotency_keys ALTER COLUMN request_hash_bytes SET NOT NULL;
+ALTER TABLE idempotency_keys DROP CONSTRAINT idempotency_keys_request_hash_bytes_not_null;
+DROP TRIGGER idempotency_keys_fill_request_hash_bytes ON idempotency_keys;
+DROP FUNCTION idempotency_keys_fill_request_hash_bytes();
+ALTER TABLE idempotency_keys DROP COLUMN request_hash;
+ALTER TABLE idempotency_keys RENAME COLUMN request_hash_bytes TO request_hash;
@@ -0,0 +1,23 @@
+-- First of four steps that turn idempotency_keys.request_hash into a raw 32-byte SHA-256 (015a, 015b, 015c, 015),
+-- each in its own transaction. ALTER COLUMN ... TYPE would rewrite every partition under ACCESS EXCLUSIVE, so the
+-- bytes go into a new column instead: added here without a default (a catalog update only), kept in step with
+-- request_hash by a trigger for rows written until the swap, and backfilled by 015b. The NOT VALID check is enforced
+-- for new and updated rows only; 015c validates it so the swap can set NOT NULL without scanning.
+ALTER TABLE idempotency_keys ADD COLUMN request_hash_bytes bytea;
+
+CREATE OR REPLACE FUNCTION idempotency_keys_fill_request_hash_bytes()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  NEW.request_hash_bytes := decode(NEW.request_hash, 'hex');
+  RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER idempotency_keys_fill_request_hash_bytes
+  BEFORE INSERT OR UPDATE ON idempotency_keys
+  FOR EACH ROW
+  EXECUTE FUNCTION idempotency_keys_fill_request_hash_bytes();
+
+ALTER TABLE idempotency_keys ADD CONSTRAINT idempotency_keys_request_hash_bytes_not_null CHECK (request_hash_bytes IS NOT NULL) NOT VALID;
@@ -0,0 +1,2 @@
+-- Proves every row has its bytes. VALIDATE CONSTRAINT takes SHARE UPDATE EXCLUSIVE, so claims keep running.
+ALTER TABLE idempotency_keys VALIDATE CONSTRAINT idempotency_keys_request_hash_bytes_not_null;
@@ -0,0 +1,8 @@
+-- Response bodies are stored as the exact bytes sent to the client: UTF-8 JSON, or gzip when
+-- wallet.idempotency.response-compression-min-bytes is set.
+-- Swaps in the column filled by 016a and 016b. Every statement is a catalog update: dropping a column does not touch
+-- the rows. Existing text bodies were converted to their UTF-8 bytes, so they still replay.
+DROP TRIGGER idempotency_keys_fill_response_body_bytes ON idempotency_keys;
+DROP FUNCTION idempotency_keys_fill_response_body_bytes();
+ALTER TABLE idempotency_keys DROP COLUMN response_body;
+ALTER TABLE idempotency_keys RENAME COLUMN response_body_bytes TO response_body;
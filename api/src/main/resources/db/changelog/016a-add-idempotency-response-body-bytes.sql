@@ -0,0 +1,20 @@
+-- First of three steps that store idempotency_keys.response_body as bytes (016a, 016b, 016), each in its own
+-- transaction. ALTER COLUMN ... TYPE would rewrite every partition under ACCESS EXCLUSIVE, so the bytes go into a new
+-- column instead: added here without a default (a catalog update only), kept in step with response_body by a
+-- trigger for rows written until the swap, and backfilled by 016b. Bodies may be NULL, so no check is needed.
+ALTER TABLE idempotency_keys ADD COLUMN response_body_bytes bytea;
+
+CREATE OR REPLACE FUNCTION idempotency_keys_fill_response_body_bytes()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  NEW.response_body_bytes := convert_to(NEW.response_body, 'UTF8');
+  RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER idempotency_keys_fill_response_body_bytes
+  BEFORE INSERT OR UPDATE ON idempotency_keys
+  FOR EACH ROW
+  EXECUTE FUNCTION idempotency_keys_fill_response_body_bytes();
@@ -0,0 +1,28 @@
+-- Converts the existing text bodies in primary-key order, committing every batch so no transaction holds row locks
+-- for long. Runs outside a Liquibase transaction, which is what lets the block COMMIT.
+DO $$
+DECLARE
+  v_key  uuid := '00000000-0000-0000-0000-000000000000';
+  v_seen timestamptz := '-infinity';
+  v_last record;
+BEGIN
+  LOOP
+    WITH batch AS (
+      SELECT idempotency_key, first_seen_at FROM idempotency_keys
+      WHERE (idempotency_key, first_seen_at) > (v_key, v_seen)
+      ORDER BY idempotency_key, first_seen_at
+      LIMIT 5000
+    ), converted AS (
+      UPDATE idempotency_keys k SET response_body_bytes = convert_to(k.response_body, 'UTF8')
+      FROM batch b
+      WHERE k.idempotency_key = b.idempotency_key AND k.first_seen_at = b.first_seen_at
+        AND k.response_body IS NOT NULL AND k.response_body_bytes IS NULL
+    )
+    SELECT idempotency_key, first_seen_at INTO v_last FROM batch ORDER BY idempotency_key DESC, first_seen_at DESC LIMIT 1;
+    EXIT WHEN NOT FOUND;
+    v_key := v_last.idempotency_key;
+    v_seen := v_last.first_seen_at;
+    COMMIT;
+  END LOOP;
+END;
+$$;
@@ -0,0 +1,19 @@
+-- A disbursement pays many wallets from one source: one debit of the total and one credit per destination,
+-- all posted under the disbursement id. Every payout is also a child row in transfers.
+CREATE TABLE IF NOT EXISTS disbursements (
+  disbursement_id  uuid PRIMARY KEY,
+  from_wallet_id   uuid NOT NULL,
+  total_amount     numeric(19,4) NOT NULL,
+  payout_count     int NOT NULL,
+  created_at       timestamptz NOT NULL DEFAULT now(),
+  CONSTRAINT fk_disbursements_from FOREIGN KEY (from_wallet_id) REFERENCES wallets(wallet_id) ON DELETE RESTRICT,
+  CONSTRAINT chk_disbursement_total_positive CHECK (total_amount > 0),
+  CONSTRAINT chk_disbursement_payout_count_positive CHECK (payout_count > 0)
+);
+
+CREATE INDEX IF NOT EXISTS idx_disbursements_from_wallet ON disbursements (from_wallet_id);
+
+ALTER TABLE transfers ADD COLUMN IF NOT EXISTS disbursement_id uuid
+  CONSTRAINT fk_transfers_disbursement REFERENCES disbursements(disbursement_id) ON DELETE RESTRICT;
+
+CREATE INDEX IF NOT EXISTS idx_transfers_disbursement ON transfers (disbursement_id) WHERE disbursement_id IS NOT NULL;
@@ -0,0 +1,19 @@
+-- Accepted-mode transfers: the idempotency key moves to 'accepted' with the 202 response stored as its body, and the
+-- transfer waits in transfer_queue until a worker applies it and completes the key with the final outcome.
+-- Adding an enum value inside a transaction is fine on Postgres 12+ as long as it isn't used in the same transaction.
+ALTER TYPE idempotency_status ADD VALUE IF NOT EXISTS 'accepted';
+
+CREATE TABLE IF NOT EXISTS transfer_queue (
+  queue_id         bigint GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+  -- the idempotency row to complete: (idempotency_key, first_seen_at) is its primary key, request_hash guards the update
+  idempotency_key  uuid NOT NULL,
+  first_seen_at    timestamptz NOT NULL,
+  request_hash     bytea NOT NULL,
+  transfer_id      uuid NOT NULL,
+  from_wallet_id   uuid NOT NULL,
+  to_wallet_id     uuid NOT NULL,
+  amount           numeric(19,4) NOT NULL,
+  enqueued_at      timestamptz NOT NULL DEFAULT now(),
+  CONSTRAINT uq_transfer_queue_transfer UNIQUE (transfer_id),
+  CONSTRAINT chk_transfer_queue_amount_positive CHECK (amount > 0)
+);
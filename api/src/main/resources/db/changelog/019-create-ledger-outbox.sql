@@ -0,0 +1,16 @@
+-- Ledger event outbox. Every posting is copied into ledger_outbox by the same statement that writes it to
+-- ledger_entries, so an event exists exactly when its posting committed. The relay publishes rows in outbox_id
+-- order and deletes them once every sink accepted them. Postings to an unsharded wallet hold its row lock, so their
+-- outbox ids are assigned in commit order and the per-wallet order survives. Postings to different shards of a
+-- sharded wallet (008) commit in parallel, so their events are only ordered per shard; across wallets only
+-- outbox_id order is given. execute_transfer (009) writes its postings here when called with p_outbox.
+CREATE TABLE IF NOT EXISTS ledger_outbox (
+  outbox_id        bigint GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+  ledger_id        uuid NOT NULL,
+  tx_id            uuid NOT NULL,
+  wallet_id        uuid NOT NULL,
+  amount           numeric(19,4) NOT NULL,
+  posting_type     posting_type NOT NULL,
+  current_balance  numeric(19,4) NOT NULL,
+  created_at       timestamptz NOT NULL
+);
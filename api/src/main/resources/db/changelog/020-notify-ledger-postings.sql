@@ -0,0 +1,23 @@
+-- Publishes every committed ledger posting on the ledger_postings channel for balance subscriptions. The trigger only
+-- fires on sessions that set wallet.notify_postings = true (the app pool does when the balance stream is enabled), so
+-- without subscribers writes don't pay for the commit-time notification queue.
+-- Payload: wallet_id,tx_id,posting_type,amount,current_balance,created_at_micros,sent_at_millis
+CREATE OR REPLACE FUNCTION notify_ledger_posting()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  PERFORM pg_notify('ledger_postings', NEW.wallet_id::text || ',' || NEW.tx_id::text || ',' || NEW.posting_type::text
+    || ',' || NEW.amount::text || ',' || NEW.current_balance::text
+    || ',' || (extract(epoch FROM NEW.created_at) * 1000000)::bigint
+    || ',' || (extract(epoch FROM clock_timestamp()) * 1000)::bigint);
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_ledger_entries_notify_posting ON ledger_entries;
+CREATE TRIGGER trg_ledger_entries_notify_posting
+  AFTER INSERT ON ledger_entries
+  FOR EACH ROW
+  WHEN (current_setting('wallet.notify_postings', true) = 'true')
+  EXECUTE FUNCTION notify_ledger_posting();
@@ -0,0 +1,9 @@
+-- Rebuilds idx_ledger_wallet_created_at with current_balance as an included column. ledger_entries.current_balance is
+-- the running balance after every posting, so the as-of lookup (latest entry at or before a timestamp) becomes one
+-- index-only seek per partition probed, with no heap visit even on cold pages. The key columns are unchanged, so the
+-- ledger page and export queries keep using it.
+-- CREATE INDEX on a partitioned table cannot run CONCURRENTLY; on a large ledger pre-build the partition indexes
+-- with CREATE INDEX CONCURRENTLY and this statement attaches the matching ones instead of rebuilding them.
+CREATE INDEX IF NOT EXISTS idx_ledger_wallet_created_at_balance ON ledger_entries (wallet_id, created_at) INCLUDE (current_balance);
+DROP INDEX IF EXISTS idx_ledger_wallet_created_at;
+ALTER INDEX idx_ledger_wallet_created_at_balance RENAME TO idx_ledger_wallet_created_at;
@@ -0,0 +1,29 @@
+-- Single-commit writes claim the key inside the request's own transaction instead of committing the claim first. The
+-- advisory lock taken by claim_idempotency_key is then held until the money has moved and the key is completed, so a
+-- duplicate waits on it and afterwards finds the committed outcome (REPLAY), or no row at all if the first request
+-- rolled back (NEW). The wait is bounded by p_lock_timeout_millis, after which the duplicate fails with lock_not_available.
+-- lock_timeout is put back before returning, so row locks taken later in the transaction keep the session setting.
+CREATE OR REPLACE FUNCTION claim_idempotency_key_in_transaction(
+  p_key                 uuid,
+  p_method              text,
+  p_path                text,
+  p_request_hash        bytea,
+  p_ref_id              uuid,
+  p_stale_seconds       int,
+  p_lock_timeout_millis int
+)
+RETURNS TABLE (
+  idempotency_key uuid, method text, path text, request_hash bytea, status idempotency_status,
+  response_status int, response_body bytea, first_seen_at timestamptz, last_seen_at timestamptz, ref_id uuid,
+  claim_outcome text
+)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  v_lock_timeout text := current_setting('lock_timeout');
+BEGIN
+  PERFORM set_config('lock_timeout', p_lock_timeout_millis || 'ms', true);
+  RETURN QUERY SELECT * FROM claim_idempotency_key(p_key, p_method, p_path, p_request_hash, p_ref_id, p_stale_seconds);
+  PERFORM set_config('lock_timeout', v_lock_timeout, true);
+END;
+$$;
@@ -0,0 +1,18 @@
+-- Publishes every new wallet on the wallet_created channel so each app node can add it to its wallet existence
+-- filter. Wallets are created far less often than they are posted to, so the trigger is always armed.
+-- Payload: wallet_id
+CREATE OR REPLACE FUNCTION notify_wallet_created()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  PERFORM pg_notify('wallet_created', NEW.wallet_id::text);
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_wallets_notify_created ON wallets;
+CREATE TRIGGER trg_wallets_notify_created
+  AFTER INSERT ON wallets
+  FOR EACH ROW
+  EXECUTE FUNCTION notify_wallet_created();
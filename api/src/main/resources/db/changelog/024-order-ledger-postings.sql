@@ -0,0 +1,21 @@
+-- Gives every posting its place in posting order. created_at used to default to now(), the start of the
+-- transaction, so all rows of a multi-row insert (coalesced postings, batch and queued transfers) shared one
+-- timestamp, and a transaction that waited for the wallet lock could be stamped before a posting that committed
+-- ahead of it. It now defaults to clock_timestamp(), taken when the row is written, which for one wallet is after
+-- the balance update and therefore in lock order. Rows written within the same microsecond are told apart by
+-- posting_seq, drawn from a sequence in the order the rows are inserted; readers order by (created_at, posting_seq)
+-- and the as-of lookup uses it as the tiebreaker. The sequence must keep CACHE 1: with per-session caches a later
+-- posting could draw a smaller number.
+-- The column is added with a constant default, which Postgres stores in the catalog instead of rewriting the table;
+-- existing rows read as 0 and keep ordering by ledger_id among themselves. The sequence default only applies to new
+-- rows. The index rebuild has the same caveat as 021: pre-build the partition indexes CONCURRENTLY on a large ledger.
+CREATE SEQUENCE IF NOT EXISTS ledger_posting_seq AS bigint CACHE 1;
+
+ALTER TABLE ledger_entries ADD COLUMN IF NOT EXISTS posting_seq bigint NOT NULL DEFAULT 0;
+ALTER TABLE ledger_entries ALTER COLUMN posting_seq SET DEFAULT nextval('ledger_posting_seq');
+ALTER SEQUENCE ledger_posting_seq OWNED BY ledger_entries.posting_seq;
+ALTER TABLE ledger_entries ALTER COLUMN created_at SET DEFAULT clock_timestamp();
+
+CREATE INDEX IF NOT EXISTS idx_ledger_wallet_created_at_seq ON ledger_entries (wallet_id, created_at, posting_seq) INCLUDE (current_balance);
+DROP INDEX IF EXISTS idx_ledger_wallet_created_at;
+ALTER INDEX idx_ledger_wallet_created_at_seq RENAME TO idx_ledger_wallet_created_at;
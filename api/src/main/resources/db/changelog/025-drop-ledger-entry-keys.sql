@@ -0,0 +1,9 @@
+-- One posting per transaction and wallet is kept by the partitioned uq_ledger_tx_per_wallet (tx_id, wallet_id,
+-- created_at) alone. Writers stamp created_at with a time every attempt of the transaction agrees on (the
+-- idempotency key's first_seen_at), so a retried posting lands in the same partition, collides on that key and is
+-- skipped by the inserts' ON CONFLICT DO NOTHING. That replaces the unpartitioned ledger_entry_keys table and the
+-- BEFORE INSERT trigger that claimed a key in it for every posting; both are dropped if an earlier build created
+-- them. Dropping the trigger takes a brief exclusive lock on ledger_entries and reads no rows.
+DROP TRIGGER IF EXISTS ledger_entries_claim_key ON ledger_entries;
+DROP FUNCTION IF EXISTS ledger_entries_claim_key();
+DROP TABLE IF EXISTS ledger_entry_keys;
@@ -0,0 +1,7 @@
+-- Overloads superseded while request_hash (015) and response_body (016) became bytea and execute_transfer gained
+-- p_outbox (019). They were never part of a release, so no running node calls them; later signature changes add
+-- their retired overloads here, in a new changeset of a release after the one that stopped calling them.
+DROP FUNCTION IF EXISTS claim_idempotency_key(uuid, text, text, text, uuid, int);
+DROP FUNCTION IF EXISTS execute_transfer(uuid, uuid, uuid, numeric, uuid, text, text);
+DROP FUNCTION IF EXISTS execute_transfer(uuid, uuid, uuid, numeric, uuid, bytea, text);
+DROP FUNCTION IF EXISTS execute_transfer(uuid, uuid, uuid, numeric, uuid, bytea, bytea);
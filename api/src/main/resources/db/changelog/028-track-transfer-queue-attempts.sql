@@ -0,0 +1,9 @@
+-- A batch that fails rolls back and puts its transfers back on the queue. Each failure counts an attempt, and
+-- transfers that failed before are retried one at a time, so one transfer that can never be applied no longer holds
+-- up the rest. A retry waits until next_attempt_at, which backs off exponentially from
+-- wallet.transfer.async.retry-backoff-millis. Once a transfer reaches wallet.transfer.async.max-attempts it is
+-- dead-lettered: its idempotency key is completed as failed, and the row stays here for an operator and is never
+-- claimed again.
+ALTER TABLE transfer_queue ADD COLUMN IF NOT EXISTS attempts int NOT NULL DEFAULT 0;
+ALTER TABLE transfer_queue ADD COLUMN IF NOT EXISTS next_attempt_at timestamptz;
+ALTER TABLE transfer_queue ADD COLUMN IF NOT EXISTS dead_lettered_at timestamptz;
@@ -0,0 +1,3 @@
+-- Lets workers find the transfer whose retry has been due the longest without scanning the queue. Runs outside a
+-- transaction.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transfer_queue_retry ON transfer_queue (next_attempt_at) WHERE attempts > 0 AND dead_lettered_at IS NULL;
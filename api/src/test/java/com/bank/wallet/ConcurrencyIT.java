@@ -1,5 +1,7 @@
 package com.bank.wallet;
 
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.repository.LedgerEntryRepository;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
@@ -9,17 +11,21 @@ import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.math.BigDecimal;
 import java.net.URI;
+import java.time.OffsetDateTime;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -41,6 +47,15 @@ class ConcurrencyIT {
 	@Autowired
 	TestRestTemplate http;
 
+	@Autowired
+	WalletProperties walletProperties;
+
+	@Autowired
+	JdbcTemplate jdbc;
+
+	@Autowired
+	LedgerEntryRepository ledgerEntryRepository;
+
 	record WalletResp(String wallet_id, String walletId, String currentBalance, String current_balance) {
 	}
 
@@ -93,6 +108,91 @@ class ConcurrencyIT {
 		assertThat(Math.abs(balanceB - bExpectedBalance.get().doubleValue())).isLessThan(0.0001);
 	}
 
+	@Test
+	@Timeout(90)
+	void crossTransfers_singleStatementEngine_balancesConserved() {
+		walletProperties.getTransfer().setEngine(WalletProperties.TransferEngine.SINGLE_STATEMENT);
+		try {
+			var a = createWalletRequest();
+			var b = createWalletRequest();
+			depositRequest(a, "1000.00");
+			depositRequest(b, "1000.00");
+
+			runParallel(50, 100, () -> {
+				if (ThreadLocalRandom.current().nextBoolean()) transferRequest(a, b, "1.00");
+				else transferRequest(b, a, "1.00");
+			});
+
+			var balanceA = Double.parseDouble(getBalanceRequest(a));
+			var balanceB = Double.parseDouble(getBalanceRequest(b));
+			assertThat(Math.abs(balanceA + balanceB - 2000.00)).isLessThan(0.0001);
+			assertThat(balanceA).isGreaterThanOrEqualTo(0.0);
+			assertThat(balanceB).isGreaterThanOrEqualTo(0.0);
+		} finally {
+			walletProperties.getTransfer().setEngine(WalletProperties.TransferEngine.STANDARD);
+		}
+	}
+
+	@Test
+	@Timeout(90)
+	void shardedWallet_concurrentPostings_totalMatches() {
+		var walletId = createWalletRequest();
+		depositRequest(walletId, "1000.00");
+		shardRequest(walletId, 8);
+		var threads = 50;
+		var perThread = 100;
+
+		runParallel(threads, perThread, () -> {
+			depositRequest(walletId, "2.00");
+			withdrawRequest(walletId, "1.00");
+		});
+
+		var expected = 1000.00 + threads * perThread * 1.00;
+		assertThat(Math.abs(Double.parseDouble(getBalanceRequest(walletId)) - expected)).isLessThan(0.0001);
+
+		shardRequest(walletId, 0);
+		assertThat(Math.abs(Double.parseDouble(getBalanceRequest(walletId)) - expected)).isLessThan(0.0001);
+	}
+
+	@Test
+	@Timeout(60)
+	void shardedWallet_concurrentDeposits_ledgerRunningBalancesAreBounded() {
+		var walletId = createWalletRequest();
+		depositRequest(walletId, "1000.00");
+		shardRequest(walletId, 8);
+		var threads = 20;
+		var perThread = 25;
+
+		runParallel(threads, perThread, () -> depositRequest(walletId, "1.00"));
+
+		// shards commit in parallel, so a posting sees its own credit but not always the ones committing beside it
+		var balances = jdbc.queryForList("""
+			SELECT current_balance FROM ledger_entries
+			WHERE wallet_id = ? AND posting_type = 'deposit' AND amount = 1.00
+			""", BigDecimal.class, UUID.fromString(walletId));
+		assertThat(balances).hasSize(threads * perThread);
+		assertThat(balances).allSatisfy(balance -> assertThat(balance)
+			.isBetween(new BigDecimal("1001.00"), BigDecimal.valueOf(1000 + threads * perThread)));
+		assertThat(new BigDecimal(getBalanceRequest(walletId))).isEqualByComparingTo(BigDecimal.valueOf(1000 + threads * perThread));
+	}
+
+	@Test
+	@Timeout(30)
+	void retriedLedgerPostings_writtenOncePerTransactionAndWallet() {
+		var walletId = UUID.fromString(createWalletRequest());
+		var txId = UUID.randomUUID();
+		var written = new AtomicInteger();
+
+		// every attempt carries its key's first_seen_at, the way the posting paths write it
+		var firstSeenAt = OffsetDateTime.now();
+		runParallel(10, 5, () -> written.addAndGet(ledgerEntryRepository.insertGeneric(
+			txId, walletId, new BigDecimal("1.00"), "deposit", new BigDecimal("1.00"), firstSeenAt)));
+
+		assertThat(written.get()).isEqualTo(1);
+		assertThat(jdbc.queryForObject("SELECT count(*) FROM ledger_entries WHERE tx_id = ? AND wallet_id = ?", Long.class, txId, walletId))
+			.isEqualTo(1L);
+	}
+
 	String createWalletRequest() {
 		var h = new HttpHeaders();
 		h.setContentType(MediaType.APPLICATION_JSON);
@@ -110,6 +210,22 @@ class ConcurrencyIT {
 			new HttpEntity<>("{\"amount\":\"" + amount + "\"}", h), String.class);
 	}
 
+	void withdrawRequest(String walletId, String amount) {
+		var h = new HttpHeaders();
+		h.setContentType(MediaType.APPLICATION_JSON);
+		h.add("Idempotency-Key", UUID.randomUUID().toString());
+		http.postForEntity(URI.create("/api/v1/wallets/" + walletId + "/withdraw"),
+			new HttpEntity<>("{\"amount\":\"" + amount + "\"}", h), String.class);
+	}
+
+	void shardRequest(String walletId, int shardCount) {
+		var h = new HttpHeaders();
+		h.setContentType(MediaType.APPLICATION_JSON);
+		var res = http.exchange(URI.create("/api/v1/wallets/" + walletId + "/sharding"), HttpMethod.PUT,
+			new HttpEntity<>("{\"shardCount\":" + shardCount + "}", h), String.class);
+		assertThat(res.getStatusCode().value()).isEqualTo(200);
+	}
+
 	void transferRequest(String from, String to, String amount) {
 		var h = new HttpHeaders();
 		h.setContentType(MediaType.APPLICATION_JSON);
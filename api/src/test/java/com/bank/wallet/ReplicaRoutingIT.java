@@ -0,0 +1,143 @@
+package com.bank.wallet;
+
+import com.bank.wallet.util.ReadRouting;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Tag("integration")
+class ReplicaRoutingIT {
+
+	static final Network network = Network.newNetwork();
+
+	static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:17-alpine")
+		.withNetwork(network)
+		.withNetworkAliases("db")
+		.withDatabaseName("wallet")
+		.withUsername("wallet_user")
+		.withPassword("wallet_password")
+		.withCopyToContainer(Transferable.of("echo 'host replication all all scram-sha-256' >> \"$PGDATA/pg_hba.conf\"\n", 0755),
+			"/docker-entrypoint-initdb.d/enable-replication.sh");
+
+	static GenericContainer<?> replica = new GenericContainer<>("postgres:17-alpine")
+		.withNetwork(network)
+		.withEnv("PGPASSWORD", "wallet_password")
+		.withCreateContainerCmdModifier(cmd -> cmd.withUser("postgres"))
+		.withCommand("sh", "-c", """
+			until pg_basebackup -h db -U wallet_user -D "$PGDATA" -R -X stream; do rm -rf "$PGDATA"/*; sleep 1; done
+			chmod 700 "$PGDATA"
+			exec postgres
+			""")
+		.withExposedPorts(5432)
+		.dependsOn(primary)
+		.waitingFor(Wait.forLogMessage(".*ready to accept read-only connections.*", 1).withStartupTimeout(Duration.ofMinutes(2)));
+
+	static {
+		primary.start();
+		replica.start();
+	}
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", primary::getJdbcUrl);
+		registry.add("spring.datasource.username", primary::getUsername);
+		registry.add("spring.datasource.password", primary::getPassword);
+		registry.add("wallet.replica.enabled", () -> "true");
+		registry.add("wallet.replica.urls", () -> "jdbc:postgresql://" + replica.getHost() + ":" + replica.getMappedPort(5432) + "/wallet");
+		registry.add("wallet.replica.lag-check-interval-millis", () -> "200");
+	}
+
+	@Autowired
+	TestRestTemplate http;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	record WalletResp(String wallet_id, String walletId, String currentBalance, String current_balance) {
+	}
+
+	@Test
+	@Timeout(60)
+	void readWithCommitToken_seesOwnWrite() {
+		var wallet = createWalletRequest();
+		var token = depositRequest(wallet, "25.00");
+		assertThat(token).isNotBlank();
+
+		var h = new HttpHeaders();
+		h.add(ReadRouting.COMMIT_TOKEN_HEADER, token);
+		var res = http.exchange(URI.create("/api/v1/wallets/" + wallet), HttpMethod.GET, new HttpEntity<>(h), WalletResp.class);
+
+		assertThat(res.getStatusCode().value()).isEqualTo(200);
+		var body = res.getBody();
+		var balance = body.currentBalance() != null ? body.currentBalance() : body.current_balance();
+		assertThat(Double.parseDouble(balance)).isEqualTo(25.00);
+	}
+
+	@Test
+	@Timeout(60)
+	void reads_areServedByReplica() {
+		var wallet = createWalletRequest();
+
+		await().atMost(Duration.ofSeconds(30)).untilAsserted(() -> {
+			http.getForEntity(URI.create("/api/v1/wallets/" + wallet), String.class);
+			assertThat(meterRegistry.counter("wallet.replica.reads", "target", "replica-0").count()).isPositive();
+		});
+	}
+
+	@Test
+	@Timeout(60)
+	void failedWrite_carriesNoCommitToken() {
+		var wallet = createWalletRequest();
+		var h = new HttpHeaders();
+		h.setContentType(MediaType.APPLICATION_JSON);
+		h.add("Idempotency-Key", UUID.randomUUID().toString());
+
+		var res = http.postForEntity(URI.create("/api/v1/wallets/" + wallet + "/withdraw"),
+			new HttpEntity<>("{\"amount\":\"5.00\"}", h), String.class);
+
+		assertThat(res.getStatusCode().value()).isEqualTo(409);
+		assertThat(res.getHeaders().containsKey(ReadRouting.COMMIT_TOKEN_HEADER)).isFalse();
+	}
+
+	String createWalletRequest() {
+		var h = new HttpHeaders();
+		h.setContentType(MediaType.APPLICATION_JSON);
+		h.add("Idempotency-Key", UUID.randomUUID().toString());
+		var res = http.postForEntity(URI.create("/api/v1/wallets"), new HttpEntity<>("{}", h), WalletResp.class);
+		assertThat(res.getStatusCode().value()).isEqualTo(201);
+		return res.getBody().wallet_id() != null ? res.getBody().wallet_id() : res.getBody().walletId();
+	}
+
+	String depositRequest(String walletId, String amount) {
+		var h = new HttpHeaders();
+		h.setContentType(MediaType.APPLICATION_JSON);
+		h.add("Idempotency-Key", UUID.randomUUID().toString());
+		var res = http.postForEntity(URI.create("/api/v1/wallets/" + walletId + "/deposit"),
+			new HttpEntity<>("{\"amount\":\"" + amount + "\"}", h), String.class);
+		assertThat(res.getStatusCode().value()).isEqualTo(200);
+		return res.getHeaders().getFirst(ReadRouting.COMMIT_TOKEN_HEADER);
+	}
+}
@@ -0,0 +1,78 @@
+package com.bank.wallet.repository;
+
+import com.bank.wallet.entity.enums.ClaimOutcome;
+import com.bank.wallet.entity.enums.IdempotencyStatus;
+import com.bank.wallet.entity.enums.PostingType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EntityRowMappersTest {
+
+	@Test
+	void ledgerEntry_resolvesPostingTypeInEitherCase() throws Exception {
+		// arrange
+		var upper = ledgerRow("TRANSFER_DEBIT");
+		var lower = ledgerRow("transfer_debit");
+		// act
+		var fromUpper = EntityRowMappers.LEDGER_ENTRY.mapRow(upper, 0);
+		var fromLower = EntityRowMappers.LEDGER_ENTRY.mapRow(lower, 0);
+		// assert
+		assertEquals(PostingType.TRANSFER_DEBIT, fromUpper.getPostingType());
+		assertEquals(PostingType.TRANSFER_DEBIT, fromLower.getPostingType());
+		assertEquals(new BigDecimal("-5.0000"), fromLower.getAmount());
+	}
+
+	@Test
+	void ledgerEntry_rejectsUnknownPostingType() throws Exception {
+		// arrange
+		var rs = ledgerRow("refund");
+		// act & assert
+		assertThrows(IllegalArgumentException.class, () -> EntityRowMappers.LEDGER_ENTRY.mapRow(rs, 0));
+	}
+
+	@Test
+	void idempotencyClaim_readsClaimOutcomeByName() throws Exception {
+		// arrange
+		var claimed = keyRow();
+		when(claimed.getString("claim_outcome")).thenReturn("STALE_TAKEOVER");
+		var plain = keyRow();
+		// act
+		var fromClaim = EntityRowMappers.IDEMPOTENCY_CLAIM.mapRow(claimed, 0);
+		var fromSelect = EntityRowMappers.IDEMPOTENCY_KEY.mapRow(plain, 0);
+		// assert
+		assertEquals(IdempotencyStatus.IN_PROGRESS, fromClaim.getStatus());
+		assertEquals(ClaimOutcome.STALE_TAKEOVER, fromClaim.getClaimOutcome());
+		assertNull(fromSelect.getClaimOutcome());
+		assertNull(fromSelect.getResponseStatus());
+		verify(plain, never()).getString("claim_outcome");
+		verify(plain, never()).getMetaData();
+	}
+
+	private ResultSet ledgerRow(String postingType) throws Exception {
+		var rs = mock(ResultSet.class);
+		when(rs.getObject("ledger_id", UUID.class)).thenReturn(UUID.randomUUID());
+		when(rs.getBigDecimal("amount")).thenReturn(new BigDecimal("-5.0000"));
+		when(rs.getString("posting_type")).thenReturn(postingType);
+		when(rs.getObject("created_at", OffsetDateTime.class)).thenReturn(OffsetDateTime.now());
+		return rs;
+	}
+
+	private ResultSet keyRow() throws Exception {
+		var rs = mock(ResultSet.class);
+		when(rs.getObject("idempotency_key", UUID.class)).thenReturn(UUID.randomUUID());
+		when(rs.getString("status")).thenReturn("IN_PROGRESS");
+		return rs;
+	}
+}
@@ -0,0 +1,91 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.exception.ServiceOverloadedException;
+import com.bank.wallet.util.AdmissionControl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void call_runsWorkAndReleasesPermit() {
+		// arrange
+		var admission = new AdmissionControl(properties(true), meterRegistry, 1);
+		// act
+		var first = admission.call(() -> "a");
+		var second = admission.call(() -> "b");
+		// assert
+		assertEquals("a", first);
+		assertEquals("b", second);
+		assertEquals(2, meterRegistry.timer("wallet.admission.wait", "outcome", "admitted").count());
+	}
+
+	@Test
+	void call_poolExhausted_rejectsAfterTimeout() throws Exception {
+		// arrange
+		var admission = new AdmissionControl(properties(true), meterRegistry, 1);
+		var holding = new CountDownLatch(1);
+		var release = new CountDownLatch(1);
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			executor.submit(() -> admission.call(() -> {
+				holding.countDown();
+				await(release);
+				return null;
+			}));
+			assertTrue(holding.await(5, TimeUnit.SECONDS));
+			// act & assert
+			assertThrows(ServiceOverloadedException.class, () -> admission.call(() -> "late"));
+			release.countDown();
+		}
+		assertEquals(1, meterRegistry.timer("wallet.admission.wait", "outcome", "rejected").count());
+	}
+
+	@Test
+	void constructor_leavesConnectionsForBackgroundWork() {
+		// arrange
+		var properties = properties(true);
+		properties.getTransfer().getAsync().setEnabled(true);
+		properties.getTransfer().getAsync().setWorkers(2);
+		properties.getOutbox().setEnabled(true);
+		// act
+		new AdmissionControl(properties, meterRegistry, 10);
+		// assert
+		assertEquals(5.0, meterRegistry.get("wallet.admission.available").gauge().value());
+	}
+
+	@Test
+	void call_disabled_neverWaits() {
+		// arrange
+		var admission = new AdmissionControl(properties(false), meterRegistry, 0);
+		// act
+		var result = admission.call(() -> "ok");
+		// assert
+		assertEquals("ok", result);
+	}
+
+	private static WalletProperties properties(boolean enabled) {
+		var properties = new WalletProperties();
+		properties.getAdmission().setEnabled(enabled);
+		properties.getAdmission().setAcquireTimeoutMillis(50);
+		return properties;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.entity.Wallet;
+import com.bank.wallet.entity.enums.PostingType;
+import com.bank.wallet.exception.BalanceStreamUnavailableException;
+import com.bank.wallet.exception.WalletNotFoundException;
+import com.bank.wallet.mapper.WalletMapper;
+import com.bank.wallet.repository.WalletRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceStreamServiceTest {
+
+	@Mock
+	private WalletRepository walletRepository;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final WalletProperties walletProperties = new WalletProperties();
+	private BalanceStreamService balanceStreamService;
+
+	@BeforeEach
+	void setUp() {
+		walletProperties.getBalanceStream().setEnabled(true);
+		balanceStreamService = new BalanceStreamService(walletRepository, new WalletMapper(),
+			new ObjectMapper().registerModule(new JavaTimeModule()), walletProperties, meterRegistry);
+		balanceStreamService.setListening(true);
+	}
+
+	@Test
+	void subscribe_registersSubscriberAndExportsCount() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		when(walletRepository.findWithTotalBalance(walletId)).thenReturn(Optional.of(wallet(walletId)));
+		// act
+		balanceStreamService.subscribe(walletId);
+		balanceStreamService.subscribe(walletId);
+		// assert
+		assertEquals(2, balanceStreamService.subscriberCount());
+		assertEquals(2, meterRegistry.get(BalanceStreamService.SUBSCRIBERS_METRIC).gauge().value());
+		assertEquals(1, meterRegistry.get(BalanceStreamService.WALLETS_METRIC).gauge().value());
+	}
+
+	@Test
+	void subscribe_unregistersWhenWalletMissing() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		when(walletRepository.findWithTotalBalance(walletId)).thenReturn(Optional.empty());
+		// act & assert
+		assertThrows(WalletNotFoundException.class, () -> balanceStreamService.subscribe(walletId));
+		assertEquals(0, balanceStreamService.subscriberCount());
+		assertEquals(0, meterRegistry.get(BalanceStreamService.WALLETS_METRIC).gauge().value());
+	}
+
+	@Test
+	void subscribe_rejectsBeyondSubscriberLimit() {
+		// arrange
+		walletProperties.getBalanceStream().setMaxSubscribers(1);
+		var walletId = UUID.randomUUID();
+		when(walletRepository.findWithTotalBalance(walletId)).thenReturn(Optional.of(wallet(walletId)));
+		balanceStreamService.subscribe(walletId);
+		// act & assert
+		assertThrows(BalanceStreamUnavailableException.class, () -> balanceStreamService.subscribe(walletId));
+		assertEquals(1, balanceStreamService.subscriberCount());
+	}
+
+	@Test
+	void subscribe_rejectsWhileListenerDisconnected() {
+		// arrange
+		balanceStreamService.setListening(false);
+		// act & assert
+		assertThrows(BalanceStreamUnavailableException.class, () -> balanceStreamService.subscribe(UUID.randomUUID()));
+	}
+
+	@Test
+	void setListening_false_closesOpenSubscriptions() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		when(walletRepository.findWithTotalBalance(walletId)).thenReturn(Optional.of(wallet(walletId)));
+		balanceStreamService.subscribe(walletId);
+		// act
+		balanceStreamService.setListening(false);
+		// assert
+		assertEquals(0, balanceStreamService.subscriberCount());
+	}
+
+	@Test
+	void parsePosting_readsNotificationPayload() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var txId = UUID.randomUUID();
+		// act
+		var posting = WalletChangeListener.parsePosting(walletId + "," + txId + ",deposit,10.0000,42.5000,1760000000000000,1760000000123");
+		// assert
+		assertEquals(walletId, posting.walletId());
+		assertEquals(txId, posting.txId());
+		assertEquals(PostingType.DEPOSIT, posting.postingType());
+		assertEquals(new BigDecimal("42.5000"), posting.currentBalance());
+		assertEquals(1760000000000000L / 1_000_000, posting.createdAt().toEpochSecond());
+		assertEquals(1760000000123L, posting.sentAtMillis());
+	}
+
+	private Wallet wallet(UUID walletId) {
+		return Wallet.builder().walletId(walletId).currentBalance(new BigDecimal("10.00")).createdAt(OffsetDateTime.now()).build();
+	}
+}
@@ -0,0 +1,118 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.entity.IdempotencyKey;
+import com.bank.wallet.entity.LedgerEntry;
+import com.bank.wallet.entity.Wallet;
+import com.bank.wallet.entity.enums.IdempotencyStatus;
+import com.bank.wallet.entity.enums.PostingType;
+import com.bank.wallet.exception.InsufficientFundsException;
+import com.bank.wallet.exception.WalletNotFoundException;
+import com.bank.wallet.mapper.LedgerMapper;
+import com.bank.wallet.mapper.TransactionMapper;
+import com.bank.wallet.repository.WalletRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescedPostingExecutorTest {
+
+	@Mock
+	private WalletRepository walletRepository;
+	@Mock
+	private LedgerService ledgerService;
+	@Mock
+	private IdempotencyService idempotencyService;
+	@Spy
+	private LedgerMapper ledgerMapper = new LedgerMapper();
+	@Spy
+	private TransactionMapper transactionMapper = new TransactionMapper();
+	@Mock
+	private WalletSnapshotCache walletSnapshotCache;
+	@InjectMocks
+	private CoalescedPostingExecutor executor;
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void apply_evaluatesOverdraftInArrivalOrder() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var wallet = Wallet.builder().walletId(walletId).currentBalance(new BigDecimal("10.00")).build();
+		var deposit = new CoalescedPostingExecutor.Posting(newKey(), PostingType.DEPOSIT, new BigDecimal("5.00"));
+		var bigWithdraw = new CoalescedPostingExecutor.Posting(newKey(), PostingType.WITHDRAW, new BigDecimal("20.00"));
+		var smallWithdraw = new CoalescedPostingExecutor.Posting(newKey(), PostingType.WITHDRAW, new BigDecimal("15.00"));
+		when(walletRepository.lockById(walletId)).thenReturn(Optional.of(wallet));
+		when(idempotencyService.markCompletedBatch(any(), eq(200), any(), eq(IdempotencyStatus.SUCCEEDED))).thenReturn(List.of(bytes("{d}"), bytes("{w}")));
+		when(idempotencyService.buildResponse(eq(200), any())).thenCallRealMethod();
+		// act
+		var results = executor.apply(walletId, List.of(deposit, bigWithdraw, smallWithdraw));
+		// assert
+		assertArrayEquals(bytes("{d}"), results.get(0).response().getBody());
+		assertInstanceOf(InsufficientFundsException.class, results.get(1).failure());
+		assertArrayEquals(bytes("{w}"), results.get(2).response().getBody());
+		verify(walletRepository).updateBalance(walletId, new BigDecimal("0.00"));
+		var entries = ArgumentCaptor.forClass(List.class);
+		verify(ledgerService).createEntries(entries.capture());
+		var written = (List<LedgerEntry>) entries.getValue();
+		assertEquals(new BigDecimal("15.00"), written.get(0).getCurrentBalance());
+		assertEquals(new BigDecimal("-15.00"), written.get(1).getAmount());
+		assertEquals(new BigDecimal("0.00"), written.get(1).getCurrentBalance());
+	}
+
+	@Test
+	void apply_failsEveryPostingWhenWalletMissing() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var posting = new CoalescedPostingExecutor.Posting(newKey(), PostingType.DEPOSIT, new BigDecimal("5.00"));
+		when(walletRepository.lockById(walletId)).thenReturn(Optional.empty());
+		// act
+		var results = executor.apply(walletId, List.of(posting));
+		// assert
+		assertInstanceOf(WalletNotFoundException.class, results.get(0).failure());
+		verify(ledgerService, never()).createEntries(any());
+		verify(idempotencyService, never()).markCompletedBatch(any(), anyInt(), any(), any());
+	}
+
+	@Test
+	void apply_returnsNullForShardedWallet() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var wallet = Wallet.builder().walletId(walletId).currentBalance(BigDecimal.ZERO).shardCount(4).build();
+		var posting = new CoalescedPostingExecutor.Posting(newKey(), PostingType.DEPOSIT, new BigDecimal("5.00"));
+		when(walletRepository.lockById(walletId)).thenReturn(Optional.of(wallet));
+		// act
+		var results = executor.apply(walletId, List.of(posting));
+		// assert
+		assertNull(results);
+		verify(walletRepository, never()).updateBalance(any(), any());
+	}
+
+	private IdempotencyKey newKey() {
+		return IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+	}
+
+	private static byte[] bytes(String json) {
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,72 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.CacheConfig;
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.entity.IdempotencyKey;
+import com.bank.wallet.entity.enums.IdempotencyStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyReplayCacheTest {
+
+	private IdempotencyReplayCache replayCache;
+
+	@BeforeEach
+	void setUp() {
+		var properties = new WalletProperties();
+		var cacheManager = new CaffeineCacheManager();
+		new CacheConfig().replayCacheCustomizer(properties).customize(cacheManager);
+		replayCache = new IdempotencyReplayCache(cacheManager, properties);
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	void put_storesCompletedKey() {
+		// arrange
+		var key = key(IdempotencyStatus.SUCCEEDED);
+		// act
+		replayCache.put(key);
+		// assert
+		assertSame(key, replayCache.get(key.getIdempotencyKey(), key.getRequestHash().clone()).orElseThrow());
+		assertTrue(replayCache.get(key.getIdempotencyKey(), new byte[]{9}).isEmpty());
+	}
+
+	@Test
+	void put_ignoresInProgressKey() {
+		// arrange
+		var key = key(IdempotencyStatus.IN_PROGRESS);
+		// act
+		replayCache.put(key);
+		// assert
+		assertTrue(replayCache.get(key.getIdempotencyKey(), key.getRequestHash()).isEmpty());
+	}
+
+	@Test
+	void put_storesRightAwayInsideTransaction() {
+		// arrange
+		var key = key(IdempotencyStatus.SUCCEEDED);
+		TransactionSynchronizationManager.initSynchronization();
+		// act
+		replayCache.put(key);
+		// assert: deferring to commit is the caller's job, a second registration made during afterCommit would be lost
+		assertTrue(replayCache.get(key.getIdempotencyKey(), key.getRequestHash()).isPresent());
+		assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+	}
+
+	private static IdempotencyKey key(IdempotencyStatus status) {
+		return IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).requestHash(new byte[]{1, 2, 3}).status(status).responseStatus(200).responseBody("{}".getBytes(StandardCharsets.UTF_8)).build();
+	}
+}
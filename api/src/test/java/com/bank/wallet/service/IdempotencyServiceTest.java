@@ -2,28 +2,47 @@ package com.bank.wallet.service;
 
 import com.bank.wallet.config.WalletProperties;
 import com.bank.wallet.entity.IdempotencyKey;
+import com.bank.wallet.entity.enums.ClaimOutcome;
 import com.bank.wallet.entity.enums.IdempotencyStatus;
 import com.bank.wallet.exception.IdempotencyConflictException;
 import com.bank.wallet.exception.IdempotencyInProgressException;
 import com.bank.wallet.repository.IdempotencyKeyRepository;
 import com.bank.wallet.util.ContextUtils;
+import com.bank.wallet.util.GzipUtils;
 import com.bank.wallet.util.SerializationUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
 import static com.bank.wallet.entity.enums.IdempotencyStatus.SUCCEEDED;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,54 +56,98 @@ class IdempotencyServiceTest {
 	private SerializationUtils serializationUtils;
 	@Spy
 	private WalletProperties walletProperties = new WalletProperties();
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	@Mock
+	private IdempotencyReplayCache replayCache;
 	@InjectMocks
 	private IdempotencyService service;
 
 	private final String method = "POST";
 	private final String path = "/transfers";
-	private final String requestHash = "abc123";
+	private final byte[] requestHash = "abc123".getBytes(StandardCharsets.UTF_8);
+	private final OffsetDateTime firstSeenAt = OffsetDateTime.parse("2026-10-18T10:15:30Z");
 
 	@Test
 	void claim_insertsNewKey() {
 		// arrange
 		var key = UUID.randomUUID();
-		var inserted = IdempotencyKey.builder().idempotencyKey(key).status(IdempotencyStatus.IN_PROGRESS).requestHash(requestHash).refId(UUID.randomUUID()).build();
-		when(contextUtils.getCurrentRequestMethod()).thenReturn(method);
-		when(contextUtils.getCurrentRequestPath()).thenReturn(path);
-		when(contextUtils.generateRequestHash(eq(method), eq(path), any())).thenReturn(requestHash);
-		when(repository.tryInsertWithRef(eq(key), eq(method), eq(path), eq(requestHash), any())).thenReturn(Optional.of(inserted));
+		var inserted = IdempotencyKey.builder().idempotencyKey(key).status(IdempotencyStatus.IN_PROGRESS).requestHash(requestHash).refId(UUID.randomUUID()).claimOutcome(ClaimOutcome.NEW).build();
+		stubRequest();
+		when(repository.claim(eq(key), eq(method), eq(path), eq(requestHash), any(), anyInt())).thenReturn(Optional.of(inserted));
 		// act
 		var result = service.claim(key, new Object());
 		// assert
 		assertSame(inserted, result);
+		assertEquals(1.0, meterRegistry.counter(IdempotencyService.CLAIM_METRIC, "outcome", "new").count());
 	}
 
 	@Test
-	void claim_throwsConflictWhenNotFoundAfterInsertFail() {
+	void claim_servesCachedReplayWithoutDatabase() {
 		// arrange
 		var key = UUID.randomUUID();
-		when(contextUtils.getCurrentRequestMethod()).thenReturn(method);
-		when(contextUtils.getCurrentRequestPath()).thenReturn(path);
-		when(contextUtils.generateRequestHash(eq(method), eq(path), any())).thenReturn(requestHash);
-		when(repository.tryInsertWithRef(eq(key), eq(method), eq(path), eq(requestHash), any())).thenReturn(Optional.empty());
-		when(repository.findByIdempotencyKeyAndRequestHash(key, requestHash)).thenReturn(Optional.empty());
+		var cached = IdempotencyKey.builder().idempotencyKey(key).status(SUCCEEDED).requestHash(requestHash).responseStatus(200).responseBody("{}".getBytes(StandardCharsets.UTF_8)).build();
+		stubRequest();
+		when(replayCache.get(key, requestHash)).thenReturn(Optional.of(cached));
+		// act
+		var result = service.claim(key, new Object());
+		// assert
+		assertSame(cached, result);
+		verifyNoInteractions(repository);
+	}
+
+	@Test
+	void claim_returnsStoredRowForReplay() {
+		// arrange
+		var key = UUID.randomUUID();
+		var stored = IdempotencyKey.builder().idempotencyKey(key).status(IdempotencyStatus.SUCCEEDED).requestHash(requestHash).refId(UUID.randomUUID()).claimOutcome(ClaimOutcome.REPLAY).build();
+		stubRequest();
+		when(repository.claim(eq(key), eq(method), eq(path), eq(requestHash), any(), anyInt())).thenReturn(Optional.of(stored));
+		// act
+		var result = service.claim(key, new Object());
+		// assert
+		assertSame(stored, result);
+		assertEquals(1.0, meterRegistry.counter(IdempotencyService.CLAIM_METRIC, "outcome", "replay").count());
+		verify(replayCache).put(stored);
+	}
+
+	@Test
+	void claim_throwsConflictOnHashMismatch() {
+		// arrange
+		var key = UUID.randomUUID();
+		stubRequest();
+		when(repository.claim(eq(key), eq(method), eq(path), eq(requestHash), any(), anyInt())).thenReturn(Optional.of(IdempotencyKey.builder().idempotencyKey(key).status(IdempotencyStatus.SUCCEEDED).requestHash(requestHash).refId(UUID.randomUUID()).claimOutcome(ClaimOutcome.HASH_MISMATCH).build()));
 		// act & assert
 		assertThrows(IdempotencyConflictException.class, () -> service.claim(key, new Object()));
+		assertEquals(1.0, meterRegistry.counter(IdempotencyService.CLAIM_METRIC, "outcome", "hash_mismatch").count());
+	}
+
+	@Test
+	void claim_replaysKeyStoredWithLegacyHash() {
+		// arrange
+		var key = UUID.randomUUID();
+		var dto = new Object();
+		var legacyHash = "legacy".getBytes(StandardCharsets.UTF_8);
+		stubRequest();
+		when(contextUtils.generateLegacyRequestHash(method, path, dto)).thenReturn(legacyHash);
+		when(repository.claim(eq(key), eq(method), eq(path), eq(requestHash), any(), anyInt())).thenReturn(Optional.of(IdempotencyKey.builder().idempotencyKey(key).status(IdempotencyStatus.SUCCEEDED).requestHash(legacyHash).refId(UUID.randomUUID()).claimOutcome(ClaimOutcome.HASH_MISMATCH).build()));
+		var stored = IdempotencyKey.builder().idempotencyKey(key).status(IdempotencyStatus.SUCCEEDED).requestHash(legacyHash).refId(UUID.randomUUID()).claimOutcome(ClaimOutcome.REPLAY).build();
+		when(repository.claim(eq(key), eq(method), eq(path), eq(legacyHash), any(), anyInt())).thenReturn(Optional.of(stored));
+		// act
+		var result = service.claim(key, dto);
+		// assert
+		assertSame(stored, result);
+		assertEquals(0.0, meterRegistry.counter(IdempotencyService.CLAIM_METRIC, "outcome", "hash_mismatch").count());
 	}
 
 	@Test
 	void claim_takesOverStaleInProgress() {
 		// arrange
 		var key = UUID.randomUUID();
-		var existing = IdempotencyKey.builder().idempotencyKey(key).status(IdempotencyStatus.IN_PROGRESS).requestHash(requestHash).refId(UUID.randomUUID()).build();
-		var takeover = IdempotencyKey.builder().idempotencyKey(key).status(IdempotencyStatus.IN_PROGRESS).requestHash(requestHash).refId(UUID.randomUUID()).build();
+		var takeover = IdempotencyKey.builder().idempotencyKey(key).status(IdempotencyStatus.IN_PROGRESS).requestHash(requestHash).refId(UUID.randomUUID()).claimOutcome(ClaimOutcome.STALE_TAKEOVER).build();
 		var stale = walletProperties.getIdempotency().getStaleThresholdSeconds();
-		when(contextUtils.getCurrentRequestMethod()).thenReturn(method);
-		when(contextUtils.getCurrentRequestPath()).thenReturn(path);
-		when(contextUtils.generateRequestHash(eq(method), eq(path), any())).thenReturn(requestHash);
-		when(repository.tryInsertWithRef(eq(key), eq(method), eq(path), eq(requestHash), any())).thenReturn(Optional.empty());
-		when(repository.findByIdempotencyKeyAndRequestHash(key, requestHash)).thenReturn(Optional.of(existing));
-		when(repository.tryTakeOverReturning(key, stale)).thenReturn(Optional.of(takeover));
+		stubRequest();
+		when(repository.claim(eq(key), eq(method), eq(path), eq(requestHash), any(), eq(stale))).thenReturn(Optional.of(takeover));
 		// act
 		var result = service.claim(key, new Object());
 		// assert
@@ -95,41 +158,160 @@ class IdempotencyServiceTest {
 	void claim_throwsInProgressWhenNotStale() {
 		// arrange
 		var key = UUID.randomUUID();
-		var existing = IdempotencyKey.builder().idempotencyKey(key).status(IdempotencyStatus.IN_PROGRESS).requestHash(requestHash).refId(UUID.randomUUID()).build();
-		var stale = walletProperties.getIdempotency().getStaleThresholdSeconds();
-		when(contextUtils.getCurrentRequestMethod()).thenReturn(method);
-		when(contextUtils.getCurrentRequestPath()).thenReturn(path);
-		when(contextUtils.generateRequestHash(eq(method), eq(path), any())).thenReturn(requestHash);
-		when(repository.tryInsertWithRef(eq(key), eq(method), eq(path), eq(requestHash), any())).thenReturn(Optional.empty());
-		when(repository.findByIdempotencyKeyAndRequestHash(key, requestHash)).thenReturn(Optional.of(existing));
-		when(repository.tryTakeOverReturning(key, stale)).thenReturn(Optional.empty());
+		stubRequest();
+		when(repository.claim(eq(key), eq(method), eq(path), eq(requestHash), any(), anyInt())).thenReturn(Optional.of(IdempotencyKey.builder().idempotencyKey(key).status(IdempotencyStatus.IN_PROGRESS).requestHash(requestHash).refId(UUID.randomUUID()).claimOutcome(ClaimOutcome.IN_PROGRESS).build()));
 		// act & assert
 		assertThrows(IdempotencyInProgressException.class, () -> service.claim(key, new Object()));
 	}
 
+	@Test
+	void claimInTransaction_marksKeyAsClaimedInTransaction() {
+		// arrange
+		var key = UUID.randomUUID();
+		var inserted = IdempotencyKey.builder().idempotencyKey(key).status(IdempotencyStatus.IN_PROGRESS).requestHash(requestHash).refId(UUID.randomUUID()).claimOutcome(ClaimOutcome.NEW).build();
+		stubRequest();
+		when(repository.claimInTransaction(eq(key), eq(method), eq(path), eq(requestHash), any(), anyInt(), eq(2000))).thenReturn(Optional.of(inserted));
+		// act
+		var result = service.claimInTransaction(key, new Object());
+		// assert
+		assertSame(inserted, result);
+		assertTrue(result.isClaimedInTransaction());
+		verifyNoInteractions(replayCache);
+	}
+
+	@Test
+	void claimInTransaction_answersInProgressWhenDuplicateWaitTimesOut() {
+		// arrange
+		var key = UUID.randomUUID();
+		stubRequest();
+		when(repository.claimInTransaction(eq(key), eq(method), eq(path), eq(requestHash), any(), anyInt(), anyInt()))
+			.thenThrow(new CannotAcquireLockException("canceling statement due to lock timeout"));
+		// act & assert
+		assertThrows(IdempotencyInProgressException.class, () -> service.claimInTransaction(key, new Object()));
+		assertEquals(1.0, meterRegistry.counter(IdempotencyService.CLAIM_METRIC, "outcome", "in_progress").count());
+	}
+
+	@Test
+	void markFailed_reclaimsKeyRolledBackWithRequest() {
+		// arrange
+		var key = UUID.randomUUID();
+		var refId = UUID.randomUUID();
+		var rolledBack = IdempotencyKey.builder().idempotencyKey(key).method(method).path(path).requestHash(requestHash).refId(refId).firstSeenAt(firstSeenAt).claimedInTransaction(true).build();
+		var reclaimedAt = firstSeenAt.plusSeconds(1);
+		var reclaimed = IdempotencyKey.builder().idempotencyKey(key).requestHash(requestHash).refId(refId).firstSeenAt(reclaimedAt).status(IdempotencyStatus.IN_PROGRESS).claimOutcome(ClaimOutcome.NEW).build();
+		var json = "{}".getBytes(StandardCharsets.UTF_8);
+		when(serializationUtils.toJsonBytes(any())).thenReturn(json);
+		when(repository.claim(eq(key), eq(method), eq(path), eq(requestHash), eq(refId), anyInt())).thenReturn(Optional.of(reclaimed));
+		when(repository.markCompleted(key, reclaimedAt, 409, json, "failed", requestHash)).thenReturn(1);
+		// act
+		var result = service.markFailed(rolledBack, 409, new Object());
+		// assert
+		assertSame(json, result);
+		verify(repository).markCompleted(key, reclaimedAt, 409, json, "failed", requestHash);
+	}
+
+	@Test
+	void markFailed_answersWithoutStoringWhenKeyTakenMeanwhile() {
+		// arrange
+		var key = UUID.randomUUID();
+		var rolledBack = IdempotencyKey.builder().idempotencyKey(key).method(method).path(path).requestHash(requestHash).refId(UUID.randomUUID()).claimedInTransaction(true).build();
+		var json = "{}".getBytes(StandardCharsets.UTF_8);
+		when(serializationUtils.toJsonBytes(any())).thenReturn(json);
+		when(repository.claim(eq(key), eq(method), eq(path), eq(requestHash), any(), anyInt()))
+			.thenReturn(Optional.of(IdempotencyKey.builder().idempotencyKey(key).status(IdempotencyStatus.IN_PROGRESS).claimOutcome(ClaimOutcome.IN_PROGRESS).build()));
+		// act
+		var result = service.markFailed(rolledBack, 409, new Object());
+		// assert
+		assertSame(json, result);
+		verify(repository, never()).markCompleted(any(), any(), anyInt(), any(), any(), any());
+	}
+
 	@Test
 	void markCompleted_updatesSuccessfully() {
 		// arrange
 		var key = UUID.randomUUID();
-		var existing = IdempotencyKey.builder().idempotencyKey(key).requestHash(requestHash).status(IdempotencyStatus.IN_PROGRESS).build();
+		var existing = IdempotencyKey.builder().idempotencyKey(key).firstSeenAt(firstSeenAt).requestHash(requestHash).status(IdempotencyStatus.IN_PROGRESS).build();
 		var responseObj = new Object();
-		var json = "{\"ok\":true}";
-		when(serializationUtils.toJson(responseObj)).thenReturn(json);
-		when(repository.markCompleted(key, 200, json, SUCCEEDED.name().toLowerCase(), requestHash)).thenReturn(1);
+		var json = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+		when(serializationUtils.toJsonBytes(responseObj)).thenReturn(json);
+		when(repository.markCompleted(key, firstSeenAt, 200, json, SUCCEEDED.name().toLowerCase(), requestHash)).thenReturn(1);
 		// act
 		var result = service.markCompleted(existing, 200, responseObj, SUCCEEDED);
 		// assert
-		assertEquals(json, result);
+		assertSame(json, result);
+		verify(replayCache).put(argThat(k -> k.getStatus() == SUCCEEDED && k.getResponseBody() == json));
+	}
+
+	@Test
+	void markCompleted_cachesReplayOnlyAfterCommit() {
+		// arrange
+		var key = UUID.randomUUID();
+		var existing = IdempotencyKey.builder().idempotencyKey(key).firstSeenAt(firstSeenAt).requestHash(requestHash).status(IdempotencyStatus.IN_PROGRESS).build();
+		var json = "{}".getBytes(StandardCharsets.UTF_8);
+		when(serializationUtils.toJsonBytes(any())).thenReturn(json);
+		when(repository.markCompleted(key, firstSeenAt, 200, json, SUCCEEDED.name().toLowerCase(), requestHash)).thenReturn(1);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			// act
+			service.markCompleted(existing, 200, new Object(), SUCCEEDED);
+			verify(replayCache, never()).put(any());
+			TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+			// assert
+			verify(replayCache).put(argThat(k -> k.getStatus() == SUCCEEDED && k.getResponseBody() == json));
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
 	}
 
 	@Test
 	void markCompleted_throwsWhenRowNotUpdated() {
 		// arrange
 		var key = UUID.randomUUID();
-		var existing = IdempotencyKey.builder().idempotencyKey(key).requestHash(requestHash).status(IdempotencyStatus.IN_PROGRESS).build();
-		when(serializationUtils.toJson(any())).thenReturn("{}");
-		when(repository.markCompleted(key, 200, "{}", SUCCEEDED.name().toLowerCase(), requestHash)).thenReturn(0);
+		var existing = IdempotencyKey.builder().idempotencyKey(key).firstSeenAt(firstSeenAt).requestHash(requestHash).status(IdempotencyStatus.IN_PROGRESS).build();
+		var json = "{}".getBytes(StandardCharsets.UTF_8);
+		when(serializationUtils.toJsonBytes(any())).thenReturn(json);
+		when(repository.markCompleted(key, firstSeenAt, 200, json, SUCCEEDED.name().toLowerCase(), requestHash)).thenReturn(0);
 		// act & assert
 		assertThrows(IllegalStateException.class, () -> service.markCompleted(existing, 200, new Object(), SUCCEEDED));
 	}
+
+	@Test
+	void encodeResponse_gzipsBodiesAboveThreshold() {
+		// arrange
+		walletProperties.getIdempotency().setResponseCompressionMinBytes(16);
+		var small = "{}".getBytes(StandardCharsets.UTF_8);
+		var large = "{\"message\":\"a long enough response body\"}".getBytes(StandardCharsets.UTF_8);
+		when(serializationUtils.toJsonBytes("small")).thenReturn(small);
+		when(serializationUtils.toJsonBytes("large")).thenReturn(large);
+		// act
+		var smallBody = service.encodeResponse("small");
+		var largeBody = service.encodeResponse("large");
+		// assert
+		assertSame(small, smallBody);
+		assertTrue(GzipUtils.isGzipped(largeBody));
+		assertArrayEquals(large, GzipUtils.gunzip(largeBody));
+	}
+
+	@Test
+	void buildResponse_labelsGzippedBodies() {
+		// arrange
+		var json = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+		var gzipped = GzipUtils.gzip(json);
+		// act
+		var plain = service.buildResponse(200, json);
+		var compressed = service.buildResponse(409, gzipped);
+		// assert
+		assertSame(json, plain.getBody());
+		assertEquals(MediaType.APPLICATION_JSON, plain.getHeaders().getContentType());
+		assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertSame(gzipped, compressed.getBody());
+		assertEquals(409, compressed.getStatusCode().value());
+		assertEquals("gzip", compressed.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+	}
+
+	private void stubRequest() {
+		when(contextUtils.getCurrentRequestMethod()).thenReturn(method);
+		when(contextUtils.getCurrentRequestPath()).thenReturn(path);
+		when(contextUtils.getCurrentRequestHash(any())).thenReturn(requestHash);
+	}
 }
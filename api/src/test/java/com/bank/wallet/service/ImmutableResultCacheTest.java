@@ -0,0 +1,84 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.CacheConfig;
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.dto.wallet.BalanceHistoryResponseDto;
+import com.bank.wallet.util.SerializationUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.HttpHeaders;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ImmutableResultCacheTest {
+
+	private final UUID walletId = UUID.randomUUID();
+	private ImmutableResultCache immutableResultCache;
+	private int loads;
+
+	@BeforeEach
+	void setUp() {
+		var properties = new WalletProperties();
+		var cacheManager = new CaffeineCacheManager();
+		new CacheConfig().immutableResultCacheCustomizer(properties).customize(cacheManager);
+		immutableResultCache = new ImmutableResultCache(cacheManager, properties,
+			new SerializationUtils(new ObjectMapper().registerModule(new JavaTimeModule())));
+	}
+
+	@Test
+	void respond_cachesSettledResultWithImmutableHeaders() {
+		// arrange
+		var at = OffsetDateTime.now().minusDays(1);
+		var key = new ImmutableResultCache.BalanceKey(walletId, at);
+		// act
+		var first = immutableResultCache.respond(key, at, () -> load(at));
+		var second = immutableResultCache.respond(key, at, () -> load(at));
+		// assert
+		assertEquals(1, loads);
+		assertArrayEquals(first.getBody(), second.getBody());
+		assertNotNull(first.getHeaders().getETag());
+		assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+		assertEquals(ImmutableResultCache.IMMUTABLE.getHeaderValue(), first.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL));
+	}
+
+	@Test
+	void respond_recomputesUnsettledResultWithoutCacheHeaders() {
+		// arrange
+		var at = OffsetDateTime.now();
+		var key = new ImmutableResultCache.BalanceKey(walletId, at);
+		// act
+		immutableResultCache.respond(key, at, () -> load(at));
+		var second = immutableResultCache.respond(key, at, () -> load(at));
+		// assert
+		assertEquals(2, loads);
+		assertNull(second.getHeaders().getETag());
+		assertNull(second.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL));
+	}
+
+	@Test
+	void respond_etagDiffersForDifferentResults() {
+		// arrange
+		var at = OffsetDateTime.now().minusDays(2);
+		// act
+		var first = immutableResultCache.respond(new ImmutableResultCache.BalanceKey(walletId, at), at, () -> load(at));
+		var other = immutableResultCache.respond(new ImmutableResultCache.BalanceKey(UUID.randomUUID(), at), at, () -> load(at));
+		// assert
+		assertEquals(2, loads);
+		assertEquals(false, first.getHeaders().getETag().equals(other.getHeaders().getETag()));
+	}
+
+	private BalanceHistoryResponseDto load(OffsetDateTime at) {
+		loads++;
+		return BalanceHistoryResponseDto.builder().walletId(walletId).balance(new BigDecimal(loads)).asOf(at).build();
+	}
+}
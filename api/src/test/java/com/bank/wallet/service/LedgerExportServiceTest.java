@@ -0,0 +1,125 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.dto.wallet.LedgerExportFormat;
+import com.bank.wallet.entity.LedgerEntry;
+import com.bank.wallet.entity.enums.PostingType;
+import com.bank.wallet.exception.WalletNotFoundException;
+import com.bank.wallet.repository.WalletRepository;
+import com.bank.wallet.util.ContextUtils;
+import com.bank.wallet.util.ReadRouting;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerExportServiceTest {
+
+	@Mock
+	private LedgerService ledgerService;
+	@Mock
+	private WalletRepository walletRepository;
+	@Spy
+	private ObjectMapper objectMapper = new ObjectMapper();
+	@Spy
+	private ReadRouting readRouting = new ReadRouting(mock(ContextUtils.class), new SimpleMeterRegistry(), new WalletProperties());
+	@InjectMocks
+	private LedgerExportService exportService;
+
+	private final UUID walletId = UUID.randomUUID();
+	private final UUID txId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+	@Test
+	void write_streamsNdjsonRows() {
+		// arrange
+		stubOneRow();
+		var out = new ByteArrayOutputStream();
+		// act
+		exportService.write(walletId, null, null, LedgerExportFormat.NDJSON, null, out);
+		// assert
+		assertEquals("{\"txId\":\"" + txId + "\",\"amount\":10.13,\"postingType\":\"DEPOSIT\",\"currentBalance\":25.00,\"createdAt\":\"2026-10-18T10:15:30Z\"}\n",
+			out.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void write_streamsCsvWithHeader() {
+		// arrange
+		stubOneRow();
+		var out = new ByteArrayOutputStream();
+		// act
+		exportService.write(walletId, null, null, LedgerExportFormat.CSV, null, out);
+		// assert
+		assertEquals("txId,amount,postingType,currentBalance,createdAt\n" + txId + ",10.13,DEPOSIT,25.00,2026-10-18T10:15:30Z\n",
+			out.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void export_rejectsUnknownFormat() {
+		// act & assert
+		assertThrows(IllegalArgumentException.class, () -> exportService.export(walletId, "xml", null, null));
+	}
+
+	@Test
+	void export_throwsWhenWalletMissing() {
+		// arrange
+		when(walletRepository.existsById(walletId)).thenReturn(false);
+		// act & assert
+		assertThrows(WalletNotFoundException.class, () -> exportService.export(walletId, "csv", null, null));
+	}
+
+	@Test
+	void write_continuesAfterLastEntryOfEachPage() {
+		// arrange
+		var first = entry(txId);
+		var second = entry(UUID.randomUUID());
+		when(ledgerService.findExportPage(walletId, null, null, null)).thenReturn(List.of(first));
+		when(ledgerService.findExportPage(walletId, null, null, first)).thenReturn(List.of(second));
+		when(ledgerService.findExportPage(walletId, null, null, second)).thenReturn(List.of());
+		var out = new ByteArrayOutputStream();
+		// act
+		exportService.write(walletId, null, null, LedgerExportFormat.NDJSON, null, out);
+		// assert
+		assertEquals(2, out.toString(StandardCharsets.UTF_8).lines().count());
+		verify(ledgerService, times(3)).findExportPage(eq(walletId), any(), any(), any());
+	}
+
+	private void stubOneRow() {
+		var entry = entry(txId);
+		when(ledgerService.findExportPage(walletId, null, null, null)).thenReturn(List.of(entry));
+		when(ledgerService.findExportPage(walletId, null, null, entry)).thenReturn(List.of());
+	}
+
+	private LedgerEntry entry(UUID id) {
+		return LedgerEntry.builder()
+			.ledgerId(UUID.randomUUID())
+			.txId(id)
+			.walletId(walletId)
+			.amount(new BigDecimal("10.1250"))
+			.postingType(PostingType.DEPOSIT)
+			.currentBalance(new BigDecimal("25.0000"))
+			.createdAt(OffsetDateTime.parse("2026-10-18T10:15:30Z"))
+			.postingSeq(1L)
+			.build();
+	}
+}
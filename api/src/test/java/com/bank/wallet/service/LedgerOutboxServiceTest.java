@@ -0,0 +1,109 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.entity.LedgerOutboxEntry;
+import com.bank.wallet.mapper.LedgerMapper;
+import com.bank.wallet.repository.LedgerOutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerOutboxServiceTest {
+
+	@Mock
+	private LedgerOutboxRepository ledgerOutboxRepository;
+	@Mock
+	private LedgerEventSink sink;
+	@Mock
+	private ObjectProvider<LedgerEventSink> sinks;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private LedgerOutboxService ledgerOutboxService;
+
+	@BeforeEach
+	void setUp() {
+		when(sinks.orderedStream()).thenReturn(Stream.of(sink));
+		ledgerOutboxService = new LedgerOutboxService(ledgerOutboxRepository, new LedgerMapper(),
+			new ObjectMapper().registerModule(new JavaTimeModule()), meterRegistry, sinks);
+	}
+
+	@Test
+	void relayBatch_publishesInOrderThenDeletes() {
+		// arrange
+		var first = entry(1L);
+		var second = entry(2L);
+		when(ledgerOutboxRepository.tryLockRelay()).thenReturn(true);
+		when(ledgerOutboxRepository.findBatch(10)).thenReturn(List.of(first, second));
+		// act
+		var relayed = ledgerOutboxService.relayBatch(10);
+		// assert
+		assertEquals(2, relayed);
+		var payload = ArgumentCaptor.forClass(byte[].class);
+		verify(sink).publish(payload.capture());
+		var lines = new String(payload.getValue(), StandardCharsets.UTF_8).split("\n");
+		assertEquals(2, lines.length);
+		assertEquals(true, lines[0].contains("\"eventId\":1"));
+		assertEquals(true, lines[1].contains("\"eventId\":2"));
+		verify(ledgerOutboxRepository).deleteByIds(List.of(1L, 2L));
+		assertEquals(2, meterRegistry.counter(LedgerOutboxService.PUBLISHED_METRIC).count());
+	}
+
+	@Test
+	void relayBatch_keepsRowsWhenSinkFails() {
+		// arrange
+		when(ledgerOutboxRepository.tryLockRelay()).thenReturn(true);
+		when(ledgerOutboxRepository.findBatch(10)).thenReturn(List.of(entry(1L)));
+		doThrow(new IllegalStateException("down")).when(sink).publish(any());
+		// act & assert
+		assertThrows(IllegalStateException.class, () -> ledgerOutboxService.relayBatch(10));
+		verify(ledgerOutboxRepository, never()).deleteByIds(any());
+	}
+
+	@Test
+	void relayBatch_skipsWhenAnotherRelayHoldsTheLock() {
+		// arrange
+		when(ledgerOutboxRepository.tryLockRelay()).thenReturn(false);
+		// act
+		var relayed = ledgerOutboxService.relayBatch(10);
+		// assert
+		assertEquals(0, relayed);
+		verify(ledgerOutboxRepository, never()).findBatch(10);
+		verifyNoInteractions(sink);
+	}
+
+	private LedgerOutboxEntry entry(long outboxId) {
+		return LedgerOutboxEntry.builder()
+			.outboxId(outboxId)
+			.ledgerId(UUID.randomUUID())
+			.txId(UUID.randomUUID())
+			.walletId(UUID.randomUUID())
+			.amount(new BigDecimal("5.00"))
+			.postingType("deposit")
+			.currentBalance(new BigDecimal("15.00"))
+			.createdAt(OffsetDateTime.now())
+			.build();
+	}
+}
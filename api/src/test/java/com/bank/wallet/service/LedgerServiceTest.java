@@ -1,5 +1,6 @@
 package com.bank.wallet.service;
 
+import com.bank.wallet.config.WalletProperties;
 import com.bank.wallet.entity.enums.PostingType;
 import com.bank.wallet.mapper.LedgerMapper;
 import com.bank.wallet.repository.LedgerEntryRepository;
@@ -16,6 +17,7 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -28,6 +30,8 @@ class LedgerServiceTest {
 	private LedgerValidator ledgerValidator;
 	@Spy
 	private LedgerMapper ledgerMapper = new LedgerMapper();
+	@Spy
+	private WalletProperties walletProperties = new WalletProperties();
 	@InjectMocks
 	private LedgerService ledgerService;
 
@@ -38,9 +42,9 @@ class LedgerServiceTest {
 		var walletId = UUID.randomUUID();
 		var amount = new BigDecimal("25.00");
 		var newBal = new BigDecimal("125.00");
-		when(ledgerEntryRepository.insertGeneric(txId, walletId, amount, PostingType.DEPOSIT.name().toLowerCase(), newBal)).thenReturn(1);
+		when(ledgerEntryRepository.insertGeneric(txId, walletId, amount, PostingType.DEPOSIT.name().toLowerCase(), newBal, null)).thenReturn(1);
 		// act
-		ledgerService.createDepositEntry(txId, walletId, amount, newBal);
+		ledgerService.createDepositEntry(txId, walletId, amount, newBal, null);
 		// assert
 		verify(ledgerValidator).validate(any());
 	}
@@ -52,8 +56,23 @@ class LedgerServiceTest {
 		var walletId = UUID.randomUUID();
 		var amount = new BigDecimal("10.00");
 		var newBal = new BigDecimal("60.00");
-		when(ledgerEntryRepository.insertGeneric(txId, walletId, amount, "deposit", newBal)).thenReturn(0);
+		when(ledgerEntryRepository.insertGeneric(txId, walletId, amount, "deposit", newBal, null)).thenReturn(0);
 		// act & assert
-		assertThrows(IllegalStateException.class, () -> ledgerService.createDepositEntry(txId, walletId, amount, newBal));
+		assertThrows(IllegalStateException.class, () -> ledgerService.createDepositEntry(txId, walletId, amount, newBal, null));
+	}
+
+	@Test
+	void createDepositEntry_writesOutboxCopyWhenEnabled() {
+		// arrange
+		walletProperties.getOutbox().setEnabled(true);
+		var txId = UUID.randomUUID();
+		var walletId = UUID.randomUUID();
+		var amount = new BigDecimal("25.00");
+		var newBal = new BigDecimal("125.00");
+		when(ledgerEntryRepository.insertGenericWithOutbox(txId, walletId, amount, "deposit", newBal, null)).thenReturn(1);
+		// act
+		ledgerService.createDepositEntry(txId, walletId, amount, newBal, null);
+		// assert
+		verify(ledgerEntryRepository, never()).insertGeneric(any(), any(), any(), any(), any(), any());
 	}
 }
@@ -0,0 +1,63 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.repository.IdempotencyKeyRepository;
+import com.bank.wallet.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionMaintenanceServiceTest {
+
+	@Mock
+	private IdempotencyKeyRepository idempotencyKeyRepository;
+	@Mock
+	private LedgerEntryRepository ledgerEntryRepository;
+	@Spy
+	private WalletProperties walletProperties = new WalletProperties();
+	@InjectMocks
+	private PartitionMaintenanceService service;
+
+	@Test
+	void maintainIdempotencyKeys_createsAheadAndDropsExpired() {
+		// arrange
+		walletProperties.getIdempotency().setPartitionsAheadDays(5);
+		walletProperties.getIdempotency().setRetentionDays(30);
+		when(idempotencyKeyRepository.createPartitions(5)).thenReturn(1);
+		when(idempotencyKeyRepository.dropExpiredPartitions(30)).thenReturn(2);
+		// act
+		service.maintainIdempotencyKeys();
+		// assert
+		verify(idempotencyKeyRepository).createPartitions(5);
+		verify(idempotencyKeyRepository).dropExpiredPartitions(30);
+	}
+
+	@Test
+	void maintainIdempotencyKeys_swallowsFailures() {
+		// arrange
+		when(idempotencyKeyRepository.createPartitions(3)).thenThrow(new IllegalStateException("db down"));
+		// act & assert
+		assertDoesNotThrow(() -> service.maintainIdempotencyKeys());
+		verify(idempotencyKeyRepository, never()).dropExpiredPartitions(7);
+	}
+
+	@Test
+	void maintainLedgerEntries_createsMonthsAhead() {
+		// arrange
+		walletProperties.getLedger().setPartitionsAheadMonths(6);
+		when(ledgerEntryRepository.createPartitions(6)).thenReturn(0);
+		// act
+		service.maintainLedgerEntries();
+		// assert
+		verify(ledgerEntryRepository).createPartitions(6);
+	}
+}
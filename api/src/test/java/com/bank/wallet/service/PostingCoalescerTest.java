@@ -0,0 +1,64 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.dto.wallet.TransactionRequestDto;
+import com.bank.wallet.entity.IdempotencyKey;
+import com.bank.wallet.exception.IdempotencyInProgressException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PostingCoalescerTest {
+
+	@Mock
+	private CoalescedPostingExecutor coalescedPostingExecutor;
+	@Mock
+	private TransactionExecutorService transactionExecutorService;
+
+	@Test
+	void constructor_acceptsDefaults() {
+		// arrange
+		var properties = new WalletProperties();
+		properties.getCoalescer().setEnabled(true);
+		// act & assert
+		assertDoesNotThrow(() -> new PostingCoalescer(coalescedPostingExecutor, transactionExecutorService, properties).shutdown());
+	}
+
+	@Test
+	void constructor_rejectsWaitReachingStaleThreshold() {
+		// arrange
+		var properties = new WalletProperties();
+		properties.getCoalescer().setEnabled(true);
+		properties.getCoalescer().setTimeoutMillis(3000);
+		properties.getIdempotency().setStaleThresholdSeconds(5);
+		// act & assert
+		assertThrows(IllegalStateException.class, () -> new PostingCoalescer(coalescedPostingExecutor, transactionExecutorService, properties));
+	}
+
+	@Test
+	void deposit_neverAppliesPostingAfterCallerTimedOut() {
+		// arrange
+		var properties = new WalletProperties();
+		properties.getCoalescer().setEnabled(true);
+		properties.getCoalescer().setTimeoutMillis(1);
+		properties.getCoalescer().setWindowMillis(50);
+		var coalescer = new PostingCoalescer(coalescedPostingExecutor, transactionExecutorService, properties);
+		var request = TransactionRequestDto.builder().amount(BigDecimal.TEN).build();
+		// act
+		assertThrows(IdempotencyInProgressException.class, () -> coalescer.deposit(new IdempotencyKey(), UUID.randomUUID(), request));
+		// assert
+		verify(coalescedPostingExecutor, after(200).never()).apply(any(), any());
+		coalescer.shutdown();
+	}
+}
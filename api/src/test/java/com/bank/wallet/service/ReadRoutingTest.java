@@ -0,0 +1,101 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.util.ContextUtils;
+import com.bank.wallet.util.ReadRouting;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReadRoutingTest {
+
+	@Mock
+	private ContextUtils contextUtils;
+
+	private final WalletProperties walletProperties = new WalletProperties();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private ReadRouting readRouting;
+
+	@BeforeEach
+	void setUp() {
+		walletProperties.getReplica().setEnabled(true);
+		walletProperties.getReplica().setMaxLagMillis(1000);
+		readRouting = new ReadRouting(contextUtils, meterRegistry, walletProperties);
+	}
+
+	@Test
+	void onReplica_usesHealthyReplicaAndRestoresPrimary() {
+		// arrange
+		readRouting.updateStatus("replica-0", new ReadRouting.ReplicaStatus(true, 10, ReadRouting.parseLsn("0/100")));
+		// act
+		var target = readRouting.onReplica(null, readRouting::currentTarget);
+		// assert
+		assertEquals("replica-0", target);
+		assertNull(readRouting.currentTarget());
+		assertEquals(1.0, meterRegistry.counter("wallet.replica.reads", "target", "replica-0").count());
+	}
+
+	@Test
+	void onReplica_lagAboveLimit_readsFromPrimary() {
+		// arrange
+		readRouting.updateStatus("replica-0", new ReadRouting.ReplicaStatus(true, 5000, ReadRouting.parseLsn("0/100")));
+		// act
+		var target = readRouting.onReplica(null, readRouting::currentTarget);
+		// assert
+		assertNull(target);
+		assertEquals(1.0, meterRegistry.counter("wallet.replica.reads", "target", "primary").count());
+	}
+
+	@Test
+	void onReplica_replicaBehindCommitToken_readsFromPrimary() {
+		// arrange
+		readRouting.updateStatus("replica-0", new ReadRouting.ReplicaStatus(true, 0, ReadRouting.parseLsn("0/100")));
+		when(contextUtils.getCurrentRequestHeader(ReadRouting.COMMIT_TOKEN_HEADER)).thenReturn(Optional.of("0/200"));
+		// act
+		var target = readRouting.onReplica(readRouting::currentTarget);
+		// assert
+		assertNull(target);
+	}
+
+	@Test
+	void onReplica_replicaCaughtUpWithCommitToken_readsFromReplica() {
+		// arrange
+		readRouting.updateStatus("replica-0", new ReadRouting.ReplicaStatus(true, 0, ReadRouting.parseLsn("1/0")));
+		// act
+		var target = readRouting.onReplica("0/FFFFFFFF", readRouting::currentTarget);
+		// assert
+		assertEquals("replica-0", target);
+	}
+
+	@Test
+	void onReplica_invalidCommitToken_readsFromPrimary() {
+		// arrange
+		readRouting.updateStatus("replica-0", new ReadRouting.ReplicaStatus(true, 0, ReadRouting.parseLsn("1/0")));
+		// act
+		var target = readRouting.onReplica("garbage", readRouting::currentTarget);
+		// assert
+		assertNull(target);
+	}
+
+	@Test
+	void onReplica_disabled_readsFromPrimaryWithoutMetrics() {
+		// arrange
+		walletProperties.getReplica().setEnabled(false);
+		readRouting.updateStatus("replica-0", new ReadRouting.ReplicaStatus(true, 0, 0));
+		// act
+		var target = readRouting.onReplica(null, readRouting::currentTarget);
+		// assert
+		assertNull(target);
+		assertEquals(0, meterRegistry.getMeters().size());
+	}
+}
@@ -0,0 +1,102 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.util.RequestHasher;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class RequestHasherTest {
+
+	private static final String PATH = "/wallet-api/api/v1/transfers";
+
+	@Test
+	void hash_ignoresWhitespaceOutsideStrings() {
+		// arrange
+		var compact = "{\"amount\":10.50,\"note\":\"a b\"}";
+		var pretty = "{\n  \"amount\" : 10.50,\r\n\t\"note\": \"a b\"\n}\n";
+		// act
+		var compactHash = hash(compact);
+		var prettyHash = hash(pretty);
+		// assert
+		assertArrayEquals(compactHash, prettyHash);
+		assertEquals(32, compactHash.length);
+	}
+
+	@Test
+	void hash_keepsWhitespaceInsideStrings() {
+		// act
+		var spaced = hash("{\"note\":\"a b\"}");
+		var joined = hash("{\"note\":\"ab\"}");
+		// assert
+		assertFalse(Arrays.equals(spaced, joined));
+	}
+
+	@Test
+	void hash_matchesEscapedAndLiteralStrings() {
+		// act
+		var escaped = hash("{\"note\":\"caf\\u00e9 \\\"a\\\"\"}");
+		var literal = hash("{\"note\":\"café \\\"a\\\"\"}");
+		// assert
+		assertArrayEquals(escaped, literal);
+	}
+
+	@Test
+	void hash_treatsReorderedMembersAsSameRequest() {
+		// act
+		var ordered = hash("{\"fromWalletId\":\"a\",\"toWalletId\":\"b\",\"amount\":1,\"meta\":{\"x\":1,\"y\":2}}");
+		var reordered = hash("{\"meta\":{\"y\":2,\"x\":1},\"amount\":1,\"toWalletId\":\"b\",\"fromWalletId\":\"a\"}");
+		// assert
+		assertArrayEquals(ordered, reordered);
+	}
+
+	@Test
+	void hash_comparesNumbersByValue() {
+		// act
+		var plain = hash("{\"amount\":10.5}");
+		var padded = hash("{\"amount\":10.50}");
+		var exponent = hash("{\"amount\":1.05e1}");
+		var other = hash("{\"amount\":10.51}");
+		// assert
+		assertArrayEquals(plain, padded);
+		assertArrayEquals(plain, exponent);
+		assertFalse(Arrays.equals(plain, other));
+	}
+
+	@Test
+	void hash_treatsArrayOrderAndExtraMembersAsDifferentRequest() {
+		// act
+		var plain = hash("{\"amount\":10.5,\"items\":[1,2]}");
+		var swapped = hash("{\"amount\":10.5,\"items\":[2,1]}");
+		var withNull = hash("{\"amount\":10.5,\"items\":[1,2],\"note\":null}");
+		// assert
+		assertFalse(Arrays.equals(plain, swapped));
+		assertFalse(Arrays.equals(plain, withNull));
+	}
+
+	@Test
+	void hash_hashesInvalidJsonAsSent() {
+		// act
+		var truncated = hash("{\"amount\":10.5");
+		var trailing = hash("{\"amount\":10.5} x");
+		var valid = hash("{\"amount\":10.5}");
+		// assert
+		assertFalse(Arrays.equals(truncated, valid));
+		assertFalse(Arrays.equals(trailing, valid));
+		assertArrayEquals(truncated, RequestHasher.hash("POST", PATH, "{\"amount\":10.5".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	void hash_treatsEmptyAndBlankBodiesAlike() {
+		// act & assert
+		assertArrayEquals(hash(""), hash(" \n"));
+	}
+
+	private byte[] hash(String body) {
+		return RequestHasher.hash("POST", PATH, body.getBytes(StandardCharsets.UTF_8));
+	}
+}
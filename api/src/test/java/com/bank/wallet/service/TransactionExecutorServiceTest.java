@@ -14,8 +14,11 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
@@ -45,16 +48,19 @@ class TransactionExecutorServiceTest {
 		var walletId = UUID.randomUUID();
 		var amount = new BigDecimal("12.34");
 		var request = TransactionRequestDto.builder().amount(amount).build();
-		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS)
+			.firstSeenAt(OffsetDateTime.parse("2026-03-01T10:15:30Z")).build();
 		var newBalance = new BigDecimal("100.00");
 		when(walletService.depositAndGetNewBalance(key, walletId, amount)).thenReturn(newBalance);
-		when(idempotencyService.markCompleted(eq(key), eq(200), any(), eq(IdempotencyStatus.SUCCEEDED))).thenReturn("{json}");
+		when(idempotencyService.markCompleted(eq(key), eq(200), any(), eq(IdempotencyStatus.SUCCEEDED))).thenReturn(bytes("{json}"));
+		when(idempotencyService.buildResponse(eq(200), any())).thenCallRealMethod();
 		// act
 		var response = executor.deposit(key, walletId, request);
 		// assert
 		assertEquals(200, response.getStatusCode().value());
-		assertEquals("{json}", response.getBody());
-		verify(ledgerService).createDepositEntry(key.getRefId(), walletId, amount, newBalance);
+		assertArrayEquals(bytes("{json}"), response.getBody());
+		// the posting is stamped with the key's first_seen_at, so a retry of the same key collides with it
+		verify(ledgerService).createDepositEntry(key.getRefId(), walletId, amount, newBalance, OffsetDateTime.parse("2026-03-01T10:15:30Z"));
 	}
 
 	@Test
@@ -68,7 +74,7 @@ class TransactionExecutorServiceTest {
 		// act
 		// assert
 		assertThrows(WalletNotFoundException.class, () -> executor.deposit(key, walletId, request));
-		verify(ledgerService, never()).createDepositEntry(any(), any(), any(), any());
+		verify(ledgerService, never()).createDepositEntry(any(), any(), any(), any(), any());
 		verify(idempotencyService, never()).markCompleted(any(), anyInt(), any(), any());
 	}
 
@@ -81,13 +87,14 @@ class TransactionExecutorServiceTest {
 		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
 		var newBalance = new BigDecimal("80.00");
 		when(walletService.withdrawAndGetNewBalance(key, walletId, amount)).thenReturn(newBalance);
-		when(idempotencyService.markCompleted(eq(key), eq(200), any(), eq(IdempotencyStatus.SUCCEEDED))).thenReturn("{json-w}");
+		when(idempotencyService.markCompleted(eq(key), eq(200), any(), eq(IdempotencyStatus.SUCCEEDED))).thenReturn(bytes("{json-w}"));
+		when(idempotencyService.buildResponse(eq(200), any())).thenCallRealMethod();
 		// act
 		var response = executor.withdraw(key, walletId, request);
 		// assert
 		assertEquals(200, response.getStatusCode().value());
-		assertEquals("{json-w}", response.getBody());
-		verify(ledgerService).createWithdrawEntry(key.getRefId(), walletId, amount, newBalance);
+		assertArrayEquals(bytes("{json-w}"), response.getBody());
+		verify(ledgerService).createWithdrawEntry(key.getRefId(), walletId, amount, newBalance, key.getFirstSeenAt());
 	}
 
 	@Test
@@ -101,7 +108,11 @@ class TransactionExecutorServiceTest {
 		// act
 		// assert
 		assertThrows(InsufficientFundsException.class, () -> executor.withdraw(key, walletId, request));
-		verify(ledgerService, never()).createWithdrawEntry(any(), any(), any(), any());
+		verify(ledgerService, never()).createWithdrawEntry(any(), any(), any(), any(), any());
 		verify(idempotencyService, never()).markCompleted(any(), anyInt(), any(), any());
 	}
+
+	private static byte[] bytes(String json) {
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
 }
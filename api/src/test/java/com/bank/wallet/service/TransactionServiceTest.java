@@ -1,21 +1,31 @@
 package com.bank.wallet.service;
 
+import com.bank.wallet.config.WalletProperties;
 import com.bank.wallet.dto.wallet.TransactionRequestDto;
 import com.bank.wallet.entity.IdempotencyKey;
 import com.bank.wallet.entity.enums.IdempotencyStatus;
+import com.bank.wallet.exception.WalletNotFoundException;
+import com.bank.wallet.util.AdmissionControl;
 import com.bank.wallet.validator.TransactionValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +37,12 @@ class TransactionServiceTest {
 	private TransactionValidator transactionValidator;
 	@Mock
 	private TransactionExecutorService transactionExecutorService;
+	@Mock
+	private PostingCoalescer postingCoalescer;
+	@Spy
+	private AdmissionControl admissionControl = new AdmissionControl(new WalletProperties(), new SimpleMeterRegistry(), 10);
+	@Mock
+	private WalletExistenceFilter walletExistenceFilter;
 	@InjectMocks
 	private TransactionService transactionService;
 
@@ -39,13 +55,13 @@ class TransactionServiceTest {
 		var keyEntity = IdempotencyKey.builder().idempotencyKey(idKey).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
 		when(idempotencyService.claim(idKey, request)).thenReturn(keyEntity);
 		when(idempotencyService.isReplay(keyEntity)).thenReturn(false);
-		when(transactionExecutorService.deposit(keyEntity, walletId, request)).thenReturn(ResponseEntity.ok("body"));
+		when(transactionExecutorService.deposit(keyEntity, walletId, request)).thenReturn(ResponseEntity.ok("body".getBytes(StandardCharsets.UTF_8)));
 		// act
 		var response = transactionService.deposit(walletId, request, idKey);
 		// assert
 		verify(transactionValidator).validateIdempotencyKey(idKey);
 		assertEquals(200, response.getStatusCode().value());
-		assertEquals("body", response.getBody());
+		assertEquals("body", new String(response.getBody(), StandardCharsets.UTF_8));
 	}
 
 	@Test
@@ -54,15 +70,15 @@ class TransactionServiceTest {
 		var walletId = UUID.randomUUID();
 		var idKey = UUID.randomUUID();
 		var request = TransactionRequestDto.builder().amount(new BigDecimal("5.00")).build();
-		var keyEntity = IdempotencyKey.builder().idempotencyKey(idKey).refId(UUID.randomUUID()).status(IdempotencyStatus.SUCCEEDED).responseStatus(200).responseBody("cached").build();
+		var keyEntity = IdempotencyKey.builder().idempotencyKey(idKey).refId(UUID.randomUUID()).status(IdempotencyStatus.SUCCEEDED).responseStatus(200).responseBody("cached".getBytes(StandardCharsets.UTF_8)).build();
 		when(idempotencyService.claim(idKey, request)).thenReturn(keyEntity);
 		when(idempotencyService.isReplay(keyEntity)).thenReturn(true);
-		when(idempotencyService.buildReplayResponse(keyEntity)).thenReturn(ResponseEntity.ok("cached"));
+		when(idempotencyService.buildReplayResponse(keyEntity)).thenReturn(ResponseEntity.ok("cached".getBytes(StandardCharsets.UTF_8)));
 		// act
 		var response = transactionService.deposit(walletId, request, idKey);
 		// assert
 		verify(transactionValidator).validateIdempotencyKey(idKey);
-		assertEquals("cached", response.getBody());
+		assertEquals("cached", new String(response.getBody(), StandardCharsets.UTF_8));
 	}
 
 	@Test
@@ -74,13 +90,13 @@ class TransactionServiceTest {
 		var keyEntity = IdempotencyKey.builder().idempotencyKey(idKey).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
 		when(idempotencyService.claim(idKey, request)).thenReturn(keyEntity);
 		when(idempotencyService.isReplay(keyEntity)).thenReturn(false);
-		when(transactionExecutorService.withdraw(keyEntity, walletId, request)).thenReturn(ResponseEntity.ok("body-w"));
+		when(transactionExecutorService.withdraw(keyEntity, walletId, request)).thenReturn(ResponseEntity.ok("body-w".getBytes(StandardCharsets.UTF_8)));
 		// act
 		var response = transactionService.withdraw(walletId, request, idKey);
 		// assert
 		verify(transactionValidator).validateIdempotencyKey(idKey);
 		assertEquals(200, response.getStatusCode().value());
-		assertEquals("body-w", response.getBody());
+		assertEquals("body-w", new String(response.getBody(), StandardCharsets.UTF_8));
 	}
 
 	@Test
@@ -89,15 +105,77 @@ class TransactionServiceTest {
 		var walletId = UUID.randomUUID();
 		var idKey = UUID.randomUUID();
 		var request = TransactionRequestDto.builder().amount(new BigDecimal("3.50")).build();
-		var keyEntity = IdempotencyKey.builder().idempotencyKey(idKey).refId(UUID.randomUUID()).status(IdempotencyStatus.SUCCEEDED).responseStatus(200).responseBody("cached-w").build();
+		var keyEntity = IdempotencyKey.builder().idempotencyKey(idKey).refId(UUID.randomUUID()).status(IdempotencyStatus.SUCCEEDED).responseStatus(200).responseBody("cached-w".getBytes(StandardCharsets.UTF_8)).build();
 		when(idempotencyService.claim(idKey, request)).thenReturn(keyEntity);
 		when(idempotencyService.isReplay(keyEntity)).thenReturn(true);
-		when(idempotencyService.buildReplayResponse(keyEntity)).thenReturn(ResponseEntity.ok("cached-w"));
+		when(idempotencyService.buildReplayResponse(keyEntity)).thenReturn(ResponseEntity.ok("cached-w".getBytes(StandardCharsets.UTF_8)));
 		// act
 		var response = transactionService.withdraw(walletId, request, idKey);
 		// assert
 		verify(transactionValidator).validateIdempotencyKey(idKey);
-		assertEquals("cached-w", response.getBody());
+		assertEquals("cached-w", new String(response.getBody(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void deposit_routesThroughCoalescerWhenEnabled() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var idKey = UUID.randomUUID();
+		var request = TransactionRequestDto.builder().amount(new BigDecimal("1.00")).build();
+		var keyEntity = IdempotencyKey.builder().idempotencyKey(idKey).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+		when(idempotencyService.claim(idKey, request)).thenReturn(keyEntity);
+		when(idempotencyService.isReplay(keyEntity)).thenReturn(false);
+		when(postingCoalescer.isEnabled()).thenReturn(true);
+		when(postingCoalescer.deposit(keyEntity, walletId, request)).thenReturn(ResponseEntity.ok("batched".getBytes(StandardCharsets.UTF_8)));
+		// act
+		var response = transactionService.deposit(walletId, request, idKey);
+		// assert
+		assertEquals("batched", new String(response.getBody(), StandardCharsets.UTF_8));
+		verify(transactionExecutorService, never()).deposit(keyEntity, walletId, request);
 	}
-}
 
+	@Test
+	void deposit_claimsInsideExecutorTransactionWhenSingleCommit() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var idKey = UUID.randomUUID();
+		var request = TransactionRequestDto.builder().amount(new BigDecimal("1.00")).build();
+		when(idempotencyService.isSingleCommit()).thenReturn(true);
+		when(idempotencyService.findCachedReplay(idKey, request)).thenReturn(Optional.empty());
+		when(transactionExecutorService.claimAndDeposit(idKey, walletId, request)).thenReturn(ResponseEntity.ok("single".getBytes(StandardCharsets.UTF_8)));
+		// act
+		var response = transactionService.deposit(walletId, request, idKey);
+		// assert
+		assertEquals("single", new String(response.getBody(), StandardCharsets.UTF_8));
+		verify(idempotencyService, never()).claim(idKey, request);
+	}
+
+	@Test
+	void withdraw_servesCachedReplayWithoutTransactionWhenSingleCommit() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var idKey = UUID.randomUUID();
+		var request = TransactionRequestDto.builder().amount(new BigDecimal("1.00")).build();
+		var cached = IdempotencyKey.builder().idempotencyKey(idKey).status(IdempotencyStatus.SUCCEEDED).responseStatus(200).responseBody("stored".getBytes(StandardCharsets.UTF_8)).build();
+		when(idempotencyService.isSingleCommit()).thenReturn(true);
+		when(idempotencyService.findCachedReplay(idKey, request)).thenReturn(Optional.of(cached));
+		when(idempotencyService.buildReplayResponse(cached)).thenReturn(ResponseEntity.ok(cached.getResponseBody()));
+		// act
+		var response = transactionService.withdraw(walletId, request, idKey);
+		// assert
+		assertEquals("stored", new String(response.getBody(), StandardCharsets.UTF_8));
+		verifyNoInteractions(transactionExecutorService);
+	}
+
+	@Test
+	void deposit_rejectsMissingWalletBeforeClaim() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var idKey = UUID.randomUUID();
+		var request = TransactionRequestDto.builder().amount(new BigDecimal("1.00")).build();
+		when(walletExistenceFilter.isMissing(walletId)).thenReturn(true);
+		// act & assert
+		assertThrows(WalletNotFoundException.class, () -> transactionService.deposit(walletId, request, idKey));
+		verifyNoInteractions(idempotencyService, transactionExecutorService);
+	}
+}
@@ -1,26 +1,59 @@
 package com.bank.wallet.service;
 
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.dto.error.ErrorResponseDto;
+import com.bank.wallet.dto.transfer.DisbursementPayoutDto;
+import com.bank.wallet.dto.transfer.DisbursementRequestDto;
+import com.bank.wallet.dto.transfer.DisbursementResponseDto;
+import com.bank.wallet.dto.transfer.TransferBatchItemDto;
+import com.bank.wallet.dto.transfer.TransferBatchMode;
+import com.bank.wallet.dto.transfer.TransferBatchRequestDto;
+import com.bank.wallet.dto.transfer.TransferBatchResponseDto;
 import com.bank.wallet.dto.transfer.TransferRequestDto;
 import com.bank.wallet.entity.IdempotencyKey;
+import com.bank.wallet.entity.LedgerEntry;
+import com.bank.wallet.entity.QueuedTransfer;
+import com.bank.wallet.entity.Transfer;
+import com.bank.wallet.entity.Wallet;
 import com.bank.wallet.entity.enums.IdempotencyStatus;
 import com.bank.wallet.exception.InsufficientFundsException;
+import com.bank.wallet.exception.WalletNotFoundException;
+import com.bank.wallet.mapper.LedgerMapper;
 import com.bank.wallet.mapper.TransferMapper;
+import com.bank.wallet.repository.DisbursementRepository;
+import com.bank.wallet.repository.TransferJdbcRepository.Outcome;
+import com.bank.wallet.repository.TransferJdbcRepository.StatementResult;
 import com.bank.wallet.repository.TransferRepository;
+import com.bank.wallet.repository.WalletRepository;
+import com.bank.wallet.validator.TransferValidator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import static com.bank.wallet.dto.transfer.TransferBatchItemDto.Status.COMPLETED;
+import static com.bank.wallet.dto.transfer.TransferBatchItemDto.Status.FAILED;
+import static com.bank.wallet.dto.transfer.TransferBatchItemDto.Status.NOT_EXECUTED;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +69,18 @@ class TransferExecutorServiceTest {
 	private TransferRepository transferRepository;
 	@Spy
 	private TransferMapper transferMapper = new TransferMapper();
+	@Spy
+	private WalletProperties walletProperties = new WalletProperties();
+	@Mock
+	private WalletSnapshotCache walletSnapshotCache;
+	@Mock
+	private WalletRepository walletRepository;
+	@Spy
+	private LedgerMapper ledgerMapper = new LedgerMapper();
+	@Spy
+	private TransferValidator transferValidator = new TransferValidator();
+	@Mock
+	private DisbursementRepository disbursementRepository;
 	@InjectMocks
 	private TransferExecutorService executorService;
 
@@ -50,12 +95,13 @@ class TransferExecutorServiceTest {
 		when(walletService.withdrawAndGetNewBalance(key, from, amount)).thenReturn(new BigDecimal("100.00"));
 		when(walletService.depositAndGetNewBalance(key, to, amount)).thenReturn(new BigDecimal("200.00"));
 		when(transferRepository.insertIfAbsent(key.getRefId(), from, to, amount)).thenReturn(1);
-		when(idempotencyService.markCompleted(eq(key), eq(200), any(), eq(IdempotencyStatus.SUCCEEDED))).thenReturn("{json}");
+		when(idempotencyService.markCompleted(eq(key), eq(200), any(), eq(IdempotencyStatus.SUCCEEDED))).thenReturn(bytes("{json}"));
+		when(idempotencyService.buildResponse(eq(200), any())).thenCallRealMethod();
 		// act
 		var response = executorService.execute(key, req);
 		// assert
 		assertEquals(200, response.getStatusCode().value());
-		assertEquals("{json}", response.getBody());
+		assertArrayEquals(bytes("{json}"), response.getBody());
 	}
 
 	@Test
@@ -87,4 +133,261 @@ class TransferExecutorServiceTest {
 		assertThrows(InsufficientFundsException.class, () -> executorService.execute(key, req));
 	}
 
+	@Test
+	void execute_singleStatement_returnsSerializedBody() {
+		// arrange
+		walletProperties.getTransfer().setEngine(WalletProperties.TransferEngine.SINGLE_STATEMENT);
+		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).requestHash(new byte[]{1, 2, 3}).status(IdempotencyStatus.IN_PROGRESS).build();
+		var from = UUID.randomUUID();
+		var to = UUID.randomUUID();
+		var amount = new BigDecimal("10.00");
+		var req = TransferRequestDto.builder().fromWalletId(from).toWalletId(to).amount(amount).build();
+		when(idempotencyService.encodeResponse(any())).thenReturn(bytes("{json}"));
+		when(transferRepository.executeInOneStatement(key.getRefId(), from, to, amount, key.getIdempotencyKey(), key.getRequestHash(), bytes("{json}"), false))
+			.thenReturn(new StatementResult(Outcome.COMPLETED, new BigDecimal("90.00"), new BigDecimal("110.00")));
+		when(idempotencyService.buildResponse(eq(200), any())).thenCallRealMethod();
+		// act
+		var response = executorService.execute(key, req);
+		// assert
+		assertEquals(200, response.getStatusCode().value());
+		assertArrayEquals(bytes("{json}"), response.getBody());
+		verify(walletService, never()).withdrawAndGetNewBalance(any(), any(), any());
+		verify(idempotencyService, never()).markCompleted(any(), eq(200), any(), any());
+	}
+
+	@Test
+	void execute_singleStatement_mapsFailureOutcomes() {
+		// arrange
+		walletProperties.getTransfer().setEngine(WalletProperties.TransferEngine.SINGLE_STATEMENT);
+		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).requestHash(new byte[]{1, 2, 3}).status(IdempotencyStatus.IN_PROGRESS).build();
+		var req = TransferRequestDto.builder().fromWalletId(UUID.randomUUID()).toWalletId(UUID.randomUUID()).amount(BigDecimal.TEN).build();
+		when(idempotencyService.encodeResponse(any())).thenReturn(bytes("{json}"));
+		when(transferRepository.executeInOneStatement(any(), any(), any(), any(), any(), any(), any(), anyBoolean()))
+			.thenReturn(new StatementResult(Outcome.INSUFFICIENT_FUNDS, null, null))
+			.thenReturn(new StatementResult(Outcome.TO_WALLET_NOT_FOUND, null, null));
+		// act & assert
+		assertThrows(InsufficientFundsException.class, () -> executorService.execute(key, req));
+		assertThrows(WalletNotFoundException.class, () -> executorService.execute(key, req));
+	}
+
+	@Test
+	void execute_singleStatement_fallsBackForShardedWallets() {
+		// arrange
+		walletProperties.getTransfer().setEngine(WalletProperties.TransferEngine.SINGLE_STATEMENT);
+		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).requestHash(new byte[]{1, 2, 3}).status(IdempotencyStatus.IN_PROGRESS).build();
+		var from = UUID.randomUUID();
+		var to = UUID.randomUUID();
+		var amount = new BigDecimal("10.00");
+		var req = TransferRequestDto.builder().fromWalletId(from).toWalletId(to).amount(amount).build();
+		when(idempotencyService.encodeResponse(any())).thenReturn(bytes("{json}"));
+		when(transferRepository.executeInOneStatement(any(), any(), any(), any(), any(), any(), any(), anyBoolean()))
+			.thenReturn(new StatementResult(Outcome.SHARDED, null, null));
+		when(walletService.withdrawAndGetNewBalance(key, from, amount)).thenReturn(new BigDecimal("90.00"));
+		when(walletService.depositAndGetNewBalance(key, to, amount)).thenReturn(new BigDecimal("110.00"));
+		when(transferRepository.insertIfAbsent(key.getRefId(), from, to, amount)).thenReturn(1);
+		when(idempotencyService.markCompleted(eq(key), eq(200), any(), eq(IdempotencyStatus.SUCCEEDED))).thenReturn(bytes("{json}"));
+		when(idempotencyService.buildResponse(eq(200), any())).thenCallRealMethod();
+		// act
+		var response = executorService.execute(key, req);
+		// assert
+		assertArrayEquals(bytes("{json}"), response.getBody());
+		verify(ledgerService).createTransferDebitEntry(key.getRefId(), from, amount, new BigDecimal("90.00"), key.getFirstSeenAt());
+	}
+
+@Test
+	@SuppressWarnings("unchecked")
+	void executeBatch_bestEffort_appliesItemsInOrderAndReportsFailures() {
+		// arrange
+		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+		var a = UUID.randomUUID();
+		var b = UUID.randomUUID();
+		var missing = UUID.randomUUID();
+		var req = TransferBatchRequestDto.builder()
+			.mode(TransferBatchMode.BEST_EFFORT)
+			.transfers(List.of(
+				transfer(a, b, "8.00"),
+				transfer(a, b, "5.00"),
+				transfer(b, a, "3.00"),
+				transfer(a, missing, "1.00")))
+			.build();
+		when(walletRepository.lockAllById(any())).thenReturn(List.of(
+			Wallet.builder().walletId(a).currentBalance(new BigDecimal("10.00")).build(),
+			Wallet.builder().walletId(b).currentBalance(new BigDecimal("0.00")).build()));
+		when(walletRepository.updateBalances(any())).thenReturn(2);
+		when(transferRepository.insertBatch(any())).thenReturn(2);
+		when(idempotencyService.markCompleted(eq(key), eq(200), any(), eq(IdempotencyStatus.SUCCEEDED))).thenReturn(bytes("{batch}"));
+		when(idempotencyService.buildResponse(eq(200), any())).thenCallRealMethod();
+		// act
+		var response = executorService.executeBatch(key, req);
+		// assert
+		assertEquals(200, response.getStatusCode().value());
+		verify(walletRepository).updateBalances(Map.of(a, new BigDecimal("5.00"), b, new BigDecimal("5.00")));
+		var entries = ArgumentCaptor.forClass(List.class);
+		verify(ledgerService).createEntries(entries.capture());
+		assertEquals(4, entries.getValue().size());
+		var batch = ArgumentCaptor.forClass(Object.class);
+		verify(idempotencyService).markCompleted(eq(key), eq(200), batch.capture(), eq(IdempotencyStatus.SUCCEEDED));
+		var results = ((TransferBatchResponseDto) batch.getValue()).getResults();
+		assertEquals(List.of(COMPLETED, FAILED, COMPLETED, FAILED), results.stream().map(TransferBatchItemDto::getStatus).toList());
+		assertEquals("INSUFFICIENT_FUNDS", results.get(1).getCode());
+		assertEquals("WALLET_NOT_FOUND", results.get(3).getCode());
+	}
+
+	@Test
+	void executeBatch_allOrNothing_writesNothingWhenAnItemFails() {
+		// arrange
+		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+		var a = UUID.randomUUID();
+		var b = UUID.randomUUID();
+		var req = TransferBatchRequestDto.builder()
+			.mode(TransferBatchMode.ALL_OR_NOTHING)
+			.transfers(List.of(transfer(a, b, "8.00"), transfer(a, a, "1.00")))
+			.build();
+		when(walletRepository.lockAllById(any())).thenReturn(List.of(
+			Wallet.builder().walletId(a).currentBalance(new BigDecimal("10.00")).build(),
+			Wallet.builder().walletId(b).currentBalance(new BigDecimal("0.00")).build()));
+		when(idempotencyService.markCompleted(eq(key), eq(409), any(), eq(IdempotencyStatus.FAILED))).thenReturn(bytes("{rejected}"));
+		when(idempotencyService.buildResponse(eq(409), any())).thenCallRealMethod();
+		// act
+		var response = executorService.executeBatch(key, req);
+		// assert
+		assertEquals(409, response.getStatusCode().value());
+		verify(walletRepository, never()).updateBalances(any());
+		verify(ledgerService, never()).createEntries(any());
+		verify(transferRepository, never()).insertBatch(any());
+		var batch = ArgumentCaptor.forClass(Object.class);
+		verify(idempotencyService).markCompleted(eq(key), eq(409), batch.capture(), eq(IdempotencyStatus.FAILED));
+		var results = ((TransferBatchResponseDto) batch.getValue()).getResults();
+		assertEquals(List.of(NOT_EXECUTED, FAILED), results.stream().map(TransferBatchItemDto::getStatus).toList());
+		assertEquals("SEMANTIC_ERROR", results.get(1).getCode());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void executeDisbursement_debitsSourceOnceAndCreditsEveryPayout() {
+		// arrange
+		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+		var source = UUID.randomUUID();
+		var a = UUID.randomUUID();
+		var b = UUID.randomUUID();
+		var req = DisbursementRequestDto.builder().fromWalletId(source).payouts(List.of(payout(a, "30.00"), payout(b, "20.00"))).build();
+		when(walletRepository.lockAllById(any())).thenReturn(List.of(
+			Wallet.builder().walletId(source).currentBalance(new BigDecimal("100.00")).build(),
+			Wallet.builder().walletId(a).currentBalance(new BigDecimal("1.00")).build(),
+			Wallet.builder().walletId(b).currentBalance(new BigDecimal("0.00")).build()));
+		when(disbursementRepository.insertIfAbsent(key.getRefId(), source, new BigDecimal("50.00"), 2)).thenReturn(1);
+		when(walletRepository.updateBalances(any())).thenReturn(3);
+		when(transferRepository.insertBatch(any())).thenReturn(2);
+		when(idempotencyService.markCompleted(eq(key), eq(200), any(), eq(IdempotencyStatus.SUCCEEDED))).thenReturn(bytes("{disbursement}"));
+		when(idempotencyService.buildResponse(eq(200), any())).thenCallRealMethod();
+		// act
+		var response = executorService.executeDisbursement(key, req);
+		// assert
+		assertEquals(200, response.getStatusCode().value());
+		verify(walletRepository).updateBalances(Map.of(source, new BigDecimal("50.00"), a, new BigDecimal("31.00"), b, new BigDecimal("20.00")));
+		var entries = ArgumentCaptor.forClass(List.class);
+		verify(ledgerService).createEntries(entries.capture());
+		var ledger = (List<LedgerEntry>) entries.getValue();
+		assertEquals(3, ledger.size());
+		assertEquals(List.of(key.getRefId()), ledger.stream().map(LedgerEntry::getTxId).distinct().toList());
+		assertEquals(new BigDecimal("-50.00"), ledger.get(0).getAmount());
+		var transfers = ArgumentCaptor.forClass(List.class);
+		verify(transferRepository).insertBatch(transfers.capture());
+		assertEquals(List.of(key.getRefId(), key.getRefId()), ((List<Transfer>) transfers.getValue()).stream().map(Transfer::getDisbursementId).toList());
+		var disbursement = ArgumentCaptor.forClass(Object.class);
+		verify(idempotencyService).markCompleted(eq(key), eq(200), disbursement.capture(), eq(IdempotencyStatus.SUCCEEDED));
+		assertEquals(2, ((DisbursementResponseDto) disbursement.getValue()).getPayouts().size());
+	}
+
+	@Test
+	void executeDisbursement_failsWholeDisbursementWhenSourceCannotCoverTotal() {
+		// arrange
+		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+		var source = UUID.randomUUID();
+		var a = UUID.randomUUID();
+		var b = UUID.randomUUID();
+		var req = DisbursementRequestDto.builder().fromWalletId(source).payouts(List.of(payout(a, "30.00"), payout(b, "20.00"))).build();
+		when(walletRepository.lockAllById(any())).thenReturn(List.of(
+			Wallet.builder().walletId(source).currentBalance(new BigDecimal("40.00")).build(),
+			Wallet.builder().walletId(a).currentBalance(BigDecimal.ZERO).build(),
+			Wallet.builder().walletId(b).currentBalance(BigDecimal.ZERO).build()));
+		// act & assert
+		assertThrows(InsufficientFundsException.class, () -> executorService.executeDisbursement(key, req));
+		verify(disbursementRepository, never()).insertIfAbsent(any(), any(), any(), eq(2));
+		verify(ledgerService, never()).createEntries(any());
+	}
+
+	@Test
+	void executeDisbursement_throwsWhenAPayoutWalletIsMissing() {
+		// arrange
+		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+		var source = UUID.randomUUID();
+		var req = DisbursementRequestDto.builder().fromWalletId(source).payouts(List.of(payout(UUID.randomUUID(), "1.00"))).build();
+		when(walletRepository.lockAllById(any())).thenReturn(List.of(
+			Wallet.builder().walletId(source).currentBalance(new BigDecimal("40.00")).build()));
+		// act & assert
+		assertThrows(WalletNotFoundException.class, () -> executorService.executeDisbursement(key, req));
+		verify(ledgerService, never()).createEntries(any());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void executeQueued_appliesInQueueOrderAndCompletesEveryKey() {
+		// arrange
+		var a = UUID.randomUUID();
+		var b = UUID.randomUUID();
+		var queued = List.of(queued(a, b, "8.00"), queued(a, b, "5.00"), queued(b, a, "3.00"));
+		when(walletRepository.lockAllById(any())).thenReturn(List.of(
+			Wallet.builder().walletId(a).currentBalance(new BigDecimal("10.00")).build(),
+			Wallet.builder().walletId(b).currentBalance(new BigDecimal("0.00")).build()));
+		when(walletRepository.updateBalances(any())).thenReturn(2);
+		when(transferRepository.insertBatch(any())).thenReturn(2);
+		// act
+		executorService.executeQueued(queued);
+		// assert
+		verify(walletRepository).updateBalances(Map.of(a, new BigDecimal("5.00"), b, new BigDecimal("5.00")));
+		var outcomes = ArgumentCaptor.forClass(List.class);
+		verify(idempotencyService).markAcceptedCompleted(outcomes.capture());
+		var completed = (List<IdempotencyService.Outcome>) outcomes.getValue();
+		assertEquals(List.of(200, 409, 200), completed.stream().map(IdempotencyService.Outcome::httpStatus).toList());
+		assertEquals(List.of(IdempotencyStatus.SUCCEEDED, IdempotencyStatus.FAILED, IdempotencyStatus.SUCCEEDED),
+			completed.stream().map(IdempotencyService.Outcome::status).toList());
+		assertEquals(queued.get(1).getIdempotencyKey(), completed.get(1).key().getIdempotencyKey());
+		assertEquals("INSUFFICIENT_FUNDS", ((ErrorResponseDto) completed.get(1).response()).getCode());
+	}
+
+	@Test
+	void walletLockOrder_matchesPostgresUuidOrder() {
+		// arrange
+		var low = UUID.fromString("7fffffff-ffff-ffff-ffff-ffffffffffff");
+		var high = UUID.fromString("80000000-0000-0000-0000-000000000000");
+		// act
+		var sorted = Stream.of(high, low).sorted(TransferExecutorService.WALLET_LOCK_ORDER).toList();
+		// assert
+		assertEquals(List.of(low, high), sorted);
+	}
+
+	private static QueuedTransfer queued(UUID from, UUID to, String amount) {
+		return QueuedTransfer.builder()
+			.idempotencyKey(UUID.randomUUID())
+			.firstSeenAt(OffsetDateTime.now())
+			.requestHash(new byte[]{1})
+			.transferId(UUID.randomUUID())
+			.fromWalletId(from)
+			.toWalletId(to)
+			.amount(new BigDecimal(amount))
+			.build();
+	}
+
+	private static DisbursementPayoutDto payout(UUID to, String amount) {
+		return DisbursementPayoutDto.builder().toWalletId(to).amount(new BigDecimal(amount)).build();
+	}
+
+	private static TransferRequestDto transfer(UUID from, UUID to, String amount) {
+		return TransferRequestDto.builder().fromWalletId(from).toWalletId(to).amount(new BigDecimal(amount)).build();
+	}
+
+		private static byte[] bytes(String json) {
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
 }
@@ -0,0 +1,168 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.dto.transfer.TransferRequestDto;
+import com.bank.wallet.entity.IdempotencyKey;
+import com.bank.wallet.entity.QueuedTransfer;
+import com.bank.wallet.entity.enums.IdempotencyStatus;
+import com.bank.wallet.repository.TransferQueueRepository;
+import com.bank.wallet.util.ContextUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransferQueueServiceTest {
+
+	@Mock
+	private TransferQueueRepository transferQueueRepository;
+	@Mock
+	private TransferExecutorService transferExecutorService;
+	@Mock
+	private IdempotencyService idempotencyService;
+	@Mock
+	private ContextUtils contextUtils;
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	@InjectMocks
+	private TransferQueueService transferQueueService;
+
+	@Test
+	void enqueue_answersAcceptedWithTheStoredBody() {
+		// arrange
+		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).firstSeenAt(OffsetDateTime.now())
+			.requestHash(new byte[]{1, 2}).status(IdempotencyStatus.IN_PROGRESS).build();
+		var req = TransferRequestDto.builder().fromWalletId(UUID.randomUUID()).toWalletId(UUID.randomUUID()).amount(BigDecimal.TEN).build();
+		when(contextUtils.getCurrentContextPath()).thenReturn("/wallet-api");
+		when(idempotencyService.encodeResponse(any())).thenReturn(bytes("{accepted}"));
+		when(transferQueueRepository.enqueue(any(), eq(bytes("{accepted}")))).thenReturn(1);
+		when(idempotencyService.buildResponse(eq(202), any())).thenCallRealMethod();
+		// act
+		var response = transferQueueService.enqueue(key, req);
+		// assert
+		assertEquals(202, response.getStatusCode().value());
+		assertArrayEquals(bytes("{accepted}"), response.getBody());
+		var queued = ArgumentCaptor.forClass(QueuedTransfer.class);
+		verify(transferQueueRepository).enqueue(queued.capture(), any());
+		assertEquals(key.getRefId(), queued.getValue().getTransferId());
+		assertEquals(key.getFirstSeenAt(), queued.getValue().getFirstSeenAt());
+	}
+
+	@Test
+	void enqueue_throwsWhenKeyIsNoLongerInProgress() {
+		// arrange
+		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+		var req = TransferRequestDto.builder().fromWalletId(UUID.randomUUID()).toWalletId(UUID.randomUUID()).amount(BigDecimal.TEN).build();
+		when(contextUtils.getCurrentContextPath()).thenReturn("");
+		when(idempotencyService.encodeResponse(any())).thenReturn(bytes("{accepted}"));
+		when(transferQueueRepository.enqueue(any(), any())).thenReturn(0);
+		// act & assert
+		assertThrows(IllegalStateException.class, () -> transferQueueService.enqueue(key, req));
+	}
+
+	@Test
+	void drain_appliesClaimedBatchAndRecordsQueueWait() {
+		// arrange
+		var batch = List.of(QueuedTransfer.builder().queueId(1L).enqueuedAt(OffsetDateTime.now().minusSeconds(1)).build());
+		when(transferQueueRepository.claimBatch(50)).thenReturn(batch);
+		// act
+		var drained = transferQueueService.drain(50);
+		// assert
+		assertEquals(1, drained);
+		verify(transferExecutorService).executeQueued(batch);
+		assertEquals(1, meterRegistry.timer(TransferQueueService.QUEUE_WAIT_METRIC).count());
+	}
+
+	@Test
+	void drain_appliesPreviouslyFailedTransferAlone() {
+		// arrange
+		var retry = List.of(QueuedTransfer.builder().queueId(7L).attempts(1).enqueuedAt(OffsetDateTime.now()).build());
+		when(transferQueueRepository.claimRetry()).thenReturn(retry);
+		// act
+		var drained = transferQueueService.drain(50);
+		// assert
+		assertEquals(1, drained);
+		verify(transferExecutorService).executeQueued(retry);
+		verify(transferQueueRepository, never()).claimBatch(anyInt());
+	}
+
+	@Test
+	void drain_namesTheTransfersOfAFailedBatch() {
+		// arrange
+		var batch = List.of(QueuedTransfer.builder().queueId(1L).build(), QueuedTransfer.builder().queueId(2L).build());
+		when(transferQueueRepository.claimBatch(50)).thenReturn(batch);
+		doThrow(new IllegalStateException("boom")).when(transferExecutorService).executeQueued(batch);
+		// act
+		var e = assertThrows(TransferQueueService.QueuedTransfersFailedException.class, () -> transferQueueService.drain(50));
+		// assert
+		assertEquals(List.of(1L, 2L), e.getQueueIds());
+		assertEquals(0, meterRegistry.timer(TransferQueueService.QUEUE_WAIT_METRIC).count());
+	}
+
+	@Test
+	void recordFailedAttempt_completesDeadLetteredKeysAsFailed() {
+		// arrange
+		var dead = QueuedTransfer.builder().queueId(2L).idempotencyKey(UUID.randomUUID()).firstSeenAt(OffsetDateTime.now())
+			.requestHash(new byte[]{1}).transferId(UUID.randomUUID()).attempts(5).deadLetteredAt(OffsetDateTime.now()).build();
+		when(transferQueueRepository.recordFailedAttempt(List.of(1L, 2L), 5, 1000L)).thenReturn(List.of(dead));
+		// act
+		transferQueueService.recordFailedAttempt(List.of(1L, 2L), 5, 1000L);
+		// assert
+		assertEquals(1, meterRegistry.counter(TransferQueueService.DEAD_LETTERED_METRIC).count());
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<IdempotencyService.Outcome>> outcomes = ArgumentCaptor.forClass(List.class);
+		verify(idempotencyService).markAcceptedCompleted(outcomes.capture());
+		var outcome = outcomes.getValue().getFirst();
+		assertEquals(dead.getIdempotencyKey(), outcome.key().getIdempotencyKey());
+		assertEquals(dead.getFirstSeenAt(), outcome.key().getFirstSeenAt());
+		assertEquals(500, outcome.httpStatus());
+		assertEquals(IdempotencyStatus.FAILED, outcome.status());
+	}
+
+	@Test
+	void recordFailedAttempt_leavesKeysOfRetriedTransfersAccepted() {
+		// arrange
+		when(transferQueueRepository.recordFailedAttempt(List.of(1L), 5, 1000L)).thenReturn(List.of());
+		// act
+		transferQueueService.recordFailedAttempt(List.of(1L), 5, 1000L);
+		// assert
+		verify(idempotencyService, never()).markAcceptedCompleted(any());
+	}
+
+	@Test
+	void drain_skipsEmptyQueue() {
+		// arrange
+		when(transferQueueRepository.claimBatch(50)).thenReturn(List.of());
+		// act
+		var drained = transferQueueService.drain(50);
+		// assert
+		assertEquals(0, drained);
+		verify(transferExecutorService, never()).executeQueued(any());
+	}
+
+	private static byte[] bytes(String json) {
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -1,21 +1,35 @@
 package com.bank.wallet.service;
 
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.dto.transfer.TransferBatchMode;
+import com.bank.wallet.dto.transfer.TransferBatchRequestDto;
 import com.bank.wallet.dto.transfer.TransferRequestDto;
 import com.bank.wallet.entity.IdempotencyKey;
 import com.bank.wallet.entity.enums.IdempotencyStatus;
+import com.bank.wallet.exception.TransferRequestNotFoundException;
+import com.bank.wallet.exception.WalletNotFoundException;
+import com.bank.wallet.util.AdmissionControl;
 import com.bank.wallet.validator.TransactionValidator;
 import com.bank.wallet.validator.TransferValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -30,7 +44,16 @@ class TransferServiceTest {
 	private TransactionValidator transactionValidator;
 	@Mock
 	private TransferValidator transferValidator;
+	@Spy
+	private WalletProperties walletProperties = new WalletProperties();
 
+	@Mock
+	private TransferQueueService transferQueueService;
+
+	@Spy
+	private AdmissionControl admissionControl = new AdmissionControl(new WalletProperties(), new SimpleMeterRegistry(), 10);
+	@Mock
+	private WalletExistenceFilter walletExistenceFilter;
 	@InjectMocks
 	private TransferService transferService;
 
@@ -45,14 +68,28 @@ class TransferServiceTest {
 		var key = IdempotencyKey.builder().idempotencyKey(idKey).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
 		when(idempotencyService.claim(idKey, req)).thenReturn(key);
 		when(idempotencyService.isReplay(key)).thenReturn(false);
-		when(transferExecutorService.execute(key, req)).thenReturn(ResponseEntity.ok("body"));
+		when(transferExecutorService.execute(key, req)).thenReturn(ResponseEntity.ok("body".getBytes(StandardCharsets.UTF_8)));
 		// act
 		var response = transferService.create(req, idKey);
 		// assert
 		verify(transactionValidator).validateIdempotencyKey(idKey);
 		verify(transferValidator).validate(req, key);
 		assertEquals(200, response.getStatusCode().value());
-		assertEquals("body", response.getBody());
+		assertEquals("body", new String(response.getBody(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void create_rejectsUnknownWalletBeforeClaim() {
+		// arrange
+		var from = UUID.randomUUID();
+		var to = UUID.randomUUID();
+		var req = TransferRequestDto.builder().fromWalletId(from).toWalletId(to).amount(new BigDecimal("1.00")).build();
+		var idKey = UUID.randomUUID();
+		when(walletExistenceFilter.isMissing(from)).thenReturn(false);
+		when(walletExistenceFilter.isMissing(to)).thenReturn(true);
+		// act & assert
+		assertThrows(WalletNotFoundException.class, () -> transferService.create(req, idKey));
+		verify(idempotencyService, never()).claim(any(), any());
 	}
 
 	@Test
@@ -63,15 +100,94 @@ class TransferServiceTest {
 		var amount = new BigDecimal("5.00");
 		var req = TransferRequestDto.builder().fromWalletId(from).toWalletId(to).amount(amount).build();
 		var idKey = UUID.randomUUID();
-		var key = IdempotencyKey.builder().idempotencyKey(idKey).refId(UUID.randomUUID()).status(IdempotencyStatus.SUCCEEDED).responseStatus(200).responseBody("cached").build();
+		var key = IdempotencyKey.builder().idempotencyKey(idKey).refId(UUID.randomUUID()).status(IdempotencyStatus.SUCCEEDED).responseStatus(200).responseBody("cached".getBytes(StandardCharsets.UTF_8)).build();
 		when(idempotencyService.claim(idKey, req)).thenReturn(key);
 		when(idempotencyService.isReplay(key)).thenReturn(true);
-		when(idempotencyService.buildReplayResponse(key)).thenReturn(ResponseEntity.ok("cached"));
+		when(idempotencyService.buildReplayResponse(key)).thenReturn(ResponseEntity.ok("cached".getBytes(StandardCharsets.UTF_8)));
 		// act
 		var response = transferService.create(req, idKey);
 		// assert
 		verify(transactionValidator).validateIdempotencyKey(idKey);
 		verify(transferValidator).validate(req, key);
-		assertEquals("cached", response.getBody());
+		assertEquals("cached", new String(response.getBody(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void createBatch_validatesSizeAfterClaim() {
+		// arrange
+		var req = TransferBatchRequestDto.builder()
+			.mode(TransferBatchMode.BEST_EFFORT)
+			.transfers(List.of(TransferRequestDto.builder().fromWalletId(UUID.randomUUID()).toWalletId(UUID.randomUUID()).amount(BigDecimal.ONE).build()))
+			.build();
+		var idKey = UUID.randomUUID();
+		var key = IdempotencyKey.builder().idempotencyKey(idKey).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+		when(idempotencyService.claim(idKey, req)).thenReturn(key);
+		when(idempotencyService.isReplay(key)).thenReturn(false);
+		when(transferExecutorService.executeBatch(key, req)).thenReturn(ResponseEntity.ok("batch".getBytes(StandardCharsets.UTF_8)));
+		// act
+		var response = transferService.createBatch(req, idKey);
+		// assert
+		verify(transferValidator).validateBatch(req, 1000, key);
+		assertEquals("batch", new String(response.getBody(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void createAsync_queuesWhenEnabled() {
+		// arrange
+		walletProperties.getTransfer().getAsync().setEnabled(true);
+		var req = TransferRequestDto.builder().fromWalletId(UUID.randomUUID()).toWalletId(UUID.randomUUID()).amount(BigDecimal.ONE).build();
+		var idKey = UUID.randomUUID();
+		var key = IdempotencyKey.builder().idempotencyKey(idKey).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+		when(idempotencyService.claim(idKey, req)).thenReturn(key);
+		when(idempotencyService.isReplay(key)).thenReturn(false);
+		when(transferQueueService.enqueue(key, req)).thenReturn(ResponseEntity.accepted().body("accepted".getBytes(StandardCharsets.UTF_8)));
+		// act
+		var response = transferService.createAsync(req, idKey);
+		// assert
+		assertEquals(202, response.getStatusCode().value());
+		verify(transferValidator).validate(req, key);
+		verify(transferExecutorService, never()).execute(any(), any());
+	}
+
+	@Test
+	void createAsync_runsSynchronouslyWhenDisabled() {
+		// arrange
+		var req = TransferRequestDto.builder().fromWalletId(UUID.randomUUID()).toWalletId(UUID.randomUUID()).amount(BigDecimal.ONE).build();
+		var idKey = UUID.randomUUID();
+		var key = IdempotencyKey.builder().idempotencyKey(idKey).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+		when(idempotencyService.claim(idKey, req)).thenReturn(key);
+		when(idempotencyService.isReplay(key)).thenReturn(false);
+		when(transferExecutorService.execute(key, req)).thenReturn(ResponseEntity.ok("body".getBytes(StandardCharsets.UTF_8)));
+		// act
+		var response = transferService.createAsync(req, idKey);
+		// assert
+		assertEquals(200, response.getStatusCode().value());
+		verify(transferQueueService, never()).enqueue(any(), any());
+	}
+
+	@Test
+	void getRequestStatus_replaysStoredResponse() {
+		// arrange
+		var idKey = UUID.randomUUID();
+		var key = IdempotencyKey.builder().idempotencyKey(idKey).method("POST").path("/wallet-api/api/v1/transfers").refId(UUID.randomUUID())
+			.status(IdempotencyStatus.FAILED).responseStatus(409).responseBody("failed".getBytes(StandardCharsets.UTF_8)).build();
+		when(idempotencyService.findLatest(idKey)).thenReturn(Optional.of(key));
+		when(idempotencyService.isReplay(key)).thenReturn(true);
+		when(idempotencyService.buildReplayResponse(key)).thenReturn(ResponseEntity.status(409).body("failed".getBytes(StandardCharsets.UTF_8)));
+		// act
+		var response = transferService.getRequestStatus(idKey);
+		// assert
+		assertEquals(409, response.getStatusCode().value());
+	}
+
+	@Test
+	void getRequestStatus_rejectsKeysOfOtherRequests() {
+		// arrange
+		var idKey = UUID.randomUUID();
+		var key = IdempotencyKey.builder().idempotencyKey(idKey).method("POST").path("/wallet-api/api/v1/wallets/" + UUID.randomUUID() + "/deposit")
+			.status(IdempotencyStatus.SUCCEEDED).build();
+		when(idempotencyService.findLatest(idKey)).thenReturn(Optional.of(key));
+		// act & assert
+		assertThrows(TransferRequestNotFoundException.class, () -> transferService.getRequestStatus(idKey));
 	}
 }
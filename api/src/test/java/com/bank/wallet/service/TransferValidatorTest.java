@@ -1,5 +1,7 @@
 package com.bank.wallet.service;
 
+import com.bank.wallet.dto.transfer.DisbursementPayoutDto;
+import com.bank.wallet.dto.transfer.DisbursementRequestDto;
 import com.bank.wallet.dto.transfer.TransferRequestDto;
 import com.bank.wallet.entity.IdempotencyKey;
 import com.bank.wallet.entity.enums.IdempotencyStatus;
@@ -10,8 +12,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @ExtendWith(MockitoExtension.class)
@@ -55,4 +59,48 @@ class TransferValidatorTest {
 		// act & assert
 		assertThrows(SemanticValidationException.class, () -> validator.validate(req, key));
 	}
+
+	@Test
+	void validateDisbursement_distinctPayouts() {
+		// arrange
+		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+		var req = DisbursementRequestDto.builder().fromWalletId(UUID.randomUUID())
+			.payouts(List.of(payout(UUID.randomUUID()), payout(UUID.randomUUID()))).build();
+		// act & assert
+		assertDoesNotThrow(() -> validator.validateDisbursement(req, 2, key));
+	}
+
+	@Test
+	void validateDisbursement_duplicateDestination() {
+		// arrange
+		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+		var to = UUID.randomUUID();
+		var req = DisbursementRequestDto.builder().fromWalletId(UUID.randomUUID()).payouts(List.of(payout(to), payout(to))).build();
+		// act & assert
+		assertThrows(SemanticValidationException.class, () -> validator.validateDisbursement(req, 10, key));
+	}
+
+	@Test
+	void validateDisbursement_payoutToSource() {
+		// arrange
+		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+		var from = UUID.randomUUID();
+		var req = DisbursementRequestDto.builder().fromWalletId(from).payouts(List.of(payout(from))).build();
+		// act & assert
+		assertThrows(SemanticValidationException.class, () -> validator.validateDisbursement(req, 10, key));
+	}
+
+	@Test
+	void validateDisbursement_tooManyPayouts() {
+		// arrange
+		var key = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).refId(UUID.randomUUID()).status(IdempotencyStatus.IN_PROGRESS).build();
+		var req = DisbursementRequestDto.builder().fromWalletId(UUID.randomUUID())
+			.payouts(List.of(payout(UUID.randomUUID()), payout(UUID.randomUUID()))).build();
+		// act & assert
+		assertThrows(SemanticValidationException.class, () -> validator.validateDisbursement(req, 1, key));
+	}
+
+	private static DisbursementPayoutDto payout(UUID to) {
+		return DisbursementPayoutDto.builder().toWalletId(to).amount(new BigDecimal("1.00")).build();
+	}
 }
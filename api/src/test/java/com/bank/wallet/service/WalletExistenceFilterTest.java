@@ -0,0 +1,113 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.repository.WalletRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class WalletExistenceFilterTest {
+
+	private static final UUID FIRST = new UUID(0, 0);
+
+	private final WalletRepository walletRepository = mock(WalletRepository.class);
+	private final WalletProperties properties = new WalletProperties();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final UUID a = UUID.randomUUID();
+	private final UUID b = UUID.randomUUID();
+	private final UUID c = UUID.randomUUID();
+	private WalletExistenceFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		properties.getWalletFilter().setScanPageSize(2);
+		properties.getWalletFilter().setMinimumCapacity(1000);
+		filter = new WalletExistenceFilter(walletRepository, properties, meterRegistry);
+		filter.setListening(true);
+		when(walletRepository.estimateCount()).thenReturn(3L);
+	}
+
+	@Test
+	void isMissing_treatsEveryWalletAsPossibleBeforeFirstScan() {
+		// act & assert
+		assertFalse(filter.isMissing(UUID.randomUUID()));
+		assertFalse(filter.isDefinitelyAbsent(UUID.randomUUID()));
+		verifyNoInteractions(walletRepository);
+	}
+
+	@Test
+	void rebuild_scansWalletsPageByPage() {
+		// arrange
+		when(walletRepository.findIdsAfter(FIRST, 2)).thenReturn(List.of(a, b));
+		when(walletRepository.findIdsAfter(b, 2)).thenReturn(List.of(c));
+		// act
+		filter.rebuild();
+		// assert
+		assertFalse(filter.isMissing(a));
+		assertFalse(filter.isMissing(b));
+		assertFalse(filter.isMissing(c));
+		assertTrue(filter.isMissing(UUID.randomUUID()));
+		assertEquals(3.0, meterRegistry.get(WalletExistenceFilter.SIZE_METRIC).gauge().value());
+		assertEquals(1, meterRegistry.get(WalletExistenceFilter.REBUILD_METRIC).timer().count());
+		assertEquals(1.0, meterRegistry.get(WalletExistenceFilter.CHECKS_METRIC).tag("result", "absent").counter().count());
+	}
+
+	@Test
+	void isMissing_skipsDatabaseWhileListening() {
+		// arrange
+		when(walletRepository.findIdsAfter(FIRST, 2)).thenReturn(List.of(a));
+		filter.rebuild();
+		// act
+		var missing = filter.isMissing(UUID.randomUUID());
+		// assert
+		assertTrue(missing);
+		verify(walletRepository, never()).existsById(any());
+	}
+
+	@Test
+	void isMissing_confirmsMissWhileListenerIsDownAndRemembersWallet() {
+		// arrange
+		var created = UUID.randomUUID();
+		filter.setListening(false);
+		when(walletRepository.findIdsAfter(FIRST, 2)).thenReturn(List.of(a));
+		when(walletRepository.existsById(created)).thenReturn(true);
+		filter.rebuild();
+		// act
+		var first = filter.isMissing(created);
+		var second = filter.isMissing(created);
+		// assert
+		assertFalse(first);
+		assertFalse(second);
+		verify(walletRepository, times(1)).existsById(created);
+		assertEquals(1.0, meterRegistry.get(WalletExistenceFilter.CHECKS_METRIC).tag("result", "recovered").counter().count());
+	}
+
+	@Test
+	void add_keepsWalletsCreatedDuringScan() {
+		// arrange
+		var created = UUID.randomUUID();
+		when(walletRepository.findIdsAfter(FIRST, 2)).thenAnswer(invocation -> {
+			filter.add(created);
+			return List.of(a);
+		});
+		// act
+		filter.rebuild();
+		// assert
+		assertFalse(filter.isDefinitelyAbsent(created));
+		assertFalse(filter.isMissing(created));
+	}
+}
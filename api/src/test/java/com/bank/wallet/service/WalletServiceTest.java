@@ -1,5 +1,6 @@
 package com.bank.wallet.service;
 
+import com.bank.wallet.config.WalletProperties;
 import com.bank.wallet.entity.IdempotencyKey;
 import com.bank.wallet.entity.LedgerEntry;
 import com.bank.wallet.entity.Wallet;
@@ -8,7 +9,11 @@ import com.bank.wallet.exception.InsufficientFundsException;
 import com.bank.wallet.exception.WalletNotFoundException;
 import com.bank.wallet.mapper.WalletMapper;
 import com.bank.wallet.repository.WalletRepository;
+import com.bank.wallet.util.ContextUtils;
+import com.bank.wallet.util.CursorUtils;
+import com.bank.wallet.util.ReadRouting;
 import com.bank.wallet.validator.WalletValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -23,8 +28,13 @@ import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,6 +49,14 @@ class WalletServiceTest {
 	private WalletValidator walletValidator;
 	@Spy
 	private WalletMapper walletMapper = new WalletMapper();
+	@Spy
+	private CursorUtils cursorUtils = new CursorUtils();
+	@Spy
+	private ReadRouting readRouting = new ReadRouting(mock(ContextUtils.class), new SimpleMeterRegistry(), new WalletProperties());
+	@Mock
+	private WalletSnapshotCache walletSnapshotCache;
+	@Mock
+	private WalletExistenceFilter walletExistenceFilter;
 	@InjectMocks
 	private WalletService walletService;
 
@@ -64,7 +82,7 @@ class WalletServiceTest {
 		// arrange
 		var walletId = UUID.randomUUID();
 		var amount = new BigDecimal("25.50");
-		when(walletRepository.depositAndGetNewBalance(walletId, amount)).thenReturn(Optional.of(new BigDecimal("100.75")));
+		when(walletRepository.depositAndGetNewBalance(eq(walletId), eq(amount), anyInt())).thenReturn(Optional.of(new BigDecimal("100.75")));
 		var idk = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).build();
 		// act
 		var result = walletService.depositAndGetNewBalance(idk, walletId, amount);
@@ -77,18 +95,32 @@ class WalletServiceTest {
 		// arrange
 		var walletId = UUID.randomUUID();
 		var amount = new BigDecimal("10.00");
-		when(walletRepository.depositAndGetNewBalance(walletId, amount)).thenReturn(Optional.empty());
+		when(walletRepository.depositAndGetNewBalance(eq(walletId), eq(amount), anyInt())).thenReturn(Optional.empty());
 		var idk = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).build();
 		// act & assert
 		assertThrows(WalletNotFoundException.class, () -> walletService.depositAndGetNewBalance(idk, walletId, amount));
 	}
 
+	@Test
+	void depositAndGetNewBalance_postsShardedWalletInOneStatement() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var amount = new BigDecimal("10.00");
+		when(walletRepository.depositAndGetNewBalance(eq(walletId), eq(amount), anyInt())).thenReturn(Optional.of(new BigDecimal("510.00")));
+		var idk = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).build();
+		// act
+		var result = walletService.depositAndGetNewBalance(idk, walletId, amount);
+		// assert
+		assertEquals(new BigDecimal("510.00"), result);
+		verify(walletRepository).depositAndGetNewBalance(eq(walletId), eq(amount), anyInt());
+	}
+
 	@Test
 	void withdrawAndGetNewBalance_returnsNewBalance() {
 		// arrange
 		var walletId = UUID.randomUUID();
 		var amount = new BigDecimal("15.00");
-		when(walletRepository.withdrawAndGetNewBalance(walletId, amount)).thenReturn(Optional.of(new BigDecimal("85.00")));
+		when(walletRepository.withdrawAndGetNewBalance(eq(walletId), eq(amount), anyInt())).thenReturn(Optional.of(new BigDecimal("85.00")));
 		var idk = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).build();
 		// act
 		var result = walletService.withdrawAndGetNewBalance(idk, walletId, amount);
@@ -101,7 +133,7 @@ class WalletServiceTest {
 		// arrange
 		var walletId = UUID.randomUUID();
 		var amount = new BigDecimal("5.00");
-		when(walletRepository.withdrawAndGetNewBalance(walletId, amount)).thenReturn(Optional.empty());
+		when(walletRepository.withdrawAndGetNewBalance(eq(walletId), eq(amount), anyInt())).thenReturn(Optional.empty());
 		when(walletRepository.existsById(walletId)).thenReturn(false);
 		var idk = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).build();
 		// act & assert
@@ -113,7 +145,7 @@ class WalletServiceTest {
 		// arrange
 		var walletId = UUID.randomUUID();
 		var amount = new BigDecimal("200.00");
-		when(walletRepository.withdrawAndGetNewBalance(walletId, amount)).thenReturn(Optional.empty());
+		when(walletRepository.withdrawAndGetNewBalance(eq(walletId), eq(amount), anyInt())).thenReturn(Optional.empty());
 		when(walletRepository.existsById(walletId)).thenReturn(true);
 		var idk = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).build();
 		// act & assert
@@ -123,23 +155,97 @@ class WalletServiceTest {
 	}
 
 	@Test
-	void getBalanceAsOf_returnsBalance() {
+	void withdrawAndGetNewBalance_skipsLookupWhenFilterRulesWalletOut() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var amount = new BigDecimal("5.00");
+		when(walletRepository.withdrawAndGetNewBalance(eq(walletId), eq(amount), anyInt())).thenReturn(Optional.empty());
+		when(walletExistenceFilter.isDefinitelyAbsent(walletId)).thenReturn(true);
+		var idk = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).build();
+		// act & assert
+		assertThrows(WalletNotFoundException.class, () -> walletService.withdrawAndGetNewBalance(idk, walletId, amount));
+		verify(walletRepository, never()).existsById(walletId);
+	}
+
+	@Test
+	void withdrawAndGetNewBalance_postsShardedWalletInOneStatement() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var amount = new BigDecimal("30.00");
+		when(walletRepository.withdrawAndGetNewBalance(eq(walletId), eq(amount), anyInt())).thenReturn(Optional.of(new BigDecimal("70.00")));
+		var idk = IdempotencyKey.builder().idempotencyKey(UUID.randomUUID()).build();
+		// act
+		var result = walletService.withdrawAndGetNewBalance(idk, walletId, amount);
+		// assert
+		assertEquals(new BigDecimal("70.00"), result);
+		verify(walletRepository).withdrawAndGetNewBalance(eq(walletId), eq(amount), anyInt());
+		verify(walletRepository, never()).existsById(walletId);
+	}
+
+	@Test
+	void getWallet_returnsTotalAcrossShards() {
 		// arrange
 		var walletId = UUID.randomUUID();
-		var createdAt = OffsetDateTime.now().minusHours(2);
 		var wallet = Wallet.builder()
 			.walletId(walletId)
-			.currentBalance(new BigDecimal("150.00"))
-			.createdAt(createdAt)
-			.updatedAt(createdAt.plusMinutes(5))
+			.currentBalance(new BigDecimal("300.0000"))
+			.shardCount(8)
+			.createdAt(OffsetDateTime.now())
+			.updatedAt(OffsetDateTime.now())
 			.build();
-		when(walletRepository.findById(walletId)).thenReturn(Optional.of(wallet));
+		when(walletRepository.findWithTotalBalance(walletId)).thenReturn(Optional.of(wallet));
+		// act
+		var dto = walletService.getWallet(walletId);
+		// assert
+		assertEquals(new BigDecimal("300.00"), dto.getCurrentBalance());
+		assertEquals(8, dto.getShardCount());
+	}
+
+	@Test
+	void getWallet_usesSnapshotCacheWhenListening() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var wallet = Wallet.builder().walletId(walletId).currentBalance(new BigDecimal("12.0000")).createdAt(OffsetDateTime.now()).build();
+		when(walletSnapshotCache.isUsable()).thenReturn(true);
+		when(walletSnapshotCache.get(eq(walletId), any())).thenReturn(Optional.of(wallet));
+		// act
+		var dto = walletService.getWallet(walletId);
+		// assert
+		assertEquals(new BigDecimal("12.00"), dto.getCurrentBalance());
+		verify(walletRepository, never()).findWithTotalBalance(any());
+	}
+
+	@Test
+	void depositAndGetNewBalance_writesThroughSnapshotCache() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		when(walletRepository.depositAndGetNewBalance(eq(walletId), eq(new BigDecimal("5")), anyInt())).thenReturn(Optional.of(new BigDecimal("15")));
+		// act
+		walletService.depositAndGetNewBalance(IdempotencyKey.builder().build(), walletId, new BigDecimal("5"));
+		// assert
+		verify(walletSnapshotCache).applyAfterCommit(walletId, new BigDecimal("10"), new BigDecimal("15"));
+	}
+
+	@Test
+	void reshard_throwsWhenWalletMissing() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		when(walletRepository.reshard(walletId, 4)).thenReturn(Optional.empty());
+		// act & assert
+		assertThrows(WalletNotFoundException.class, () -> walletService.reshard(walletId, 4));
+	}
+
+	@Test
+	void getBalanceAsOf_returnsBalanceWithoutLoadingWallet() {
+		// arrange
+		var walletId = UUID.randomUUID();
 		var at = OffsetDateTime.now().minusHours(1);
-		when(ledgerService.getBalanceAsOf(walletId, at)).thenReturn(new BigDecimal("123.456"));
+		when(ledgerService.getBalanceAsOf(walletId, at)).thenReturn(Optional.of(new BigDecimal("123.456")));
 		// act
 		var dto = walletService.getBalanceAsOf(walletId, at);
 		// assert
 		verify(walletValidator).validateAt(at);
+		verify(walletRepository, never()).findById(any());
 		assertEquals(walletId, dto.getWalletId());
 		assertEquals(new BigDecimal("123.46"), dto.getBalance());
 		assertEquals(at, dto.getAsOf());
@@ -158,6 +264,7 @@ class WalletServiceTest {
 			.build();
 		when(walletRepository.findById(walletId)).thenReturn(Optional.of(wallet));
 		var at = createdAt.minusDays(1);
+		when(ledgerService.getBalanceAsOf(walletId, at)).thenReturn(Optional.empty());
 		// act
 		var dto = walletService.getBalanceAsOf(walletId, at);
 		// assert
@@ -165,6 +272,17 @@ class WalletServiceTest {
 		assertEquals(new BigDecimal("0.00"), dto.getBalance());
 	}
 
+	@Test
+	void getBalanceAsOf_throwsWhenWalletMissing() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var at = OffsetDateTime.now().minusHours(1);
+		when(ledgerService.getBalanceAsOf(walletId, at)).thenReturn(Optional.empty());
+		when(walletRepository.findById(walletId)).thenReturn(Optional.empty());
+		// act & assert
+		assertThrows(WalletNotFoundException.class, () -> walletService.getBalanceAsOf(walletId, at));
+	}
+
 	@Test
 	void listLedger_returnsPagedEntries() {
 		// arrange
@@ -189,6 +307,7 @@ class WalletServiceTest {
 			.postingType(PostingType.DEPOSIT)
 			.createdAt(from.plusHours(1))
 			.currentBalance(new BigDecimal("10.123"))
+			.postingSeq(41L)
 			.build();
 		var entry2 = LedgerEntry.builder()
 			.ledgerId(UUID.randomUUID())
@@ -198,13 +317,77 @@ class WalletServiceTest {
 			.postingType(PostingType.WITHDRAW)
 			.createdAt(from.plusHours(2))
 			.currentBalance(new BigDecimal("4.623"))
+			.postingSeq(42L)
 			.build();
 		when(ledgerService.findPage(walletId, page, size, from, to)).thenReturn(java.util.List.of(entry1, entry2));
 		when(ledgerService.count(walletId, from, to)).thenReturn(2L);
 		// act
-		var dto = walletService.listLedger(walletId, page, size, from, to);
+		var dto = walletService.listLedger(walletId, page, size, from, to, null, true);
 		// assert
 		verify(walletValidator).validateDateRange(from, to);
 		assertEquals(2, dto.getEntries().size());
+		assertEquals(2L, dto.getTotal());
+		assertEquals(new CursorUtils.LedgerCursor(entry2.getCreatedAt(), 42L, entry2.getLedgerId()), cursorUtils.decode(dto.getNextCursor()));
+	}
+
+	@Test
+	void listLedger_seeksFromCursorWithoutCounting() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var wallet = Wallet.builder().walletId(walletId).currentBalance(BigDecimal.ONE).createdAt(OffsetDateTime.now().minusDays(3)).build();
+		when(walletRepository.findById(walletId)).thenReturn(Optional.of(wallet));
+		var from = OffsetDateTime.now().minusDays(2);
+		var to = OffsetDateTime.now().minusDays(1);
+		var position = new CursorUtils.LedgerCursor(from.plusHours(5), 7L, UUID.randomUUID());
+		var entry = LedgerEntry.builder()
+			.ledgerId(UUID.randomUUID())
+			.walletId(walletId)
+			.amount(BigDecimal.ONE)
+			.postingType(PostingType.DEPOSIT)
+			.createdAt(from.plusHours(1))
+			.currentBalance(BigDecimal.ONE)
+			.build();
+		when(ledgerService.findPageAfter(walletId, position, 2, from, to)).thenReturn(java.util.List.of(entry));
+		// act
+		var dto = walletService.listLedger(walletId, 0, 2, from, to, cursorUtils.encode(position.createdAt(), position.postingSeq(), position.ledgerId()), false);
+		// assert
+		verify(ledgerService, never()).count(any(), any(), any());
+		verify(ledgerService, never()).findPage(any(), anyInt(), anyInt(), any(), any());
+		assertEquals(1, dto.getEntries().size());
+		assertNull(dto.getTotal());
+		assertNull(dto.getNextCursor());
+	}
+
+	@Test
+	void listLedger_acceptsCursorWithoutPostingSeq() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var wallet = Wallet.builder().walletId(walletId).currentBalance(BigDecimal.ONE).createdAt(OffsetDateTime.now().minusDays(3)).build();
+		when(walletRepository.findById(walletId)).thenReturn(Optional.of(wallet));
+		var from = OffsetDateTime.now().minusDays(2);
+		var to = OffsetDateTime.now().minusDays(1);
+		var createdAt = from.plusHours(5);
+		var ledgerId = UUID.randomUUID();
+		var legacy = java.util.Base64.getUrlEncoder().withoutPadding()
+			.encodeToString((createdAt + "|" + ledgerId).getBytes(java.nio.charset.StandardCharsets.UTF_8));
+		var position = new CursorUtils.LedgerCursor(createdAt, Long.MAX_VALUE, ledgerId);
+		when(ledgerService.findPageAfter(walletId, position, 2, from, to)).thenReturn(java.util.List.of());
+		// act
+		var dto = walletService.listLedger(walletId, 0, 2, from, to, legacy, false);
+		// assert
+		verify(ledgerService).findPageAfter(walletId, position, 2, from, to);
+		assertNull(dto.getNextCursor());
+	}
+
+	@Test
+	void listLedger_rejectsMalformedCursor() {
+		// arrange
+		var walletId = UUID.randomUUID();
+		var wallet = Wallet.builder().walletId(walletId).currentBalance(BigDecimal.ONE).createdAt(OffsetDateTime.now().minusDays(3)).build();
+		when(walletRepository.findById(walletId)).thenReturn(Optional.of(wallet));
+		var from = OffsetDateTime.now().minusDays(2);
+		var to = OffsetDateTime.now().minusDays(1);
+		// act & assert
+		assertThrows(IllegalArgumentException.class, () -> walletService.listLedger(walletId, 0, 2, from, to, "not-a-cursor", false));
 	}
 }
@@ -0,0 +1,118 @@
+package com.bank.wallet.service;
+
+import com.bank.wallet.config.CacheConfig;
+import com.bank.wallet.config.WalletProperties;
+import com.bank.wallet.entity.Wallet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WalletSnapshotCacheTest {
+
+	private final UUID walletId = UUID.randomUUID();
+	private WalletSnapshotCache walletCache;
+	private int loads;
+
+	@BeforeEach
+	void setUp() {
+		var properties = new WalletProperties();
+		properties.getWalletCache().setEnabled(true);
+		var cacheManager = new CaffeineCacheManager();
+		new CacheConfig().walletCacheCustomizer(properties).customize(cacheManager);
+		walletCache = new WalletSnapshotCache(cacheManager, properties, new SimpleMeterRegistry());
+		walletCache.setListening(true);
+	}
+
+	@Test
+	void get_loadsOnceThenServesSnapshot() {
+		// act
+		walletCache.get(walletId, this::load);
+		var wallet = walletCache.get(walletId, this::load);
+		// assert
+		assertEquals(1, loads);
+		assertEquals(0, new BigDecimal("10").compareTo(wallet.orElseThrow().getCurrentBalance()));
+	}
+
+	@Test
+	void applyAfterCommit_advancesSnapshotFromPreviousBalance() {
+		// arrange
+		walletCache.get(walletId, this::load);
+		// act
+		walletCache.applyAfterCommit(walletId, new BigDecimal("10"), new BigDecimal("15"));
+		// assert
+		assertEquals(0, new BigDecimal("15").compareTo(walletCache.get(walletId, this::load).orElseThrow().getCurrentBalance()));
+		assertEquals(1, loads);
+	}
+
+	@Test
+	void applyAfterCommit_outOfOrderWrite_evictsSnapshot() {
+		// arrange
+		walletCache.get(walletId, this::load);
+		// act
+		walletCache.applyAfterCommit(walletId, new BigDecimal("20"), new BigDecimal("25"));
+		walletCache.get(walletId, this::load);
+		// assert
+		assertEquals(2, loads);
+	}
+
+	@Test
+	void onChange_withBalance_replacesSnapshot() {
+		// arrange
+		walletCache.get(walletId, this::load);
+		var change = WalletChangeListener.parse(walletId + "," + System.currentTimeMillis() + ",42.5000,1760000000000000");
+		// act
+		walletCache.onChange(change);
+		// assert
+		var wallet = walletCache.get(walletId, this::load).orElseThrow();
+		assertEquals(0, new BigDecimal("42.5").compareTo(wallet.getCurrentBalance()));
+		assertEquals(1, loads);
+	}
+
+	@Test
+	void onChange_withoutBalance_evictsSnapshot() {
+		// arrange
+		walletCache.get(walletId, this::load);
+		var change = WalletChangeListener.parse(walletId + "," + System.currentTimeMillis());
+		// act
+		walletCache.onChange(change);
+		walletCache.get(walletId, this::load);
+		// assert
+		assertNull(change.balance());
+		assertEquals(2, loads);
+	}
+
+	@Test
+	void setListening_false_bypassesAndClears() {
+		// arrange
+		walletCache.get(walletId, this::load);
+		// act
+		walletCache.setListening(false);
+		// assert
+		assertFalse(walletCache.isUsable());
+		walletCache.setListening(true);
+		assertTrue(walletCache.isUsable());
+		walletCache.get(walletId, this::load);
+		assertEquals(2, loads);
+	}
+
+	private Optional<Wallet> load() {
+		loads++;
+		return Optional.of(Wallet.builder()
+			.walletId(walletId)
+			.currentBalance(new BigDecimal("10"))
+			.createdAt(OffsetDateTime.now())
+			.updatedAt(OffsetDateTime.now())
+			.build());
+	}
+}
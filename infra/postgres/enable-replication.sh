@@ -0,0 +1,4 @@
+#!/bin/sh
+# Runs once on a fresh primary volume: lets the replica stream WAL with the application credentials.
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
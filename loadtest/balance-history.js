@@ -0,0 +1,33 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import crypto from 'k6/crypto';
+
+// /balance/history latency on a seeded ledger (loadtest/ledger-seed.sql with -v hot_rows=10000000).
+// HOT_SHARE of the iterations ask the single hot wallet, the rest a random seeded wallet; at is random in the last 24 months.
+
+var BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+var HOT_SHARE = parseFloat(__ENV.HOT_SHARE || '0.5');
+var WALLETS = 10000;
+var DAY_MS = 24 * 60 * 60 * 1000;
+
+export var options = {
+  vus: 20,
+  duration: '60s',
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+function uuid(seed) {
+  var hex = crypto.md5(seed, 'hex');
+  return `${hex.slice(0, 8)}-${hex.slice(8, 12)}-${hex.slice(12, 16)}-${hex.slice(16, 20)}-${hex.slice(20)}`;
+}
+
+export default function () {
+  var id = Math.random() < HOT_SHARE ? uuid('bench-hot-wallet') : uuid(`bench-wallet-${Math.floor(Math.random() * WALLETS) + 1}`);
+  var at = new Date(Date.now() - Math.floor(Math.random() * 730 * DAY_MS));
+  var res = http.get(`${BASE_URL}/wallet-api/api/v1/wallets/${id}/balance/history?at=${encodeURIComponent(at.toISOString())}`);
+
+  check(res, { 'balance returned': (r) => r.status === 200 });
+}
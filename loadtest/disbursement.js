@@ -0,0 +1,69 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter } from 'k6/metrics';
+import { uuidv4 } from 'https://jslib.k6.io/k6-utils/1.4.0/index.js';
+
+// Payroll benchmark: one treasury wallet paying PAYOUTS distinct employees per iteration. Compare the payouts_completed
+// rate between a loop of individual transfers (DISBURSEMENT_MODE=loop) and one disbursement per iteration:
+//   for mode in loop disbursement; do
+//     DISBURSEMENT_MODE=$mode K6_SCRIPT=disbursement.js docker compose -f infra/docker-compose.k6.yml run --rm k6
+//   done
+
+var BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+var MODE = __ENV.DISBURSEMENT_MODE || 'disbursement';
+var PAYOUTS = parseInt(__ENV.PAYOUTS || '5000', 10);
+
+var payoutsCompleted = new Counter('payouts_completed');
+
+export var options = {
+  vus: 4,
+  duration: '60s',
+  setupTimeout: '10m',
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+export function setup() {
+  var source = createWallet();
+  deposit(source, '1000000000.00');
+  var employees = [];
+  for (var i = 0; i < PAYOUTS; i++) employees.push(createWallet());
+  return { source, employees };
+}
+
+export default function (data) {
+  if (MODE === 'loop') {
+    for (var i = 0; i < data.employees.length; i++) {
+      var res = http.post(`${BASE_URL}/wallet-api/api/v1/transfers`,
+        JSON.stringify({ fromWalletId: data.source, toWalletId: data.employees[i], amount: '1.00' }), {
+          headers: { 'Content-Type': 'application/json', 'Idempotency-Key': uuidv4() },
+        });
+      if (check(res, { 'transfer successful': (r) => r.status === 200 })) payoutsCompleted.add(1);
+    }
+    return;
+  }
+
+  var payouts = data.employees.map((employee) => ({ toWalletId: employee, amount: '1.00' }));
+  var disbursement = http.post(`${BASE_URL}/wallet-api/api/v1/transfers/disbursements`,
+    JSON.stringify({ fromWalletId: data.source, payouts }), {
+      headers: { 'Content-Type': 'application/json', 'Idempotency-Key': uuidv4() },
+      timeout: '120s',
+    });
+  if (check(disbursement, { 'disbursement successful': (r) => r.status === 200 })) payoutsCompleted.add(payouts.length);
+}
+
+function createWallet() {
+  var res = http.post(`${BASE_URL}/wallet-api/api/v1/wallets`, '{}', {
+    headers: { 'Content-Type': 'application/json', 'Idempotency-Key': uuidv4() },
+  });
+  check(res, { 'wallet created': (r) => r.status === 201 });
+  return res.json().walletId;
+}
+
+function deposit(walletId, amount) {
+  http.post(`${BASE_URL}/wallet-api/api/v1/wallets/${walletId}/deposit`,
+    JSON.stringify({ amount }), {
+      headers: { 'Content-Type': 'application/json', 'Idempotency-Key': uuidv4() },
+    });
+}
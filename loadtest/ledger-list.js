@@ -0,0 +1,33 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import crypto from 'k6/crypto';
+
+// listLedger latency on a seeded ledger (loadtest/ledger-seed.sql).
+// Each iteration reads one page of a random seeded wallet over a random 7-day window in the last 24 months.
+
+var BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+var WALLETS = 10000;
+var DAY_MS = 24 * 60 * 60 * 1000;
+
+export var options = {
+  vus: 20,
+  duration: '60s',
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+function walletId(n) {
+  var hex = crypto.md5(`bench-wallet-${n}`, 'hex');
+  return `${hex.slice(0, 8)}-${hex.slice(8, 12)}-${hex.slice(12, 16)}-${hex.slice(16, 20)}-${hex.slice(20)}`;
+}
+
+export default function () {
+  var id = walletId(Math.floor(Math.random() * WALLETS) + 1);
+  var to = new Date(Date.now() - Math.floor(Math.random() * 723) * DAY_MS);
+  var from = new Date(to.getTime() - 7 * DAY_MS);
+  var res = http.get(`${BASE_URL}/wallet-api/api/v1/wallets/${id}/ledger?size=50`
+    + `&from=${encodeURIComponent(from.toISOString())}&to=${encodeURIComponent(to.toISOString())}`);
+
+  check(res, { 'ledger page returned': (r) => r.status === 200 });
+}
@@ -0,0 +1,70 @@
+-- Seeds a throwaway database with a large ledger for the partitioning benchmark (see README, "Ledger benchmark").
+-- Run against a freshly migrated database, never against real data:
+--   docker compose -f infra/docker-compose.yml exec -T db psql -U wallet_user -d wallet -v rows=100000000 < loadtest/ledger-seed.sql
+-- Rows are spread evenly over the last 24 months and over 10000 wallets whose ids are md5('bench-wallet-<n>'),
+-- which is what ledger-list.js queries. -v hot_rows=<n> adds n more entries, over the same 24 months, to the single
+-- wallet md5('bench-hot-wallet') that balance-history.js queries.
+\set ON_ERROR_STOP on
+\if :{?rows}
+\else
+  \set rows 100000000
+\endif
+\if :{?hot_rows}
+\else
+  \set hot_rows 0
+\endif
+
+-- on the partitioned schema the (empty) legacy partition covers all history; replace it with monthly partitions
+DO $$
+DECLARE
+  v_month timestamp := date_trunc('month', now() AT TIME ZONE 'UTC');
+  v_from  timestamp;
+BEGIN
+  IF to_regclass('ledger_entries_legacy') IS NULL THEN
+    RETURN;
+  END IF;
+  IF EXISTS (SELECT 1 FROM ledger_entries_legacy) THEN
+    RAISE EXCEPTION 'ledger_entries_legacy is not empty; seed a fresh database';
+  END IF;
+  ALTER TABLE ledger_entries DETACH PARTITION ledger_entries_legacy;
+  DROP TABLE ledger_entries_legacy;
+  FOR i IN 1..24 LOOP
+    v_from := v_month - make_interval(months => i);
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF ledger_entries FOR VALUES FROM (%L) TO (%L)',
+                   'ledger_entries_p' || to_char(v_from, 'YYYYMM'), v_from AT TIME ZONE 'UTC', (v_from + interval '1 month') AT TIME ZONE 'UTC');
+  END LOOP;
+END;
+$$;
+
+INSERT INTO wallets (wallet_id, current_balance)
+SELECT md5('bench-wallet-' || n)::uuid, 0
+FROM generate_series(1, 10000) AS n
+ON CONFLICT (wallet_id) DO NOTHING;
+
+INSERT INTO ledger_entries (tx_id, wallet_id, amount, current_balance, posting_type, created_at)
+SELECT gen_random_uuid(),
+       md5('bench-wallet-' || (n % 10000 + 1))::uuid,
+       1.0000,
+       (n / 10000 + 1)::numeric,
+       'deposit',
+       now() - interval '730 days' + (n::double precision / :rows) * interval '730 days'
+FROM generate_series(0, :rows - 1) AS n;
+
+INSERT INTO wallets (wallet_id, current_balance, created_at)
+VALUES (md5('bench-hot-wallet')::uuid, 0, now() - interval '731 days')
+ON CONFLICT (wallet_id) DO NOTHING;
+
+INSERT INTO ledger_entries (tx_id, wallet_id, amount, current_balance, posting_type, created_at)
+SELECT gen_random_uuid(),
+       md5('bench-hot-wallet')::uuid,
+       1.0000,
+       (n + 1)::numeric,
+       'deposit',
+       now() - interval '730 days' + (n::double precision / greatest(:hot_rows, 1)) * interval '730 days'
+FROM generate_series(0, :hot_rows - 1) AS n;
+
+UPDATE wallets w SET current_balance = s.total
+FROM (SELECT wallet_id, sum(amount) AS total FROM ledger_entries GROUP BY wallet_id) s
+WHERE w.wallet_id = s.wallet_id;
+
+ANALYZE ledger_entries;
@@ -0,0 +1,58 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { uuidv4 } from 'https://jslib.k6.io/k6-utils/1.4.0/index.js';
+
+// Contention benchmark for a single hot wallet.
+// Run once per shard count and compare the reported iterations/s, e.g.:
+//   SHARDS=0  K6_SCRIPT=sharded-wallet.js docker compose -f infra/docker-compose.k6.yml run --rm k6
+//   SHARDS=4  K6_SCRIPT=sharded-wallet.js docker compose -f infra/docker-compose.k6.yml run --rm k6
+//   SHARDS=16 K6_SCRIPT=sharded-wallet.js docker compose -f infra/docker-compose.k6.yml run --rm k6
+
+var BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+var SHARDS = parseInt(__ENV.SHARDS || '0', 10);
+
+export var options = {
+  vus: 100,
+  duration: '30s',
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+export function setup() {
+  var res = http.post(`${BASE_URL}/wallet-api/api/v1/wallets`, '{}', {
+    headers: { 'Content-Type': 'application/json', 'Idempotency-Key': uuidv4() },
+  });
+  check(res, { 'wallet created': (r) => r.status === 201 });
+  var walletId = res.json().walletId;
+
+  http.post(`${BASE_URL}/wallet-api/api/v1/wallets/${walletId}/deposit`,
+    JSON.stringify({ amount: '100000.00' }), {
+      headers: { 'Content-Type': 'application/json', 'Idempotency-Key': uuidv4() },
+    });
+
+  var shardRes = http.put(`${BASE_URL}/wallet-api/api/v1/wallets/${walletId}/sharding`,
+    JSON.stringify({ shardCount: SHARDS }), {
+      headers: { 'Content-Type': 'application/json' },
+    });
+  check(shardRes, { 'sharding configured': (r) => r.status === 200 });
+
+  return { walletId };
+}
+
+export default function (data) {
+  var operation = Math.random() < 0.5 ? 'deposit' : 'withdraw';
+  var res = http.post(`${BASE_URL}/wallet-api/api/v1/wallets/${data.walletId}/${operation}`,
+    JSON.stringify({ amount: '1.00' }), {
+      headers: { 'Content-Type': 'application/json', 'Idempotency-Key': uuidv4() },
+      tags: { operation },
+    });
+
+  check(res, { 'posting successful': (r) => r.status === 200 });
+}
+
+export function teardown(data) {
+  var res = http.get(`${BASE_URL}/wallet-api/api/v1/wallets/${data.walletId}`);
+  check(res, { 'balance retrieved': (r) => r.status === 200 });
+  check(res, { 'shard count applied': (r) => r.json().shardCount === SHARDS });
+}
@@ -0,0 +1,70 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter } from 'k6/metrics';
+import { uuidv4 } from 'https://jslib.k6.io/k6-utils/1.4.0/index.js';
+
+// Payout benchmark: one funding wallet paying many destinations. Compare the transfers_completed rate between
+// individual calls (BATCH_SIZE=1 uses POST /transfers) and batches of 10, 100 and 1000:
+//   for size in 1 10 100 1000; do
+//     BATCH_SIZE=$size K6_SCRIPT=transfer-batch.js docker compose -f infra/docker-compose.k6.yml run --rm k6
+//   done
+
+var BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+var BATCH_SIZE = parseInt(__ENV.BATCH_SIZE || '100', 10);
+var MODE = __ENV.BATCH_MODE || 'BEST_EFFORT';
+var DESTINATIONS = 50;
+
+var transfersCompleted = new Counter('transfers_completed');
+
+export var options = {
+  vus: 20,
+  duration: '30s',
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+export function setup() {
+  var source = createWallet();
+  deposit(source, '1000000000.00');
+  var destinations = [];
+  for (var i = 0; i < DESTINATIONS; i++) destinations.push(createWallet());
+  return { source, destinations };
+}
+
+export default function (data) {
+  var offset = Math.floor(Math.random() * DESTINATIONS);
+  var transfers = [];
+  for (var i = 0; i < BATCH_SIZE; i++) {
+    transfers.push({ fromWalletId: data.source, toWalletId: data.destinations[(offset + i) % DESTINATIONS], amount: '1.00' });
+  }
+
+  if (BATCH_SIZE === 1) {
+    var single = http.post(`${BASE_URL}/wallet-api/api/v1/transfers`, JSON.stringify(transfers[0]), {
+      headers: { 'Content-Type': 'application/json', 'Idempotency-Key': uuidv4() },
+    });
+    if (check(single, { 'transfer successful': (r) => r.status === 200 })) transfersCompleted.add(1);
+    return;
+  }
+
+  var res = http.post(`${BASE_URL}/wallet-api/api/v1/transfers/batch`, JSON.stringify({ mode: MODE, transfers }), {
+    headers: { 'Content-Type': 'application/json', 'Idempotency-Key': uuidv4() },
+    timeout: '60s',
+  });
+  if (check(res, { 'batch processed': (r) => r.status === 200 })) transfersCompleted.add(res.json().completed);
+}
+
+function createWallet() {
+  var res = http.post(`${BASE_URL}/wallet-api/api/v1/wallets`, '{}', {
+    headers: { 'Content-Type': 'application/json', 'Idempotency-Key': uuidv4() },
+  });
+  check(res, { 'wallet created': (r) => r.status === 201 });
+  return res.json().walletId;
+}
+
+function deposit(walletId, amount) {
+  http.post(`${BASE_URL}/wallet-api/api/v1/wallets/${walletId}/deposit`,
+    JSON.stringify({ amount }), {
+      headers: { 'Content-Type': 'application/json', 'Idempotency-Key': uuidv4() },
+    });
+}
@@ -0,0 +1,23 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { uuidv4 } from 'https://jslib.k6.io/k6-utils/1.4.0/index.js';
+
+var BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+
+// withdrawals against random wallet ids, as sent by clients probing for wallets
+export var options = {
+  vus: 50,
+  iterations: 10000,
+  thresholds: {
+    http_req_duration: ['p(95)<1000'],
+  },
+};
+
+export default function () {
+  var res = http.post(`${BASE_URL}/wallet-api/api/v1/wallets/${uuidv4()}/withdraw`,
+    JSON.stringify({ amount: '1.00' }), {
+      headers: { 'Content-Type': 'application/json', 'Idempotency-Key': uuidv4() },
+    });
+
+  check(res, { 'wallet not found': (r) => r.status === 404 });
+}